@@ -0,0 +1,177 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.AsyncLoadingCache;
+import com.matthew.maps.CacheLoader;
+import com.matthew.maps.ConcurrentBucketingMap;
+
+/**
+ * Loads a batch of keys that are all missing from an {@link AsyncLoadingCache}, from a stub backend that takes a round trip per call on
+ * top of a little time per key. {@code GET} asks for the keys one by one, which is a round trip per key even though the loads overlap on
+ * the executor, while {@code GET_ALL} asks for them with one {@link AsyncLoadingCache#getAll(java.util.Collection)}, which is one round
+ * trip for the whole batch.
+ *
+ * Running {@link #main(String[])} shows the stampede that the cache prevents: a lot of threads miss on the same keys at once, and it
+ * prints how many times the backend was called by the cache, and by a {@link ConcurrentBucketingMap} that each thread fills in itself
+ * whenever it misses.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class AsyncLoadingCacheBenchmark {
+
+	private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+	private static final long NANOS_PER_KEY = TimeUnit.MICROSECONDS.toNanos(1);
+	private static final int NUMBER_OF_LOADER_THREADS = 8;
+
+	@Param({ "GET", "GET_ALL" })
+	private String implementation;
+
+	@Param({ "16", "256" })
+	private int batchSize;
+
+	private ExecutorService executor;
+	private AsyncLoadingCache<Integer, Integer> cache;
+	private List<Integer> keys;
+
+	@Setup
+	public void setUp() {
+		this.executor = Executors.newFixedThreadPool(NUMBER_OF_LOADER_THREADS);
+		this.cache = new AsyncLoadingCache<>(new Backend(), 1, 0, TimeUnit.MINUTES, this.executor);
+		this.keys = new ArrayList<>();
+		for (int i = 0; i < this.batchSize; i++) {
+			this.keys.add(i);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.executor.shutdown();
+	}
+
+	@Benchmark
+	public Object loadBatch() {
+		this.cache.invalidateAll();
+		if (this.implementation.equals("GET_ALL")) {
+			return this.cache.getAll(this.keys).join();
+		}
+
+		List<CompletableFuture<Integer>> futures = new ArrayList<>(this.batchSize);
+		for (Integer key : this.keys) {
+			futures.add(this.cache.get(key));
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+	}
+
+	/**
+	 * A backend that takes a round trip per call and a little longer for every key it loads, and counts its calls
+	 */
+	private static final class Backend implements CacheLoader<Integer, Integer> {
+
+		private final AtomicLong calls = new AtomicLong();
+
+		@Override
+		public Integer load(Integer key) {
+			this.calls.incrementAndGet();
+			LockSupport.parkNanos(ROUND_TRIP_NANOS + NANOS_PER_KEY);
+			return key;
+		}
+
+		@Override
+		public Map<Integer, Integer> loadAll(Set<? extends Integer> keys) {
+			this.calls.incrementAndGet();
+			LockSupport.parkNanos(ROUND_TRIP_NANOS + NANOS_PER_KEY * keys.size());
+			Map<Integer, Integer> values = new HashMap<>();
+			for (Integer key : keys) {
+				values.put(key, key);
+			}
+			return values;
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int numberOfThreads = 32;
+		int numberOfKeys = 1_000;
+		ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_LOADER_THREADS);
+
+		Backend cacheBackend = new Backend();
+		AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(cacheBackend, 1, 0, TimeUnit.MINUTES, executor);
+		stampede(numberOfThreads, numberOfKeys, key -> cache.get(key).join());
+
+		Backend mapBackend = new Backend();
+		ConcurrentMap<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		stampede(numberOfThreads, numberOfKeys, key -> {
+			Integer value = map.get(key);
+			if (value == null) {
+				value = mapBackend.load(key);
+				map.put(key, value);
+			}
+		});
+
+		executor.shutdown();
+		System.out.printf("%d threads missing on the same %d keys: %d backend calls with the AsyncLoadingCache, %d without%n",
+				numberOfThreads, numberOfKeys, cacheBackend.calls.get(), mapBackend.calls.get());
+	}
+
+	private static void stampede(int numberOfThreads, int numberOfKeys, KeyTask task) throws InterruptedException {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < numberOfThreads; i++) {
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int key = 0; key < numberOfKeys; key++) {
+					task.run(key);
+				}
+			}));
+		}
+
+		threads.forEach(Thread::start);
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	@FunctionalInterface
+	private interface KeyTask {
+
+		void run(int key);
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.BatchMap;
+
+/**
+ * Compares the batched {@link BatchMap#getAll(java.util.Collection, Object[])} and {@link BatchMap#putAll(Object[], Object[])} with
+ * calling get and put in a loop over the same batch. The batch is a random set of keys that are all in the map, so the puts only replace
+ * values and the map doesn't grow, and the keys are other {@code Integer}s than the ones in the map, so every lookup has to call
+ * {@code equals}. The last pair puts the batch into a new, empty map instead, where a batch of puts grows the map once up front rather
+ * than every time it fills up. The time is per batch, so divide it by the batch size for the time per key.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class BatchOperationBenchmark {
+
+	private static final int NUMBER_OF_BATCHES = 16;
+
+	@Param({ "BUCKETING_MAP", "RECURSIVE_MAP" })
+	private MapImplementation implementation;
+
+	@Param({ "1000000" })
+	private int size;
+
+	@Param({ "16", "256", "4096", "65536" })
+	private int batchSize;
+
+	private BatchMap<Integer, Integer> map;
+	private Integer[][] keys;
+	private List<List<Integer>> keyLists;
+	private Integer[] values;
+	private Integer[] output;
+	private int batchIndex = 0;
+
+	@Setup
+	public void setUp() {
+		this.map = (BatchMap<Integer, Integer>) this.implementation.<Integer, Integer> create();
+		for (int i = 0; i < this.size; i++) {
+			this.map.put(i, i);
+		}
+
+		SplittableRandom random = new SplittableRandom(25);
+		this.keys = new Integer[NUMBER_OF_BATCHES][this.batchSize];
+		this.keyLists = new ArrayList<>();
+		for (Integer[] batch : this.keys) {
+			for (int i = 0; i < batch.length; i++) {
+				batch[i] = Integer.valueOf(random.nextInt(this.size));
+			}
+			this.keyLists.add(Arrays.asList(batch));
+		}
+
+		this.values = new Integer[this.batchSize];
+		Arrays.fill(this.values, -1);
+		this.output = new Integer[this.batchSize];
+	}
+
+	@Benchmark
+	public Object loopGet() {
+		int i = 0;
+		for (Integer key : this.keyLists.get(nextBatchIndex())) {
+			this.output[i++] = this.map.get(key);
+		}
+		return this.output;
+	}
+
+	@Benchmark
+	public Object getAll() {
+		return this.map.getAll(this.keyLists.get(nextBatchIndex()), this.output);
+	}
+
+	@Benchmark
+	public Object loopPut() {
+		Integer[] batch = nextBatch();
+		for (int i = 0; i < batch.length; i++) {
+			this.map.put(batch[i], this.values[i]);
+		}
+		return this.map;
+	}
+
+	@Benchmark
+	public Object putAll() {
+		this.map.putAll(nextBatch(), this.values);
+		return this.map;
+	}
+
+	@Benchmark
+	public Object loopPutIntoEmptyMap() {
+		Map<Integer, Integer> map = this.implementation.create();
+		Integer[] batch = nextBatch();
+		for (int i = 0; i < batch.length; i++) {
+			map.put(batch[i], this.values[i]);
+		}
+		return map;
+	}
+
+	@Benchmark
+	public Object putAllIntoEmptyMap() {
+		BatchMap<Integer, Integer> map = (BatchMap<Integer, Integer>) this.implementation.<Integer, Integer> create();
+		map.putAll(nextBatch(), this.values);
+		return map;
+	}
+
+	private Integer[] nextBatch() {
+		return this.keys[nextBatchIndex()];
+	}
+
+	private int nextBatchIndex() {
+		int batchIndex = this.batchIndex;
+		this.batchIndex = (batchIndex + 1) % NUMBER_OF_BATCHES;
+		return batchIndex;
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.BoundedCache;
+import com.matthew.maps.BoundedCache.Policy;
+
+/**
+ * Replays a trace of keys against a cache that loads every key it misses. The trace is drawn from a Zipf distribution over a million
+ * keys, with a scan of keys that are never used again every so often, which is what pushes the popular keys out of an LRU cache.
+ * {@link #access()} measures the throughput of the {@link BoundedCache} with either policy, and of a {@code LinkedHashMap} in access
+ * order that evicts its eldest entry, which is the usual way of bolting LRU eviction onto a map. Running {@link #main(String[])} prints
+ * the hit ratio each of them gets on the trace.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class BoundedCacheBenchmark {
+
+	private static final int TRACE_LENGTH = 1 << 22;
+	private static final int NUMBER_OF_KEYS = 1 << 20;
+	private static final double ZIPF_EXPONENT = 0.9d;
+	private static final int SCAN_INTERVAL = 50_000;
+	private static final int SCAN_LENGTH = 20_000;
+
+	@Param({ "LINKED_HASH_MAP", "LRU", "W_TINY_LFU" })
+	private String implementation;
+
+	@Param({ "10000", "100000" })
+	private int maximumSize;
+
+	private Map<Long, Long> cache;
+	private Long[] trace;
+	private int traceIndex = 0;
+
+	@Setup
+	public void setUp() {
+		this.cache = create(this.implementation, this.maximumSize);
+		this.trace = trace();
+	}
+
+	@Benchmark
+	public Object access() {
+		Long key = this.trace[this.traceIndex];
+		this.traceIndex = (this.traceIndex + 1) & (TRACE_LENGTH - 1);
+		return load(this.cache, key);
+	}
+
+	private static Long load(Map<Long, Long> cache, Long key) {
+		Long value = cache.get(key);
+		if (value == null) {
+			value = key;
+			cache.put(key, value);
+		}
+		return value;
+	}
+
+	private static Map<Long, Long> create(String implementation, int maximumSize) {
+		switch (implementation) {
+		case "LRU":
+			return new BoundedCache<>(maximumSize, Policy.LRU);
+		case "W_TINY_LFU":
+			return new BoundedCache<>(maximumSize, Policy.W_TINY_LFU);
+		default:
+			return new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+					return size() > maximumSize;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Draws the keys of the trace by their rank in a Zipf distribution, and every {@link #SCAN_INTERVAL} keys adds a scan of
+	 * {@link #SCAN_LENGTH} keys that appear nowhere else in the trace. The scan keys count up from the last of the Zipf keys, since a
+	 * negative {@code Long} has the same hash code as a positive one, which would make them look as popular as the keys they collide with.
+	 */
+	private static Long[] trace() {
+		double[] cumulative = new double[NUMBER_OF_KEYS];
+		double total = 0;
+		for (int rank = 0; rank < NUMBER_OF_KEYS; rank++) {
+			total += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+			cumulative[rank] = total;
+		}
+
+		SplittableRandom random = new SplittableRandom(21);
+		Long[] trace = new Long[TRACE_LENGTH];
+		long scanKey = NUMBER_OF_KEYS;
+		for (int i = 0; i < TRACE_LENGTH; i++) {
+			if (i % (SCAN_INTERVAL + SCAN_LENGTH) >= SCAN_INTERVAL) {
+				trace[i] = scanKey++;
+				continue;
+			}
+
+			int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+			trace[i] = (long) (rank < 0 ? -rank - 1 : rank);
+		}
+		return trace;
+	}
+
+	public static void main(String[] args) {
+		Long[] trace = trace();
+		for (int maximumSize : new int[] { 10_000, 100_000 }) {
+			for (String implementation : new String[] { "LINKED_HASH_MAP", "LRU", "W_TINY_LFU" }) {
+				Map<Long, Long> cache = create(implementation, maximumSize);
+				long hits = 0;
+				for (Long key : trace) {
+					if (cache.containsKey(key)) {
+						hits++;
+					}
+					load(cache, key);
+				}
+
+				System.out.printf("%s with %d entries: %.2f%% hits%n", implementation, maximumSize, 100d * hits / TRACE_LENGTH);
+			}
+		}
+	}
+
+}
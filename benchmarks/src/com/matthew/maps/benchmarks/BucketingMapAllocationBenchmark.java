@@ -0,0 +1,109 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.matthew.maps.BucketingMap;
+
+/**
+ * Verifies that lookups on a {@link BucketingMap} don't allocate. Running {@link #main(String[])} runs the lookups with the
+ * GC profiler and fails if any of them allocated more than {@link #MAXIMUM_BYTES_PER_OPERATION} bytes per operation on average.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BucketingMapAllocationBenchmark {
+	
+	/**
+	 * The profiler reports a tiny non-zero rate even for code that never allocates, because of the harness itself.
+	 */
+	private static final double MAXIMUM_BYTES_PER_OPERATION = 0.1d;
+	
+	private static final int NUMBER_OF_PROBES = 1 << 12;
+	
+	@Param({ "INTEGER", "STRING", "COMPOSITE" })
+	private KeyType keyType;
+	
+	@Param({ "100000" })
+	private int size;
+	
+	private Map<Object, Object> map;
+	private Object[] probes;
+	private int probeIndex = 0;
+	
+	@Setup
+	public void setUp() {
+		this.map = new BucketingMap<>();
+		for (int i = 0; i < this.size; i++) {
+			this.map.put(this.keyType.key(i), i);
+		}
+		
+		// Half hits and half misses, so both ends of the chain walk are covered
+		Random random = new Random(42);
+		this.probes = new Object[NUMBER_OF_PROBES];
+		for (int i = 0; i < NUMBER_OF_PROBES; i++) {
+			this.probes[i] = this.keyType.key(random.nextInt(this.size * 2));
+		}
+	}
+	
+	private Object nextProbe() {
+		Object probe = this.probes[this.probeIndex];
+		this.probeIndex = (this.probeIndex + 1) & (NUMBER_OF_PROBES - 1);
+		return probe;
+	}
+	
+	@Benchmark
+	public Object get() {
+		return this.map.get(nextProbe());
+	}
+	
+	@Benchmark
+	public boolean containsKey() {
+		return this.map.containsKey(nextProbe());
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(BucketingMapAllocationBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		
+		Collection<RunResult> runResults = new Runner(options).run();
+		for (RunResult runResult : runResults) {
+			@SuppressWarnings("rawtypes")
+			Result allocationRate = runResult.getSecondaryResults().get("gc.alloc.rate.norm");
+			if (allocationRate.getScore() > MAXIMUM_BYTES_PER_OPERATION) {
+				throw new IllegalStateException(runResult.getParams().getBenchmark() + " " + runResult.getParams()
+						+ " allocated " + allocationRate.getScore() + " bytes per operation.");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes to load an empty map with {@code size} entries, resizes included. Every invocation starts
+ * from a fresh map, so this is measured as single shots rather than as a steady state.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class BulkLoadBenchmark {
+	
+	@Param({ "HASH_MAP", "BUCKETING_MAP", "OPEN_ADDRESSING_MAP" })
+	private MapImplementation implementation;
+	
+	@Param({ "10000000" })
+	private int size;
+	
+	@Param({ "INTEGER" })
+	private KeyType keyType;
+	
+	private Object[] keys;
+	
+	@Setup
+	public void setUp() {
+		this.keys = new Object[this.size];
+		for (int i = 0; i < this.size; i++) {
+			this.keys[i] = this.keyType.key(i);
+		}
+	}
+	
+	@Benchmark
+	public Map<Object, Object> load() {
+		Map<Object, Object> map = this.implementation.create();
+		for (Object key : this.keys) {
+			map.put(key, key);
+		}
+		return map;
+	}
+
+}
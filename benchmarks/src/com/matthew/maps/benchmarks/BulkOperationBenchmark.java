@@ -0,0 +1,76 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.ParallelBulkMap;
+
+/**
+ * Compares the parallel bulk operations of a {@link ParallelBulkMap} with doing the same through a parallel stream over the entry set.
+ * The search looks for a key halfway through the map, so it shows how much of the map is left alone once the key has been found.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class BulkOperationBenchmark {
+
+	@Param({ "BUCKETING_MAP", "RECURSIVE_MAP" })
+	private MapImplementation implementation;
+
+	@Param({ "1000000" })
+	private int size;
+
+	@Param({ "10000" })
+	private long parallelismThreshold;
+
+	private ParallelBulkMap<Integer, Integer> map;
+	private Integer target;
+
+	@Setup
+	public void setUp() {
+		this.map = (ParallelBulkMap<Integer, Integer>) this.implementation.<Integer, Integer> create();
+		for (int i = 0; i < this.size; i++) {
+			this.map.put(i, i);
+		}
+		this.target = this.size / 2;
+	}
+
+	@Benchmark
+	public long streamSum() {
+		return this.map.entrySet().parallelStream().mapToLong(Entry::getValue).sum();
+	}
+
+	@Benchmark
+	public long reduceValuesToLong() {
+		return this.map.reduceValuesToLong(this.parallelismThreshold, Integer::longValue, 0, Long::sum);
+	}
+
+	@Benchmark
+	public Object streamSearch() {
+		return this.map.entrySet().parallelStream().filter(entry -> entry.getKey().equals(this.target)).findAny().orElse(null);
+	}
+
+	@Benchmark
+	public Object search() {
+		return this.map.search(this.parallelismThreshold, (key, value) -> key.equals(this.target) ? value : null);
+	}
+
+}
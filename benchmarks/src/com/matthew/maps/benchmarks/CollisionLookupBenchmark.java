@@ -0,0 +1,105 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures lookups when every key in the map has the same hash code, both for keys that are {@link Comparable} (which both
+ * {@link java.util.HashMap} and {@link com.matthew.maps.RecursiveMap} can binary search) and keys that aren't.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionLookupBenchmark {
+	
+	private static final int NUMBER_OF_PROBES = 1 << 12;
+	
+	@Param({ "HASH_MAP", "RECURSIVE_MAP" })
+	private MapImplementation implementation;
+	
+	@Param({ "10", "100", "1000", "10000" })
+	private int numberOfCollidingKeys;
+	
+	@Param({ "true", "false" })
+	private boolean comparable;
+	
+	private Map<Object, Object> map;
+	private Object[] probes;
+	private int probeIndex = 0;
+	
+	@Setup
+	public void setUp() {
+		this.map = this.implementation.create();
+		for (int i = 0; i < this.numberOfCollidingKeys; i++) {
+			this.map.put(key(i), i);
+		}
+		
+		Random random = new Random(42);
+		this.probes = new Object[NUMBER_OF_PROBES];
+		for (int i = 0; i < NUMBER_OF_PROBES; i++) {
+			this.probes[i] = key(random.nextInt(this.numberOfCollidingKeys));
+		}
+	}
+	
+	private Object key(int id) {
+		return this.comparable ? new ComparableCollidingKey(id) : new CollidingKey(id);
+	}
+	
+	@Benchmark
+	public Object get() {
+		Object probe = this.probes[this.probeIndex];
+		this.probeIndex = (this.probeIndex + 1) & (NUMBER_OF_PROBES - 1);
+		return this.map.get(probe);
+	}
+	
+	public static class CollidingKey {
+		
+		final int id;
+		
+		CollidingKey(int id) {
+			this.id = id;
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			return other != null && other.getClass() == this.getClass() && ((CollidingKey) other).id == this.id;
+		}
+		
+		@Override
+		public int hashCode() {
+			return 42;
+		}
+	}
+	
+	public static final class ComparableCollidingKey extends CollidingKey implements Comparable<ComparableCollidingKey> {
+		
+		ComparableCollidingKey(int id) {
+			super(id);
+		}
+		
+		@Override
+		public int compareTo(ComparableCollidingKey other) {
+			return Integer.compare(this.id, other.id);
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of one map shared by many threads, with a mix of reads and writes. Every operation picks a random key
+ * out of twice as many keys as the map starts with; a read is a get, and a write is either a put or a remove, so the size of the
+ * map stays around where it started.
+ * 
+ * The number of threads is JMH's {@code -t} option, and running {@link #main(String[])} runs the whole suite for 1 up to 64 threads.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ConcurrentMapBenchmark {
+	
+	private static final int[] THREAD_COUNTS = { 1, 2, 4, 8, 16, 32, 64 };
+	
+	@Param({ "CONCURRENT_HASH_MAP", "SYNCHRONIZED_BUCKETING_MAP", "CONCURRENT_BUCKETING_MAP", "CONCURRENT_RECURSIVE_MAP" })
+	private ConcurrentMapImplementation implementation;
+	
+	@Param({ "1000000" })
+	private int size;
+	
+	@Param({ "0", "10", "50", "100" })
+	private int writePercentage;
+	
+	private Map<Integer, Integer> map;
+	private Integer[] keys;
+	
+	@Setup
+	public void setUp() {
+		this.map = this.implementation.create();
+		this.keys = new Integer[this.size * 2];
+		for (int i = 0; i < this.keys.length; i++) {
+			this.keys[i] = i;
+		}
+		
+		for (int i = 0; i < this.size; i++) {
+			this.map.put(this.keys[i], this.keys[i]);
+		}
+	}
+	
+	@State(Scope.Thread)
+	public static class ThreadState {
+		
+		private final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+	}
+	
+	@Benchmark
+	public Object mixed(ThreadState threadState) {
+		Integer key = this.keys[threadState.random.nextInt(this.keys.length)];
+		int operation = threadState.random.nextInt(200);
+		
+		if (operation >= this.writePercentage * 2) {
+			return this.map.get(key);
+		}
+		return (operation & 1) == 0 ? this.map.put(key, key) : this.map.remove(key);
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		for (int threadCount : THREAD_COUNTS) {
+			Options options = new OptionsBuilder()
+					.include(ConcurrentMapBenchmark.class.getSimpleName())
+					.threads(threadCount)
+					.build();
+			
+			new Runner(options).run();
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.ConcurrentBucketingMap;
+import com.matthew.maps.ConcurrentRecursiveMap;
+
+/**
+ * The thread safe map implementations that the concurrent benchmarks can be run against. {@link ConcurrentHashMap} is always included
+ * as the baseline, along with a {@link BucketingMap} behind {@link Collections#synchronizedMap(Map)} to show what one lock costs.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+public enum ConcurrentMapImplementation {
+	
+	CONCURRENT_HASH_MAP {
+		@Override
+		public <K, V> Map<K, V> create() {
+			return new ConcurrentHashMap<>();
+		}
+	},
+	
+	SYNCHRONIZED_BUCKETING_MAP {
+		@Override
+		public <K, V> Map<K, V> create() {
+			return Collections.synchronizedMap(new BucketingMap<>());
+		}
+	},
+	
+	CONCURRENT_BUCKETING_MAP {
+		@Override
+		public <K, V> Map<K, V> create() {
+			return new ConcurrentBucketingMap<>();
+		}
+	},
+	
+	CONCURRENT_RECURSIVE_MAP {
+		@Override
+		public <K, V> Map<K, V> create() {
+			return new ConcurrentRecursiveMap<>();
+		}
+	};
+	
+	/**
+	 * Creates a new, empty map of this implementation
+	 * 
+	 * @return The new map
+	 */
+	public abstract <K, V> Map<K, V> create();
+
+}
@@ -0,0 +1,85 @@
+package com.matthew.maps.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.DurableMap;
+import com.matthew.maps.Serializer;
+
+/**
+ * Compares the puts of a {@link BucketingMap} with those of a {@link DurableMap} around one, syncing the log every 10 milliseconds and
+ * syncing it on every put. The puts go round a fixed set of keys, so the log keeps getting compacted along the way.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class DurableMapBenchmark {
+
+	private static final int NUMBER_OF_KEYS = 1 << 20;
+
+	@Param({ "IN_MEMORY", "GROUP_COMMIT", "SYNC_EVERY_PUT" })
+	private String mode;
+
+	private Path directory;
+	private Map<Long, Long> map;
+	private long next = 0;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.directory = Files.createTempDirectory("durable-map");
+		switch (this.mode) {
+		case "GROUP_COMMIT":
+			this.map = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.longs(), Serializer.longs(), 10, 64L << 20);
+			break;
+		case "SYNC_EVERY_PUT":
+			this.map = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.longs(), Serializer.longs(), 0, 64L << 20);
+			break;
+		default:
+			this.map = new BucketingMap<>();
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		if (this.map instanceof DurableMap) {
+			((DurableMap<Long, Long>) this.map).close();
+		}
+		try (Stream<Path> files = Files.walk(this.directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Benchmark
+	public Object put() {
+		long value = this.next++;
+		return this.map.put(value & (NUMBER_OF_KEYS - 1), value);
+	}
+
+}
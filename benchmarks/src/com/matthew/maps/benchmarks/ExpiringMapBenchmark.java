@@ -0,0 +1,98 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.ExpiringMap;
+
+/**
+ * Keeps millions of entries expiring continuously, and measures a millisecond's worth of it: the entries that are put in that
+ * millisecond, and the purge of the ones that expired in it. Every entry lives for a second, so a thousandth of the map expires every
+ * millisecond. The {@link ExpiringMap} purges with its timing wheel, while the baseline is a {@link BucketingMap} that keeps the expiry
+ * time as the value and scans every bucket for the entries that have expired. The clock is simulated, so that every millisecond costs the
+ * same however long the benchmark itself takes.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ExpiringMapBenchmark {
+
+	private static final int TIME_TO_LIVE_MILLIS = 1_000;
+	private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Param({ "TIMING_WHEEL", "BUCKET_SCAN" })
+	private String implementation;
+
+	@Param({ "1000000", "4000000" })
+	private int size;
+
+	private long now = 0;
+	private long nextKey = 0;
+	private int entriesPerMillisecond;
+
+	private ExpiringMap<Long, Long> expiringMap;
+	private Map<Long, Long> bucketingMap;
+
+	@Setup
+	public void setUp() {
+		this.entriesPerMillisecond = this.size / TIME_TO_LIVE_MILLIS;
+		if (this.implementation.equals("TIMING_WHEEL")) {
+			this.expiringMap = new ExpiringMap<>(TIME_TO_LIVE_MILLIS, TimeUnit.MILLISECONDS, 0, () -> this.now);
+		} else {
+			this.bucketingMap = new BucketingMap<>();
+		}
+
+		for (int i = 0; i < TIME_TO_LIVE_MILLIS; i++) {
+			this.now += MILLISECOND;
+			putEntries();
+		}
+	}
+
+	@Benchmark
+	public int millisecond() {
+		this.now += MILLISECOND;
+		putEntries();
+		return purge();
+	}
+
+	private void putEntries() {
+		for (int i = 0; i < this.entriesPerMillisecond; i++) {
+			long key = this.nextKey++;
+			if (this.expiringMap != null) {
+				this.expiringMap.put(key, key);
+			} else {
+				this.bucketingMap.put(key, this.now + TIME_TO_LIVE_MILLIS * MILLISECOND);
+			}
+		}
+	}
+
+	private int purge() {
+		if (this.expiringMap != null) {
+			return this.expiringMap.purge();
+		}
+
+		int sizeBefore = this.bucketingMap.size();
+		this.bucketingMap.values().removeIf(expiryNanos -> expiryNanos <= this.now);
+		return sizeBefore - this.bucketingMap.size();
+	}
+
+}
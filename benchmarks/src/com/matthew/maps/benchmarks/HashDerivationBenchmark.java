@@ -0,0 +1,76 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.Hashing;
+
+/**
+ * Measures how long it takes to work out the bucket of a hash code at every level of a {@link com.matthew.maps.RecursiveMap}, comparing
+ * the old derivation (multiplying by pi and the depth in floating point) to mixing the hash code once and taking 5 bits per level.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashDerivationBenchmark {
+	
+	private static final int NUMBER_OF_HASH_CODES = 1 << 12;
+	private static final int BUCKETS_PER_LEVEL = 32;
+	private static final int LEVELS = 7;
+	
+	private int[] hashCodes;
+	private int hashCodeIndex = 0;
+	
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		this.hashCodes = new int[NUMBER_OF_HASH_CODES];
+		for (int i = 0; i < NUMBER_OF_HASH_CODES; i++) {
+			this.hashCodes[i] = random.nextInt();
+		}
+	}
+	
+	private int nextHashCode() {
+		int hashCode = this.hashCodes[this.hashCodeIndex];
+		this.hashCodeIndex = (this.hashCodeIndex + 1) & (NUMBER_OF_HASH_CODES - 1);
+		return hashCode;
+	}
+	
+	@Benchmark
+	public int piPerDepth() {
+		int hashCode = nextHashCode();
+		int bits = 0;
+		for (int depth = 1; depth <= LEVELS; depth++) {
+			bits |= 1 << Math.floorMod((int) (long) (hashCode * Math.PI * depth), BUCKETS_PER_LEVEL);
+		}
+		return bits;
+	}
+	
+	@Benchmark
+	public int shiftAndMask() {
+		int hash = Hashing.mix(nextHashCode());
+		int bits = 0;
+		for (int level = 0; level < LEVELS; level++) {
+			bits |= 1 << Hashing.levelIndex(hash, level);
+		}
+		return bits;
+	}
+
+}
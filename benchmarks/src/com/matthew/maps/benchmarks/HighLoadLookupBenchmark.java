@@ -0,0 +1,93 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.OpenAddressingMap;
+import com.matthew.maps.SwissTableMap;
+
+/**
+ * Compares lookups on tables that are filled to a load factor of 0.875, with mostly missing keys. The open addressing maps are sized
+ * so that they are exactly at that load factor without having resized, and the {@link BucketingMap} holds the same number of entries
+ * with its default settings.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class HighLoadLookupBenchmark {
+	
+	private static final double LOAD_FACTOR = 0.875d;
+	private static final int NUMBER_OF_PROBES = 1 << 16;
+	
+	@Param({ "BUCKETING_MAP", "OPEN_ADDRESSING_MAP", "SWISS_TABLE_MAP" })
+	private MapImplementation implementation;
+	
+	@Param({ "1024", "1048576", "16777216" })
+	private int capacity;
+	
+	@Param({ "INTEGER", "STRING" })
+	private KeyType keyType;
+	
+	@Param({ "0.0", "0.1", "0.5" })
+	private double hitRatio;
+	
+	private Map<Object, Object> map;
+	private Object[] probes;
+	private int probeIndex = 0;
+	
+	@Setup
+	public void setUp() {
+		switch (this.implementation) {
+			case OPEN_ADDRESSING_MAP:
+				this.map = new OpenAddressingMap<>(this.capacity, LOAD_FACTOR);
+				break;
+			case SWISS_TABLE_MAP:
+				this.map = new SwissTableMap<>(this.capacity, LOAD_FACTOR);
+				break;
+			default:
+				this.map = this.implementation.create();
+		}
+		
+		int size = (int) (this.capacity * LOAD_FACTOR);
+		for (int i = 0; i < size; i++) {
+			this.map.put(this.keyType.key(i), i);
+		}
+		
+		Random random = new Random(42);
+		this.probes = new Object[NUMBER_OF_PROBES];
+		for (int i = 0; i < NUMBER_OF_PROBES; i++) {
+			int index = random.nextDouble() < this.hitRatio 
+					? random.nextInt(size) 
+					: size + random.nextInt(size);
+			this.probes[i] = this.keyType.key(index);
+		}
+	}
+	
+	@Benchmark
+	public Object get() {
+		Object probe = this.probes[this.probeIndex];
+		this.probeIndex = (this.probeIndex + 1) & (NUMBER_OF_PROBES - 1);
+		return this.map.get(probe);
+	}
+
+}
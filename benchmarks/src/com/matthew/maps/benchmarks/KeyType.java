@@ -0,0 +1,69 @@
+package com.matthew.maps.benchmarks;
+
+/**
+ * The kinds of keys the benchmarks are run with. Every key type produces a distinct key for each distinct index, so that
+ * indexes in {@code [0, size)} can be used as the keys that are present in a map and anything above that as keys that are missing.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+public enum KeyType {
+	
+	INTEGER {
+		@Override
+		public Object key(int index) {
+			return index;
+		}
+	},
+	
+	STRING {
+		@Override
+		public Object key(int index) {
+			return "key-" + index;
+		}
+	},
+	
+	COMPOSITE {
+		@Override
+		public Object key(int index) {
+			return new CompositeKey(index % 1024, index);
+		}
+	};
+	
+	/**
+	 * Creates the key for the given index
+	 * 
+	 * @param index The index of the key
+	 * @return The key
+	 */
+	public abstract Object key(int index);
+	
+	/**
+	 * A key made up of multiple fields, like the tenant and id pairs we key most of our tables by.
+	 */
+	public static final class CompositeKey {
+		
+		private final int tenant;
+		private final long id;
+		
+		public CompositeKey(int tenant, long id) {
+			this.tenant = tenant;
+			this.id = id;
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) return true;
+			if (!(other instanceof CompositeKey)) return false;
+			
+			CompositeKey otherKey = (CompositeKey) other;
+			return this.tenant == otherKey.tenant && this.id == otherKey.id;
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * this.tenant + Long.hashCode(this.id);
+		}
+	}
+
+}
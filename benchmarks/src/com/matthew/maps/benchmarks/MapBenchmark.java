@@ -0,0 +1,122 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the basic {@link Map} operations of every {@link MapImplementation} across map sizes, key types and hit ratios.
+ * Every operation is given a key from a pre-generated array of probes, of which {@code hitRatio} are present in the map.
+ * 
+ * {@link #put()} and {@link #remove()} leave the map the way they found it, so a missed put also pays for a remove and a successful
+ * remove also pays for a put.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class MapBenchmark {
+	
+	private static final int NUMBER_OF_PROBES = 1 << 16;
+	
+	@Param({ "HASH_MAP", "BUCKETING_MAP", "RECURSIVE_MAP", "OPEN_ADDRESSING_MAP", "SWISS_TABLE_MAP" })
+	private MapImplementation implementation;
+	
+	@Param({ "100", "1000", "10000", "100000", "1000000", "10000000" })
+	private int size;
+	
+	@Param({ "INTEGER", "STRING", "COMPOSITE" })
+	private KeyType keyType;
+	
+	@Param({ "1.0", "0.5", "0.0" })
+	private double hitRatio;
+	
+	private Map<Object, Object> map;
+	private Object[] probes;
+	private int probeIndex = 0;
+	
+	@Setup
+	public void setUp() {
+		this.map = this.implementation.create();
+		for (int i = 0; i < this.size; i++) {
+			this.map.put(this.keyType.key(i), i);
+		}
+		
+		Random random = new Random(42);
+		this.probes = new Object[NUMBER_OF_PROBES];
+		for (int i = 0; i < NUMBER_OF_PROBES; i++) {
+			int index = random.nextDouble() < this.hitRatio 
+					? random.nextInt(this.size) 
+					: this.size + random.nextInt(this.size);
+			this.probes[i] = this.keyType.key(index);
+		}
+	}
+	
+	private Object nextProbe() {
+		Object probe = this.probes[this.probeIndex];
+		this.probeIndex = (this.probeIndex + 1) & (NUMBER_OF_PROBES - 1);
+		return probe;
+	}
+	
+	@Benchmark
+	public Object get() {
+		return this.map.get(nextProbe());
+	}
+	
+	@Benchmark
+	public boolean containsKey() {
+		return this.map.containsKey(nextProbe());
+	}
+	
+	@Benchmark
+	public Object put() {
+		Object probe = nextProbe();
+		if (this.map.containsKey(probe)) {
+			return this.map.put(probe, this.probeIndex);
+		}
+		
+		Object result = this.map.put(probe, this.probeIndex);
+		this.map.remove(probe);
+		return result;
+	}
+	
+	@Benchmark
+	public Object remove() {
+		Object probe = nextProbe();
+		Object removed = this.map.remove(probe);
+		if (removed != null) {
+			this.map.put(probe, removed);
+		}
+		return removed;
+	}
+	
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public void iterate(Blackhole blackhole) {
+		for (Entry<Object, Object> entry : this.map.entrySet()) {
+			blackhole.consume(entry.getKey());
+			blackhole.consume(entry.getValue());
+		}
+	}
+
+}
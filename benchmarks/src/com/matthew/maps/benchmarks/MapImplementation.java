@@ -0,0 +1,61 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.OpenAddressingMap;
+import com.matthew.maps.RecursiveMap;
+import com.matthew.maps.SwissTableMap;
+
+/**
+ * The map implementations that the benchmarks can be run against. {@link java.util.HashMap} is always included as the baseline.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+public enum MapImplementation {
+	
+	HASH_MAP {
+		@Override
+		public <K, V> Map<K, V> create() {
+			return new HashMap<>();
+		}
+	},
+	
+	BUCKETING_MAP {
+		@Override
+		public <K, V> Map<K, V> create() {
+			return new BucketingMap<>();
+		}
+	},
+	
+	RECURSIVE_MAP {
+		@Override
+		public <K, V> Map<K, V> create() {
+			return new RecursiveMap<>();
+		}
+	},
+	
+	OPEN_ADDRESSING_MAP {
+		@Override
+		public <K, V> Map<K, V> create() {
+			return new OpenAddressingMap<>();
+		}
+	},
+	
+	SWISS_TABLE_MAP {
+		@Override
+		public <K, V> Map<K, V> create() {
+			return new SwissTableMap<>();
+		}
+	};
+	
+	/**
+	 * Creates a new, empty map of this implementation
+	 * 
+	 * @return The new map
+	 */
+	public abstract <K, V> Map<K, V> create();
+
+}
@@ -0,0 +1,118 @@
+package com.matthew.maps.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.MappedFileMap;
+import com.matthew.maps.Serializer;
+
+/**
+ * Compares starting up from a {@link MappedFileMap} with rebuilding a {@link BucketingMap} from the same entries. {@link #open()} should
+ * take about the same time for every size, while {@link #rebuild()} grows with the number of entries. {@link #get()} and
+ * {@link #bucketingMapGet()} compare the lookups once both are warm.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class MappedFileMapBenchmark {
+
+	private static final int NUMBER_OF_PROBES = 1 << 16;
+
+	@Param({ "100000", "1000000", "10000000" })
+	private int size;
+
+	private Path path;
+	private MappedFileMap<Long, Long> mappedFileMap;
+	private Map<Long, Long> bucketingMap;
+
+	private long[] probes;
+	private int probeIndex = 0;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.bucketingMap = new BucketingMap<>();
+		for (long i = 0; i < this.size; i++) {
+			this.bucketingMap.put(i, i);
+		}
+
+		this.path = Files.createTempFile("mapped-file-map", ".map");
+		MappedFileMap.write(this.bucketingMap, this.path, Serializer.longs(), Serializer.longs());
+		this.mappedFileMap = MappedFileMap.open(this.path, Serializer.longs(), Serializer.longs());
+
+		SplittableRandom random = new SplittableRandom(18);
+		this.probes = new long[NUMBER_OF_PROBES];
+		for (int i = 0; i < NUMBER_OF_PROBES; i++) {
+			this.probes[i] = random.nextInt(this.size);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.mappedFileMap.close();
+		Files.deleteIfExists(this.path);
+	}
+
+	@Benchmark
+	public Object open() throws IOException {
+		MappedFileMap<Long, Long> map = MappedFileMap.open(this.path, Serializer.longs(), Serializer.longs());
+		Object value = map.get(0L);
+		map.close();
+		return value;
+	}
+
+	@Benchmark
+	public Object rebuild() {
+		Map<Long, Long> map = new BucketingMap<>();
+		map.putAll(this.mappedFileMap);
+		return map.get(0L);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Warmup(iterations = 3, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public Object get() {
+		return this.mappedFileMap.get(nextProbe());
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Warmup(iterations = 3, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public Object bucketingMapGet() {
+		return this.bucketingMap.get(nextProbe());
+	}
+
+	private long nextProbe() {
+		long probe = this.probes[this.probeIndex];
+		this.probeIndex = (this.probeIndex + 1) & (NUMBER_OF_PROBES - 1);
+		return probe;
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.matthew.maps.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.OffHeapBucketingMap;
+import com.matthew.maps.Serializer;
+
+/**
+ * Compares the {@link OffHeapBucketingMap} with the {@link BucketingMap} on long keys and values. {@link #fullGc()} times a full
+ * collection while the map is alive, which is the pause that a big on-heap map makes longer, and {@link #get()} shows what the
+ * deserializing costs on a lookup. Running {@link #main(String[])} prints how many bytes of heap and of direct memory each map takes
+ * per entry.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g", "-XX:MaxDirectMemorySize=4g" })
+public class OffHeapMapBenchmark {
+
+	private static final int NUMBER_OF_PROBES = 1 << 16;
+
+	@Param({ "BUCKETING_MAP", "OFF_HEAP_BUCKETING_MAP" })
+	private String implementation;
+
+	@Param({ "1000000", "10000000" })
+	private int size;
+
+	private Map<Long, Long> map;
+
+	private long[] probes;
+	private int probeIndex = 0;
+
+	@Setup
+	public void setUp() {
+		this.map = create(this.implementation, this.size);
+
+		SplittableRandom random = new SplittableRandom(17);
+		this.probes = new long[NUMBER_OF_PROBES];
+		for (int i = 0; i < NUMBER_OF_PROBES; i++) {
+			this.probes[i] = random.nextInt(this.size);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (this.map instanceof OffHeapBucketingMap) {
+			((OffHeapBucketingMap<Long, Long>) this.map).close();
+		}
+	}
+
+	@Benchmark
+	public Object get() {
+		long probe = this.probes[this.probeIndex];
+		this.probeIndex = (this.probeIndex + 1) & (NUMBER_OF_PROBES - 1);
+		return this.map.get(probe);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 2)
+	@Measurement(iterations = 10)
+	public int fullGc() {
+		System.gc();
+		return this.map.size();
+	}
+
+	private static Map<Long, Long> create(String implementation, int size) {
+		Map<Long, Long> map = implementation.equals("OFF_HEAP_BUCKETING_MAP")
+				? new OffHeapBucketingMap<>(Serializer.longs(), Serializer.longs())
+				: new BucketingMap<>();
+		for (long i = 0; i < size; i++) {
+			map.put(i, i);
+		}
+		return map;
+	}
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+		for (String implementation : new String[] { "BUCKETING_MAP", "OFF_HEAP_BUCKETING_MAP" }) {
+			System.gc();
+			long heapBefore = memory.getHeapMemoryUsage().getUsed();
+			Map<Long, Long> map = create(implementation, size);
+			System.gc();
+			long heapBytes = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+			long offHeapBytes = map instanceof OffHeapBucketingMap ? ((OffHeapBucketingMap<Long, Long>) map).offHeapSize() : 0;
+
+			System.out.printf("%s: %.1f heap bytes and %.1f off-heap bytes per entry%n", implementation, (double) heapBytes / size,
+					(double) offHeapBytes / size);
+			if (map instanceof OffHeapBucketingMap) {
+				((OffHeapBucketingMap<Long, Long>) map).close();
+			}
+		}
+	}
+
+}
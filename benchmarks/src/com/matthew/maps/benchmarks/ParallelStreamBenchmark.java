@@ -0,0 +1,61 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures an aggregation over every entry of a map with a sequential and a parallel stream. The parallel stream runs on the common
+ * {@link java.util.concurrent.ForkJoinPool}, so how much faster it gets depends on how well the map's spliterator splits and on the number
+ * of cores of the machine.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ParallelStreamBenchmark {
+
+	@Param({ "HASH_MAP", "BUCKETING_MAP", "RECURSIVE_MAP" })
+	private MapImplementation implementation;
+
+	@Param({ "1000000", "5000000" })
+	private int size;
+
+	private Map<Integer, Integer> map;
+
+	@Setup
+	public void setUp() {
+		this.map = this.implementation.create();
+		for (int i = 0; i < this.size; i++) {
+			this.map.put(i, i);
+		}
+	}
+
+	@Benchmark
+	public long sequentialSum() {
+		return this.map.entrySet().stream().mapToLong(Entry::getValue).sum();
+	}
+
+	@Benchmark
+	public long parallelSum() {
+		return this.map.entrySet().parallelStream().mapToLong(Entry::getValue).sum();
+	}
+
+}
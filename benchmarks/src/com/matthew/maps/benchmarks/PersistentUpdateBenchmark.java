@@ -0,0 +1,102 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.PersistentRecursiveMap;
+
+/**
+ * Measures the cost of publishing a new version of a map with one key changed. Copying a {@link HashMap} and changing the copy costs
+ * time proportional to the size of the map, while {@link PersistentRecursiveMap#with(Object, Object)} only copies the levels on the path
+ * to the key, so its cost should only grow with the depth of the trie. The batch benchmarks change 100 keys at once, either one
+ * {@code with} at a time or through a builder.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class PersistentUpdateBenchmark {
+
+	private static final int BATCH_SIZE = 100;
+
+	@Param({ "1000", "100000", "1000000" })
+	private int size;
+
+	private PersistentRecursiveMap<Integer, Integer> persistentMap;
+	private HashMap<Integer, Integer> hashMap;
+	private Integer[] keys;
+	private int keyIndex = 0;
+
+	@Setup
+	public void setUp() {
+		PersistentRecursiveMap.Builder<Integer, Integer> builder = PersistentRecursiveMap.builder();
+		this.hashMap = new HashMap<>();
+		this.keys = new Integer[this.size];
+		for (int i = 0; i < this.size; i++) {
+			this.keys[i] = i;
+			builder.put(this.keys[i], i);
+			this.hashMap.put(this.keys[i], i);
+		}
+		this.persistentMap = builder.build();
+	}
+
+	@Benchmark
+	public Object copyHashMapThenPut() {
+		Map<Integer, Integer> copy = new HashMap<>(this.hashMap);
+		copy.put(nextKey(), -1);
+		return copy;
+	}
+
+	@Benchmark
+	public Object with() {
+		return this.persistentMap.with(nextKey(), -1);
+	}
+
+	@Benchmark
+	public Object without() {
+		return this.persistentMap.without(nextKey());
+	}
+
+	@Benchmark
+	public Object batchOfWiths() {
+		PersistentRecursiveMap<Integer, Integer> map = this.persistentMap;
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			map = map.with(nextKey(), -1);
+		}
+		return map;
+	}
+
+	@Benchmark
+	public Object batchThroughBuilder() {
+		PersistentRecursiveMap.Builder<Integer, Integer> builder = this.persistentMap.toBuilder();
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			builder.put(nextKey(), -1);
+		}
+		return builder.build();
+	}
+
+	private Integer nextKey() {
+		Integer key = this.keys[this.keyIndex];
+		this.keyIndex = this.keyIndex + 1 == this.size ? 0 : this.keyIndex + 1;
+		return key;
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.IntIntBucketingMap;
+import com.matthew.maps.IntObjectRecursiveMap;
+import com.matthew.maps.RecursiveMap;
+
+/**
+ * Compares the primitive maps with their boxed counterparts on int keys. The puts write values outside of the {@code Integer} cache, so
+ * the boxed maps have to allocate for them, which is best seen with {@code -prof gc}.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class PrimitiveMapBenchmark {
+
+	private static final int NUMBER_OF_PROBES = 1 << 16;
+
+	@Param({ "1000", "1000000" })
+	private int size;
+
+	private Map<Integer, Integer> hashMap;
+	private Map<Integer, Integer> bucketingMap;
+	private IntIntBucketingMap intIntBucketingMap;
+	private Map<Integer, Integer> recursiveMap;
+	private IntObjectRecursiveMap<Integer> intObjectRecursiveMap;
+
+	private int[] probes;
+	private int probeIndex = 0;
+
+	@Setup
+	public void setUp() {
+		this.hashMap = new HashMap<>();
+		this.bucketingMap = new BucketingMap<>();
+		this.intIntBucketingMap = new IntIntBucketingMap();
+		this.recursiveMap = new RecursiveMap<>();
+		this.intObjectRecursiveMap = new IntObjectRecursiveMap<>();
+		for (int i = 0; i < this.size; i++) {
+			this.hashMap.put(i, i);
+			this.bucketingMap.put(i, i);
+			this.intIntBucketingMap.put(i, i);
+			this.recursiveMap.put(i, i);
+			this.intObjectRecursiveMap.put(i, i);
+		}
+
+		SplittableRandom random = new SplittableRandom(16);
+		this.probes = new int[NUMBER_OF_PROBES];
+		for (int i = 0; i < NUMBER_OF_PROBES; i++) {
+			this.probes[i] = random.nextInt(this.size);
+		}
+	}
+
+	@Benchmark
+	public Object hashMapGet() {
+		return this.hashMap.get(nextProbe());
+	}
+
+	@Benchmark
+	public Object bucketingMapGet() {
+		return this.bucketingMap.get(nextProbe());
+	}
+
+	@Benchmark
+	public int intIntBucketingMapGet() {
+		return this.intIntBucketingMap.get(nextProbe());
+	}
+
+	@Benchmark
+	public Object recursiveMapGet() {
+		return this.recursiveMap.get(nextProbe());
+	}
+
+	@Benchmark
+	public Object intObjectRecursiveMapGet() {
+		return this.intObjectRecursiveMap.get(nextProbe());
+	}
+
+	@Benchmark
+	public Object hashMapPut() {
+		int key = nextProbe();
+		return this.hashMap.put(key, key + 1_000);
+	}
+
+	@Benchmark
+	public Object bucketingMapPut() {
+		int key = nextProbe();
+		return this.bucketingMap.put(key, key + 1_000);
+	}
+
+	@Benchmark
+	public int intIntBucketingMapPut() {
+		int key = nextProbe();
+		return this.intIntBucketingMap.put(key, key + 1_000);
+	}
+
+	private int nextProbe() {
+		int probe = this.probes[this.probeIndex];
+		this.probeIndex = (this.probeIndex + 1) & (NUMBER_OF_PROBES - 1);
+		return probe;
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.BucketingMap;
+
+/**
+ * Samples the latency of single puts into a growing {@link BucketingMap}, to compare the latency histograms (p99, p999, and beyond)
+ * of resizing all at once against resizing incrementally. Every iteration starts from an empty map and keeps inserting new keys,
+ * so every iteration goes through the same series of resizes. Once all the keys have been inserted the puts become overwrites.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ResizeLatencyBenchmark {
+	
+	@Param({ "false", "true" })
+	private boolean incrementalResize;
+	
+	@Param({ "4194304" })
+	private int numberOfKeys;
+	
+	private Integer[] keys;
+	private Map<Integer, Integer> map;
+	private int keyIndex;
+	
+	@Setup
+	public void setUpKeys() {
+		this.keys = new Integer[this.numberOfKeys];
+		for (int i = 0; i < this.numberOfKeys; i++) {
+			this.keys[i] = i;
+		}
+	}
+	
+	@Setup(Level.Iteration)
+	public void setUpMap() {
+		this.map = new BucketingMap<>(32, 2, 5, 0.75d, this.incrementalResize);
+		this.keyIndex = 0;
+	}
+	
+	@Benchmark
+	public Object put() {
+		Integer key = this.keys[this.keyIndex];
+		this.keyIndex = this.keyIndex + 1 == this.numberOfKeys ? 0 : this.keyIndex + 1;
+		return this.map.put(key, key);
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.matthew.maps.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.ConcurrentRecursiveMap;
+
+/**
+ * Measures the cost of taking a snapshot of a {@link ConcurrentRecursiveMap}, which should not depend on the size of the map, and of
+ * the first write after one, which has to copy the levels on its path into the new generation.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class SnapshotBenchmark {
+	
+	@Param({ "1000", "100000", "1000000" })
+	private int size;
+	
+	private ConcurrentRecursiveMap<Integer, Integer> map;
+	private Integer[] keys;
+	private int keyIndex = 0;
+	
+	@Setup
+	public void setUp() {
+		this.map = new ConcurrentRecursiveMap<>();
+		this.keys = new Integer[this.size];
+		for (int i = 0; i < this.size; i++) {
+			this.keys[i] = i;
+			this.map.put(this.keys[i], i);
+		}
+	}
+	
+	@Benchmark
+	public Object snapshot() {
+		return this.map.snapshot();
+	}
+	
+	@Benchmark
+	public Object snapshotThenPut() {
+		Object snapshot = this.map.snapshot();
+		Integer key = this.keys[this.keyIndex];
+		this.keyIndex = this.keyIndex + 1 == this.size ? 0 : this.keyIndex + 1;
+		this.map.put(key, key);
+		return snapshot;
+	}
+
+}
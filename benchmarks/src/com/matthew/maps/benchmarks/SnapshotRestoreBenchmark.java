@@ -0,0 +1,127 @@
+package com.matthew.maps.benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.Serializer;
+
+/**
+ * Measures how fast a {@link BucketingMap} is written to a snapshot and restored from one, in megabytes of snapshot per second, which is
+ * the {@code megabytes} counter in the results. Java serialization of a {@code HashMap} with the same entries is the baseline, measured in
+ * megabytes of its own output.
+ *
+ * @author Matthew Meacham
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class SnapshotRestoreBenchmark {
+
+	@Param({ "10000000" })
+	private int size;
+
+	private BucketingMap<Long, Long> map;
+	private HashMap<Long, Long> hashMap;
+
+	private Path snapshot;
+	private Path serialized;
+	private double snapshotMegabytes;
+	private double serializedMegabytes;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Throughput {
+
+		public double megabytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.megabytes = 0;
+		}
+	}
+
+	@Setup
+	public void setUp() throws IOException {
+		this.map = new BucketingMap<>();
+		for (long i = 0; i < this.size; i++) {
+			this.map.put(i, i);
+		}
+		this.hashMap = new HashMap<>(this.map);
+
+		this.snapshot = Files.createTempFile("bucketing-map", ".snapshot");
+		this.map.snapshot(this.snapshot, Serializer.longs(), Serializer.longs());
+		this.snapshotMegabytes = Files.size(this.snapshot) / 1e6d;
+
+		this.serialized = Files.createTempFile("hash-map", ".ser");
+		serialize();
+		this.serializedMegabytes = Files.size(this.serialized) / 1e6d;
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(this.snapshot);
+		Files.deleteIfExists(this.serialized);
+	}
+
+	@Benchmark
+	public void snapshot(Throughput throughput) throws IOException {
+		this.map.snapshot(this.snapshot, Serializer.longs(), Serializer.longs());
+		throughput.megabytes += this.snapshotMegabytes;
+	}
+
+	@Benchmark
+	public Object restore(Throughput throughput) throws IOException {
+		BucketingMap<Long, Long> restored = BucketingMap.restore(this.snapshot, Serializer.longs(), Serializer.longs());
+		throughput.megabytes += this.snapshotMegabytes;
+		return restored;
+	}
+
+	@Benchmark
+	public void javaSerialization(Throughput throughput) throws IOException {
+		serialize();
+		throughput.megabytes += this.serializedMegabytes;
+	}
+
+	@Benchmark
+	public Object javaDeserialization(Throughput throughput) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(this.serialized), 1 << 16))) {
+			Object restored = input.readObject();
+			throughput.megabytes += this.serializedMegabytes;
+			return restored;
+		}
+	}
+
+	private void serialize() throws IOException {
+		try (ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(this.serialized), 1 << 16))) {
+			output.writeObject(this.hashMap);
+		}
+	}
+
+}
@@ -0,0 +1,9 @@
+/**
+ * @author Matthew Meacham
+ *
+ */
+open module com.matthew.datastructures.benchmarks {
+	requires com.matthew.datastructures;
+	requires jmh.core;
+	requires java.management;
+}
@@ -0,0 +1,366 @@
+package com.matthew.maps;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A cache that loads the values it doesn't have with a {@link CacheLoader} on an {@link Executor}, and hands out a
+ * {@link CompletableFuture} of the value instead of waiting for it. The futures are kept in a {@link ConcurrentBucketingMap}, and a
+ * future is put in the map before its load even starts, so every caller that asks for a key while it's being loaded gets the same future
+ * and the key is only loaded once, however many callers miss on it at the same time. A load that fails or that finds no value isn't
+ * kept, so the next caller loads the key again.
+ *
+ * A value expires once it has been in the cache for longer than the expiry time, and the next caller to ask for it loads it again. With
+ * a refresh time, a caller that asks for a value older than that, but that hasn't expired yet, starts a refresh of it in the background
+ * and gets the old value straight away, so a key that keeps being used never expires and never makes a caller wait for it. The value is
+ * replaced once the refresh has loaded it, and a refresh that fails leaves the old value until the next caller tries again. A value that
+ * expires while it's being refreshed is still handed out until the refresh is done, so that the key is never loaded twice at once. Expired
+ * values are only removed when a caller comes across them, or by {@link #cleanUp()}.
+ *
+ * {@link #getAll(Collection)} loads all of the keys it misses with one call to {@link CacheLoader#loadAll(java.util.Set)}, and shares
+ * the loads of the keys that are already being loaded with the callers that started them.
+ *
+ * By default the loads run on the {@link ForkJoinPool#commonPool()}, which only has as many threads as there are processors, so a
+ * loader that blocks for long, such as on a remote call, should be given an executor of its own. Keys and values cannot be null.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class AsyncLoadingCache<K, V> {
+
+	private final long EXPIRE_AFTER_WRITE_NANOS;
+	private final long REFRESH_AFTER_WRITE_NANOS;
+
+	private final CacheLoader<? super K, ? extends V> loader;
+	private final Executor executor;
+	private final LongSupplier ticker;
+	private final ConcurrentBucketingMap<K, CacheEntry<V>> map = new ConcurrentBucketingMap<>();
+
+	/**
+	 * Creates an empty {@code AsyncLoadingCache} that loads on the specified executor and tells the time with the specified ticker
+	 *
+	 * @param loader The loader of the values
+	 * @param expireAfterWrite How long a value is kept for after it was loaded or put
+	 * @param refreshAfterWrite How long after a value was loaded or put it's refreshed the next time it's asked for, or 0 to never
+	 * refresh it
+	 * @param unit The unit of the expiry and refresh times
+	 * @param executor The executor to load on
+	 * @param ticker The source of the current time in nanoseconds, such as {@code System::nanoTime}
+	 *
+	 * @throws IllegalArgumentException if the expiry time is less than or equal to 0, if the refresh time is less than 0, or if the
+	 * refresh time is not less than the expiry time
+	 * @throws NullPointerException if the loader, the unit, the executor or the ticker is null
+	 */
+	public AsyncLoadingCache(CacheLoader<? super K, ? extends V> loader, long expireAfterWrite, long refreshAfterWrite, TimeUnit unit,
+			Executor executor, LongSupplier ticker) {
+		if (expireAfterWrite <= 0) throw new IllegalArgumentException("expireAfterWrite cannot be less than or equal to 0.");
+		if (refreshAfterWrite < 0) throw new IllegalArgumentException("refreshAfterWrite cannot be less than 0.");
+		if (refreshAfterWrite >= expireAfterWrite) throw new IllegalArgumentException("refreshAfterWrite must be less than expireAfterWrite.");
+
+		this.EXPIRE_AFTER_WRITE_NANOS = unit.toNanos(expireAfterWrite);
+		this.REFRESH_AFTER_WRITE_NANOS = unit.toNanos(refreshAfterWrite);
+		this.loader = Objects.requireNonNull(loader);
+		this.executor = Objects.requireNonNull(executor);
+		this.ticker = Objects.requireNonNull(ticker);
+	}
+
+	/**
+	 * Creates an empty {@code AsyncLoadingCache} that loads on the specified executor
+	 *
+	 * @param loader The loader of the values
+	 * @param expireAfterWrite How long a value is kept for after it was loaded or put
+	 * @param refreshAfterWrite How long after a value was loaded or put it's refreshed the next time it's asked for, or 0 to never
+	 * refresh it
+	 * @param unit The unit of the expiry and refresh times
+	 * @param executor The executor to load on
+	 *
+	 * @throws IllegalArgumentException if the expiry time is less than or equal to 0, if the refresh time is less than 0, or if the
+	 * refresh time is not less than the expiry time
+	 * @throws NullPointerException if the loader, the unit or the executor is null
+	 */
+	public AsyncLoadingCache(CacheLoader<? super K, ? extends V> loader, long expireAfterWrite, long refreshAfterWrite, TimeUnit unit,
+			Executor executor) {
+		this(loader, expireAfterWrite, refreshAfterWrite, unit, executor, System::nanoTime);
+	}
+
+	/**
+	 * Creates an empty {@code AsyncLoadingCache} that loads on the {@link ForkJoinPool#commonPool()}
+	 *
+	 * @param loader The loader of the values
+	 * @param expireAfterWrite How long a value is kept for after it was loaded or put
+	 * @param refreshAfterWrite How long after a value was loaded or put it's refreshed the next time it's asked for, or 0 to never
+	 * refresh it
+	 * @param unit The unit of the expiry and refresh times
+	 *
+	 * @throws IllegalArgumentException if the expiry time is less than or equal to 0, if the refresh time is less than 0, or if the
+	 * refresh time is not less than the expiry time
+	 * @throws NullPointerException if the loader or the unit is null
+	 */
+	public AsyncLoadingCache(CacheLoader<? super K, ? extends V> loader, long expireAfterWrite, long refreshAfterWrite, TimeUnit unit) {
+		this(loader, expireAfterWrite, refreshAfterWrite, unit, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Gets the future of the value of the given key, and starts loading it if the cache doesn't have it. If the value is due a refresh,
+	 * the refresh is started and the future of the old value is returned.
+	 *
+	 * @param key The key
+	 * @return The future of the value, which completes with null if the key has no value, or fails if the load does
+	 */
+	public CompletableFuture<V> get(K key) {
+		long now = this.ticker.getAsLong();
+		CacheEntry<V> entry = this.map.get(key);
+		if (Objects.nonNull(entry) && isLive(entry, now)) {
+			refreshIfDue(key, entry, now);
+			return entry.future;
+		}
+
+		CacheEntry<V> created = new CacheEntry<>(now);
+		entry = this.map.compute(key, (k, existing) -> Objects.nonNull(existing) && isLive(existing, now) ? existing : created);
+		if (entry == created) {
+			execute(() -> load(key, created), failure -> fail(key, created, failure));
+		}
+		return entry.future;
+	}
+
+	/**
+	 * Gets the values of the given keys, and loads all of the ones the cache doesn't have with one call to
+	 * {@link CacheLoader#loadAll(java.util.Set)}. The keys that are already being loaded aren't loaded again.
+	 *
+	 * @param keys The keys
+	 * @return The future of the values of the keys in the order they were given, leaving out the keys without a value. It fails if the
+	 * load of any of the keys does.
+	 */
+	public CompletableFuture<Map<K, V>> getAll(Collection<? extends K> keys) {
+		long now = this.ticker.getAsLong();
+		Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+		Map<K, CacheEntry<V>> created = new LinkedHashMap<>();
+		for (K key : keys) {
+			if (futures.containsKey(key)) {
+				continue;
+			}
+
+			CacheEntry<V> entry = this.map.get(key);
+			if (Objects.nonNull(entry) && isLive(entry, now)) {
+				refreshIfDue(key, entry, now);
+			} else {
+				CacheEntry<V> newEntry = new CacheEntry<>(now);
+				entry = this.map.compute(key, (k, existing) -> Objects.nonNull(existing) && isLive(existing, now) ? existing : newEntry);
+				if (entry == newEntry) {
+					created.put(key, newEntry);
+				}
+			}
+			futures.put(key, entry.future);
+		}
+
+		if (!created.isEmpty()) {
+			execute(() -> loadAll(created), failure -> created.forEach((key, entry) -> fail(key, entry, failure)));
+		}
+
+		return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[futures.size()])).thenApply(ignored -> {
+			Map<K, V> values = new LinkedHashMap<>();
+			futures.forEach((key, future) -> {
+				V value = future.join();
+				if (Objects.nonNull(value)) {
+					values.put(key, value);
+				}
+			});
+			return values;
+		});
+	}
+
+	/**
+	 * Gets the future of the value of the given key without loading it
+	 *
+	 * @param key The key
+	 * @return The future of the value, or null if the cache doesn't have it or it has expired
+	 */
+	public CompletableFuture<V> getIfPresent(Object key) {
+		CacheEntry<V> entry = this.map.get(key);
+		return Objects.nonNull(entry) && isLive(entry, this.ticker.getAsLong()) ? entry.future : null;
+	}
+
+	/**
+	 * Puts the given value for the given key, replacing whatever the cache had. A load of the key that is still going completes the
+	 * futures of the callers that were waiting on it, but doesn't replace the value.
+	 *
+	 * @param key The key
+	 * @param value The value
+	 */
+	public void put(K key, V value) {
+		Objects.requireNonNull(value);
+		this.map.put(key, loaded(value));
+	}
+
+	/**
+	 * Removes the value of the given key from the cache
+	 *
+	 * @param key The key
+	 */
+	public void invalidate(Object key) {
+		this.map.remove(key);
+	}
+
+	/**
+	 * Removes every value from the cache
+	 */
+	public void invalidateAll() {
+		this.map.clear();
+	}
+
+	/**
+	 * Removes the values that have expired
+	 */
+	public void cleanUp() {
+		long now = this.ticker.getAsLong();
+		this.map.entrySet().removeIf(entry -> !isLive(entry.getValue(), now));
+	}
+
+	/**
+	 * Gets the number of values in the cache, including the ones that are still being loaded and the ones that have expired but haven't
+	 * been removed yet
+	 */
+	public int size() {
+		return this.map.size();
+	}
+
+	/**
+	 * Whether an entry can still be handed out. An entry that is still loading always can, since that is what lets the callers share it,
+	 * and so can one that is being refreshed, since replacing it would load the key a second time.
+	 */
+	private boolean isLive(CacheEntry<V> entry, long now) {
+		if (!entry.future.isDone() || entry.refreshing) {
+			return true;
+		}
+		return !entry.future.isCompletedExceptionally() && now - entry.writeNanos < EXPIRE_AFTER_WRITE_NANOS;
+	}
+
+	/**
+	 * Starts refreshing the value of an entry if it's older than the refresh time, unless it's already being refreshed. The entry is
+	 * only replaced if nothing has replaced or removed it in the meantime.
+	 */
+	private void refreshIfDue(K key, CacheEntry<V> entry, long now) {
+		if (REFRESH_AFTER_WRITE_NANOS == 0 || !entry.future.isDone() || now - entry.writeNanos < REFRESH_AFTER_WRITE_NANOS) {
+			return;
+		}
+		if (!CacheEntry.REFRESHING.compareAndSet(entry, false, true)) {
+			return;
+		}
+
+		execute(() -> {
+			V value;
+			try {
+				value = this.loader.load(key);
+			} catch (Throwable t) {
+				entry.refreshing = false;
+				return;
+			}
+
+			if (Objects.isNull(value)) {
+				this.map.remove(key, entry);
+			} else {
+				this.map.replace(key, entry, loaded(value));
+			}
+		}, failure -> entry.refreshing = false);
+	}
+
+	private void load(K key, CacheEntry<V> entry) {
+		V value;
+		try {
+			value = this.loader.load(key);
+		} catch (Throwable t) {
+			fail(key, entry, t);
+			return;
+		}
+		complete(key, entry, value);
+	}
+
+	private void loadAll(Map<K, CacheEntry<V>> entries) {
+		Map<? super K, ? extends V> values;
+		try {
+			values = this.loader.loadAll(Collections.unmodifiableSet(entries.keySet()));
+		} catch (Throwable t) {
+			entries.forEach((key, entry) -> fail(key, entry, t));
+			return;
+		}
+		entries.forEach((key, entry) -> complete(key, entry, values.get(key)));
+	}
+
+	/**
+	 * Completes the future of an entry with its loaded value. An entry without a value is removed first, so that nobody is handed its
+	 * future after it has completed.
+	 */
+	private void complete(K key, CacheEntry<V> entry, V value) {
+		if (Objects.isNull(value)) {
+			this.map.remove(key, entry);
+		} else {
+			entry.writeNanos = this.ticker.getAsLong();
+		}
+		entry.future.complete(value);
+	}
+
+	/**
+	 * Fails the future of an entry whose load failed, after removing the entry so that the next caller loads the key again
+	 */
+	private void fail(K key, CacheEntry<V> entry, Throwable failure) {
+		this.map.remove(key, entry);
+		entry.future.completeExceptionally(failure);
+	}
+
+	/**
+	 * Runs a task on the executor, or calls the rejection handler if the executor won't take it, so that no future is left waiting on a
+	 * load that never runs
+	 */
+	private void execute(Runnable task, Consumer<RejectedExecutionException> rejectionHandler) {
+		try {
+			this.executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			rejectionHandler.accept(e);
+		}
+	}
+
+	private CacheEntry<V> loaded(V value) {
+		CacheEntry<V> entry = new CacheEntry<>(this.ticker.getAsLong());
+		entry.future.complete(value);
+		return entry;
+	}
+
+	/**
+	 * The future of a value, and when it was loaded. Until the future completes, the write time is when the load started.
+	 */
+	private static final class CacheEntry<V> {
+
+		static final VarHandle REFRESHING;
+
+		static {
+			try {
+				REFRESHING = MethodHandles.lookup().findVarHandle(CacheEntry.class, "refreshing", boolean.class);
+			} catch (ReflectiveOperationException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+		final CompletableFuture<V> future = new CompletableFuture<>();
+		volatile long writeNanos;
+		volatile boolean refreshing = false;
+
+		CacheEntry(long writeNanos) {
+			this.writeNanos = writeNanos;
+		}
+	}
+
+}
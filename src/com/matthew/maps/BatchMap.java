@@ -0,0 +1,44 @@
+package com.matthew.maps;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Gets and puts whole batches of keys at once. By default they just go through the keys one by one, but a map that knows where every
+ * key falls in it, such as a {@link BucketingMap} or a {@link RecursiveMap}, hashes the whole batch up front and then goes through the
+ * keys in the order they fall in the map, so that a big batch sweeps across the map instead of jumping all over it.
+ *
+ * The values are given back in an array the caller can hand in again for the next batch, so a batch doesn't have to allocate anything.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public interface BatchMap<K, V> extends Map<K, V> {
+
+	/**
+	 * Gets the values of the given keys. The value of the i-th key the collection iterates over goes into the i-th element of the array,
+	 * or null if the key has no value, and the rest of the array is left alone.
+	 *
+	 * @param keys The keys
+	 * @param values The array to put the values in, if it's big enough
+	 * @return The given array, or a new one of the same type if it wasn't big enough
+	 */
+	default V[] getAll(Collection<? extends K> keys, V[] values) {
+		return BatchOrder.getEach(this, keys, values);
+	}
+
+	/**
+	 * Puts every key with the value at the same index. If a key comes up more than once, its last value is the one that's kept.
+	 *
+	 * @param keys The keys
+	 * @param values The values
+	 *
+	 * @throws IllegalArgumentException if there isn't the same number of keys and values
+	 */
+	default void putAll(K[] keys, V[] values) {
+		BatchOrder.putEach(this, keys, values);
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.matthew.maps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The scratch space behind the batched operations of a {@link BatchMap}, kept around so that a batch doesn't allocate anything once one
+ * as big has been seen. A batch of puts uses one kept by the map, but a batch of gets uses one kept by the thread, since it only reads
+ * the map and may be running alongside other reads of it. The map fills in the hash of every key and where it falls in the map, and {@link #group(int, int)}
+ * puts the keys in the order the map should go through them, so that the ones that fall close together in the map are looked up one
+ * after the other instead of jumping all over it.
+ *
+ * It's a counting sort on the high bits of where the keys fall, with about as many groups as keys, rather than a full sort. That only
+ * takes a few linear passes over the batch, and the keys in a group are never far apart in the map anyway.
+ *
+ * The batched operations that just go through the keys one by one are here too, for the maps that don't group a batch.
+ *
+ * @author Matthew Meacham
+ *
+ */
+final class BatchOrder {
+
+	/**
+	 * Smaller batches just go through their keys one by one, since grouping them costs more than it could ever save
+	 */
+	static final int MINIMUM_LENGTH = 64;
+
+	private static final int MAXIMUM_GROUP_BITS = 16;
+
+	private static final ThreadLocal<BatchOrder> READS = ThreadLocal.withInitial(BatchOrder::new);
+
+	/**
+	 * The keys of a batch of gets, which only the scratch space of a thread has room for, since a batch of puts already has its keys in
+	 * an array
+	 */
+	Object[] keys = new Object[0];
+
+	int[] hashes = new int[0];
+
+	/**
+	 * Where each key falls in the map, from 0 up to the bound given to {@link #group(int, int)}
+	 */
+	int[] positions = new int[0];
+
+	/**
+	 * The indexes of the keys in the order they should be gone through
+	 */
+	int[] order = new int[0];
+
+	private int[] groups = new int[0];
+	private int[] counts = new int[0];
+
+	/**
+	 * Makes sure there is room for a batch of the given length
+	 */
+	void ensureCapacity(int length) {
+		if (this.hashes.length >= length) {
+			return;
+		}
+
+		this.hashes = new int[length];
+		this.positions = new int[length];
+		this.order = new int[length];
+		this.groups = new int[length];
+	}
+
+	/**
+	 * Fills in {@link #order} with the indexes of the first {@code length} keys, grouped by their position. Keys in the same group keep
+	 * the order they came in.
+	 *
+	 * @param length The number of keys
+	 * @param bound The bound of the positions
+	 */
+	void group(int length, int bound) {
+		int groupBits = Math.min(31 - Integer.numberOfLeadingZeros(Math.max(length, 1)), MAXIMUM_GROUP_BITS);
+		boolean powerOfTwo = Integer.bitCount(bound) == 1;
+		int shift = 0;
+		if (powerOfTwo) {
+			groupBits = Math.min(groupBits, Integer.numberOfTrailingZeros(bound));
+			shift = Integer.numberOfTrailingZeros(bound) - groupBits;
+		}
+
+		int numberOfGroups = 1 << groupBits;
+		if (this.counts.length < numberOfGroups + 1) {
+			this.counts = new int[numberOfGroups + 1];
+		} else {
+			Arrays.fill(this.counts, 0, numberOfGroups + 1, 0);
+		}
+
+		for (int i = 0; i < length; i++) {
+			int group = powerOfTwo ? this.positions[i] >>> shift : (int) ((long) this.positions[i] * numberOfGroups / bound);
+			this.groups[i] = group;
+			this.counts[group + 1]++;
+		}
+		for (int group = 0; group < numberOfGroups; group++) {
+			this.counts[group + 1] += this.counts[group];
+		}
+		for (int i = 0; i < length; i++) {
+			this.order[this.counts[this.groups[i]]++] = i;
+		}
+	}
+
+	/**
+	 * Gets the scratch space of the current thread, with room for a batch of gets of the given length and their keys. Each key has to be
+	 * set back to null as it's looked up, so that the thread doesn't keep the keys from being garbage collected.
+	 */
+	static BatchOrder forReads(int length) {
+		BatchOrder batch = READS.get();
+		batch.ensureCapacity(length);
+		if (batch.keys.length < length) {
+			batch.keys = new Object[batch.hashes.length];
+		}
+		return batch;
+	}
+
+	/**
+	 * Gets the array to put the values of a batch of the given length in
+	 *
+	 * @return The given array, or a new one of the same type if it isn't big enough
+	 */
+	static <V> V[] valuesFor(V[] values, int length) {
+		return values.length >= length ? values : Arrays.copyOf(values, length);
+	}
+
+	/**
+	 * Gets the values of the given keys from the map one by one, in the order they are given, for the maps that don't group a batch or
+	 * mustn't
+	 */
+	static <K, V> V[] getEach(Map<K, V> map, Collection<? extends K> keys, V[] values) {
+		V[] result = valuesFor(values, keys.size());
+		int i = 0;
+		for (K key : keys) {
+			result[i++] = map.get(key);
+		}
+		return result;
+	}
+
+	/**
+	 * Puts the given keys with their values into the map one by one, in the order they are given, for the maps that don't group a batch
+	 * or mustn't
+	 *
+	 * @throws IllegalArgumentException if there isn't the same number of keys and values
+	 */
+	static <K, V> void putEach(Map<K, V> map, K[] keys, V[] values) {
+		if (keys.length != values.length) throw new IllegalArgumentException("keys and values must be the same length.");
+
+		for (int i = 0; i < keys.length; i++) {
+			map.put(keys[i], values[i]);
+		}
+	}
+
+}
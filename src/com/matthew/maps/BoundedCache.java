@@ -0,0 +1,453 @@
+package com.matthew.maps;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A {@link BucketingMap} that holds at most a maximum number of entries, or entries up to a maximum total weight, and evicts entries to
+ * make room for new ones. The order in which entries were used is kept on the nodes themselves, as links to the node used before and after
+ * them, so the cache takes no more memory than the map plus two links and a weight per entry.
+ *
+ * With a maximum weight, the {@link Weigher} weighs every entry when it's put, and the total weight of the cache is kept up to date as
+ * entries come and go, so it never has to be added up. Once a put takes the cache over its maximum weight, it evicts as many entries as it
+ * takes to get back under it in one go, and an entry that weighs more than the maximum on its own is evicted straight away. Setting the
+ * value of an entry through the entry set doesn't weigh it again. Without a maximum weight, every entry weighs 1, and the maximum weight is
+ * the maximum number of entries.
+ *
+ * With the {@link Policy#LRU} policy the least recently used entry is always the one evicted. With the {@link Policy#W_TINY_LFU} policy,
+ * which is the default, new entries go into a small window that is evicted in LRU order, and whatever falls out of the window has to win
+ * against the least recently used entry of the rest of the cache to stay in. The one that has been used more often recently, going by a
+ * {@link FrequencySketch}, is kept, and the other is evicted. The rest of the cache is split into a probation part, and a protected part for
+ * the entries that were used again while on probation. This keeps the entries that are used often from being pushed out by a scan of
+ * entries that are only used once, which an LRU cache can't do.
+ *
+ * {@link #get(Object)} and a put of an existing key count as using the entry, while {@link #containsKey(Object)} and iterating over
+ * the views don't. Hits, misses, and evictions are counted as the cache goes.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class BoundedCache<K, V> extends BucketingMap<K, V> {
+
+	/**
+	 * How a {@link BoundedCache} chooses the entry to evict
+	 */
+	public enum Policy {
+		LRU, W_TINY_LFU
+	}
+
+	// Every miss walks a bucket on the get, the put, and the eviction, so the buckets are kept short and sized for the whole cache up front
+	private static final int INITIAL_NUMBER_OF_BUCKETS = 32;
+	private static final int SCALING_FACTOR = 2;
+	private static final int PREFERRED_BUCKET_SIZE = 1;
+	private static final double LOAD_FACTOR = 0.75d;
+	private static final int MAXIMUM_NUMBER_OF_BUCKETS = 1 << 30;
+
+	private static final int WINDOW_PERCENTAGE = 1;
+	private static final int PROTECTED_PERCENTAGE = 80;
+
+	private static final Weigher<Object, Object> ENTRY_WEIGHER = (key, value) -> 1;
+
+	private final long MAXIMUM_WEIGHT;
+	private final Weigher<? super K, ? super V> weigher;
+	private final Policy POLICY;
+	private final long WINDOW_MAXIMUM;
+	private final long PROTECTED_MAXIMUM;
+
+	/**
+	 * Only used with the {@link Policy#W_TINY_LFU} policy. Without a maximum weight it's sized for the maximum number of entries up front,
+	 * and otherwise it grows with the number of entries.
+	 */
+	private final FrequencySketch sketch;
+
+	private long weight = 0;
+
+	/**
+	 * The weight of whatever is being put, which {@link #put(Object, Object)} weighs before it changes anything
+	 */
+	private int weightOfPut;
+
+	private final AccessQueue<K, V> windowQueue = new AccessQueue<>();
+	private final AccessQueue<K, V> probationQueue = new AccessQueue<>();
+	private final AccessQueue<K, V> protectedQueue = new AccessQueue<>();
+
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+
+	/**
+	 * Creates an empty {@code BoundedCache} that holds at most the specified number of entries, and evicts them with the specified
+	 * policy
+	 *
+	 * @param maximumSize The maximum number of entries
+	 * @param policy The eviction policy
+	 *
+	 * @throws IllegalArgumentException if the maximum size is less than or equal to 0
+	 * @throws NullPointerException if the policy is null
+	 */
+	public BoundedCache(int maximumSize, Policy policy) {
+		this(numberOfBucketsFor(maximumSize), maximumSize, ENTRY_WEIGHER, policy, maximumSize);
+		if (maximumSize <= 0) throw new IllegalArgumentException("maximumSize cannot be less than or equal to 0.");
+	}
+
+	/**
+	 * Creates an empty {@code BoundedCache} that holds at most the specified number of entries, and evicts them with the
+	 * {@link Policy#W_TINY_LFU} policy
+	 *
+	 * @param maximumSize The maximum number of entries
+	 *
+	 * @throws IllegalArgumentException if the maximum size is less than or equal to 0
+	 */
+	public BoundedCache(int maximumSize) {
+		this(maximumSize, Policy.W_TINY_LFU);
+	}
+
+	/**
+	 * Creates an empty {@code BoundedCache} that holds entries up to the specified total weight, as weighed by the specified weigher, and
+	 * evicts them with the specified policy
+	 *
+	 * @param maximumWeight The maximum total weight of the entries
+	 * @param weigher The weigher
+	 * @param policy The eviction policy
+	 *
+	 * @throws IllegalArgumentException if the maximum weight is less than or equal to 0
+	 * @throws NullPointerException if the weigher or the policy is null
+	 */
+	public BoundedCache(long maximumWeight, Weigher<? super K, ? super V> weigher, Policy policy) {
+		this(INITIAL_NUMBER_OF_BUCKETS, maximumWeight, Objects.requireNonNull(weigher), policy, 0);
+		if (maximumWeight <= 0) throw new IllegalArgumentException("maximumWeight cannot be less than or equal to 0.");
+	}
+
+	/**
+	 * Creates an empty {@code BoundedCache} that holds entries up to the specified total weight, as weighed by the specified weigher, and
+	 * evicts them with the {@link Policy#W_TINY_LFU} policy
+	 *
+	 * @param maximumWeight The maximum total weight of the entries
+	 * @param weigher The weigher
+	 *
+	 * @throws IllegalArgumentException if the maximum weight is less than or equal to 0
+	 * @throws NullPointerException if the weigher is null
+	 */
+	public BoundedCache(long maximumWeight, Weigher<? super K, ? super V> weigher) {
+		this(maximumWeight, weigher, Policy.W_TINY_LFU);
+	}
+
+	private BoundedCache(int initialNumberOfBuckets, long maximumWeight, Weigher<? super K, ? super V> weigher, Policy policy, int expectedSize) {
+		super(initialNumberOfBuckets, SCALING_FACTOR, PREFERRED_BUCKET_SIZE, LOAD_FACTOR);
+
+		this.MAXIMUM_WEIGHT = maximumWeight;
+		this.weigher = weigher;
+		this.POLICY = Objects.requireNonNull(policy);
+		if (policy == Policy.LRU) {
+			// Everything stays in the window, so the window's LRU order is the order of the whole cache
+			this.WINDOW_MAXIMUM = maximumWeight;
+			this.PROTECTED_MAXIMUM = 0;
+			this.sketch = null;
+		} else {
+			this.WINDOW_MAXIMUM = Math.max((long) (maximumWeight * (WINDOW_PERCENTAGE / 100d)), 1);
+			this.PROTECTED_MAXIMUM = (long) ((maximumWeight - this.WINDOW_MAXIMUM) * (PROTECTED_PERCENTAGE / 100d));
+			this.sketch = new FrequencySketch(expectedSize);
+		}
+	}
+
+	@Override
+	public void clear() {
+		this.windowQueue.clear();
+		this.probationQueue.clear();
+		this.protectedQueue.clear();
+		this.weight = 0;
+		super.clear();
+	}
+
+	@Override
+	public V get(Object key) {
+		Node<K, V> node = findNode(key);
+		if (Objects.isNull(node)) {
+			this.missCount++;
+			return null;
+		}
+
+		this.hitCount++;
+		recordAccess((CacheNode<K, V>) node);
+		return node.value;
+	}
+
+	/**
+	 * Puts the given value for the given key, weighing it first, and evicts other entries if the cache has gone over its maximum weight
+	 *
+	 * @return The value
+	 * @throws IllegalArgumentException if the weigher weighs the entry at less than 0
+	 */
+	@Override
+	public V put(K key, V value) {
+		int weight = this.weigher.weigh(key, value);
+		if (weight < 0) throw new IllegalArgumentException("The weight of an entry cannot be less than 0.");
+
+		this.weightOfPut = weight;
+		return super.put(key, value);
+	}
+
+	/**
+	 * Gets the values of the given keys one by one in the order they are given, since every hit counts towards what the cache keeps
+	 */
+	@Override
+	public V[] getAll(Collection<? extends K> keys, V[] values) {
+		return BatchOrder.getEach(this, keys, values);
+	}
+
+	/**
+	 * Puts the given entries one by one in the order they are given, since every put can evict what came before it
+	 */
+	@Override
+	public void putAll(K[] keys, V[] values) {
+		BatchOrder.putEach(this, keys, values);
+	}
+
+	/**
+	 * @return The maximum total weight of the entries, which is the maximum number of entries without a weigher
+	 */
+	public long maximumWeight() {
+		return MAXIMUM_WEIGHT;
+	}
+
+	/**
+	 * @return The total weight of the entries, which is the number of entries without a weigher
+	 */
+	public long weight() {
+		return this.weight;
+	}
+
+	/**
+	 * @return The eviction policy
+	 */
+	public Policy policy() {
+		return POLICY;
+	}
+
+	/**
+	 * @return The number of times {@link #get(Object)} found the key
+	 */
+	public long hitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * @return The number of times {@link #get(Object)} didn't find the key
+	 */
+	public long missCount() {
+		return this.missCount;
+	}
+
+	/**
+	 * @return The share of the calls to {@link #get(Object)} that found the key, or 1 if there haven't been any
+	 */
+	public double hitRate() {
+		long requestCount = this.hitCount + this.missCount;
+		return requestCount == 0 ? 1.0d : (double) this.hitCount / requestCount;
+	}
+
+	/**
+	 * @return The number of entries that were evicted to make room for others
+	 */
+	public long evictionCount() {
+		return this.evictionCount;
+	}
+
+	private static int numberOfBucketsFor(int maximumSize) {
+		return (int) Math.min(Math.max((long) Math.ceil(maximumSize / LOAD_FACTOR) + 1, INITIAL_NUMBER_OF_BUCKETS), MAXIMUM_NUMBER_OF_BUCKETS);
+	}
+
+	@Override
+	Node<K, V> newNode(int hash, K key, V value, Node<K, V> next) {
+		return new CacheNode<>(hash, key, value, next);
+	}
+
+	/**
+	 * A put of an existing key weighs the entry again, which may take the cache over its maximum weight
+	 */
+	@Override
+	void afterNodeAccess(Node<K, V> node) {
+		CacheNode<K, V> cacheNode = (CacheNode<K, V>) node;
+		int weightDifference = this.weightOfPut - cacheNode.weight;
+		cacheNode.weight = this.weightOfPut;
+		cacheNode.queue.weight += weightDifference;
+		this.weight += weightDifference;
+
+		if (cacheNode.weight > MAXIMUM_WEIGHT) {
+			evictNode(cacheNode);
+			return;
+		}
+
+		recordAccess(cacheNode);
+		if (weightDifference > 0) {
+			evict();
+		}
+	}
+
+	private void recordAccess(CacheNode<K, V> cacheNode) {
+		if (Objects.nonNull(this.sketch)) {
+			this.sketch.increment(cacheNode.hash);
+		}
+
+		if (cacheNode.queue != this.probationQueue) {
+			cacheNode.queue.moveToLast(cacheNode);
+			return;
+		}
+
+		// Used again while on probation, so it gets protected, which may push the least recently used protected entry back on probation
+		this.probationQueue.remove(cacheNode);
+		this.protectedQueue.addLast(cacheNode);
+		while (this.protectedQueue.weight > PROTECTED_MAXIMUM) {
+			CacheNode<K, V> demoted = this.protectedQueue.head;
+			this.protectedQueue.remove(demoted);
+			this.probationQueue.addLast(demoted);
+		}
+	}
+
+	@Override
+	void afterNodeInsertion(Node<K, V> node) {
+		CacheNode<K, V> cacheNode = (CacheNode<K, V>) node;
+		cacheNode.weight = this.weightOfPut;
+		this.weight += cacheNode.weight;
+		this.windowQueue.addLast(cacheNode);
+		if (cacheNode.weight > MAXIMUM_WEIGHT) {
+			evictNode(cacheNode);
+			return;
+		}
+
+		if (Objects.nonNull(this.sketch)) {
+			this.sketch.increment(cacheNode.hash);
+		}
+		evict();
+		if (Objects.nonNull(this.sketch)) {
+			this.sketch.ensureCapacity(size());
+		}
+	}
+
+	@Override
+	void afterNodeRemoval(Node<K, V> node) {
+		CacheNode<K, V> cacheNode = (CacheNode<K, V>) node;
+		this.weight -= cacheNode.weight;
+		cacheNode.queue.remove(cacheNode);
+	}
+
+	/**
+	 * Moves whatever doesn't fit in the window any more to the end of the probation queue, and then evicts until the cache is back to
+	 * its maximum weight. The entries that just left the window are the candidates, and each of them is held up against the victim at the
+	 * front of the probation queue. The probation queue is only empty while the cache is too heavy if an entry in one of the other queues
+	 * got heavier, and then the victim is taken from the front of those instead.
+	 */
+	private void evict() {
+		CacheNode<K, V> candidate = null;
+		while (this.windowQueue.weight > WINDOW_MAXIMUM) {
+			CacheNode<K, V> node = this.windowQueue.head;
+			this.windowQueue.remove(node);
+			this.probationQueue.addLast(node);
+			if (Objects.isNull(candidate)) {
+				candidate = node;
+			}
+		}
+
+		while (this.weight > MAXIMUM_WEIGHT) {
+			CacheNode<K, V> victim = this.probationQueue.head;
+			if (Objects.isNull(victim)) {
+				victim = Objects.isNull(this.protectedQueue.head) ? this.windowQueue.head : this.protectedQueue.head;
+			}
+			if (candidate == victim) {
+				candidate = candidate.after;
+				evictNode(victim);
+			} else if (Objects.isNull(candidate) || admit(candidate, victim)) {
+				evictNode(victim);
+			} else {
+				CacheNode<K, V> nextCandidate = candidate.after;
+				evictNode(candidate);
+				candidate = nextCandidate;
+			}
+		}
+	}
+
+	/**
+	 * Whether the candidate should be kept instead of the victim. A tie goes to the victim, so that a new entry has to have been used
+	 * more often than an old one to replace it. Without a sketch there is only the order to go by, and the victim was used before the
+	 * candidate, so it goes.
+	 */
+	private boolean admit(CacheNode<K, V> candidate, CacheNode<K, V> victim) {
+		return Objects.isNull(this.sketch) || this.sketch.frequency(candidate.hash) > this.sketch.frequency(victim.hash);
+	}
+
+	private void evictNode(CacheNode<K, V> node) {
+		this.evictionCount++;
+		remove(node.key);
+	}
+
+	/**
+	 * A node that also knows its weight, which queue it is in, and the nodes used before and after it in that queue
+	 */
+	private static final class CacheNode<K, V> extends Node<K, V> {
+
+		int weight;
+		CacheNode<K, V> before;
+		CacheNode<K, V> after;
+		AccessQueue<K, V> queue;
+
+		CacheNode(int hash, K key, V value, Node<K, V> next) {
+			super(hash, key, value, next);
+		}
+	}
+
+	/**
+	 * A doubly linked list through the nodes themselves, from the least recently used at the head to the most recently used at the tail
+	 */
+	private static final class AccessQueue<K, V> {
+
+		CacheNode<K, V> head;
+		CacheNode<K, V> tail;
+		long weight = 0;
+
+		void addLast(CacheNode<K, V> node) {
+			node.queue = this;
+			node.before = this.tail;
+			node.after = null;
+			if (Objects.isNull(this.tail)) {
+				this.head = node;
+			} else {
+				this.tail.after = node;
+			}
+			this.tail = node;
+			this.weight += node.weight;
+		}
+
+		void remove(CacheNode<K, V> node) {
+			if (Objects.isNull(node.before)) {
+				this.head = node.after;
+			} else {
+				node.before.after = node.after;
+			}
+			if (Objects.isNull(node.after)) {
+				this.tail = node.before;
+			} else {
+				node.after.before = node.before;
+			}
+			node.before = null;
+			node.after = null;
+			node.queue = null;
+			this.weight -= node.weight;
+		}
+
+		void moveToLast(CacheNode<K, V> node) {
+			if (node != this.tail) {
+				remove(node);
+				addLast(node);
+			}
+		}
+
+		void clear() {
+			this.head = null;
+			this.tail = null;
+			this.weight = 0;
+		}
+	}
+
+}
@@ -1,63 +1,141 @@
 package com.matthew.maps;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
- * This is a simple implementation of a HashMap that uses the bucketing method. I did have some fun with Streams in this, so it's definitely
- * not incredibly performant.
+ * This is a simple implementation of a HashMap that uses the bucketing method, where each bucket is a chain of nodes. The key set, values,
+ * and entry set are live views that walk the buckets in place, so iterating over the map doesn't copy it, and removing through them removes
+ * from the map. Their spliterators split the buckets into ranges of bucket indexes, so a parallel stream over them can hand every thread its
+ * own part of the bucket array.
+ * 
+ * {@link #snapshot(Path, Serializer, Serializer)} writes the map to a file in a compact binary format, and
+ * {@link #restore(Path, Serializer, Serializer)} loads it back into a map with the same buckets.
+ * 
+ * The batched {@link #getAll(Collection, Object[])} and {@link #putAll(Object[], Object[])} hash every key of the batch first and then
+ * go through the keys in the order of their buckets, so a batch that is big compared to the map reads the bucket array front to back
+ * instead of at random. A resize that is still in progress is finished before a batch, and a batch of puts grows the map up front as if
+ * every key were new, so the buckets don't move underneath it.
  * 
  * @author Matthew Meacham
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
  */
-public class BucketingMap<K, V> implements Map<K, V> {
+public class BucketingMap<K, V> implements ParallelBulkMap<K, V>, BatchMap<K, V> {
 
 	private static final int DEFAULT_INITIAL_NUMBER_OF_BUCKETS = 32;
 	private static final int DEFAULT_SCALING_FACTOR = 2;
 	private static final int DEFAULT_PREFERRED_BUCKET_SIZE = 5;
 	private static final double DEFAULT_LOAD_FACTOR = 0.75d;
+	private static final int BUCKETS_MIGRATED_PER_OPERATION = 4;
+	
+	// A snapshot is a header, then every entry as its hash, the lengths of its key and value, and the key and value themselves
+	private static final int SNAPSHOT_MAGIC = 0x424D4150;
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final int SNAPSHOT_HEADER_SIZE = 40;
+	private static final int SNAPSHOT_RECORD_HEADER_SIZE = 12;
+	private static final int SNAPSHOT_BUFFER_SIZE = 1 << 23;
+	private static final String SNAPSHOT_TEMPORARY_SUFFIX = ".tmp";
 	
 	private final int SCALING_FACTOR;
 	private final int PREFERRED_BUCKET_SIZE;
 	private final double LOAD_FACTOR;
+	private final boolean INCREMENTAL_RESIZE;
 	
-	private List<Node<K, V>>[] buckets;
+	private Node<K, V>[] buckets;
+	
+	/**
+	 * Only used when resizing incrementally. While a resize is in progress this holds the buckets that are being moved out of,
+	 * and every bucket below {@code migrationIndex} has already been moved over to {@code buckets}.
+	 */
+	private Node<K, V>[] oldBuckets;
+	private int migrationIndex = 0;
 
 	private int size = 0;
+	
+	/**
+	 * The number of times a node was added or removed, or the buckets were replaced, so that the iterators can tell that the map changed
+	 * underneath them
+	 */
+	private int modCount = 0;
+	
+	private Set<K> keySet;
+	private Collection<V> valuesView;
+	private Set<Entry<K, V>> entrySet;
+	
+	/**
+	 * The number of nodes beyond the preferred bucket size, summed over all the buckets. Kept up to date on every insertion and
+	 * removal so that checking whether we need to resize doesn't have to look at every bucket.
+	 */
+	private int overflow = 0;
+	
+	private BatchOrder batchOrder;
 
 	/**
 	 * Creates an empty {@code BucketingMap} with the specified initial number of buckets, the specified scaling factor,
-	 * the specified preferred bucket size, and the specified load factor
+	 * the specified preferred bucket size, the specified load factor, and the specified resizing mode.
+	 * 
+	 * When resizing incrementally, the map doesn't move every node into the new buckets in one go. Instead, the old and the new buckets 
+	 * are kept side by side and every put, get, and remove moves a few more buckets over, which keeps the worst case latency of a single
+	 * operation flat at the cost of a slightly slower average while a resize is in progress.
 	 * 
 	 * @param initialNumberOfBuckets The initial number of buckets
 	 * @param scalingFactor The scaling factor
 	 * @param preferredBucketSize The preferred size of the buckets
 	 * @param loadFactor The load factor
+	 * @param incrementalResize Whether to resize incrementally
 	 * 
 	 * @throws IllegalArgumentException if the initial number of buckets is less than 0
 	 * or if the scaling factor is less than or equal to 1
 	 * or if the preferred bucket size is less than or equal to 0
 	 * or if the load factor is non-positive, greater than 1.0, or NaN
 	 */
-	public BucketingMap(int initialNumberOfBuckets, int scalingFactor, int preferredBucketSize, double loadFactor) {
+	public BucketingMap(int initialNumberOfBuckets, int scalingFactor, int preferredBucketSize, double loadFactor, boolean incrementalResize) {
 		if (initialNumberOfBuckets <= 0) throw new IllegalArgumentException("initialNumberOfBuckets cannot be less than or equal to 0.");
 		if (scalingFactor <= 1) throw new IllegalArgumentException("scalingFactor cannot be less than or equal to 1.");
 		if (preferredBucketSize <= 0) throw new IllegalArgumentException("preferredBucketSize cannot be less than or equal to 0.");
-		if (loadFactor <= 0.0d || loadFactor > 1.0d || Double.isNaN(loadFactor)) throw new IllegalAccessError("loadFactor must be a number and cannot be less than or equal to 0, and not greater than 1.");
+		if (loadFactor <= 0.0d || loadFactor > 1.0d || Double.isNaN(loadFactor)) throw new IllegalArgumentException("loadFactor must be a number and cannot be less than or equal to 0, and not greater than 1.");
 		
 		this.buckets = createNewBuckets(initialNumberOfBuckets);
 		this.SCALING_FACTOR = scalingFactor;
 		this.PREFERRED_BUCKET_SIZE = preferredBucketSize;
 		this.LOAD_FACTOR = loadFactor;
+		this.INCREMENTAL_RESIZE = incrementalResize;
+	}
+	
+	/**
+	 * Creates an empty {@code BucketingMap} with the specified initial number of buckets, the specified scaling factor,
+	 * the specified preferred bucket size, and the specified load factor, that resizes all at once
+	 * 
+	 * @param initialNumberOfBuckets The initial number of buckets
+	 * @param scalingFactor The scaling factor
+	 * @param preferredBucketSize The preferred size of the buckets
+	 * @param loadFactor The load factor
+	 * 
+	 * @throws IllegalArgumentException if the initial number of buckets is less than 0
+	 * or if the scaling factor is less than or equal to 1
+	 * or if the preferred bucket size is less than or equal to 0
+	 * or if the load factor is non-positive, greater than 1.0, or NaN
+	 */
+	public BucketingMap(int initialNumberOfBuckets, int scalingFactor, int preferredBucketSize, double loadFactor) {
+		this(initialNumberOfBuckets, scalingFactor, preferredBucketSize, loadFactor, false);
 	}
 	
 	/**
@@ -100,48 +178,96 @@ public class BucketingMap<K, V> implements Map<K, V> {
 	public BucketingMap() {
 		this(DEFAULT_INITIAL_NUMBER_OF_BUCKETS);
 	}
+	
+	/**
+	 * Restores a map from a snapshot taken by {@link #snapshot(Path, Serializer, Serializer)}. The map gets the same configuration and the
+	 * same number of buckets as the one the snapshot was taken of, and every entry goes straight into its bucket by the hash that was saved
+	 * with it, so no {@code hashCode} or {@code equals} is called and the map never resizes while it's being loaded. That only works out if
+	 * the hash codes of the keys are the same from one run to the next, as they are for {@code String} and the boxed primitives.
+	 * 
+	 * @param path The snapshot
+	 * @param keySerializer The serializer for the keys
+	 * @param valueSerializer The serializer for the values
+	 * @return The restored map
+	 * @throws IOException if the snapshot can't be read, isn't a snapshot, or has been cut short
+	 */
+	public static <K, V> BucketingMap<K, V> restore(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.limit(0);
+			buffer = Channels.fillOrThrow(channel, buffer, SNAPSHOT_HEADER_SIZE, path);
+			if (buffer.getInt(0) != SNAPSHOT_MAGIC) throw new IOException(path + " is not a snapshot of a map.");
+			if (buffer.getInt(4) != SNAPSHOT_VERSION) throw new IOException(path + " has unsupported version " + buffer.getInt(4) + ".");
+			
+			int size = buffer.getInt(12);
+			BucketingMap<K, V> map = new BucketingMap<>(buffer.getInt(8), buffer.getInt(16), buffer.getInt(20), buffer.getDouble(24), buffer.getInt(32) != 0);
+			Node<K, V>[] buckets = map.buckets;
+			buffer.position(SNAPSHOT_HEADER_SIZE);
+			
+			for (int i = 0; i < size; i++) {
+				if (buffer.remaining() < SNAPSHOT_RECORD_HEADER_SIZE) {
+					buffer = Channels.fillOrThrow(channel, buffer, SNAPSHOT_RECORD_HEADER_SIZE, path);
+				}
+				int keyLength = buffer.getInt(buffer.position() + 4);
+				int valueLength = buffer.getInt(buffer.position() + 8);
+				int recordSize = SNAPSHOT_RECORD_HEADER_SIZE + keyLength + valueLength;
+				if (buffer.remaining() < recordSize) {
+					buffer = Channels.fillOrThrow(channel, buffer, recordSize, path);
+				}
+				
+				int position = buffer.position();
+				int hash = buffer.getInt(position);
+				K key = keySerializer.read(buffer, position + SNAPSHOT_RECORD_HEADER_SIZE, keyLength);
+				V value = valueSerializer.read(buffer, position + SNAPSHOT_RECORD_HEADER_SIZE + keyLength, valueLength);
+				
+				int bucketIndex = indexFor(hash, buckets.length);
+				buckets[bucketIndex] = new Node<>(hash, key, value, buckets[bucketIndex]);
+				buffer.position(position + recordSize);
+			}
+			
+			map.size = size;
+			map.overflow = overflowOf(buckets, map.PREFERRED_BUCKET_SIZE);
+			return map;
+		}
+	}
 
 	@Override
 	public void clear() {
 		this.buckets = createNewBuckets(this.buckets.length);
+		this.oldBuckets = null;
+		this.migrationIndex = 0;
 		this.size = 0;
+		this.overflow = 0;
+		this.modCount++;
 	}
 
 	@Override
 	public boolean containsKey(Object key) {
-		int bucketIndex = key.hashCode() % this.buckets.length;
-		if (Objects.isNull(this.buckets[bucketIndex])) {
-			return false;
-		}
-		
-		return this.buckets[bucketIndex].stream()
-				.anyMatch(node -> node.getKey().equals(key));
+		return Objects.nonNull(findNode(key));
 	}
 
 	@Override
 	public boolean containsValue(Object value) {
-		return Arrays.stream(this.buckets)
-				.filter(Objects::nonNull)
-				.flatMap(List::stream)
-				.anyMatch(node -> node.getValue().equals(value));
+		for (Iterator<V> iterator = values().iterator(); iterator.hasNext();) {
+			if (Objects.equals(iterator.next(), value)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	@Override
 	public Set<Entry<K, V>> entrySet() {
-		return Arrays.stream(this.buckets)
-				.filter(Objects::nonNull)
-				.flatMap(List::stream)
-				.collect(Collectors.toSet());
+		if (Objects.isNull(this.entrySet)) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
 	}
 
 	@Override
 	public V get(Object key) {
-		int bucketIndex = key.hashCode() % this.buckets.length;
-		return this.buckets[bucketIndex].stream()
-				.filter(node -> node.getKey().equals(key))
-				.findFirst()
-				.map(Entry::getValue)
-				.orElse(null); // :(
+		Node<K, V> node = findNode(key);
+		return Objects.isNull(node) ? null : node.value;
 	}
 
 	@Override
@@ -151,35 +277,88 @@ public class BucketingMap<K, V> implements Map<K, V> {
 
 	@Override
 	public Set<K> keySet() {
-		return Arrays.stream(this.buckets)
-				.filter(Objects::nonNull)
-				.flatMap(List::stream)
-				.map(Entry::getKey)
-				.collect(Collectors.toSet());
+		if (Objects.isNull(this.keySet)) {
+			this.keySet = new KeySet();
+		}
+		return this.keySet;
 	}
 
+	@Override
+	public V[] getAll(Collection<? extends K> keys, V[] values) {
+		int length = keys.size();
+		if (length < BatchOrder.MINIMUM_LENGTH) {
+			return BatchMap.super.getAll(keys, values);
+		}
+		V[] result = BatchOrder.valuesFor(values, length);
+		finishResize();
+		
+		Node<K, V>[] buckets = this.buckets;
+		BatchOrder batch = BatchOrder.forReads(length);
+		int i = 0;
+		for (K key : keys) {
+			int hash = key.hashCode();
+			batch.keys[i] = key;
+			batch.hashes[i] = hash;
+			batch.positions[i] = indexFor(hash, buckets.length);
+			i++;
+		}
+		
+		batch.group(length, buckets.length);
+		for (int j = 0; j < length; j++) {
+			int index = batch.order[j];
+			Object key = batch.keys[index];
+			batch.keys[index] = null;
+			Node<K, V> node = findInBucket(buckets[batch.positions[index]], batch.hashes[index], key);
+			result[index] = Objects.isNull(node) ? null : node.value;
+		}
+		return result;
+	}
+	
 	@Override
 	public V put(K key, V value) {
-		int hash = key.hashCode();
-		int bucketIndex = hash % this.buckets.length;
-		if (Objects.isNull(this.buckets[bucketIndex])) {
-			this.buckets[bucketIndex] = new LinkedList<Node<K, V>>();
+		return put(key.hashCode(), key, value);
+	}
+	
+	/**
+	 * Does the work of {@link #put(Object, Object)} for a key whose hash is already known
+	 */
+	private V put(int hash, K key, V value) {
+		if (Objects.nonNull(this.oldBuckets)) {
+			migrateBuckets(BUCKETS_MIGRATED_PER_OPERATION);
+			
+			Node<K, V> oldNode = Objects.isNull(this.oldBuckets) ? null : findInBucket(this.oldBuckets[indexFor(hash, this.oldBuckets.length)], hash, key);
+			if (Objects.nonNull(oldNode)) {
+				oldNode.setValue(value);
+				afterNodeAccess(oldNode);
+				return value;
+			}
 		}
 		
-		for (Node<K, V> nodes : this.buckets[bucketIndex]) {
-			if (nodes.getKey().equals(key)) {
-				nodes.setValue(value);
+		int bucketIndex = indexFor(hash, this.buckets.length);
+		
+		int bucketSize = 0;
+		for (Node<K, V> node = this.buckets[bucketIndex]; Objects.nonNull(node); node = node.next) {
+			if (node.hash == hash && (node.key == key || node.key.equals(key))) {
+				node.setValue(value);
+				afterNodeAccess(node);
 				return value;
 			}
+			bucketSize++;
 		}
 		
-		this.buckets[bucketIndex].add(new Node<>(hash, key, value));
+		Node<K, V> newNode = newNode(hash, key, value, this.buckets[bucketIndex]);
+		this.buckets[bucketIndex] = newNode;
 		this.size++;
+		this.modCount++;
+		if (bucketSize >= PREFERRED_BUCKET_SIZE) {
+			this.overflow++;
+		}
 		
 		if (needsResize()) {
 			resize();
 		}
 		
+		afterNodeInsertion(newNode);
 		return value;
 	}
 	
@@ -189,26 +368,66 @@ public class BucketingMap<K, V> implements Map<K, V> {
 			this.put(entry.getKey(), entry.getValue());
 		}
 	}
-
+	
 	@Override
-	public V remove(Object key) {
-		int bucketIndex = key.hashCode() % this.buckets.length;
-		if (Objects.isNull(this.buckets[bucketIndex])) {
-			return null;
+	public void putAll(K[] keys, V[] values) {
+		if (keys.length != values.length) throw new IllegalArgumentException("keys and values must be the same length.");
+		if (keys.length < BatchOrder.MINIMUM_LENGTH) {
+			BatchMap.super.putAll(keys, values);
+			return;
+		}
+		
+		int length = keys.length;
+		while ((this.size + length) / ((double) PREFERRED_BUCKET_SIZE * this.buckets.length) > LOAD_FACTOR) {
+			resize();
+		}
+		finishResize();
+		
+		int numberOfBuckets = this.buckets.length;
+		BatchOrder batch = batchOrder(length);
+		for (int i = 0; i < length; i++) {
+			int hash = keys[i].hashCode();
+			batch.hashes[i] = hash;
+			batch.positions[i] = indexFor(hash, numberOfBuckets);
 		}
 		
-		Iterator<Node<K, V>> iterator = this.buckets[bucketIndex].iterator();
-		while (iterator.hasNext()) {
-			Node<K, V> node = iterator.next();
+		// Keys that come up more than once are in the same group, in the order they were given, so the last value still wins
+		batch.group(length, numberOfBuckets);
+		for (int j = 0; j < length; j++) {
+			int index = batch.order[j];
+			put(batch.hashes[index], keys[index], values[index]);
+		}
+	}
+
+	@Override
+	public V remove(Object key) {
+		int hash = key.hashCode();
+		if (Objects.nonNull(this.oldBuckets)) {
+			migrateBuckets(BUCKETS_MIGRATED_PER_OPERATION);
 			
-			if (node.getKey().equals(key)) {
-				iterator.remove();
+			// The old buckets don't count towards the overflow, so there's nothing to keep track of when removing from them
+			Node<K, V> oldNode = Objects.isNull(this.oldBuckets) ? null : removeFromBucket(this.oldBuckets, indexFor(hash, this.oldBuckets.length), hash, key);
+			if (Objects.nonNull(oldNode)) {
 				this.size--;
-				return node.getValue();
+				this.modCount++;
+				afterNodeRemoval(oldNode);
+				return oldNode.value;
 			}
 		}
 		
-		return null;
+		int bucketIndex = indexFor(hash, this.buckets.length);
+		Node<K, V> node = removeFromBucket(this.buckets, bucketIndex, hash, key);
+		if (Objects.isNull(node)) {
+			return null;
+		}
+		
+		this.size--;
+		this.modCount++;
+		if (hasMoreNodesThan(this.buckets[bucketIndex], PREFERRED_BUCKET_SIZE - 1)) {
+			this.overflow--;
+		}
+		afterNodeRemoval(node);
+		return node.value;
 	}
 
 	@Override
@@ -216,40 +435,564 @@ public class BucketingMap<K, V> implements Map<K, V> {
 		return this.size;
 	}
 
+	/**
+	 * Writes a snapshot of the map to the given file, replacing whatever was there, which {@link #restore(Path, Serializer, Serializer)}
+	 * can load back. The entries are written bucket by bucket through a large direct buffer into a temporary file next to it, which is
+	 * moved over the file once it's all on disk, so the file is never left half written. The header goes in last as well, so a temporary
+	 * file that wasn't written all the way can't be restored.
+	 * 
+	 * @param path The file
+	 * @param keySerializer The serializer for the keys
+	 * @param valueSerializer The serializer for the values
+	 * @throws IOException if the file can't be written
+	 * @throws NullPointerException if the map has a null value
+	 */
+	public void snapshot(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+		if (Objects.nonNull(this.oldBuckets)) {
+			migrateBuckets(this.oldBuckets.length - this.migrationIndex);
+		}
+		
+		Path temporary = path.resolveSibling(path.getFileName() + SNAPSHOT_TEMPORARY_SUFFIX);
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			channel.position(SNAPSHOT_HEADER_SIZE);
+			
+			for (Node<K, V> bucket : this.buckets) {
+				for (Node<K, V> node = bucket; Objects.nonNull(node); node = node.next) {
+					int keyLength = keySerializer.sizeOf(node.key);
+					int valueLength = valueSerializer.sizeOf(Objects.requireNonNull(node.value));
+					int recordSize = SNAPSHOT_RECORD_HEADER_SIZE + keyLength + valueLength;
+					if (recordSize > buffer.remaining()) {
+						Channels.writeFully(channel, buffer);
+						if (recordSize > buffer.capacity()) {
+							buffer = ByteBuffer.allocateDirect(recordSize).order(ByteOrder.LITTLE_ENDIAN);
+						}
+					}
+					
+					int position = buffer.position();
+					buffer.putInt(position, node.hash);
+					buffer.putInt(position + 4, keyLength);
+					buffer.putInt(position + 8, valueLength);
+					keySerializer.write(node.key, buffer, position + SNAPSHOT_RECORD_HEADER_SIZE);
+					valueSerializer.write(node.value, buffer, position + SNAPSHOT_RECORD_HEADER_SIZE + keyLength);
+					buffer.position(position + recordSize);
+				}
+			}
+			Channels.writeFully(channel, buffer);
+			channel.force(false);
+			
+			ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(this.buckets.length).putInt(this.size)
+					.putInt(SCALING_FACTOR).putInt(PREFERRED_BUCKET_SIZE).putDouble(LOAD_FACTOR).putInt(INCREMENTAL_RESIZE ? 1 : 0);
+			channel.position(0);
+			Channels.writeFully(channel, header);
+			channel.force(false);
+		}
+		Channels.replace(temporary, path);
+	}
+
 	@Override
 	public Collection<V> values() {
-		return Arrays.stream(this.buckets)
-				.filter(Objects::nonNull)
-				.flatMap(List::stream)
-				.map(Entry::getValue)
-				.collect(Collectors.toSet());
+		if (Objects.isNull(this.valuesView)) {
+			this.valuesView = new Values();
+		}
+		return this.valuesView;
+	}
+	
+	/**
+	 * Finds the node for the given key. This is the read hot path, so it deliberately avoids streams, lambdas and iterators
+	 * and doesn't allocate anything. The cached hash is compared first, so {@code equals} is only called on a likely match.
+	 * 
+	 * @param key The key to find
+	 * @return The node for the key, or null if there is none
+	 */
+	final Node<K, V> findNode(Object key) {
+		int hash = key.hashCode();
+		if (Objects.nonNull(this.oldBuckets)) {
+			migrateBuckets(BUCKETS_MIGRATED_PER_OPERATION);
+			
+			Node<K, V>[] oldBuckets = this.oldBuckets;
+			if (Objects.nonNull(oldBuckets)) {
+				Node<K, V> oldNode = findInBucket(oldBuckets[indexFor(hash, oldBuckets.length)], hash, key);
+				if (Objects.nonNull(oldNode)) {
+					return oldNode;
+				}
+			}
+		}
+		
+		Node<K, V>[] buckets = this.buckets;
+		return findInBucket(buckets[indexFor(hash, buckets.length)], hash, key);
+	}
+	
+	/**
+	 * Finishes an incremental resize that is still in progress, if there is one
+	 */
+	private final void finishResize() {
+		if (Objects.nonNull(this.oldBuckets)) {
+			migrateBuckets(this.oldBuckets.length - this.migrationIndex);
+		}
 	}
 	
+	private final BatchOrder batchOrder(int length) {
+		if (Objects.isNull(this.batchOrder)) {
+			this.batchOrder = new BatchOrder();
+		}
+		this.batchOrder.ensureCapacity(length);
+		return this.batchOrder;
+	}
+	
+	/**
+	 * Creates the node for a new entry. This and the hooks below are for the maps in this package that extend this one and keep more on
+	 * each node, the way {@code LinkedHashMap} extends {@code HashMap}.
+	 */
+	Node<K, V> newNode(int hash, K key, V value, Node<K, V> next) {
+		return new Node<>(hash, key, value, next);
+	}
+	
+	/**
+	 * Called after a put replaced the value of an existing node. A get doesn't call it, so that subclasses can decide for themselves what
+	 * a read should do.
+	 */
+	void afterNodeAccess(Node<K, V> node) {
+	}
+	
+	/**
+	 * Called after a put added a new node, once the map has been resized if it needed to be
+	 */
+	void afterNodeInsertion(Node<K, V> node) {
+	}
+	
+	/**
+	 * Called after a node was unlinked from its bucket, whether through {@link #remove(Object)} or one of the views
+	 */
+	void afterNodeRemoval(Node<K, V> node) {
+	}
+	
+	private static <K, V> Node<K, V> findInBucket(Node<K, V> bucket, int hash, Object key) {
+		for (Node<K, V> node = bucket; Objects.nonNull(node); node = node.next) {
+			if (node.hash == hash && (node.key == key || node.key.equals(key))) {
+				return node;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Unlinks the node for the given key from its bucket, if there is one
+	 * 
+	 * @return The unlinked node, or null if the bucket doesn't contain the key
+	 */
+	private static <K, V> Node<K, V> removeFromBucket(Node<K, V>[] buckets, int bucketIndex, int hash, Object key) {
+		Node<K, V> previous = null;
+		for (Node<K, V> node = buckets[bucketIndex]; Objects.nonNull(node); previous = node, node = node.next) {
+			if (node.hash == hash && (node.key == key || node.key.equals(key))) {
+				if (Objects.isNull(previous)) {
+					buckets[bucketIndex] = node.next;
+				} else {
+					previous.next = node.next;
+				}
+				
+				node.next = null;
+				return node;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Every bucket counts as at least the preferred bucket size, so the total size of the buckets is the preferred size of all of
+	 * them plus whatever overflows beyond it.
+	 */
 	private final boolean needsResize() {
-		double bucketsTotalSize = (double) Arrays.stream(this.buckets)
-				.mapToInt(bucket -> Math.max(Objects.isNull(bucket) ? 0 : bucket.size(), PREFERRED_BUCKET_SIZE))
-				.sum();
+		double bucketsTotalSize = (double) PREFERRED_BUCKET_SIZE * this.buckets.length + this.overflow;
 		return this.size / bucketsTotalSize > LOAD_FACTOR;
 	}
 
 	private final void resize() {
-		List<Node<K, V>>[] currentBuckets = this.buckets;
-		List<Node<K, V>>[] newBuckets = createNewBuckets(currentBuckets.length * SCALING_FACTOR);
+		this.modCount++;
+		if (INCREMENTAL_RESIZE) {
+			// If the previous resize still hasn't finished, there's no choice but to finish it now
+			if (Objects.nonNull(this.oldBuckets)) {
+				migrateBuckets(this.oldBuckets.length - this.migrationIndex);
+			}
+			
+			this.oldBuckets = this.buckets;
+			this.migrationIndex = 0;
+			this.buckets = createNewBuckets(this.oldBuckets.length * SCALING_FACTOR);
+			this.overflow = 0;
+			return;
+		}
+		
+		Node<K, V>[] currentBuckets = this.buckets;
+		Node<K, V>[] newBuckets = createNewBuckets(currentBuckets.length * SCALING_FACTOR);
 
-		for (List<Node<K, V>> bucket : currentBuckets) {
-			for (Node<K, V> node : bucket) {
-				int bucketIndex = node.hash % newBuckets.length;
+		for (Node<K, V> bucket : currentBuckets) {
+			Node<K, V> node = bucket;
+			while (Objects.nonNull(node)) {
+				Node<K, V> next = node.next;
+				int bucketIndex = indexFor(node.hash, newBuckets.length);
 
-				newBuckets[bucketIndex].add(node);
+				node.next = newBuckets[bucketIndex];
+				newBuckets[bucketIndex] = node;
+				node = next;
 			}
 		}
 
 		this.buckets = newBuckets;
+		this.overflow = overflowOf(newBuckets, PREFERRED_BUCKET_SIZE);
+	}
+	
+	/**
+	 * Moves up to the given number of old buckets over to the new buckets, and finishes the resize once all of them have been moved.
+	 * The overflow only ever counts the new buckets while a resize is in progress, so it's kept up to date as nodes move in.
+	 * 
+	 * @param numberOfBuckets The maximum number of old buckets to move
+	 */
+	private final void migrateBuckets(int numberOfBuckets) {
+		Node<K, V>[] oldBuckets = this.oldBuckets;
+		Node<K, V>[] newBuckets = this.buckets;
+		int end = Math.min(this.migrationIndex + numberOfBuckets, oldBuckets.length);
+		
+		for (int i = this.migrationIndex; i < end; i++) {
+			Node<K, V> node = oldBuckets[i];
+			oldBuckets[i] = null;
+			
+			while (Objects.nonNull(node)) {
+				Node<K, V> next = node.next;
+				int bucketIndex = indexFor(node.hash, newBuckets.length);
+				
+				node.next = newBuckets[bucketIndex];
+				newBuckets[bucketIndex] = node;
+				if (hasMoreNodesThan(node, PREFERRED_BUCKET_SIZE)) {
+					this.overflow++;
+				}
+				node = next;
+			}
+		}
+		
+		this.migrationIndex = end;
+		if (end == oldBuckets.length) {
+			this.oldBuckets = null;
+			this.migrationIndex = 0;
+		}
+	}
+	
+	private static int overflowOf(Node<?, ?>[] buckets, int preferredBucketSize) {
+		int overflow = 0;
+		for (Node<?, ?> bucket : buckets) {
+			overflow += Math.max(bucketSize(bucket) - preferredBucketSize, 0);
+		}
+		return overflow;
+	}
+	
+	private static int bucketSize(Node<?, ?> bucket) {
+		int bucketSize = 0;
+		for (Node<?, ?> node = bucket; Objects.nonNull(node); node = node.next) {
+			bucketSize++;
+		}
+		return bucketSize;
+	}
+	
+	/**
+	 * Checks whether a bucket has more than the given number of nodes, without walking any further than it needs to
+	 */
+	private static boolean hasMoreNodesThan(Node<?, ?> bucket, int numberOfNodes) {
+		Node<?, ?> node = bucket;
+		for (int i = 0; i < numberOfNodes && Objects.nonNull(node); i++) {
+			node = node.next;
+		}
+		return Objects.nonNull(node);
+	}
+
+	/**
+	 * Maps a hash onto a bucket index. Hash codes may be negative, so a plain {@code %} is not enough here.
+	 */
+	private static int indexFor(int hash, int numberOfBuckets) {
+		return Math.floorMod(hash, numberOfBuckets);
+	}
+
+	/**
+	 * Walks the buckets in place, one chain at a time. An incremental resize that is still in progress is finished first, so that there is
+	 * only one set of buckets to walk. Changing the map other than through the iterator makes it throw a
+	 * {@link ConcurrentModificationException}.
+	 */
+	private abstract class BucketIterator<T> implements Iterator<T> {
+
+		private final Node<K, V>[] buckets;
+		private int bucketIndex = 0;
+		private Node<K, V> nextNode;
+		private Node<K, V> lastReturnedNode;
+		private int expectedModCount;
+
+		BucketIterator() {
+			if (Objects.nonNull(oldBuckets)) {
+				migrateBuckets(oldBuckets.length - migrationIndex);
+			}
+			
+			this.buckets = BucketingMap.this.buckets;
+			this.expectedModCount = modCount;
+			advance(null);
+		}
+
+		private void advance(Node<K, V> node) {
+			Node<K, V> next = Objects.isNull(node) ? null : node.next;
+			while (Objects.isNull(next) && this.bucketIndex < this.buckets.length) {
+				next = this.buckets[this.bucketIndex++];
+			}
+			this.nextNode = next;
+		}
+
+		abstract T element(Node<K, V> node);
+
+		@Override
+		public boolean hasNext() {
+			return Objects.nonNull(this.nextNode);
+		}
+
+		@Override
+		public T next() {
+			if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+			if (Objects.isNull(this.nextNode)) throw new NoSuchElementException();
+
+			this.lastReturnedNode = this.nextNode;
+			advance(this.nextNode);
+			return element(this.lastReturnedNode);
+		}
+
+		@Override
+		public void remove() {
+			if (Objects.isNull(this.lastReturnedNode)) throw new IllegalStateException();
+			if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+
+			// The next node has already been found, and removing never resizes, so unlinking the last one doesn't get in the way
+			BucketingMap.this.remove(this.lastReturnedNode.key);
+			this.lastReturnedNode = null;
+			this.expectedModCount = modCount;
+		}
+	}
+
+	/**
+	 * Splits the buckets into halves of the range of bucket indexes it covers. Like the iterators, it finishes an incremental resize that is
+	 * still in progress before it starts. Only the spliterator for the whole map knows its exact size, the halves estimate theirs as half
+	 * of what was split.
+	 */
+	private final class BucketSpliterator<T> implements Spliterator<T> {
+
+		private final Node<K, V>[] buckets;
+		private final Function<Node<K, V>, T> element;
+		private final int characteristics;
+		private final int expectedModCount;
+		private int bucketIndex;
+		private final int fence;
+		private Node<K, V> nextNode;
+		private long estimatedSize;
+		private boolean sized;
+
+		BucketSpliterator(Function<Node<K, V>, T> element, int characteristics) {
+			if (Objects.nonNull(oldBuckets)) {
+				migrateBuckets(oldBuckets.length - migrationIndex);
+			}
+			
+			this.buckets = BucketingMap.this.buckets;
+			this.element = element;
+			this.characteristics = characteristics;
+			this.expectedModCount = modCount;
+			this.bucketIndex = 0;
+			this.fence = this.buckets.length;
+			this.estimatedSize = size;
+			this.sized = true;
+		}
+
+		private BucketSpliterator(BucketSpliterator<T> parent, int bucketIndex, int fence, long estimatedSize) {
+			this.buckets = parent.buckets;
+			this.element = parent.element;
+			this.characteristics = parent.characteristics;
+			this.expectedModCount = parent.expectedModCount;
+			this.bucketIndex = bucketIndex;
+			this.fence = fence;
+			this.estimatedSize = estimatedSize;
+			this.sized = false;
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			int middle = (this.bucketIndex + this.fence) >>> 1;
+			if (Objects.nonNull(this.nextNode) || middle <= this.bucketIndex) {
+				return null;
+			}
+
+			this.estimatedSize >>>= 1;
+			this.sized = false;
+			Spliterator<T> prefix = new BucketSpliterator<>(this, this.bucketIndex, middle, this.estimatedSize);
+			this.bucketIndex = middle;
+			return prefix;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			Objects.requireNonNull(action);
+
+			while (Objects.isNull(this.nextNode) && this.bucketIndex < this.fence) {
+				this.nextNode = this.buckets[this.bucketIndex++];
+			}
+			if (Objects.isNull(this.nextNode)) {
+				return false;
+			}
+
+			Node<K, V> node = this.nextNode;
+			this.nextNode = node.next;
+			action.accept(this.element.apply(node));
+			if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			Objects.requireNonNull(action);
+
+			Node<K, V> node = this.nextNode;
+			this.nextNode = null;
+			for (;;) {
+				for (; Objects.nonNull(node); node = node.next) {
+					action.accept(this.element.apply(node));
+				}
+				if (this.bucketIndex >= this.fence) {
+					break;
+				}
+				node = this.buckets[this.bucketIndex++];
+			}
+			if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+		}
+
+		@Override
+		public long estimateSize() {
+			return this.estimatedSize;
+		}
+
+		@Override
+		public int characteristics() {
+			return this.sized ? this.characteristics | Spliterator.SIZED : this.characteristics;
+		}
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new BucketIterator<K>() {
+				@Override
+				K element(Node<K, V> node) {
+					return node.key;
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<K> spliterator() {
+			return new BucketSpliterator<>(node -> node.key, Spliterator.DISTINCT | Spliterator.NONNULL);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			int sizeBefore = size;
+			BucketingMap.this.remove(key);
+			return size != sizeBefore;
+		}
+
+		@Override
+		public void clear() {
+			BucketingMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new BucketIterator<V>() {
+				@Override
+				V element(Node<K, V> node) {
+					return node.value;
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<V> spliterator() {
+			return new BucketSpliterator<>(node -> node.value, 0);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			BucketingMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new BucketIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(Node<K, V> node) {
+					return node;
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<Entry<K, V>> spliterator() {
+			return new BucketSpliterator<>(node -> node, Spliterator.DISTINCT | Spliterator.NONNULL);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			Node<K, V> node = findNode(entry.getKey());
+			return Objects.nonNull(node) && Objects.equals(node.value, entry.getValue());
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			if (!contains(object)) return false;
+
+			BucketingMap.this.remove(((Entry<?, ?>) object).getKey());
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			BucketingMap.this.clear();
+		}
 	}
 
 	@SuppressWarnings("unchecked")
-	private final List<Node<K, V>>[] createNewBuckets(int size) {
-		return (LinkedList<Node<K, V>>[]) new LinkedList[size];
+	private final Node<K, V>[] createNewBuckets(int size) {
+		return (Node<K, V>[]) new Node[size];
 	}
 
 	static class Node<K, V> implements Map.Entry<K, V> {
@@ -257,11 +1000,13 @@ public class BucketingMap<K, V> implements Map<K, V> {
 		final int hash;
 		final K key;
 		V value;
+		Node<K, V> next;
 
-		public Node(int hash, K key, V value) {
+		public Node(int hash, K key, V value, Node<K, V> next) {
 			this.hash = hash;
 			this.key = key;
 			this.value = value;
+			this.next = next;
 		}
 
 		@Override
@@ -279,6 +1024,19 @@ public class BucketingMap<K, V> implements Map<K, V> {
 			this.value = newValue;
 			return newValue;
 		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			return this.key.equals(entry.getKey()) && Objects.equals(this.value, entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash ^ Objects.hashCode(this.value);
+		}
 	}
 
 }
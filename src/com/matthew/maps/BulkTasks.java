@@ -0,0 +1,181 @@
+package com.matthew.maps;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * The ForkJoin tasks behind the operations of a {@link ParallelBulkMap}. Each one splits its spliterator in two for as long as it is above
+ * the parallelism threshold and will split, and walks what it's left with.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+final class BulkTasks {
+
+	private BulkTasks() {
+	}
+
+	/**
+	 * Splits off the first part of the spliterator if it is still above the threshold
+	 *
+	 * @return The first part, or null if the spliterator should be walked as it is
+	 */
+	static <T> Spliterator<T> splitIfAbove(Spliterator<T> spliterator, long parallelismThreshold) {
+		return spliterator.estimateSize() > parallelismThreshold ? spliterator.trySplit() : null;
+	}
+
+	@SuppressWarnings("serial")
+	static final class ForEachTask<K, V> extends RecursiveAction {
+
+		private final Spliterator<Map.Entry<K, V>> spliterator;
+		private final long parallelismThreshold;
+		private final BiConsumer<? super K, ? super V> action;
+
+		ForEachTask(Spliterator<Map.Entry<K, V>> spliterator, long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+			this.spliterator = spliterator;
+			this.parallelismThreshold = parallelismThreshold;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			Spliterator<Map.Entry<K, V>> prefix = splitIfAbove(this.spliterator, this.parallelismThreshold);
+			if (Objects.nonNull(prefix)) {
+				invokeAll(new ForEachTask<>(prefix, this.parallelismThreshold, this.action),
+						new ForEachTask<>(this.spliterator, this.parallelismThreshold, this.action));
+				return;
+			}
+
+			this.spliterator.forEachRemaining(entry -> this.action.accept(entry.getKey(), entry.getValue()));
+		}
+	}
+
+	@SuppressWarnings("serial")
+	static final class SearchTask<K, V, U> extends RecursiveAction {
+
+		private final Spliterator<Map.Entry<K, V>> spliterator;
+		private final long parallelismThreshold;
+		private final BiFunction<? super K, ? super V, ? extends U> searchFunction;
+		private final AtomicReference<U> result;
+
+		SearchTask(Spliterator<Map.Entry<K, V>> spliterator, long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction,
+				AtomicReference<U> result) {
+			this.spliterator = spliterator;
+			this.parallelismThreshold = parallelismThreshold;
+			this.searchFunction = searchFunction;
+			this.result = result;
+		}
+
+		@Override
+		protected void compute() {
+			if (Objects.nonNull(this.result.get())) {
+				return;
+			}
+
+			Spliterator<Map.Entry<K, V>> prefix = splitIfAbove(this.spliterator, this.parallelismThreshold);
+			if (Objects.nonNull(prefix)) {
+				invokeAll(new SearchTask<>(prefix, this.parallelismThreshold, this.searchFunction, this.result),
+						new SearchTask<>(this.spliterator, this.parallelismThreshold, this.searchFunction, this.result));
+				return;
+			}
+
+			// Check for a result from another task before every entry, so that nobody keeps going for long once one has been found
+			while (Objects.isNull(this.result.get()) && this.spliterator.tryAdvance(entry -> {
+				U found = this.searchFunction.apply(entry.getKey(), entry.getValue());
+				if (Objects.nonNull(found)) {
+					this.result.compareAndSet(null, found);
+				}
+			})) {
+			}
+		}
+	}
+
+	@SuppressWarnings("serial")
+	static final class ReduceTask<K, V, U> extends RecursiveTask<U> {
+
+		private final Spliterator<Map.Entry<K, V>> spliterator;
+		private final long parallelismThreshold;
+		private final BiFunction<? super K, ? super V, ? extends U> transformer;
+		private final BiFunction<? super U, ? super U, ? extends U> reducer;
+		private U reduction;
+
+		ReduceTask(Spliterator<Map.Entry<K, V>> spliterator, long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+				BiFunction<? super U, ? super U, ? extends U> reducer) {
+			this.spliterator = spliterator;
+			this.parallelismThreshold = parallelismThreshold;
+			this.transformer = transformer;
+			this.reducer = reducer;
+		}
+
+		@Override
+		protected U compute() {
+			Spliterator<Map.Entry<K, V>> prefix = splitIfAbove(this.spliterator, this.parallelismThreshold);
+			if (Objects.nonNull(prefix)) {
+				ReduceTask<K, V, U> first = new ReduceTask<>(prefix, this.parallelismThreshold, this.transformer, this.reducer);
+				first.fork();
+				U second = new ReduceTask<>(this.spliterator, this.parallelismThreshold, this.transformer, this.reducer).compute();
+				return combine(first.join(), second);
+			}
+
+			this.spliterator.forEachRemaining(entry -> {
+				U transformed = this.transformer.apply(entry.getKey(), entry.getValue());
+				if (Objects.nonNull(transformed)) {
+					this.reduction = combine(this.reduction, transformed);
+				}
+			});
+			return this.reduction;
+		}
+
+		private U combine(U first, U second) {
+			if (Objects.isNull(first)) return second;
+			if (Objects.isNull(second)) return first;
+			return this.reducer.apply(first, second);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	static final class ReduceToLongTask<K, V> extends RecursiveTask<Long> {
+
+		private final Spliterator<Map.Entry<K, V>> spliterator;
+		private final long parallelismThreshold;
+		private final ToLongBiFunction<? super K, ? super V> transformer;
+		private final long basis;
+		private final LongBinaryOperator reducer;
+		private long reduction;
+
+		ReduceToLongTask(Spliterator<Map.Entry<K, V>> spliterator, long parallelismThreshold, ToLongBiFunction<? super K, ? super V> transformer,
+				long basis, LongBinaryOperator reducer) {
+			this.spliterator = spliterator;
+			this.parallelismThreshold = parallelismThreshold;
+			this.transformer = transformer;
+			this.basis = basis;
+			this.reducer = reducer;
+		}
+
+		@Override
+		protected Long compute() {
+			Spliterator<Map.Entry<K, V>> prefix = splitIfAbove(this.spliterator, this.parallelismThreshold);
+			if (Objects.nonNull(prefix)) {
+				ReduceToLongTask<K, V> first = new ReduceToLongTask<>(prefix, this.parallelismThreshold, this.transformer, this.basis, this.reducer);
+				first.fork();
+				long second = new ReduceToLongTask<>(this.spliterator, this.parallelismThreshold, this.transformer, this.basis, this.reducer).compute();
+				return this.reducer.applyAsLong(first.join(), second);
+			}
+
+			this.reduction = this.basis;
+			this.spliterator.forEachRemaining(entry -> {
+				this.reduction = this.reducer.applyAsLong(this.reduction, this.transformer.applyAsLong(entry.getKey(), entry.getValue()));
+			});
+			return this.reduction;
+		}
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.matthew.maps;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Loads the values of an {@link AsyncLoadingCache} from wherever they really live, such as a database or another service. The cache only
+ * ever calls it from its executor, and never loads a key again while it's already being loaded.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+	/**
+	 * @param key The key
+	 * @return The value of the key, or null if there is none
+	 * @throws Exception if the value could not be loaded, which fails the future of the key
+	 */
+	V load(K key) throws Exception;
+
+	/**
+	 * Loads the values of a batch of keys at once. By default it loads them one by one, so a loader that can do better, such as with one
+	 * query for the whole batch, should override it.
+	 *
+	 * @param keys The keys
+	 * @return The values of the keys. A key without a value can be left out.
+	 * @throws Exception if the values could not be loaded, which fails the futures of all the keys
+	 */
+	default Map<K, V> loadAll(Set<? extends K> keys) throws Exception {
+		Map<K, V> values = new HashMap<>();
+		for (K key : keys) {
+			V value = load(key);
+			if (Objects.nonNull(value)) {
+				values.put(key, value);
+			}
+		}
+		return values;
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.matthew.maps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Reading and writing through a buffer, for the maps that save themselves to files. Everything they write is little endian.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+final class Channels {
+
+	private Channels() {
+	}
+
+	/**
+	 * Writes out everything that has been put in the buffer, and empties it
+	 */
+	static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Moves what is left to read of the buffer to its start, and reads from the channel after it until there are at least the given
+	 * number of bytes to read. If the buffer is too small for that, what is left is moved into a bigger one instead.
+	 * 
+	 * @return The buffer to carry on reading from, or null if the channel ended first
+	 */
+	static ByteBuffer fill(FileChannel channel, ByteBuffer buffer, int numberOfBytes) throws IOException {
+		ByteBuffer target = buffer;
+		if (numberOfBytes > buffer.capacity()) {
+			target = ByteBuffer.allocateDirect(numberOfBytes).order(ByteOrder.LITTLE_ENDIAN);
+			target.put(buffer);
+		} else {
+			buffer.compact();
+		}
+		
+		while (target.position() < numberOfBytes) {
+			if (channel.read(target) < 0) {
+				return null;
+			}
+		}
+		target.flip();
+		return target;
+	}
+
+	/**
+	 * Like {@link #fill(FileChannel, ByteBuffer, int)}, for a file that must have the bytes
+	 * 
+	 * @throws IOException if the channel ends first
+	 */
+	static ByteBuffer fillOrThrow(FileChannel channel, ByteBuffer buffer, int numberOfBytes, Object file) throws IOException {
+		ByteBuffer target = fill(channel, buffer, numberOfBytes);
+		if (Objects.isNull(target)) throw new IOException(file + " ends in the middle of an entry.");
+		return target;
+	}
+
+	/**
+	 * Moves a file that has been written and synced over the target in one step, so that the target is always either the old file or the
+	 * new one, and then syncs the directory, so that the move itself isn't lost if the machine goes down
+	 */
+	static void replace(Path file, Path target) throws IOException {
+		Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		try (FileChannel directory = FileChannel.open(target.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+			directory.force(true);
+		}
+	}
+
+}
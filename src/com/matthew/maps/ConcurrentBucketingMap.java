@@ -0,0 +1,715 @@
+package com.matthew.maps;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A thread safe version of the {@link BucketingMap}. Instead of one lock around the whole map, the buckets are split into stripes and
+ * each stripe has its own lock, so writers to different stripes never wait on each other. Readers don't take any locks at all: every
+ * bucket is read with a volatile read and every link of a chain is volatile, and a writer only ever publishes a node once it is
+ * completely built, so a reader always sees a consistent chain, even if it might be one write behind.
+ *
+ * The number of buckets is always a power of two, and a stripe owns every bucket whose index has the same low bits. That way a bucket
+ * stays in the same stripe when the map doubles in size, and a writer can pick its lock from the hash alone, before it even looks at
+ * the buckets. Resizing takes every lock and copies the nodes into a new set of buckets rather than relinking them, so readers that
+ * are still walking the old buckets aren't led astray.
+ *
+ * The size is kept in a {@link LongAdder} so that writers don't all contend on one counter. Adding it up isn't free though, so the map
+ * only checks whether it needs to resize when a new node lands in a bucket that wasn't empty.
+ *
+ * Unlike the other maps, this doesn't allow null values, since {@link ConcurrentMap} uses null to mean that there is no mapping.
+ * The functions given to {@code compute}, {@code computeIfAbsent}, {@code computeIfPresent} and {@code merge} are called at most once
+ * while holding the lock of the key's stripe, so they should be short and must not modify this map.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class ConcurrentBucketingMap<K, V> implements ConcurrentMap<K, V> {
+
+	private static final int DEFAULT_INITIAL_NUMBER_OF_BUCKETS = 64;
+	private static final double DEFAULT_LOAD_FACTOR = 0.75d;
+	private static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+	private static final int MAXIMUM_NUMBER_OF_BUCKETS = 1 << 30;
+	private static final VarHandle BUCKETS = MethodHandles.arrayElementVarHandle(Node[].class);
+
+	private final double LOAD_FACTOR;
+	private final ReentrantLock[] locks;
+
+	private volatile Node<K, V>[] buckets;
+	private final LongAdder size = new LongAdder();
+
+	private Set<K> keySet;
+	private Collection<V> valuesView;
+	private Set<Entry<K, V>> entrySet;
+
+	/**
+	 * Creates an empty {@code ConcurrentBucketingMap} with at least the specified initial number of buckets, the specified load factor,
+	 * and the specified concurrency level
+	 *
+	 * @param initialNumberOfBuckets The initial number of buckets, which is rounded up to a power of two and to at least the concurrency level
+	 * @param loadFactor The average number of nodes per bucket that the map resizes at
+	 * @param concurrencyLevel The number of lock stripes, which is rounded up to a power of two
+	 *
+	 * @throws IllegalArgumentException if the initial number of buckets is less than or equal to 0
+	 * or if the load factor is non-positive or NaN
+	 * or if the concurrency level is less than or equal to 0
+	 */
+	public ConcurrentBucketingMap(int initialNumberOfBuckets, double loadFactor, int concurrencyLevel) {
+		if (initialNumberOfBuckets <= 0) throw new IllegalArgumentException("initialNumberOfBuckets cannot be less than or equal to 0.");
+		if (loadFactor <= 0.0d || Double.isNaN(loadFactor)) throw new IllegalArgumentException("loadFactor must be a number and cannot be less than or equal to 0.");
+		if (concurrencyLevel <= 0) throw new IllegalArgumentException("concurrencyLevel cannot be less than or equal to 0.");
+
+		int numberOfLocks = powerOfTwoAtLeast(concurrencyLevel);
+		this.locks = new ReentrantLock[numberOfLocks];
+		for (int i = 0; i < numberOfLocks; i++) {
+			this.locks[i] = new ReentrantLock();
+		}
+
+		this.LOAD_FACTOR = loadFactor;
+		this.buckets = createNewBuckets(Math.max(powerOfTwoAtLeast(initialNumberOfBuckets), numberOfLocks));
+	}
+
+	/**
+	 * Creates an empty {@code ConcurrentBucketingMap} with at least the specified initial number of buckets, the specified load factor,
+	 * and the default concurrency level (64)
+	 *
+	 * @param initialNumberOfBuckets The initial number of buckets, which is rounded up to a power of two
+	 * @param loadFactor The average number of nodes per bucket that the map resizes at
+	 */
+	public ConcurrentBucketingMap(int initialNumberOfBuckets, double loadFactor) {
+		this(initialNumberOfBuckets, loadFactor, DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	/**
+	 * Creates an empty {@code ConcurrentBucketingMap} with at least the specified initial number of buckets, the default load factor (0.75),
+	 * and the default concurrency level (64)
+	 *
+	 * @param initialNumberOfBuckets The initial number of buckets, which is rounded up to a power of two
+	 */
+	public ConcurrentBucketingMap(int initialNumberOfBuckets) {
+		this(initialNumberOfBuckets, DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Creates an empty {@code ConcurrentBucketingMap} with the default initial number of buckets (64), the default load factor (0.75),
+	 * and the default concurrency level (64)
+	 */
+	public ConcurrentBucketingMap() {
+		this(DEFAULT_INITIAL_NUMBER_OF_BUCKETS);
+	}
+
+	@Override
+	public void clear() {
+		lockAll();
+		try {
+			this.buckets = createNewBuckets(this.buckets.length);
+			this.size.reset();
+		} finally {
+			unlockAll();
+		}
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return Objects.nonNull(findNode(key));
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		Objects.requireNonNull(value);
+
+		Node<K, V>[] buckets = this.buckets;
+		for (int i = 0; i < buckets.length; i++) {
+			for (Node<K, V> node = bucketAt(buckets, i); Objects.nonNull(node); node = node.next) {
+				if (value.equals(node.value)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (Objects.isNull(this.entrySet)) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	@Override
+	public V get(Object key) {
+		Node<K, V> node = findNode(key);
+		return Objects.isNull(node) ? null : node.value;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size.sum() <= 0;
+	}
+
+	@Override
+	public Set<K> keySet() {
+		if (Objects.isNull(this.keySet)) {
+			this.keySet = new KeySet();
+		}
+		return this.keySet;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		return put(key, value, false);
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		return put(key, value, true);
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			this.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	public V remove(Object key) {
+		return remove(key, null, true);
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		return Objects.nonNull(value) && Objects.nonNull(remove(key, value, false));
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		Objects.requireNonNull(value);
+
+		int hash = Hashing.spread(key.hashCode());
+		ReentrantLock lock = lockFor(hash);
+		lock.lock();
+		try {
+			Node<K, V> node = findInBucket(this.buckets, hash, key);
+			if (Objects.isNull(node)) {
+				return null;
+			}
+
+			V oldValue = node.value;
+			node.value = value;
+			return oldValue;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		Objects.requireNonNull(oldValue);
+		Objects.requireNonNull(newValue);
+
+		int hash = Hashing.spread(key.hashCode());
+		ReentrantLock lock = lockFor(hash);
+		lock.lock();
+		try {
+			Node<K, V> node = findInBucket(this.buckets, hash, key);
+			if (Objects.isNull(node) || !oldValue.equals(node.value)) {
+				return false;
+			}
+
+			node.value = newValue;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(remappingFunction);
+		return compute(key, remappingFunction, true, true);
+	}
+
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		Objects.requireNonNull(mappingFunction);
+		return compute(key, (k, absent) -> mappingFunction.apply(k), true, false);
+	}
+
+	@Override
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(remappingFunction);
+		return compute(key, remappingFunction, false, true);
+	}
+
+	@Override
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(value);
+		Objects.requireNonNull(remappingFunction);
+		return compute(key, (k, oldValue) -> Objects.isNull(oldValue) ? value : remappingFunction.apply(oldValue, value), true, true);
+	}
+
+	/**
+	 * Gets the number of mappings in the map. While other threads are writing this is only an estimate, since the counts of the
+	 * different threads are added up one after another.
+	 */
+	@Override
+	public int size() {
+		return (int) Math.min(this.size.sum(), Integer.MAX_VALUE);
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (Objects.isNull(this.valuesView)) {
+			this.valuesView = new Values();
+		}
+		return this.valuesView;
+	}
+
+	/**
+	 * Finds the node for the given key without taking any locks
+	 *
+	 * @param key The key to find
+	 * @return The node for the key, or null if there is none
+	 */
+	private Node<K, V> findNode(Object key) {
+		return findInBucket(this.buckets, Hashing.spread(key.hashCode()), key);
+	}
+
+	private static <K, V> Node<K, V> findInBucket(Node<K, V>[] buckets, int hash, Object key) {
+		for (Node<K, V> node = bucketAt(buckets, indexFor(hash, buckets.length)); Objects.nonNull(node); node = node.next) {
+			if (node.hash == hash && (node.key == key || node.key.equals(key))) {
+				return node;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Puts the given value for the given key
+	 *
+	 * @param onlyIfAbsent Whether to leave the value alone if there is one for the key already
+	 * @return The previous value for the key, or null if there wasn't one
+	 */
+	private V put(K key, V value, boolean onlyIfAbsent) {
+		Objects.requireNonNull(value);
+
+		int hash = Hashing.spread(key.hashCode());
+		int bucketSize = 0;
+		ReentrantLock lock = lockFor(hash);
+		lock.lock();
+		try {
+			Node<K, V>[] buckets = this.buckets;
+			int bucketIndex = indexFor(hash, buckets.length);
+			Node<K, V> bucket = bucketAt(buckets, bucketIndex);
+
+			for (Node<K, V> node = bucket; Objects.nonNull(node); node = node.next) {
+				if (node.hash == hash && (node.key == key || node.key.equals(key))) {
+					V oldValue = node.value;
+					if (!onlyIfAbsent) {
+						node.value = value;
+					}
+					return oldValue;
+				}
+				bucketSize++;
+			}
+
+			BUCKETS.setVolatile(buckets, bucketIndex, new Node<>(hash, key, value, bucket));
+			this.size.increment();
+		} finally {
+			lock.unlock();
+		}
+
+		if (bucketSize > 0) {
+			resizeIfNeeded();
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the node for the given key
+	 *
+	 * @param expectedValue The value the node needs to have for it to be removed, unless {@code anyValue} is true
+	 * @param anyValue Whether to remove the node whatever its value is
+	 * @return The value of the removed node, or null if no node was removed
+	 */
+	private V remove(Object key, Object expectedValue, boolean anyValue) {
+		int hash = Hashing.spread(key.hashCode());
+		ReentrantLock lock = lockFor(hash);
+		lock.lock();
+		try {
+			Node<K, V>[] buckets = this.buckets;
+			int bucketIndex = indexFor(hash, buckets.length);
+
+			Node<K, V> previous = null;
+			for (Node<K, V> node = bucketAt(buckets, bucketIndex); Objects.nonNull(node); previous = node, node = node.next) {
+				if (node.hash == hash && (node.key == key || node.key.equals(key))) {
+					if (!anyValue && !expectedValue.equals(node.value)) {
+						return null;
+					}
+
+					unlink(buckets, bucketIndex, previous, node);
+					return node.value;
+				}
+			}
+
+			return null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Does the work of {@link #compute(Object, BiFunction)}, {@link #computeIfAbsent(Object, Function)},
+	 * {@link #computeIfPresent(Object, BiFunction)} and {@link #merge(Object, Object, BiFunction)} all under the lock of the key's stripe,
+	 * so that the function is called at most once and nothing can change the key in between
+	 *
+	 * @param remappingFunction The function that is given the key and the current value (or null if there is none)
+	 * @param whenAbsent Whether to call the function if there is no value for the key
+	 * @param whenPresent Whether to call the function if there is a value for the key
+	 * @return The new value for the key, or null if there is none
+	 */
+	private V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction, boolean whenAbsent, boolean whenPresent) {
+		int hash = Hashing.spread(key.hashCode());
+		int bucketSize = 0;
+		V newValue;
+		ReentrantLock lock = lockFor(hash);
+		lock.lock();
+		try {
+			Node<K, V>[] buckets = this.buckets;
+			int bucketIndex = indexFor(hash, buckets.length);
+			Node<K, V> bucket = bucketAt(buckets, bucketIndex);
+
+			Node<K, V> previous = null;
+			Node<K, V> node = bucket;
+			while (Objects.nonNull(node) && !(node.hash == hash && (node.key == key || node.key.equals(key)))) {
+				previous = node;
+				node = node.next;
+				bucketSize++;
+			}
+
+			if (Objects.nonNull(node)) {
+				if (!whenPresent) {
+					return node.value;
+				}
+
+				newValue = remappingFunction.apply(key, node.value);
+				if (Objects.isNull(newValue)) {
+					unlink(buckets, bucketIndex, previous, node);
+				} else {
+					node.value = newValue;
+				}
+				return newValue;
+			}
+
+			if (!whenAbsent) {
+				return null;
+			}
+
+			newValue = remappingFunction.apply(key, null);
+			if (Objects.isNull(newValue)) {
+				return null;
+			}
+
+			BUCKETS.setVolatile(buckets, bucketIndex, new Node<>(hash, key, newValue, bucket));
+			this.size.increment();
+		} finally {
+			lock.unlock();
+		}
+
+		if (bucketSize > 0) {
+			resizeIfNeeded();
+		}
+		return newValue;
+	}
+
+	/**
+	 * Unlinks a node from its bucket. The node keeps pointing at the rest of the chain, so a reader that is standing on it can
+	 * still carry on walking. Has to be called while holding the lock of the bucket's stripe.
+	 */
+	private void unlink(Node<K, V>[] buckets, int bucketIndex, Node<K, V> previous, Node<K, V> node) {
+		if (Objects.isNull(previous)) {
+			BUCKETS.setVolatile(buckets, bucketIndex, node.next);
+		} else {
+			previous.next = node.next;
+		}
+		this.size.decrement();
+	}
+
+	/**
+	 * Doubles the number of buckets if there are more nodes than the load factor allows. The nodes are copied rather than moved, since
+	 * readers might still be walking the old buckets, and the new buckets are only published once they're completely filled in.
+	 */
+	private void resizeIfNeeded() {
+		Node<K, V>[] currentBuckets = this.buckets;
+		if (currentBuckets.length >= MAXIMUM_NUMBER_OF_BUCKETS || this.size.sum() <= LOAD_FACTOR * currentBuckets.length) {
+			return;
+		}
+
+		lockAll();
+		try {
+			// Someone else might have resized while we were waiting for the locks
+			if (this.buckets != currentBuckets) {
+				return;
+			}
+
+			Node<K, V>[] newBuckets = createNewBuckets(currentBuckets.length * 2);
+			for (Node<K, V> bucket : currentBuckets) {
+				for (Node<K, V> node = bucket; Objects.nonNull(node); node = node.next) {
+					int bucketIndex = indexFor(node.hash, newBuckets.length);
+					newBuckets[bucketIndex] = new Node<>(node.hash, node.key, node.value, newBuckets[bucketIndex]);
+				}
+			}
+
+			this.buckets = newBuckets;
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Gets the lock of the stripe that a hash belongs to. There are never more stripes than buckets, so this is the same stripe
+	 * whatever the number of buckets is.
+	 */
+	private ReentrantLock lockFor(int hash) {
+		return this.locks[hash & (this.locks.length - 1)];
+	}
+
+	/**
+	 * Takes every lock, always in the same order so that two threads doing this can't deadlock
+	 */
+	private void lockAll() {
+		for (ReentrantLock lock : this.locks) {
+			lock.lock();
+		}
+	}
+
+	private void unlockAll() {
+		for (int i = this.locks.length - 1; i >= 0; i--) {
+			this.locks[i].unlock();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, V> Node<K, V> bucketAt(Node<K, V>[] buckets, int bucketIndex) {
+		return (Node<K, V>) BUCKETS.getVolatile(buckets, bucketIndex);
+	}
+
+	private static int indexFor(int hash, int numberOfBuckets) {
+		return hash & (numberOfBuckets - 1);
+	}
+
+	private static int powerOfTwoAtLeast(int number) {
+		return number >= MAXIMUM_NUMBER_OF_BUCKETS ? MAXIMUM_NUMBER_OF_BUCKETS : Integer.highestOneBit(Math.max(number - 1, 1)) << 1;
+	}
+
+	@SuppressWarnings("unchecked")
+	private final Node<K, V>[] createNewBuckets(int size) {
+		return (Node<K, V>[]) new Node[size];
+	}
+
+	/**
+	 * Walks the buckets as they were when the iterator was created. It never throws a {@link java.util.ConcurrentModificationException},
+	 * and it may or may not see writes that happen while it is walking.
+	 */
+	private abstract class BucketIterator<T> implements Iterator<T> {
+
+		private final Node<K, V>[] buckets = ConcurrentBucketingMap.this.buckets;
+		private int bucketIndex = 0;
+		private Node<K, V> nextNode;
+		private Node<K, V> lastReturnedNode;
+
+		BucketIterator() {
+			advance(null);
+		}
+
+		private void advance(Node<K, V> node) {
+			Node<K, V> next = Objects.isNull(node) ? null : node.next;
+			while (Objects.isNull(next) && this.bucketIndex < this.buckets.length) {
+				next = bucketAt(this.buckets, this.bucketIndex++);
+			}
+			this.nextNode = next;
+		}
+
+		abstract T element(Node<K, V> node);
+
+		@Override
+		public boolean hasNext() {
+			return Objects.nonNull(this.nextNode);
+		}
+
+		@Override
+		public T next() {
+			if (Objects.isNull(this.nextNode)) throw new NoSuchElementException();
+
+			this.lastReturnedNode = this.nextNode;
+			advance(this.nextNode);
+			return element(this.lastReturnedNode);
+		}
+
+		@Override
+		public void remove() {
+			if (Objects.isNull(this.lastReturnedNode)) throw new IllegalStateException();
+
+			ConcurrentBucketingMap.this.remove(this.lastReturnedNode.key);
+			this.lastReturnedNode = null;
+		}
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new BucketIterator<K>() {
+				@Override
+				K element(Node<K, V> node) {
+					return node.key;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentBucketingMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			return Objects.nonNull(ConcurrentBucketingMap.this.remove(key));
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentBucketingMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new BucketIterator<V>() {
+				@Override
+				V element(Node<K, V> node) {
+					return node.value;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentBucketingMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentBucketingMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new BucketIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(Node<K, V> node) {
+					return new WriteThroughEntry(node.key, node.value);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentBucketingMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			V value = get(entry.getKey());
+			return Objects.nonNull(value) && value.equals(entry.getValue());
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			return ConcurrentBucketingMap.this.remove(entry.getKey(), entry.getValue());
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentBucketingMap.this.clear();
+		}
+	}
+
+	/**
+	 * An entry handed out by the entry set's iterator. A node can be copied into new buckets at any time, so rather than holding onto
+	 * the node, the entry holds the key and the value it saw and writes through the map.
+	 */
+	private final class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		WriteThroughEntry(K key, V value) {
+			super(key, value);
+		}
+
+		@Override
+		public V setValue(V newValue) {
+			Objects.requireNonNull(newValue);
+
+			ConcurrentBucketingMap.this.put(getKey(), newValue);
+			return super.setValue(newValue);
+		}
+	}
+
+	static final class Node<K, V> {
+
+		final int hash;
+		final K key;
+		volatile V value;
+		volatile Node<K, V> next;
+
+		Node(int hash, K key, V value, Node<K, V> next) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+}
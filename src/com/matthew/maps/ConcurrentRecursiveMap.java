@@ -0,0 +1,1047 @@
+package com.matthew.maps;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A lock-free, thread safe version of the {@link RecursiveMap}, built as a concurrent hash trie (a Ctrie, from "Concurrent Tries with
+ * Efficient Non-Blocking Snapshots" by Prokopec, Bronson, Bagwell and Odersky).
+ *
+ * The shape is the same as the {@link RecursiveMap}: every level takes the next 5 bits of the mixed hash of a key, and a bucket is
+ * either empty, holds one node, holds a deeper level, or holds nodes whose hashes are all the same. The difference is that every level
+ * sits behind an indirection node, and moving a bucket from one state to another means building a new copy of its level and swapping
+ * it into the indirection node with a compare-and-set. Nothing is ever changed in place, so a reader can walk the trie without taking
+ * any locks and will always see a consistent level, and a writer that loses a race just starts over.
+ *
+ * When a remove leaves a level with just one node, that level is entombed, and the next operation to come across it pulls the node back
+ * up into the level above, so that the trie doesn't keep levels around that it doesn't need.
+ *
+ * Every indirection node belongs to a generation. {@link #snapshot()} swaps the root for a copy in a new generation, which is O(1),
+ * and from then on both maps lazily copy any level of an older generation before they change it, so neither map can see the writes of
+ * the other. The swap of a level only goes through if the generation of the root hasn't changed since the write began, which is what
+ * makes the snapshot consistent. Iterating the map (and so {@link #size()}) walks a snapshot, so it never sees a half finished write,
+ * but it does take time proportional to the size of the map.
+ *
+ * Like {@link java.util.concurrent.ConcurrentHashMap}, this doesn't allow null keys or null values. {@code compute}, {@code merge}
+ * and friends are the defaults from {@link ConcurrentMap}, which retry until they win, so their functions may be called more than once.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class ConcurrentRecursiveMap<K, V> implements ConcurrentMap<K, V> {
+
+	private static final VarHandle ROOT;
+
+	static {
+		try {
+			ROOT = MethodHandles.lookup().findVarHandle(ConcurrentRecursiveMap.class, "root", Object.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Returned when an operation lost a race and has to start over from the root
+	 */
+	private static final Object RESTART = new Object();
+
+	/**
+	 * Conditions for {@link #insert(INode, Object, Object, Object, int, int, INode, Generation)}, on top of null (always) and a value
+	 * (only if the key currently has a value that equals it)
+	 */
+	private static final Object IF_ABSENT = new Object();
+	private static final Object IF_PRESENT = new Object();
+
+	/**
+	 * Either the root {@link INode}, or a {@link RootDescriptor} while a snapshot or a clear is swapping the root
+	 */
+	private volatile Object root;
+
+	private Set<K> keySet;
+	private Collection<V> valuesView;
+	private Set<Entry<K, V>> entrySet;
+
+	public ConcurrentRecursiveMap() {
+		this(newRoot());
+	}
+
+	private ConcurrentRecursiveMap(INode root) {
+		this.root = root;
+	}
+
+	/**
+	 * Takes a snapshot of the map in O(1). The snapshot starts off with exactly the mappings this map has right now, and after that the
+	 * two maps are completely independent: writes to either one are not seen by the other. The levels they still share are only copied
+	 * once one of the maps writes to them.
+	 *
+	 * @return The snapshot, which is a fully writable map in its own right
+	 */
+	public ConcurrentRecursiveMap<K, V> snapshot() {
+		while (true) {
+			INode root = readRoot(false);
+			MainNode main = gcasRead(root);
+			if (rdcssRoot(root, main, copyToGeneration(root, new Generation()))) {
+				return new ConcurrentRecursiveMap<>(copyToGeneration(root, new Generation()));
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		while (true) {
+			INode root = readRoot(false);
+			if (rdcssRoot(root, gcasRead(root), newRoot())) {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return Objects.nonNull(get(key));
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		Objects.requireNonNull(value);
+
+		for (V mappedValue : values()) {
+			if (value.equals(mappedValue)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (Objects.isNull(this.entrySet)) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int hash = Hashing.mix(key.hashCode());
+		while (true) {
+			INode root = readRoot(false);
+			Object result = lookup(root, key, hash, root.generation);
+			if (result != RESTART) {
+				return (V) result;
+			}
+		}
+	}
+
+	/**
+	 * The root level is never entombed, so the map is empty exactly when the root level has no buckets
+	 */
+	@Override
+	public boolean isEmpty() {
+		return ((CNode) gcasRead(readRoot(false))).bitmap == 0;
+	}
+
+	@Override
+	public Set<K> keySet() {
+		if (Objects.isNull(this.keySet)) {
+			this.keySet = new KeySet();
+		}
+		return this.keySet;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		return insert(key, value, null);
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		return insert(key, value, IF_ABSENT);
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			this.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	public V remove(Object key) {
+		return remove(key, null, Hashing.mix(key.hashCode()));
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		return Objects.nonNull(value) && value.equals(remove(key, value, Hashing.mix(key.hashCode())));
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		return insert(key, value, IF_PRESENT);
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		Objects.requireNonNull(oldValue);
+		return oldValue.equals(insert(key, newValue, oldValue));
+	}
+
+	/**
+	 * Counts the mappings in a snapshot of the map, so this takes time proportional to the size of the map
+	 */
+	@Override
+	public int size() {
+		int size = 0;
+		for (Iterator<SNode> iterator = new SnapshotIterator(); iterator.hasNext(); iterator.next()) {
+			size++;
+		}
+		return size;
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (Objects.isNull(this.valuesView)) {
+			this.valuesView = new Values();
+		}
+		return this.valuesView;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V insert(K key, V value, Object condition) {
+		Objects.requireNonNull(value);
+
+		int hash = Hashing.mix(key.hashCode());
+		while (true) {
+			INode root = readRoot(false);
+			Object result = insert(root, key, value, condition, hash, 0, null, root.generation);
+			if (result != RESTART) {
+				return (V) result;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private V remove(Object key, Object expectedValue, int hash) {
+		while (true) {
+			INode root = readRoot(false);
+			Object result = remove(root, key, expectedValue, hash, 0, null, root.generation);
+			if (result != RESTART) {
+				return (V) result;
+			}
+		}
+	}
+
+	/**
+	 * Looks the key up, starting from the root. Unlike writes, this walks down the levels in a loop rather than recursively, since
+	 * there is nothing to clean up on the way back out.
+	 *
+	 * @return The value for the key, null if there is none, or {@link #RESTART}
+	 */
+	private Object lookup(INode root, Object key, int hash, Generation startGeneration) {
+		INode inode = root;
+		INode parent = null;
+		int level = 0;
+
+		while (true) {
+			MainNode main = gcasRead(inode);
+
+			if (main instanceof CNode) {
+				CNode cnode = (CNode) main;
+				int flag = 1 << Hashing.levelIndex(hash, level);
+				if ((cnode.bitmap & flag) == 0) {
+					return null;
+				}
+
+				Object branch = cnode.branches[cnode.branchIndex(flag)];
+				if (branch instanceof SNode) {
+					SNode node = (SNode) branch;
+					return node.matches(hash, key) ? node.value : null;
+				}
+
+				INode child = (INode) branch;
+				if (child.generation == startGeneration) {
+					parent = inode;
+					inode = child;
+					level++;
+				} else if (!gcas(inode, cnode, renewed(cnode, startGeneration))) {
+					// The level below is from before a snapshot, so it has to be copied into our generation before going any further
+					return RESTART;
+				}
+			} else if (main instanceof TNode) {
+				clean(parent, level - 1);
+				return RESTART;
+			} else {
+				return ((LNode) main).get(key);
+			}
+		}
+	}
+
+	/**
+	 * Puts the value for the key into the level behind the given indirection node, or into any level below it, if the current value
+	 * for the key meets the condition
+	 *
+	 * @return The value the key had before, null if it had none, or {@link #RESTART}
+	 */
+	private Object insert(INode inode, Object key, Object value, Object condition, int hash, int level, INode parent, Generation startGeneration) {
+		MainNode main = gcasRead(inode);
+
+		if (main instanceof CNode) {
+			CNode cnode = (CNode) main;
+			int flag = 1 << Hashing.levelIndex(hash, level);
+			if ((cnode.bitmap & flag) == 0) {
+				if (!accepts(condition, null)) {
+					return null;
+				}
+
+				CNode current = cnode.generation == inode.generation ? cnode : renewed(cnode, inode.generation);
+				CNode inserted = current.insertedAt(current.branchIndex(flag), flag, new SNode(hash, key, value));
+				return gcas(inode, cnode, inserted) ? null : RESTART;
+			}
+
+			int branchIndex = cnode.branchIndex(flag);
+			Object branch = cnode.branches[branchIndex];
+			if (branch instanceof INode) {
+				INode child = (INode) branch;
+				if (child.generation == startGeneration) {
+					return insert(child, key, value, condition, hash, level + 1, inode, startGeneration);
+				}
+				return gcas(inode, cnode, renewed(cnode, startGeneration)) ? insert(inode, key, value, condition, hash, level, parent, startGeneration) : RESTART;
+			}
+
+			SNode node = (SNode) branch;
+			if (node.matches(hash, key)) {
+				if (!accepts(condition, node.value)) {
+					return node.value;
+				}
+				return gcas(inode, cnode, cnode.updatedAt(branchIndex, new SNode(hash, key, value))) ? node.value : RESTART;
+			}
+
+			if (!accepts(condition, null)) {
+				return null;
+			}
+
+			// Two different keys in the same bucket, so the bucket gets remapped into a deeper level
+			CNode current = cnode.generation == inode.generation ? cnode : renewed(cnode, inode.generation);
+			INode child = new INode(inode.generation, dual(node, new SNode(hash, key, value), level + 1, inode.generation));
+			return gcas(inode, cnode, current.updatedAt(branchIndex, child)) ? null : RESTART;
+		}
+
+		if (main instanceof TNode) {
+			clean(parent, level - 1);
+			return RESTART;
+		}
+
+		LNode lnode = (LNode) main;
+		Object currentValue = lnode.get(key);
+		if (!accepts(condition, currentValue)) {
+			return currentValue;
+		}
+		return gcas(inode, lnode, lnode.inserted(new SNode(hash, key, value))) ? currentValue : RESTART;
+	}
+
+	/**
+	 * Removes the key from the level behind the given indirection node, or from any level below it, if its value equals the expected
+	 * value (or whatever its value is, if the expected value is null). When that leaves the level with just one node, the level gets
+	 * entombed and pulled back up into its parent.
+	 *
+	 * @return The value the key had, null if it had none, or {@link #RESTART}
+	 */
+	private Object remove(INode inode, Object key, Object expectedValue, int hash, int level, INode parent, Generation startGeneration) {
+		MainNode main = gcasRead(inode);
+
+		if (main instanceof CNode) {
+			CNode cnode = (CNode) main;
+			int flag = 1 << Hashing.levelIndex(hash, level);
+			if ((cnode.bitmap & flag) == 0) {
+				return null;
+			}
+
+			int branchIndex = cnode.branchIndex(flag);
+			Object branch = cnode.branches[branchIndex];
+			Object result;
+			if (branch instanceof INode) {
+				INode child = (INode) branch;
+				if (child.generation == startGeneration) {
+					result = remove(child, key, expectedValue, hash, level + 1, inode, startGeneration);
+				} else if (gcas(inode, cnode, renewed(cnode, startGeneration))) {
+					result = remove(inode, key, expectedValue, hash, level, parent, startGeneration);
+				} else {
+					result = RESTART;
+				}
+			} else {
+				SNode node = (SNode) branch;
+				if (!node.matches(hash, key)) {
+					return null;
+				}
+				if (!accepts(expectedValue, node.value)) {
+					return node.value;
+				}
+
+				CNode removed = cnode.removedAt(branchIndex, flag);
+				result = gcas(inode, cnode, toContracted(removed, level)) ? node.value : RESTART;
+			}
+
+			if (Objects.nonNull(result) && result != RESTART && Objects.nonNull(parent)) {
+				MainNode newMain = gcasRead(inode);
+				if (newMain instanceof TNode) {
+					cleanParent((TNode) newMain, inode, parent, hash, level, startGeneration);
+				}
+			}
+			return result;
+		}
+
+		if (main instanceof TNode) {
+			clean(parent, level - 1);
+			return RESTART;
+		}
+
+		LNode lnode = (LNode) main;
+		Object currentValue = lnode.get(key);
+		if (Objects.isNull(currentValue) || !accepts(expectedValue, currentValue)) {
+			return currentValue;
+		}
+		return gcas(inode, lnode, lnode.removed(key)) ? currentValue : RESTART;
+	}
+
+	/**
+	 * Checks whether the current value of a key (null if it has none) meets the condition of a write
+	 */
+	private static boolean accepts(Object condition, Object currentValue) {
+		if (Objects.isNull(condition)) {
+			return true;
+		} else if (condition == IF_ABSENT) {
+			return Objects.isNull(currentValue);
+		} else if (condition == IF_PRESENT) {
+			return Objects.nonNull(currentValue);
+		}
+		return Objects.nonNull(currentValue) && condition.equals(currentValue);
+	}
+
+	/**
+	 * Creates the level that two nodes with different keys from the same bucket get remapped into. If they end up in the same bucket of
+	 * that level too, it keeps going deeper until they don't, and if their hashes are the same they go into a list instead.
+	 */
+	private static MainNode dual(SNode first, SNode second, int level, Generation generation) {
+		if (first.hash == second.hash) {
+			return new LNode(new SNode[] { first, second });
+		}
+
+		int firstIndex = Hashing.levelIndex(first.hash, level);
+		int secondIndex = Hashing.levelIndex(second.hash, level);
+		if (firstIndex == secondIndex) {
+			INode child = new INode(generation, dual(first, second, level + 1, generation));
+			return new CNode(1 << firstIndex, new Object[] { child }, generation);
+		}
+
+		int bitmap = (1 << firstIndex) | (1 << secondIndex);
+		return firstIndex < secondIndex
+				? new CNode(bitmap, new Object[] { first, second }, generation)
+				: new CNode(bitmap, new Object[] { second, first }, generation);
+	}
+
+	/**
+	 * Entombs a level that isn't the root and only has one node left, so that its parent can pull the node back up
+	 */
+	private static MainNode toContracted(CNode cnode, int level) {
+		if (level > 0 && cnode.branches.length == 1 && cnode.branches[0] instanceof SNode) {
+			return new TNode((SNode) cnode.branches[0]);
+		}
+		return cnode;
+	}
+
+	/**
+	 * Pulls the nodes of every entombed level below the given level up into it. The levels below have to be read with
+	 * {@link #gcasRead(INode)}, since a tomb that is still being swapped in might yet be rolled back.
+	 */
+	private MainNode toCompressed(CNode cnode, int level) {
+		Object[] branches = new Object[cnode.branches.length];
+		for (int i = 0; i < branches.length; i++) {
+			Object branch = cnode.branches[i];
+			MainNode childMain = branch instanceof INode ? gcasRead((INode) branch) : null;
+			branches[i] = childMain instanceof TNode ? ((TNode) childMain).node : branch;
+		}
+		return toContracted(new CNode(cnode.bitmap, branches, cnode.generation), level);
+	}
+
+	private void clean(INode inode, int level) {
+		MainNode main = gcasRead(inode);
+		if (main instanceof CNode) {
+			gcas(inode, main, toCompressed((CNode) main, level));
+		}
+	}
+
+	/**
+	 * Pulls the node of an entombed level straight back up into its parent, unless someone else has already done it
+	 */
+	private void cleanParent(TNode tomb, INode inode, INode parent, int hash, int level, Generation startGeneration) {
+		while (true) {
+			MainNode parentMain = gcasRead(parent);
+			if (!(parentMain instanceof CNode)) {
+				return;
+			}
+
+			CNode cnode = (CNode) parentMain;
+			int flag = 1 << Hashing.levelIndex(hash, level - 1);
+			if ((cnode.bitmap & flag) == 0) {
+				return;
+			}
+
+			int branchIndex = cnode.branchIndex(flag);
+			if (cnode.branches[branchIndex] != inode) {
+				return;
+			}
+
+			CNode updated = cnode.updatedAt(branchIndex, tomb.node);
+			if (gcas(parent, cnode, toContracted(updated, level - 1)) || readRoot(false).generation != startGeneration) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Copies a level into the given generation. The levels below it are not copied, only their indirection nodes, which is enough
+	 * for them to be copied in turn the next time a write goes through them.
+	 */
+	private CNode renewed(CNode cnode, Generation generation) {
+		Object[] branches = new Object[cnode.branches.length];
+		for (int i = 0; i < branches.length; i++) {
+			Object branch = cnode.branches[i];
+			branches[i] = branch instanceof INode ? copyToGeneration((INode) branch, generation) : branch;
+		}
+		return new CNode(cnode.bitmap, branches, generation);
+	}
+
+	private INode copyToGeneration(INode inode, Generation generation) {
+		return new INode(generation, gcasRead(inode));
+	}
+
+	/**
+	 * Swaps the main node of an indirection node, as long as the generation of the root is still the same as the generation of the
+	 * indirection node by the time the swap is committed. The new main node first points back at the old one, and the swap only counts
+	 * once that pointer has been cleared; if the root has moved on to a new generation in the meantime the swap is rolled back instead.
+	 *
+	 * @return Whether the swap went through
+	 */
+	private boolean gcas(INode inode, MainNode oldMain, MainNode newMain) {
+		newMain.previous = oldMain;
+		if (INode.MAIN.compareAndSet(inode, oldMain, newMain)) {
+			gcasComplete(inode, newMain);
+			return Objects.isNull(newMain.previous);
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the main node of an indirection node, finishing (or rolling back) a swap that is still in progress
+	 */
+	private MainNode gcasRead(INode inode) {
+		MainNode main = inode.main;
+		return Objects.isNull(main.previous) ? main : gcasComplete(inode, main);
+	}
+
+	private MainNode gcasComplete(INode inode, MainNode main) {
+		while (true) {
+			MainNode previous = main.previous;
+			INode root = readRoot(true);
+			if (Objects.isNull(previous)) {
+				return main;
+			}
+
+			if (previous instanceof FailedNode) {
+				MainNode rolledBack = previous.previous;
+				if (INode.MAIN.compareAndSet(inode, main, rolledBack)) {
+					return rolledBack;
+				}
+				main = inode.main;
+			} else if (root.generation == inode.generation) {
+				if (MainNode.PREVIOUS.compareAndSet(main, previous, null)) {
+					return main;
+				}
+			} else {
+				MainNode.PREVIOUS.compareAndSet(main, previous, new FailedNode(previous));
+				main = inode.main;
+			}
+		}
+	}
+
+	/**
+	 * Reads the root, finishing a root swap that is still in progress
+	 *
+	 * @param abort Whether to abort a root swap that is in progress rather than trying to finish it
+	 */
+	private INode readRoot(boolean abort) {
+		Object root = this.root;
+		return root instanceof INode ? (INode) root : rdcssComplete(abort);
+	}
+
+	/**
+	 * Swaps the root for a new one, but only if the main node of the old root is still the expected one once the swap is done
+	 *
+	 * @return Whether the swap went through
+	 */
+	private boolean rdcssRoot(INode oldRoot, MainNode expectedMain, INode newRoot) {
+		RootDescriptor descriptor = new RootDescriptor(oldRoot, expectedMain, newRoot);
+		if (ROOT.compareAndSet(this, oldRoot, descriptor)) {
+			rdcssComplete(false);
+			return descriptor.committed;
+		}
+		return false;
+	}
+
+	private INode rdcssComplete(boolean abort) {
+		while (true) {
+			Object root = this.root;
+			if (root instanceof INode) {
+				return (INode) root;
+			}
+
+			RootDescriptor descriptor = (RootDescriptor) root;
+			if (abort) {
+				if (ROOT.compareAndSet(this, descriptor, descriptor.oldRoot)) {
+					return descriptor.oldRoot;
+				}
+			} else if (gcasRead(descriptor.oldRoot) == descriptor.expectedMain) {
+				if (ROOT.compareAndSet(this, descriptor, descriptor.newRoot)) {
+					descriptor.committed = true;
+					return descriptor.newRoot;
+				}
+			} else if (ROOT.compareAndSet(this, descriptor, descriptor.oldRoot)) {
+				return descriptor.oldRoot;
+			}
+		}
+	}
+
+	private static INode newRoot() {
+		Generation generation = new Generation();
+		return new INode(generation, new CNode(0, new Object[0], generation));
+	}
+
+	/**
+	 * Walks the nodes of a snapshot of the map, so it sees the map exactly as it was when the iterator was created, and never throws a
+	 * {@link java.util.ConcurrentModificationException}
+	 */
+	private final class SnapshotIterator implements Iterator<SNode> {
+
+		private final ConcurrentRecursiveMap<K, V> snapshot = snapshot();
+		private final Deque<Object> pendingBranches = new ArrayDeque<>();
+		private SNode nextNode;
+		private SNode lastReturnedNode;
+
+		SnapshotIterator() {
+			this.pendingBranches.push(this.snapshot.readRoot(false));
+			advance();
+		}
+
+		private void advance() {
+			this.nextNode = null;
+			while (!this.pendingBranches.isEmpty()) {
+				Object branch = this.pendingBranches.pop();
+				if (branch instanceof SNode) {
+					this.nextNode = (SNode) branch;
+					return;
+				}
+
+				MainNode main = this.snapshot.gcasRead((INode) branch);
+				if (main instanceof CNode) {
+					for (Object child : ((CNode) main).branches) {
+						this.pendingBranches.push(child);
+					}
+				} else if (main instanceof TNode) {
+					this.nextNode = ((TNode) main).node;
+					return;
+				} else {
+					for (SNode node : ((LNode) main).nodes) {
+						this.pendingBranches.push(node);
+					}
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return Objects.nonNull(this.nextNode);
+		}
+
+		@Override
+		public SNode next() {
+			if (Objects.isNull(this.nextNode)) throw new NoSuchElementException();
+
+			this.lastReturnedNode = this.nextNode;
+			advance();
+			return this.lastReturnedNode;
+		}
+
+		@Override
+		public void remove() {
+			if (Objects.isNull(this.lastReturnedNode)) throw new IllegalStateException();
+
+			ConcurrentRecursiveMap.this.remove(this.lastReturnedNode.key);
+			this.lastReturnedNode = null;
+		}
+	}
+
+	/**
+	 * Turns the nodes of a {@link SnapshotIterator} into something else
+	 */
+	private abstract class ViewIterator<T> implements Iterator<T> {
+
+		private final SnapshotIterator nodes = new SnapshotIterator();
+
+		abstract T element(SNode node);
+
+		@Override
+		public boolean hasNext() {
+			return this.nodes.hasNext();
+		}
+
+		@Override
+		public T next() {
+			return element(this.nodes.next());
+		}
+
+		@Override
+		public void remove() {
+			this.nodes.remove();
+		}
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new ViewIterator<K>() {
+				@Override
+				@SuppressWarnings("unchecked")
+				K element(SNode node) {
+					return (K) node.key;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentRecursiveMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			return Objects.nonNull(ConcurrentRecursiveMap.this.remove(key));
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentRecursiveMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new ViewIterator<V>() {
+				@Override
+				@SuppressWarnings("unchecked")
+				V element(SNode node) {
+					return (V) node.value;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentRecursiveMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentRecursiveMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new ViewIterator<Entry<K, V>>() {
+				@Override
+				@SuppressWarnings("unchecked")
+				Entry<K, V> element(SNode node) {
+					return new WriteThroughEntry((K) node.key, (V) node.value);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentRecursiveMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			V value = get(entry.getKey());
+			return Objects.nonNull(value) && value.equals(entry.getValue());
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			return ConcurrentRecursiveMap.this.remove(entry.getKey(), entry.getValue());
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentRecursiveMap.this.clear();
+		}
+	}
+
+	/**
+	 * An entry handed out by the entry set's iterator, which comes from a snapshot, so setting its value writes through the map
+	 */
+	private final class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		WriteThroughEntry(K key, V value) {
+			super(key, value);
+		}
+
+		@Override
+		public V setValue(V newValue) {
+			ConcurrentRecursiveMap.this.put(getKey(), newValue);
+			return super.setValue(newValue);
+		}
+	}
+
+	/**
+	 * Marks which snapshot an indirection node belongs to. Only its identity matters.
+	 */
+	static final class Generation {
+	}
+
+	/**
+	 * An indirection node, which sits in front of every level so that the level can be swapped out with a compare-and-set
+	 */
+	static final class INode {
+
+		static final VarHandle MAIN;
+
+		static {
+			try {
+				MAIN = MethodHandles.lookup().findVarHandle(INode.class, "main", MainNode.class);
+			} catch (ReflectiveOperationException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+		final Generation generation;
+		volatile MainNode main;
+
+		INode(Generation generation, MainNode main) {
+			this.generation = generation;
+			this.main = main;
+		}
+	}
+
+	/**
+	 * Whatever an indirection node points at. While a swap is in progress, {@code previous} points at the main node being replaced.
+	 */
+	abstract static class MainNode {
+
+		static final VarHandle PREVIOUS;
+
+		static {
+			try {
+				PREVIOUS = MethodHandles.lookup().findVarHandle(MainNode.class, "previous", MainNode.class);
+			} catch (ReflectiveOperationException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+		volatile MainNode previous;
+	}
+
+	/**
+	 * A level of the trie, laid out the same way as a {@link RecursiveMap} level: a bitmap of the buckets in use and a compact array
+	 * with one branch (an {@link SNode} or an {@link INode}) per bucket in use. It is never changed once it has been published.
+	 *
+	 * Every indirection node in a level belongs to the level's generation. Only {@link ConcurrentRecursiveMap#renewed(CNode, Generation)}
+	 * moves a level to a new generation, and it copies all of the indirection nodes when it does, so that a level is never copied while
+	 * it still holds indirection nodes that writers of the current generation could be changing.
+	 */
+	static final class CNode extends MainNode {
+
+		final int bitmap;
+		final Object[] branches;
+		final Generation generation;
+
+		CNode(int bitmap, Object[] branches, Generation generation) {
+			this.bitmap = bitmap;
+			this.branches = branches;
+			this.generation = generation;
+		}
+
+		int branchIndex(int flag) {
+			return Integer.bitCount(this.bitmap & (flag - 1));
+		}
+
+		CNode insertedAt(int branchIndex, int flag, Object branch) {
+			Object[] branches = new Object[this.branches.length + 1];
+			System.arraycopy(this.branches, 0, branches, 0, branchIndex);
+			branches[branchIndex] = branch;
+			System.arraycopy(this.branches, branchIndex, branches, branchIndex + 1, this.branches.length - branchIndex);
+			return new CNode(this.bitmap | flag, branches, this.generation);
+		}
+
+		CNode updatedAt(int branchIndex, Object branch) {
+			Object[] branches = this.branches.clone();
+			branches[branchIndex] = branch;
+			return new CNode(this.bitmap, branches, this.generation);
+		}
+
+		CNode removedAt(int branchIndex, int flag) {
+			Object[] branches = new Object[this.branches.length - 1];
+			System.arraycopy(this.branches, 0, branches, 0, branchIndex);
+			System.arraycopy(this.branches, branchIndex + 1, branches, branchIndex, branches.length - branchIndex);
+			return new CNode(this.bitmap ^ flag, branches, this.generation);
+		}
+	}
+
+	/**
+	 * A tomb for a level that only has one node left, waiting to be pulled back up into its parent
+	 */
+	static final class TNode extends MainNode {
+
+		final SNode node;
+
+		TNode(SNode node) {
+			this.node = node;
+		}
+	}
+
+	/**
+	 * The nodes whose keys all have the same hash, which no number of levels could tell apart
+	 */
+	static final class LNode extends MainNode {
+
+		final SNode[] nodes;
+
+		LNode(SNode[] nodes) {
+			this.nodes = nodes;
+		}
+
+		Object get(Object key) {
+			for (SNode node : this.nodes) {
+				if (node.key.equals(key)) {
+					return node.value;
+				}
+			}
+			return null;
+		}
+
+		LNode inserted(SNode newNode) {
+			for (int i = 0; i < this.nodes.length; i++) {
+				if (this.nodes[i].key.equals(newNode.key)) {
+					SNode[] nodes = this.nodes.clone();
+					nodes[i] = newNode;
+					return new LNode(nodes);
+				}
+			}
+
+			SNode[] nodes = Arrays.copyOf(this.nodes, this.nodes.length + 1);
+			nodes[this.nodes.length] = newNode;
+			return new LNode(nodes);
+		}
+
+		MainNode removed(Object key) {
+			SNode[] nodes = new SNode[this.nodes.length - 1];
+			int nodeIndex = 0;
+			for (SNode node : this.nodes) {
+				if (!node.key.equals(key)) {
+					nodes[nodeIndex++] = node;
+				}
+			}
+			return nodes.length == 1 ? new TNode(nodes[0]) : new LNode(nodes);
+		}
+	}
+
+	/**
+	 * Put in place of the previous main node of a swap that has to be rolled back
+	 */
+	static final class FailedNode extends MainNode {
+
+		FailedNode(MainNode previous) {
+			this.previous = previous;
+		}
+	}
+
+	/**
+	 * A swap of the root that is in progress
+	 */
+	static final class RootDescriptor {
+
+		final INode oldRoot;
+		final MainNode expectedMain;
+		final INode newRoot;
+		volatile boolean committed = false;
+
+		RootDescriptor(INode oldRoot, MainNode expectedMain, INode newRoot) {
+			this.oldRoot = oldRoot;
+			this.expectedMain = expectedMain;
+			this.newRoot = newRoot;
+		}
+	}
+
+	/**
+	 * A key and its value, which never change once the node has been created
+	 */
+	static final class SNode {
+
+		// The mixed hashcode of the key
+		final int hash;
+		final Object key;
+		final Object value;
+
+		SNode(int hash, Object key, Object value) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+		}
+
+		boolean matches(int hash, Object key) {
+			return this.hash == hash && (this.key == key || this.key.equals(key));
+		}
+	}
+
+}
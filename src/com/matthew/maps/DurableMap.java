@@ -0,0 +1,536 @@
+package com.matthew.maps;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Makes the changes to a map survive a crash, by appending every put, remove, and clear to a write-ahead log in a directory before it's
+ * made to the map. Opening the directory loads the last snapshot into the map and replays the log on top of it. Once the log has grown
+ * past the compaction threshold, the whole map is written to a new snapshot and the log starts over.
+ *
+ * The log is written through a buffer and synced to disk in groups, every sync interval, by a background thread, so a crash loses at most
+ * the changes of the last interval and a change doesn't wait for the disk. A sync interval of 0 syncs every change before it returns
+ * instead, which makes every change durable but costs a sync each. {@link #sync()} syncs straight away.
+ *
+ * Every record of the log has a checksum, so a record that was only partly written when the process died is recognized, and the log is
+ * cut off in front of it when it's replayed. A snapshot is written to a temporary file and moved over the old one once it's complete, and
+ * the log is only emptied after that. Replaying a log on top of the snapshot that was taken of it gives the same map, so a crash between
+ * the two doesn't lose or undo anything.
+ *
+ * Any map can be wrapped, such as a {@link BucketingMap} or a {@link RecursiveMap}, but it has to be empty, and it's only changed through
+ * this map from then on. The key set, values, and entry set can't be changed, since those changes wouldn't be logged. Every change is
+ * logged and made to the wrapped map under one lock, so more than one thread can change the map, and the changes are replayed in the order
+ * they were made. Reads go straight to the wrapped map, though, so the map can only be read while another thread changes it if the
+ * wrapped map can be, such as a {@link ConcurrentBucketingMap}. A failure to write the log in the background is thrown as an
+ * {@link UncheckedIOException} from the next change.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class DurableMap<K, V> implements Map<K, V>, AutoCloseable {
+
+	private static final long DEFAULT_SYNC_INTERVAL_MILLIS = 10;
+	private static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+
+	private static final String SNAPSHOT_FILE = "snapshot";
+	private static final String LOG_FILE = "log";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private static final int SNAPSHOT_MAGIC = 0x444D4150;
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final int SNAPSHOT_HEADER_SIZE = 16;
+
+	// A record of the log is the length of its payload and a checksum of it, and then the payload: the type of change, then the key and the
+	// value for a put, or just the key for a remove, each with its length in front
+	private static final int LOG_RECORD_HEADER_SIZE = 8;
+	private static final byte PUT = 1;
+	private static final byte REMOVE = 2;
+	private static final byte CLEAR = 3;
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final Map<K, V> map;
+	private final Path directory;
+	private final Serializer<K> KEY_SERIALIZER;
+	private final Serializer<V> VALUE_SERIALIZER;
+	private final long SYNC_INTERVAL_MILLIS;
+	private final long COMPACTION_THRESHOLD;
+
+	// Everything to do with the log is guarded by this, since the background thread syncs it
+	private final Object lock = new Object();
+	private final FileChannel logChannel;
+	private ByteBuffer logBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private final CRC32C checksum = new CRC32C();
+	private long logSize;
+	private boolean closed = false;
+
+	private final ScheduledExecutorService syncer;
+	private volatile IOException failure;
+
+	private DurableMap(Map<K, V> map, Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer, long syncIntervalMillis,
+			long compactionThreshold) throws IOException {
+		this.map = map;
+		this.directory = directory;
+		this.KEY_SERIALIZER = keySerializer;
+		this.VALUE_SERIALIZER = valueSerializer;
+		this.SYNC_INTERVAL_MILLIS = syncIntervalMillis;
+		this.COMPACTION_THRESHOLD = compactionThreshold;
+
+		Files.createDirectories(directory);
+		Path snapshot = directory.resolve(SNAPSHOT_FILE);
+		if (Files.exists(snapshot)) {
+			readSnapshot(snapshot);
+		}
+
+		this.logChannel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			this.logSize = replayLog();
+			this.logChannel.truncate(this.logSize);
+			this.logChannel.position(this.logSize);
+		} catch (IOException | RuntimeException e) {
+			this.logChannel.close();
+			throw e;
+		}
+
+		if (syncIntervalMillis > 0) {
+			this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "DurableMap syncer for " + directory);
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.syncer.scheduleWithFixedDelay(this::syncInBackground, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+		} else {
+			this.syncer = null;
+		}
+	}
+
+	/**
+	 * Opens the given directory into the given map, with the specified sync interval and compaction threshold
+	 *
+	 * @param map The empty map to load the directory into, and to make the changes to
+	 * @param directory The directory, which is created if it doesn't exist yet
+	 * @param keySerializer The serializer for the keys
+	 * @param valueSerializer The serializer for the values
+	 * @param syncIntervalMillis The number of milliseconds between syncs of the log, or 0 to sync every change
+	 * @param compactionThreshold The number of bytes the log can grow to before it's compacted into a snapshot
+	 * @return The durable map
+	 * @throws IOException if the directory can't be read, or a snapshot in it has been cut short
+	 * @throws IllegalArgumentException if the map isn't empty
+	 * or if the sync interval is less than 0
+	 * or if the compaction threshold is less than or equal to 0
+	 */
+	public static <K, V> DurableMap<K, V> open(Map<K, V> map, Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+			long syncIntervalMillis, long compactionThreshold) throws IOException {
+		if (!map.isEmpty()) throw new IllegalArgumentException("map must be empty.");
+		if (syncIntervalMillis < 0) throw new IllegalArgumentException("syncIntervalMillis cannot be less than 0.");
+		if (compactionThreshold <= 0) throw new IllegalArgumentException("compactionThreshold cannot be less than or equal to 0.");
+
+		return new DurableMap<>(map, directory, Objects.requireNonNull(keySerializer), Objects.requireNonNull(valueSerializer), syncIntervalMillis,
+				compactionThreshold);
+	}
+
+	/**
+	 * Opens the given directory into the given map, with the default sync interval (10 milliseconds) and the default compaction threshold
+	 * (64 MiB)
+	 *
+	 * @param map The empty map to load the directory into, and to make the changes to
+	 * @param directory The directory, which is created if it doesn't exist yet
+	 * @param keySerializer The serializer for the keys
+	 * @param valueSerializer The serializer for the values
+	 * @return The durable map
+	 * @throws IOException if the directory can't be read, or a snapshot in it has been cut short
+	 */
+	public static <K, V> DurableMap<K, V> open(Map<K, V> map, Path directory, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+		return open(map, directory, keySerializer, valueSerializer, DEFAULT_SYNC_INTERVAL_MILLIS, DEFAULT_COMPACTION_THRESHOLD);
+	}
+
+	@Override
+	public void clear() {
+		synchronized (this.lock) {
+			append(CLEAR, null, null);
+			this.map.clear();
+			compactIfNeeded();
+		}
+	}
+
+	/**
+	 * Syncs the log and stops syncing it in the background. The map can't be changed after it has been closed, and closing it again does
+	 * nothing.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (Objects.nonNull(this.syncer)) {
+			this.syncer.shutdown();
+			try {
+				this.syncer.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		synchronized (this.lock) {
+			if (this.closed) {
+				return;
+			}
+
+			Channels.writeFully(this.logChannel, this.logBuffer);
+			this.logChannel.force(false);
+			this.logChannel.close();
+			this.closed = true;
+		}
+	}
+
+	/**
+	 * Writes the whole map to a new snapshot and empties the log. This happens by itself once the log grows past the compaction threshold.
+	 *
+	 * @throws IOException if the snapshot or the log can't be written
+	 */
+	public void compact() throws IOException {
+		synchronized (this.lock) {
+			checkOpen();
+
+			// The log has to be complete on disk before it's emptied, or replaying it on top of the new snapshot could undo later changes
+			Channels.writeFully(this.logChannel, this.logBuffer);
+			this.logChannel.force(false);
+
+			Path temporary = this.directory.resolve(SNAPSHOT_FILE + TEMPORARY_SUFFIX);
+			writeSnapshot(temporary);
+			Channels.replace(temporary, this.directory.resolve(SNAPSHOT_FILE));
+
+			this.logChannel.truncate(0);
+			this.logChannel.position(0);
+			this.logChannel.force(false);
+			this.logSize = 0;
+		}
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return this.map.containsKey(key);
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return this.map.containsValue(value);
+	}
+
+	/**
+	 * Gets an unmodifiable view of the entries of the map
+	 */
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return Collections.unmodifiableMap(this.map).entrySet();
+	}
+
+	@Override
+	public V get(Object key) {
+		return this.map.get(key);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.map.isEmpty();
+	}
+
+	/**
+	 * Gets an unmodifiable view of the keys of the map
+	 */
+	@Override
+	public Set<K> keySet() {
+		return Collections.unmodifiableSet(this.map.keySet());
+	}
+
+	/**
+	 * Puts the given value for the given key, after logging it
+	 *
+	 * @return Whatever the wrapped map returns
+	 * @throws NullPointerException if the key or the value is null
+	 * @throws UncheckedIOException if the log can't be written
+	 */
+	@Override
+	public V put(K key, V value) {
+		synchronized (this.lock) {
+			append(PUT, Objects.requireNonNull(key), Objects.requireNonNull(value));
+			V result = this.map.put(key, value);
+			compactIfNeeded();
+			return result;
+		}
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			this.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Removes the given key, after logging it if it's in the map
+	 *
+	 * @return The value the key had, or null if the key wasn't in the map
+	 * @throws UncheckedIOException if the log can't be written
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		synchronized (this.lock) {
+			if (!this.map.containsKey(key)) {
+				return null;
+			}
+
+			append(REMOVE, (K) key, null);
+			V value = this.map.remove(key);
+			compactIfNeeded();
+			return value;
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.map.size();
+	}
+
+	/**
+	 * Writes everything that has been logged so far to disk, and waits for the disk to have it
+	 *
+	 * @throws IOException if the log can't be written
+	 */
+	public void sync() throws IOException {
+		synchronized (this.lock) {
+			checkOpen();
+			Channels.writeFully(this.logChannel, this.logBuffer);
+		}
+		// Syncing doesn't need the lock, so changes can carry on being logged while the disk catches up
+		this.logChannel.force(false);
+	}
+
+	/**
+	 * Gets an unmodifiable view of the values of the map
+	 */
+	@Override
+	public Collection<V> values() {
+		return Collections.unmodifiableCollection(this.map.values());
+	}
+
+	/**
+	 * Appends a record for a change to the log buffer, writing the buffer out first if the record doesn't fit. The lock has to be held
+	 * until the change has been made to the wrapped map as well, so that the changes are made in the order they're logged, and a
+	 * compaction never sees a change in the log that isn't in the map yet.
+	 */
+	private void append(byte type, K key, V value) {
+		IOException failure = this.failure;
+		if (Objects.nonNull(failure)) throw new UncheckedIOException("Syncing the log failed.", failure);
+
+		int keyLength = Objects.isNull(key) ? 0 : KEY_SERIALIZER.sizeOf(key);
+		int valueLength = Objects.isNull(value) ? 0 : VALUE_SERIALIZER.sizeOf(value);
+		int payloadLength = 1 + (Objects.isNull(key) ? 0 : Integer.BYTES + keyLength) + (Objects.isNull(value) ? 0 : Integer.BYTES + valueLength);
+		int recordSize = LOG_RECORD_HEADER_SIZE + payloadLength;
+
+		checkOpen();
+		try {
+			if (recordSize > this.logBuffer.remaining()) {
+				Channels.writeFully(this.logChannel, this.logBuffer);
+				if (recordSize > this.logBuffer.capacity()) {
+					this.logBuffer = ByteBuffer.allocateDirect(recordSize).order(ByteOrder.LITTLE_ENDIAN);
+				}
+			}
+
+			ByteBuffer buffer = this.logBuffer;
+			int start = buffer.position();
+			int position = start + LOG_RECORD_HEADER_SIZE;
+			buffer.put(position++, type);
+			if (Objects.nonNull(key)) {
+				buffer.putInt(position, keyLength);
+				KEY_SERIALIZER.write(key, buffer, position + Integer.BYTES);
+				position += Integer.BYTES + keyLength;
+			}
+			if (Objects.nonNull(value)) {
+				buffer.putInt(position, valueLength);
+				VALUE_SERIALIZER.write(value, buffer, position + Integer.BYTES);
+			}
+
+			buffer.putInt(start, payloadLength);
+			buffer.putInt(start + Integer.BYTES, checksum(buffer, start + LOG_RECORD_HEADER_SIZE, start + recordSize));
+			buffer.position(start + recordSize);
+			this.logSize += recordSize;
+
+			if (SYNC_INTERVAL_MILLIS == 0) {
+				Channels.writeFully(this.logChannel, buffer);
+				this.logChannel.force(false);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Computes the checksum of the given range of the buffer, without changing its position or limit
+	 */
+	private int checksum(ByteBuffer buffer, int start, int end) {
+		int position = buffer.position();
+		int limit = buffer.limit();
+		buffer.limit(end).position(start);
+
+		this.checksum.reset();
+		this.checksum.update(buffer);
+		buffer.limit(limit).position(position);
+		return (int) this.checksum.getValue();
+	}
+
+	private void compactIfNeeded() {
+		if (this.logSize <= COMPACTION_THRESHOLD) {
+			return;
+		}
+
+		try {
+			compact();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void syncInBackground() {
+		try {
+			sync();
+		} catch (IOException e) {
+			this.failure = e;
+		} catch (IllegalStateException e) {
+			// Closed in the meantime, so there's nothing left to sync
+		}
+	}
+
+	private void checkOpen() {
+		if (this.closed) throw new IllegalStateException("The map has been closed.");
+	}
+
+	/**
+	 * Applies the records of the log to the map, up to the end of the log or the first record that wasn't written all the way
+	 *
+	 * @return The length of the log up to the end of the last record that was applied
+	 */
+	@SuppressWarnings("unchecked")
+	private long replayLog() throws IOException {
+		long fileSize = this.logChannel.size();
+		long logSize = 0;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.limit(0);
+
+		while (true) {
+			if (buffer.remaining() < LOG_RECORD_HEADER_SIZE && Objects.isNull(buffer = Channels.fill(this.logChannel, buffer, LOG_RECORD_HEADER_SIZE))) {
+				return logSize;
+			}
+
+			int position = buffer.position();
+			int payloadLength = buffer.getInt(position);
+			if (payloadLength <= 0 || payloadLength > fileSize - logSize - LOG_RECORD_HEADER_SIZE) {
+				return logSize;
+			}
+
+			int recordSize = LOG_RECORD_HEADER_SIZE + payloadLength;
+			if (buffer.remaining() < recordSize && Objects.isNull(buffer = Channels.fill(this.logChannel, buffer, recordSize))) {
+				return logSize;
+			}
+
+			position = buffer.position();
+			if (buffer.getInt(position + Integer.BYTES) != checksum(buffer, position + LOG_RECORD_HEADER_SIZE, position + recordSize)) {
+				return logSize;
+			}
+
+			int payload = position + LOG_RECORD_HEADER_SIZE;
+			byte type = buffer.get(payload);
+			if (type == CLEAR) {
+				this.map.clear();
+			} else {
+				int keyLength = buffer.getInt(payload + 1);
+				K key = KEY_SERIALIZER.read(buffer, payload + 1 + Integer.BYTES, keyLength);
+				if (type == PUT) {
+					int valuePosition = payload + 1 + Integer.BYTES + keyLength;
+					this.map.put(key, VALUE_SERIALIZER.read(buffer, valuePosition + Integer.BYTES, buffer.getInt(valuePosition)));
+				} else {
+					this.map.remove(key);
+				}
+			}
+
+			buffer.position(position + recordSize);
+			logSize += recordSize;
+		}
+	}
+
+	private void readSnapshot(Path snapshot) throws IOException {
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.limit(0);
+			buffer = Channels.fillOrThrow(channel, buffer, SNAPSHOT_HEADER_SIZE, snapshot);
+			if (buffer.getInt(0) != SNAPSHOT_MAGIC) throw new IOException(snapshot + " is not a snapshot of a map.");
+			if (buffer.getInt(4) != SNAPSHOT_VERSION) throw new IOException(snapshot + " has unsupported version " + buffer.getInt(4) + ".");
+
+			int size = buffer.getInt(8);
+			buffer.position(SNAPSHOT_HEADER_SIZE);
+			for (int i = 0; i < size; i++) {
+				if (buffer.remaining() < 2 * Integer.BYTES) {
+					buffer = Channels.fillOrThrow(channel, buffer, 2 * Integer.BYTES, snapshot);
+				}
+				int keyLength = buffer.getInt(buffer.position());
+				int valueLength = buffer.getInt(buffer.position() + Integer.BYTES);
+				int recordSize = 2 * Integer.BYTES + keyLength + valueLength;
+				if (buffer.remaining() < recordSize) {
+					buffer = Channels.fillOrThrow(channel, buffer, recordSize, snapshot);
+				}
+
+				int position = buffer.position() + 2 * Integer.BYTES;
+				this.map.put(KEY_SERIALIZER.read(buffer, position, keyLength), VALUE_SERIALIZER.read(buffer, position + keyLength, valueLength));
+				buffer.position(position + keyLength + valueLength);
+			}
+		}
+	}
+
+	/**
+	 * Writes every entry of the map to the given file, as the lengths of its key and value followed by the key and the value, and syncs it
+	 */
+	private void writeSnapshot(Path snapshot) throws IOException {
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putInt(this.map.size()).putInt(0);
+
+			for (Entry<K, V> entry : this.map.entrySet()) {
+				int keyLength = KEY_SERIALIZER.sizeOf(entry.getKey());
+				int valueLength = VALUE_SERIALIZER.sizeOf(entry.getValue());
+				int recordSize = 2 * Integer.BYTES + keyLength + valueLength;
+				if (recordSize > buffer.remaining()) {
+					Channels.writeFully(channel, buffer);
+					if (recordSize > buffer.capacity()) {
+						buffer = ByteBuffer.allocateDirect(recordSize).order(ByteOrder.LITTLE_ENDIAN);
+					}
+				}
+
+				int position = buffer.position();
+				buffer.putInt(position, keyLength);
+				buffer.putInt(position + Integer.BYTES, valueLength);
+				KEY_SERIALIZER.write(entry.getKey(), buffer, position + 2 * Integer.BYTES);
+				VALUE_SERIALIZER.write(entry.getValue(), buffer, position + 2 * Integer.BYTES + keyLength);
+				buffer.position(position + recordSize);
+			}
+
+			Channels.writeFully(channel, buffer);
+			channel.force(false);
+		}
+	}
+
+}
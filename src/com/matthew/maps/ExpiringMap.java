@@ -0,0 +1,445 @@
+package com.matthew.maps;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link BucketingMap} whose entries expire once their time to live has passed since they were last put. Every entry has the default
+ * time to live, unless it was put with {@link #put(Object, Object, long, TimeUnit)}, and putting it again starts its time to live over.
+ *
+ * An entry that has expired is removed when {@link #get(Object)} or {@link #containsKey(Object)} comes across it, and {@link #purge()}
+ * removes all the entries that have expired. The expiry times are kept in a hierarchical timing wheel, so purging only looks at the
+ * entries that have expired, and at a few of the others on their way down the wheel, instead of at every entry of the map. The wheel has
+ * five levels of 64 slots, the lowest a millisecond a slot and every level 64 times coarser than the one below it. An entry is kept in
+ * the level whose slots are as fine as they can be while still reaching its expiry time, and moves down a level whenever the wheel comes
+ * round to its slot, until it's in the lowest level and expires there. Entries that live longer than the top level reaches, about 13
+ * days, come round in the top level before they expire and go round again.
+ *
+ * With a sweep interval, a background thread purges the map that often, and {@link #close()} stops it. The {@link Map} methods, the
+ * default ones such as {@code forEach} and {@code compute} included, and {@link #purge()} synchronize on the map, so they are safe to call
+ * while it sweeps, but the views, the snapshots, and the parallel bulk operations have to be used while synchronized on the map, just like
+ * a map from {@link java.util.Collections#synchronizedMap(Map)}. The size and the views count the entries that have expired but haven't
+ * been removed yet.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class ExpiringMap<K, V> extends BucketingMap<K, V> implements AutoCloseable {
+
+	private static final int NUMBER_OF_LEVELS = 5;
+	private static final int SLOTS_PER_LEVEL = 64;
+	private static final int SLOT_MASK = SLOTS_PER_LEVEL - 1;
+
+	/**
+	 * A slot of level {@code i} covers {@code 1 << SHIFTS[i]} nanoseconds, from about a millisecond for the lowest level to about 4.9 hours
+	 * for the top one
+	 */
+	private static final int[] SHIFTS = { 20, 26, 32, 38, 44 };
+
+	private final long DEFAULT_TIME_TO_LIVE_NANOS;
+	private final LongSupplier ticker;
+
+	/**
+	 * Every slot is a circular list of the nodes in it, through a sentinel node
+	 */
+	private final ExpiringNode<K, V>[][] wheel;
+
+	/**
+	 * The time the wheel has been turned to
+	 */
+	private long wheelNanos;
+
+	/**
+	 * The time to live of whatever is being put, which only {@link #put(Object, Object, long, TimeUnit)} changes from the default
+	 */
+	private long timeToLiveNanos;
+
+	private final ScheduledExecutorService sweeper;
+
+	/**
+	 * Creates an empty {@code ExpiringMap} with the specified default time to live, that is purged every sweep interval in the background
+	 * and tells the time with the specified ticker
+	 *
+	 * @param defaultTimeToLive The default time to live
+	 * @param unit The unit of the default time to live
+	 * @param sweepIntervalMillis The number of milliseconds between purges in the background, or 0 to only purge when asked to
+	 * @param ticker The source of the current time in nanoseconds, such as {@code System::nanoTime}
+	 *
+	 * @throws IllegalArgumentException if the default time to live is less than or equal to 0
+	 * or if the sweep interval is less than 0
+	 * @throws NullPointerException if the unit or the ticker is null
+	 */
+	public ExpiringMap(long defaultTimeToLive, TimeUnit unit, long sweepIntervalMillis, LongSupplier ticker) {
+		if (defaultTimeToLive <= 0) throw new IllegalArgumentException("defaultTimeToLive cannot be less than or equal to 0.");
+		if (sweepIntervalMillis < 0) throw new IllegalArgumentException("sweepIntervalMillis cannot be less than 0.");
+
+		this.DEFAULT_TIME_TO_LIVE_NANOS = unit.toNanos(defaultTimeToLive);
+		this.timeToLiveNanos = this.DEFAULT_TIME_TO_LIVE_NANOS;
+		this.ticker = Objects.requireNonNull(ticker);
+		this.wheel = createWheel();
+		this.wheelNanos = ticker.getAsLong();
+
+		if (sweepIntervalMillis > 0) {
+			this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "ExpiringMap sweeper");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.sweeper.scheduleWithFixedDelay(this::purge, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+		} else {
+			this.sweeper = null;
+		}
+	}
+
+	/**
+	 * Creates an empty {@code ExpiringMap} with the specified default time to live, that is purged every sweep interval in the background
+	 *
+	 * @param defaultTimeToLive The default time to live
+	 * @param unit The unit of the default time to live
+	 * @param sweepIntervalMillis The number of milliseconds between purges in the background, or 0 to only purge when asked to
+	 *
+	 * @throws IllegalArgumentException if the default time to live is less than or equal to 0
+	 * or if the sweep interval is less than 0
+	 */
+	public ExpiringMap(long defaultTimeToLive, TimeUnit unit, long sweepIntervalMillis) {
+		this(defaultTimeToLive, unit, sweepIntervalMillis, System::nanoTime);
+	}
+
+	/**
+	 * Creates an empty {@code ExpiringMap} with the specified default time to live, that is only purged when asked to
+	 *
+	 * @param defaultTimeToLive The default time to live
+	 * @param unit The unit of the default time to live
+	 *
+	 * @throws IllegalArgumentException if the default time to live is less than or equal to 0
+	 */
+	public ExpiringMap(long defaultTimeToLive, TimeUnit unit) {
+		this(defaultTimeToLive, unit, 0);
+	}
+
+	@Override
+	public synchronized void clear() {
+		for (ExpiringNode<K, V>[] level : this.wheel) {
+			for (ExpiringNode<K, V> sentinel : level) {
+				sentinel.before = sentinel;
+				sentinel.after = sentinel;
+			}
+		}
+		super.clear();
+	}
+
+	/**
+	 * Stops purging the map in the background. The map can still be used, and purged with {@link #purge()}.
+	 */
+	@Override
+	public void close() {
+		if (Objects.nonNull(this.sweeper)) {
+			this.sweeper.shutdown();
+			try {
+				this.sweeper.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public synchronized boolean containsKey(Object key) {
+		return Objects.nonNull(findLiveNode(key));
+	}
+
+	@Override
+	public synchronized boolean containsValue(Object value) {
+		return super.containsValue(value);
+	}
+
+	@Override
+	public synchronized V get(Object key) {
+		Node<K, V> node = findLiveNode(key);
+		return Objects.isNull(node) ? null : node.value;
+	}
+
+	@Override
+	public synchronized boolean isEmpty() {
+		return super.isEmpty();
+	}
+
+	@Override
+	public synchronized V put(K key, V value) {
+		return super.put(key, value);
+	}
+
+	/**
+	 * Puts the given value for the given key, to expire after the given time to live instead of the default one
+	 *
+	 * @param key The key
+	 * @param value The value
+	 * @param timeToLive The time to live
+	 * @param unit The unit of the time to live
+	 * @return The value
+	 * @throws IllegalArgumentException if the time to live is less than or equal to 0
+	 */
+	public synchronized V put(K key, V value, long timeToLive, TimeUnit unit) {
+		if (timeToLive <= 0) throw new IllegalArgumentException("timeToLive cannot be less than or equal to 0.");
+
+		this.timeToLiveNanos = unit.toNanos(timeToLive);
+		try {
+			return super.put(key, value);
+		} finally {
+			this.timeToLiveNanos = DEFAULT_TIME_TO_LIVE_NANOS;
+		}
+	}
+
+	/**
+	 * Gets the values of the given keys one by one, so that the keys that have expired are removed along the way
+	 */
+	@Override
+	public synchronized V[] getAll(Collection<? extends K> keys, V[] values) {
+		return BatchOrder.getEach(this, keys, values);
+	}
+
+	@Override
+	public synchronized void putAll(Map<? extends K, ? extends V> map) {
+		super.putAll(map);
+	}
+
+	@Override
+	public synchronized void putAll(K[] keys, V[] values) {
+		super.putAll(keys, values);
+	}
+
+	@Override
+	public synchronized V remove(Object key) {
+		return super.remove(key);
+	}
+
+	@Override
+	public synchronized int size() {
+		return super.size();
+	}
+
+	@Override
+	public synchronized V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		return super.compute(key, remappingFunction);
+	}
+
+	@Override
+	public synchronized V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		return super.computeIfAbsent(key, mappingFunction);
+	}
+
+	@Override
+	public synchronized V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		return super.computeIfPresent(key, remappingFunction);
+	}
+
+	@Override
+	public synchronized void forEach(BiConsumer<? super K, ? super V> action) {
+		super.forEach(action);
+	}
+
+	@Override
+	public synchronized V getOrDefault(Object key, V defaultValue) {
+		return super.getOrDefault(key, defaultValue);
+	}
+
+	@Override
+	public synchronized V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		return super.merge(key, value, remappingFunction);
+	}
+
+	@Override
+	public synchronized V putIfAbsent(K key, V value) {
+		return super.putIfAbsent(key, value);
+	}
+
+	@Override
+	public synchronized boolean remove(Object key, Object value) {
+		return super.remove(key, value);
+	}
+
+	@Override
+	public synchronized V replace(K key, V value) {
+		return super.replace(key, value);
+	}
+
+	@Override
+	public synchronized boolean replace(K key, V oldValue, V newValue) {
+		return super.replace(key, oldValue, newValue);
+	}
+
+	@Override
+	public synchronized void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+		super.replaceAll(function);
+	}
+
+	/**
+	 * Removes every entry that has expired, by turning the wheel to the current time. Each level turns by as many slots as have passed
+	 * at its own scale, so this looks at the entries of those slots only.
+	 *
+	 * @return The number of entries that were removed
+	 */
+	public synchronized int purge() {
+		long now = this.ticker.getAsLong();
+		long previous = this.wheelNanos;
+		this.wheelNanos = now;
+
+		int removed = 0;
+		for (int level = 0; level < NUMBER_OF_LEVELS; level++) {
+			long previousTicks = previous >> SHIFTS[level];
+			long ticks = now >> SHIFTS[level];
+			// Nothing above the lowest level can have expired before its level turns by a slot, but the lowest one is always looked at
+			if (level > 0 && ticks - previousTicks <= 0) {
+				break;
+			}
+
+			// The slot the wheel was at is looked at again, since entries that were due later within its time were left in it
+			long numberOfSlots = Math.min(ticks - previousTicks + 1, SLOTS_PER_LEVEL);
+			for (long tick = previousTicks; tick < previousTicks + numberOfSlots; tick++) {
+				removed += expireSlot(this.wheel[level][(int) (tick & SLOT_MASK)], now);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * @param key The key
+	 * @param unit The unit to give the time in
+	 * @return The time until the entry for the key expires, or -1 if there is no live entry for it
+	 */
+	public synchronized long remainingTimeToLive(Object key, TimeUnit unit) {
+		ExpiringNode<K, V> node = (ExpiringNode<K, V>) findLiveNode(key);
+		return Objects.isNull(node) ? -1 : unit.convert(node.expiryNanos - this.ticker.getAsLong(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	Node<K, V> newNode(int hash, K key, V value, Node<K, V> next) {
+		return new ExpiringNode<>(hash, key, value, next, this.ticker.getAsLong() + this.timeToLiveNanos);
+	}
+
+	@Override
+	void afterNodeAccess(Node<K, V> node) {
+		ExpiringNode<K, V> expiringNode = (ExpiringNode<K, V>) node;
+		expiringNode.unlink();
+		expiringNode.expiryNanos = this.ticker.getAsLong() + this.timeToLiveNanos;
+		schedule(expiringNode);
+	}
+
+	@Override
+	void afterNodeInsertion(Node<K, V> node) {
+		schedule((ExpiringNode<K, V>) node);
+	}
+
+	@Override
+	void afterNodeRemoval(Node<K, V> node) {
+		((ExpiringNode<K, V>) node).unlink();
+	}
+
+	/**
+	 * Finds the node for the key, and removes it instead if it has expired
+	 */
+	private Node<K, V> findLiveNode(Object key) {
+		ExpiringNode<K, V> node = (ExpiringNode<K, V>) findNode(key);
+		if (Objects.nonNull(node) && node.expiryNanos - this.ticker.getAsLong() <= 0) {
+			super.remove(key);
+			return null;
+		}
+		return node;
+	}
+
+	/**
+	 * Puts the node in the slot of the lowest level that reaches its expiry time from the time the wheel is at
+	 */
+	private void schedule(ExpiringNode<K, V> node) {
+		long delay = node.expiryNanos - this.wheelNanos;
+		int level = 0;
+		while (level < NUMBER_OF_LEVELS - 1 && delay >= 1L << (SHIFTS[level] + 6)) {
+			level++;
+		}
+
+		ExpiringNode<K, V> sentinel = this.wheel[level][(int) ((node.expiryNanos >> SHIFTS[level]) & SLOT_MASK)];
+		node.before = sentinel.before;
+		node.after = sentinel;
+		sentinel.before.after = node;
+		sentinel.before = node;
+	}
+
+	/**
+	 * Empties the slot, removing the nodes in it that have expired and putting the others back in the wheel, which moves them to a lower
+	 * level, or to a later turn of the same slot
+	 *
+	 * @return The number of nodes that were removed
+	 */
+	private int expireSlot(ExpiringNode<K, V> sentinel, long now) {
+		ExpiringNode<K, V> node = sentinel.after;
+		sentinel.before = sentinel;
+		sentinel.after = sentinel;
+
+		int removed = 0;
+		while (node != sentinel) {
+			ExpiringNode<K, V> next = node.after;
+			node.before = null;
+			node.after = null;
+			if (node.expiryNanos - now <= 0) {
+				super.remove(node.key);
+				removed++;
+			} else {
+				schedule(node);
+			}
+			node = next;
+		}
+		return removed;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, V> ExpiringNode<K, V>[][] createWheel() {
+		ExpiringNode<K, V>[][] wheel = (ExpiringNode<K, V>[][]) new ExpiringNode[NUMBER_OF_LEVELS][SLOTS_PER_LEVEL];
+		for (ExpiringNode<K, V>[] level : wheel) {
+			for (int i = 0; i < SLOTS_PER_LEVEL; i++) {
+				ExpiringNode<K, V> sentinel = new ExpiringNode<>(0, null, null, null, 0);
+				sentinel.before = sentinel;
+				sentinel.after = sentinel;
+				level[i] = sentinel;
+			}
+		}
+		return wheel;
+	}
+
+	/**
+	 * A node that also knows when it expires, and the nodes before and after it in its slot of the wheel
+	 */
+	private static final class ExpiringNode<K, V> extends Node<K, V> {
+
+		long expiryNanos;
+		ExpiringNode<K, V> before;
+		ExpiringNode<K, V> after;
+
+		ExpiringNode(int hash, K key, V value, Node<K, V> next, long expiryNanos) {
+			super(hash, key, value, next);
+			this.expiryNanos = expiryNanos;
+		}
+
+		/**
+		 * Takes the node out of its slot, if it's in one
+		 */
+		void unlink() {
+			if (Objects.nonNull(this.before)) {
+				this.before.after = this.after;
+				this.after.before = this.before;
+				this.before = null;
+				this.after = null;
+			}
+		}
+	}
+
+}
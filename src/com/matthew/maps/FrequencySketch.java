@@ -0,0 +1,103 @@
+package com.matthew.maps;
+
+import java.util.Objects;
+
+/**
+ * A count-min sketch of how often keys have been seen recently, for deciding which of two keys is more worth keeping in a cache. Every
+ * key has a 4 bit counter in each of four rows and its frequency is the smallest of them, so collisions can only make a key look more
+ * popular than it is, never less. Sixteen counters are packed into each long. Each row picks its own long for a key, so a lookup touches up
+ * to four longs, and the low two bits of the hash pick which group of four counters in those longs the key uses, so two keys that land on
+ * the same long usually still use different counters. There are about as many longs as the cache holds keys. Once ten times as many keys
+ * have been counted as there are longs, every counter is halved, so that keys that used to be popular don't stay ahead forever.
+ *
+ * @author Matthew Meacham
+ *
+ */
+final class FrequencySketch {
+
+	private static final long[] SEEDS = { 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L };
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final int MAXIMUM_COUNT = 15;
+	private static final int MAXIMUM_TABLE_LENGTH = 1 << 30;
+	private static final int SAMPLE_SIZE_FACTOR = 10;
+
+	private long[] table;
+	private int sampleSize;
+	private int additions = 0;
+
+	/**
+	 * @param maximumSize The number of keys the cache can hold, which the sketch is sized to
+	 */
+	FrequencySketch(int maximumSize) {
+		ensureCapacity(maximumSize);
+	}
+
+	/**
+	 * Makes the sketch bigger if the cache now holds more keys than it was sized to, for a cache that doesn't know up front how many keys
+	 * it will hold. Everything counted so far is forgotten when it grows, which only happens a few times, since it doubles each time.
+	 *
+	 * @param size The number of keys the cache holds
+	 */
+	void ensureCapacity(int size) {
+		if (Objects.nonNull(this.table) && (size <= this.table.length || this.table.length == MAXIMUM_TABLE_LENGTH)) {
+			return;
+		}
+
+		int tableLength = size > MAXIMUM_TABLE_LENGTH / 2 ? MAXIMUM_TABLE_LENGTH : Integer.highestOneBit(Math.max(size - 1, 8)) << 1;
+		this.table = new long[tableLength];
+		this.sampleSize = (int) Math.min((long) tableLength * SAMPLE_SIZE_FACTOR, Integer.MAX_VALUE);
+		this.additions = 0;
+	}
+
+	/**
+	 * @param hashCode The hash code of the key
+	 * @return About how many times the key has been counted since the counters were last halved, at most 15
+	 */
+	int frequency(int hashCode) {
+		int hash = Hashing.mix(hashCode);
+		int start = (hash & 3) << 2;
+		int frequency = MAXIMUM_COUNT;
+		for (int i = 0; i < SEEDS.length; i++) {
+			long counters = this.table[indexOf(hash, i)];
+			frequency = Math.min(frequency, (int) (counters >>> ((start + i) << 2)) & MAXIMUM_COUNT);
+		}
+		return frequency;
+	}
+
+	/**
+	 * Counts the key once more, unless all of its counters are already at their maximum
+	 *
+	 * @param hashCode The hash code of the key
+	 */
+	void increment(int hashCode) {
+		int hash = Hashing.mix(hashCode);
+		int start = (hash & 3) << 2;
+		boolean incremented = false;
+		for (int i = 0; i < SEEDS.length; i++) {
+			int index = indexOf(hash, i);
+			int shift = (start + i) << 2;
+			if (((this.table[index] >>> shift) & MAXIMUM_COUNT) != MAXIMUM_COUNT) {
+				this.table[index] += 1L << shift;
+				incremented = true;
+			}
+		}
+
+		if (incremented && ++this.additions == this.sampleSize) {
+			reset();
+		}
+	}
+
+	private int indexOf(int hash, int row) {
+		long index = (hash + SEEDS[row]) * SEEDS[row];
+		index += index >>> 32;
+		return (int) index & (this.table.length - 1);
+	}
+
+	private void reset() {
+		for (int i = 0; i < this.table.length; i++) {
+			this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+		}
+		this.additions >>>= 1;
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.matthew.maps;
+
+/**
+ * Helpers for turning the hash codes of keys into something the maps can index with. A lot of hash codes are poorly distributed
+ * (an {@code Integer} is its own hash code, for example), which is fine for a map that chains its buckets but not for one that
+ * probes neighbouring slots or takes a few bits of the hash at a time.
+ * 
+ * @author Matthew Meacham
+ *
+ */
+public final class Hashing {
+	
+	private static final int GOLDEN_RATIO = 0x9E3779B9;
+	
+	/**
+	 * The number of bits of a hash that index one level of a trie, enough for 32 buckets per level
+	 */
+	public static final int BITS_PER_LEVEL = 5;
+	private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+	
+	/**
+	 * The deepest level that still gets bits of its own. It only gets the 2 bits that are left over after all the levels above it.
+	 */
+	public static final int MAXIMUM_LEVEL = (Integer.SIZE - 1) / BITS_PER_LEVEL;
+	
+	private Hashing() {
+	}
+	
+	/**
+	 * Mixes the bits of a hash code so that every bit of the result depends on the bits of the whole hash code, and sequential hash
+	 * codes end up far apart. This is a bijection, so distinct hash codes always spread to distinct hashes.
+	 * 
+	 * @param hashCode The hash code to spread
+	 * @return The spread hash
+	 */
+	public static int spread(int hashCode) {
+		int hash = hashCode * GOLDEN_RATIO;
+		return hash ^ (hash >>> 16);
+	}
+	
+	/**
+	 * Mixes the bits of a hash code more thoroughly than {@link #spread(int)}, so that flipping any bit of the hash code flips each bit
+	 * of the result about half of the time. This is the finalizer of MurmurHash3, and is a bijection like {@link #spread(int)}. It costs
+	 * a couple more multiplies, but a trie takes its bits from the whole hash instead of just the bottom of it, and the top bits of
+	 * {@link #spread(int)} are not mixed well enough for that.
+	 * 
+	 * @param hashCode The hash code to mix
+	 * @return The mixed hash
+	 */
+	public static int mix(int hashCode) {
+		int hash = hashCode ^ (hashCode >>> 16);
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		return hash ^ (hash >>> 16);
+	}
+	
+	/**
+	 * Takes the bits of a mixed hash that index a trie at the given level, the lowest bits first. Two hashes that are different always
+	 * end up with different indexes by {@link #MAXIMUM_LEVEL} at the latest.
+	 * 
+	 * @param hash The mixed hash
+	 * @param level The level, starting at 0
+	 * @return The index into the level, between 0 and 31
+	 */
+	public static int levelIndex(int hash, int level) {
+		return (hash >>> (BITS_PER_LEVEL * level)) & LEVEL_MASK;
+	}
+
+}
@@ -0,0 +1,286 @@
+package com.matthew.maps;
+
+import java.util.Arrays;
+
+/**
+ * A map from int keys to int values that doesn't box either of them, laid out like a {@link BucketingMap}. It isn't a {@link java.util.Map},
+ * since that would box every key and value again. Rather than a node per entry, the entries live in parallel arrays of keys, values, and
+ * links to the next entry of the same bucket, and a bucket is just a link to its first entry. So the whole map is four int arrays, however
+ * many entries it has. The entries of removed keys are kept on a free list and reused.
+ *
+ * An int can't be null, so {@link #get(int)}, {@link #put(int, int)}, and {@link #remove(int)} answer a key that isn't in the map with the
+ * no-entry value instead. That is 0 unless another one is given to the constructor, and {@link #containsKey(int)} tells a missing key
+ * apart from one that is mapped to the no-entry value.
+ *
+ * {@link LongObjectBucketingMap} is laid out the same way, and only differs in the types of the keys and the values.
+ *
+ * @author Matthew Meacham
+ *
+ */
+public class IntIntBucketingMap {
+
+	private static final int DEFAULT_INITIAL_NUMBER_OF_BUCKETS = 32;
+	private static final double DEFAULT_LOAD_FACTOR = 0.75d;
+	private static final int DEFAULT_NO_ENTRY_VALUE = 0;
+	private static final int MAXIMUM_NUMBER_OF_BUCKETS = 1 << 30;
+
+	private final double LOAD_FACTOR;
+	private final int NO_ENTRY_VALUE;
+
+	// Links are the index of an entry plus 1, so that 0 can be the end of a bucket and a new array is all empty buckets
+	private int[] buckets;
+	private int[] keys = new int[0];
+	private int[] values = new int[0];
+
+	// The link to the next entry of the same bucket, or to the next free entry for an entry that is free
+	private int[] nextLinks = new int[0];
+
+	private int mask;
+	private int resizeThreshold;
+	private int size = 0;
+
+	// Every entry below this has been used at some point, and the ones that are free again are linked from the free link
+	private int usedEntries = 0;
+	private int freeLink = 0;
+
+	/**
+	 * Creates an empty {@code IntIntBucketingMap} with at least the specified initial number of buckets, the specified load factor, and
+	 * the specified no-entry value
+	 *
+	 * @param initialNumberOfBuckets The initial number of buckets, which is rounded up to a power of two
+	 * @param loadFactor The load factor
+	 * @param noEntryValue The value that stands for no value
+	 *
+	 * @throws IllegalArgumentException if the initial number of buckets is less than or equal to 0
+	 * or if the load factor is non-positive, greater than 1.0, or NaN
+	 */
+	public IntIntBucketingMap(int initialNumberOfBuckets, double loadFactor, int noEntryValue) {
+		if (initialNumberOfBuckets <= 0) throw new IllegalArgumentException("initialNumberOfBuckets cannot be less than or equal to 0.");
+		if (loadFactor <= 0.0d || loadFactor > 1.0d || Double.isNaN(loadFactor)) throw new IllegalArgumentException("loadFactor must be a number and cannot be less than or equal to 0, and not greater than 1.");
+
+		this.LOAD_FACTOR = loadFactor;
+		this.NO_ENTRY_VALUE = noEntryValue;
+		allocateBuckets(numberOfBucketsFor(initialNumberOfBuckets));
+		allocateEntries(Math.max(this.resizeThreshold, 1));
+	}
+
+	/**
+	 * Creates an empty {@code IntIntBucketingMap} with at least the specified initial number of buckets, the specified load factor, and
+	 * the default no-entry value (0)
+	 *
+	 * @param initialNumberOfBuckets The initial number of buckets, which is rounded up to a power of two
+	 * @param loadFactor The load factor
+	 */
+	public IntIntBucketingMap(int initialNumberOfBuckets, double loadFactor) {
+		this(initialNumberOfBuckets, loadFactor, DEFAULT_NO_ENTRY_VALUE);
+	}
+
+	/**
+	 * Creates an empty {@code IntIntBucketingMap} with at least the specified initial number of buckets, the default load factor (0.75),
+	 * and the default no-entry value (0)
+	 *
+	 * @param initialNumberOfBuckets The initial number of buckets, which is rounded up to a power of two
+	 */
+	public IntIntBucketingMap(int initialNumberOfBuckets) {
+		this(initialNumberOfBuckets, DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Creates an empty {@code IntIntBucketingMap} with the default initial number of buckets (32), the default load factor (0.75), and the
+	 * default no-entry value (0)
+	 */
+	public IntIntBucketingMap() {
+		this(DEFAULT_INITIAL_NUMBER_OF_BUCKETS);
+	}
+
+	public void clear() {
+		Arrays.fill(this.buckets, 0);
+		this.size = 0;
+		this.usedEntries = 0;
+		this.freeLink = 0;
+	}
+
+	public boolean containsKey(int key) {
+		return findEntry(key) >= 0;
+	}
+
+	/**
+	 * Gets the value for the given key
+	 *
+	 * @return The value, or the no-entry value if the key isn't in the map
+	 */
+	public int get(int key) {
+		int entry = findEntry(key);
+		return entry < 0 ? NO_ENTRY_VALUE : this.values[entry];
+	}
+
+	/**
+	 * Gets the value for the given key
+	 *
+	 * @return The value, or the given default value if the key isn't in the map
+	 */
+	public int getOrDefault(int key, int defaultValue) {
+		int entry = findEntry(key);
+		return entry < 0 ? defaultValue : this.values[entry];
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Gets the value that {@link #get(int)}, {@link #put(int, int)}, and {@link #remove(int)} return for a key that isn't in the map
+	 */
+	public int noEntryValue() {
+		return NO_ENTRY_VALUE;
+	}
+
+	/**
+	 * Puts the given value for the given key
+	 *
+	 * @return The previous value for the key, or the no-entry value if the key wasn't in the map
+	 */
+	public int put(int key, int value) {
+		int bucketIndex = Hashing.spread(key) & this.mask;
+		for (int link = this.buckets[bucketIndex]; link != 0; link = this.nextLinks[link - 1]) {
+			if (this.keys[link - 1] == key) {
+				int previousValue = this.values[link - 1];
+				this.values[link - 1] = value;
+				return previousValue;
+			}
+		}
+
+		int entry = newEntry();
+		this.keys[entry] = key;
+		this.values[entry] = value;
+		this.nextLinks[entry] = this.buckets[bucketIndex];
+		this.buckets[bucketIndex] = entry + 1;
+
+		if (++this.size > this.resizeThreshold) {
+			resize();
+		}
+		return NO_ENTRY_VALUE;
+	}
+
+	/**
+	 * Removes the given key
+	 *
+	 * @return The value the key had, or the no-entry value if the key wasn't in the map
+	 */
+	public int remove(int key) {
+		int bucketIndex = Hashing.spread(key) & this.mask;
+		int previousLink = 0;
+		for (int link = this.buckets[bucketIndex]; link != 0; previousLink = link, link = this.nextLinks[link - 1]) {
+			int entry = link - 1;
+			if (this.keys[entry] == key) {
+				if (previousLink == 0) {
+					this.buckets[bucketIndex] = this.nextLinks[entry];
+				} else {
+					this.nextLinks[previousLink - 1] = this.nextLinks[entry];
+				}
+
+				this.nextLinks[entry] = this.freeLink;
+				this.freeLink = link;
+				this.size--;
+				return this.values[entry];
+			}
+		}
+
+		return NO_ENTRY_VALUE;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Performs the given action for every entry, in no particular order
+	 */
+	public void forEach(EntryConsumer action) {
+		for (int bucket : this.buckets) {
+			for (int link = bucket; link != 0; link = this.nextLinks[link - 1]) {
+				action.accept(this.keys[link - 1], this.values[link - 1]);
+			}
+		}
+	}
+
+	private int findEntry(int key) {
+		for (int link = this.buckets[Hashing.spread(key) & this.mask]; link != 0; link = this.nextLinks[link - 1]) {
+			if (this.keys[link - 1] == key) {
+				return link - 1;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Takes an entry off the free list, or the next one that has never been used, making the entries bigger if they're all in use
+	 *
+	 * @return The index of the entry
+	 */
+	private int newEntry() {
+		if (this.freeLink != 0) {
+			int entry = this.freeLink - 1;
+			this.freeLink = this.nextLinks[entry];
+			return entry;
+		}
+
+		if (this.usedEntries == this.keys.length) {
+			allocateEntries(this.keys.length <= Integer.MAX_VALUE / 2 ? this.keys.length * 2 : Integer.MAX_VALUE - 8);
+		}
+		return this.usedEntries++;
+	}
+
+	/**
+	 * Doubles the number of buckets and relinks every entry into its new bucket. The entries themselves stay where they are.
+	 */
+	private void resize() {
+		int[] oldBuckets = this.buckets;
+		if (oldBuckets.length == MAXIMUM_NUMBER_OF_BUCKETS) {
+			this.resizeThreshold = Integer.MAX_VALUE;
+			return;
+		}
+
+		allocateBuckets(oldBuckets.length * 2);
+		for (int bucket : oldBuckets) {
+			int link = bucket;
+			while (link != 0) {
+				int entry = link - 1;
+				int nextLink = this.nextLinks[entry];
+				int bucketIndex = Hashing.spread(this.keys[entry]) & this.mask;
+
+				this.nextLinks[entry] = this.buckets[bucketIndex];
+				this.buckets[bucketIndex] = link;
+				link = nextLink;
+			}
+		}
+	}
+
+	private void allocateBuckets(int numberOfBuckets) {
+		this.buckets = new int[numberOfBuckets];
+		this.mask = numberOfBuckets - 1;
+		this.resizeThreshold = (int) (numberOfBuckets * LOAD_FACTOR);
+	}
+
+	private void allocateEntries(int numberOfEntries) {
+		this.keys = Arrays.copyOf(this.keys, numberOfEntries);
+		this.values = Arrays.copyOf(this.values, numberOfEntries);
+		this.nextLinks = Arrays.copyOf(this.nextLinks, numberOfEntries);
+	}
+
+	private static int numberOfBucketsFor(int initialNumberOfBuckets) {
+		int numberOfBuckets = Integer.highestOneBit(Math.max(initialNumberOfBuckets - 1, 1)) << 1;
+		return Math.min(numberOfBuckets, MAXIMUM_NUMBER_OF_BUCKETS);
+	}
+
+	/**
+	 * An action to perform on an entry, without boxing its key or its value
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer {
+
+		void accept(int key, int value);
+	}
+
+}
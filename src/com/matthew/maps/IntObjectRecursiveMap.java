@@ -0,0 +1,257 @@
+package com.matthew.maps;
+
+import java.util.Objects;
+
+/**
+ * A map from int keys to object values that doesn't box the keys, laid out like a {@link RecursiveMap}, but not a {@link java.util.Map}.
+ * There are no nodes either: a level keeps the keys of its one node buckets in an int array next to its slots, and the slot of such a
+ * bucket holds the value itself. A slot that holds another level is a bucket with remapped nodes, as usual.
+ *
+ * {@link Hashing#mix(int)} is a bijection, so two distinct keys always have distinct hashes and are always told apart within
+ * {@link Hashing#MAXIMUM_LEVEL} levels. That means this map never needs a bucket with colliding nodes.
+ *
+ * Null is the no-entry value, so {@link #get(int)}, {@link #put(int, Object)}, and {@link #remove(int)} return null for a key that isn't in
+ * the map, and null values aren't allowed.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <V> The type of the values
+ */
+public class IntObjectRecursiveMap<V> {
+
+	private Level root = new Level();
+	private int size = 0;
+
+	public IntObjectRecursiveMap() {
+	}
+
+	public void clear() {
+		this.root = new Level();
+		this.size = 0;
+	}
+
+	public boolean containsKey(int key) {
+		return Objects.nonNull(get(key));
+	}
+
+	/**
+	 * Gets the value for the given key
+	 *
+	 * @return The value, or null if the key isn't in the map
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int hash = Hashing.mix(key);
+		Level level = this.root;
+
+		for (int depth = 0; ; depth++) {
+			int bit = 1 << Hashing.levelIndex(hash, depth);
+			if ((level.bitmap & bit) == 0) {
+				return null;
+			}
+
+			int slotIndex = level.slotIndex(bit);
+			Object slot = level.slots[slotIndex];
+			if (slot instanceof Level) {
+				level = (Level) slot;
+				continue;
+			}
+
+			return level.keys[slotIndex] == key ? (V) slot : null;
+		}
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Puts the given value for the given key
+	 *
+	 * @return The previous value for the key, or null if the key wasn't in the map
+	 * @throws NullPointerException if the value is null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		Objects.requireNonNull(value);
+
+		int hash = Hashing.mix(key);
+		Level level = this.root;
+
+		for (int depth = 0; ; depth++) {
+			int bit = 1 << Hashing.levelIndex(hash, depth);
+			int slotIndex = level.slotIndex(bit);
+			if ((level.bitmap & bit) == 0) {
+				level.insert(bit, slotIndex, key, value);
+				this.size++;
+				return null;
+			}
+
+			Object slot = level.slots[slotIndex];
+			if (slot instanceof Level) {
+				level = (Level) slot;
+				continue;
+			}
+
+			if (level.keys[slotIndex] == key) {
+				level.slots[slotIndex] = value;
+				return (V) slot;
+			}
+
+			level.slots[slotIndex] = remap(level.keys[slotIndex], slot, key, value, depth + 1);
+			level.keys[slotIndex] = 0;
+			this.size++;
+			return null;
+		}
+	}
+
+	/**
+	 * Removes the given key
+	 *
+	 * @return The value the key had, or null if the key wasn't in the map
+	 */
+	public V remove(int key) {
+		V value = remove(this.root, Hashing.mix(key), key, 0);
+		if (Objects.nonNull(value)) {
+			this.size--;
+		}
+		return value;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Performs the given action for every entry, in no particular order
+	 */
+	public void forEach(EntryConsumer<? super V> action) {
+		forEach(this.root, action);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void forEach(Level level, EntryConsumer<? super V> action) {
+		for (int i = 0; i < level.slots.length; i++) {
+			if (level.slots[i] instanceof Level) {
+				forEach((Level) level.slots[i], action);
+			} else {
+				action.accept(level.keys[i], (V) level.slots[i]);
+			}
+		}
+	}
+
+	/**
+	 * Creates the level that a node and a new node get remapped into. If they end up in the same bucket of that level too, it keeps going
+	 * deeper until they don't.
+	 */
+	private static Level remap(int firstKey, Object firstValue, int secondKey, Object secondValue, int depth) {
+		int firstBit = 1 << Hashing.levelIndex(Hashing.mix(firstKey), depth);
+		int secondBit = 1 << Hashing.levelIndex(Hashing.mix(secondKey), depth);
+
+		if (firstBit == secondBit) {
+			return new Level(firstBit, new int[1], new Object[] { remap(firstKey, firstValue, secondKey, secondValue, depth + 1) });
+		}
+
+		return Integer.compareUnsigned(firstBit, secondBit) < 0
+				? new Level(firstBit | secondBit, new int[] { firstKey, secondKey }, new Object[] { firstValue, secondValue })
+				: new Level(firstBit | secondBit, new int[] { secondKey, firstKey }, new Object[] { secondValue, firstValue });
+	}
+
+	/**
+	 * Removes the given key from the given level or any level below it. When that leaves a level below this one with just one node, the
+	 * node is pulled back up into this level.
+	 *
+	 * @return The value the key had, or null if the key wasn't in the map
+	 */
+	@SuppressWarnings("unchecked")
+	private V remove(Level level, int hash, int key, int depth) {
+		int bit = 1 << Hashing.levelIndex(hash, depth);
+		if ((level.bitmap & bit) == 0) {
+			return null;
+		}
+
+		int slotIndex = level.slotIndex(bit);
+		Object slot = level.slots[slotIndex];
+		if (!(slot instanceof Level)) {
+			if (level.keys[slotIndex] != key) {
+				return null;
+			}
+
+			level.delete(bit, slotIndex);
+			return (V) slot;
+		}
+
+		Level child = (Level) slot;
+		V value = remove(child, hash, key, depth + 1);
+		if (Objects.nonNull(value) && child.slots.length == 1 && !(child.slots[0] instanceof Level)) {
+			level.keys[slotIndex] = child.keys[0];
+			level.slots[slotIndex] = child.slots[0];
+		}
+		return value;
+	}
+
+	/**
+	 * A level of the map, with a bitmap of its buckets that aren't empty, and for each of them a key and a slot, ordered by their bit in the
+	 * bitmap. The slot holds the value of a one node bucket, or another {@code Level}, in which case the key isn't used.
+	 */
+	private static final class Level {
+
+		private int bitmap;
+		private int[] keys;
+		private Object[] slots;
+
+		Level() {
+			this(0, new int[0], new Object[0]);
+		}
+
+		Level(int bitmap, int[] keys, Object[] slots) {
+			this.bitmap = bitmap;
+			this.keys = keys;
+			this.slots = slots;
+		}
+
+		int slotIndex(int bit) {
+			return Integer.bitCount(this.bitmap & (bit - 1));
+		}
+
+		void insert(int bit, int slotIndex, int key, Object value) {
+			int[] newKeys = new int[this.keys.length + 1];
+			Object[] newSlots = new Object[this.slots.length + 1];
+
+			System.arraycopy(this.keys, 0, newKeys, 0, slotIndex);
+			System.arraycopy(this.slots, 0, newSlots, 0, slotIndex);
+			newKeys[slotIndex] = key;
+			newSlots[slotIndex] = value;
+			System.arraycopy(this.keys, slotIndex, newKeys, slotIndex + 1, this.keys.length - slotIndex);
+			System.arraycopy(this.slots, slotIndex, newSlots, slotIndex + 1, this.slots.length - slotIndex);
+
+			this.keys = newKeys;
+			this.slots = newSlots;
+			this.bitmap |= bit;
+		}
+
+		void delete(int bit, int slotIndex) {
+			int[] newKeys = new int[this.keys.length - 1];
+			Object[] newSlots = new Object[this.slots.length - 1];
+
+			System.arraycopy(this.keys, 0, newKeys, 0, slotIndex);
+			System.arraycopy(this.slots, 0, newSlots, 0, slotIndex);
+			System.arraycopy(this.keys, slotIndex + 1, newKeys, slotIndex, newKeys.length - slotIndex);
+			System.arraycopy(this.slots, slotIndex + 1, newSlots, slotIndex, newSlots.length - slotIndex);
+
+			this.keys = newKeys;
+			this.slots = newSlots;
+			this.bitmap &= ~bit;
+		}
+	}
+
+	/**
+	 * An action to perform on an entry, without boxing its key
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer<V> {
+
+		void accept(int key, V value);
+	}
+
+}
@@ -0,0 +1,278 @@
+package com.matthew.maps;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A map from long keys to object values that doesn't box the keys, laid out like a {@link BucketingMap}, but not a {@link java.util.Map}.
+ * Like the {@link IntIntBucketingMap}, the entries live in parallel arrays of keys, values, and links to the next entry of the same
+ * bucket, a bucket is just a link to its first entry, and the entries of removed keys are kept on a free list and reused.
+ *
+ * Null is the no-entry value, so {@link #get(long)}, {@link #put(long, Object)}, and {@link #remove(long)} return null for a key that isn't
+ * in the map, and null values aren't allowed.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <V> The type of the values
+ */
+public class LongObjectBucketingMap<V> {
+
+	private static final int DEFAULT_INITIAL_NUMBER_OF_BUCKETS = 32;
+	private static final double DEFAULT_LOAD_FACTOR = 0.75d;
+	private static final int MAXIMUM_NUMBER_OF_BUCKETS = 1 << 30;
+
+	private final double LOAD_FACTOR;
+
+	// Links are the index of an entry plus 1, so that 0 can be the end of a bucket and a new array is all empty buckets
+	private int[] buckets;
+	private long[] keys = new long[0];
+	private Object[] values = new Object[0];
+
+	// The link to the next entry of the same bucket, or to the next free entry for an entry that is free
+	private int[] nextLinks = new int[0];
+
+	private int mask;
+	private int resizeThreshold;
+	private int size = 0;
+
+	// Every entry below this has been used at some point, and the ones that are free again are linked from the free link
+	private int usedEntries = 0;
+	private int freeLink = 0;
+
+	/**
+	 * Creates an empty {@code LongObjectBucketingMap} with at least the specified initial number of buckets and the specified load factor
+	 *
+	 * @param initialNumberOfBuckets The initial number of buckets, which is rounded up to a power of two
+	 * @param loadFactor The load factor
+	 *
+	 * @throws IllegalArgumentException if the initial number of buckets is less than or equal to 0
+	 * or if the load factor is non-positive, greater than 1.0, or NaN
+	 */
+	public LongObjectBucketingMap(int initialNumberOfBuckets, double loadFactor) {
+		if (initialNumberOfBuckets <= 0) throw new IllegalArgumentException("initialNumberOfBuckets cannot be less than or equal to 0.");
+		if (loadFactor <= 0.0d || loadFactor > 1.0d || Double.isNaN(loadFactor)) throw new IllegalArgumentException("loadFactor must be a number and cannot be less than or equal to 0, and not greater than 1.");
+
+		this.LOAD_FACTOR = loadFactor;
+		allocateBuckets(numberOfBucketsFor(initialNumberOfBuckets));
+		allocateEntries(Math.max(this.resizeThreshold, 1));
+	}
+
+	/**
+	 * Creates an empty {@code LongObjectBucketingMap} with at least the specified initial number of buckets and the default load factor
+	 * (0.75)
+	 *
+	 * @param initialNumberOfBuckets The initial number of buckets, which is rounded up to a power of two
+	 */
+	public LongObjectBucketingMap(int initialNumberOfBuckets) {
+		this(initialNumberOfBuckets, DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Creates an empty {@code LongObjectBucketingMap} with the default initial number of buckets (32) and the default load factor (0.75)
+	 */
+	public LongObjectBucketingMap() {
+		this(DEFAULT_INITIAL_NUMBER_OF_BUCKETS);
+	}
+
+	public void clear() {
+		Arrays.fill(this.buckets, 0);
+		Arrays.fill(this.values, 0, this.usedEntries, null);
+		this.size = 0;
+		this.usedEntries = 0;
+		this.freeLink = 0;
+	}
+
+	public boolean containsKey(long key) {
+		return findEntry(key) >= 0;
+	}
+
+	/**
+	 * Gets the value for the given key
+	 *
+	 * @return The value, or null if the key isn't in the map
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int entry = findEntry(key);
+		return entry < 0 ? null : (V) this.values[entry];
+	}
+
+	/**
+	 * Gets the value for the given key
+	 *
+	 * @return The value, or the given default value if the key isn't in the map
+	 */
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(long key, V defaultValue) {
+		int entry = findEntry(key);
+		return entry < 0 ? defaultValue : (V) this.values[entry];
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Puts the given value for the given key
+	 *
+	 * @return The previous value for the key, or null if the key wasn't in the map
+	 * @throws NullPointerException if the value is null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		Objects.requireNonNull(value);
+
+		int bucketIndex = hash(key) & this.mask;
+		for (int link = this.buckets[bucketIndex]; link != 0; link = this.nextLinks[link - 1]) {
+			if (this.keys[link - 1] == key) {
+				V previousValue = (V) this.values[link - 1];
+				this.values[link - 1] = value;
+				return previousValue;
+			}
+		}
+
+		int entry = newEntry();
+		this.keys[entry] = key;
+		this.values[entry] = value;
+		this.nextLinks[entry] = this.buckets[bucketIndex];
+		this.buckets[bucketIndex] = entry + 1;
+
+		if (++this.size > this.resizeThreshold) {
+			resize();
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the given key
+	 *
+	 * @return The value the key had, or null if the key wasn't in the map
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int bucketIndex = hash(key) & this.mask;
+		int previousLink = 0;
+		for (int link = this.buckets[bucketIndex]; link != 0; previousLink = link, link = this.nextLinks[link - 1]) {
+			int entry = link - 1;
+			if (this.keys[entry] == key) {
+				if (previousLink == 0) {
+					this.buckets[bucketIndex] = this.nextLinks[entry];
+				} else {
+					this.nextLinks[previousLink - 1] = this.nextLinks[entry];
+				}
+
+				V value = (V) this.values[entry];
+				this.values[entry] = null;
+				this.nextLinks[entry] = this.freeLink;
+				this.freeLink = link;
+				this.size--;
+				return value;
+			}
+		}
+
+		return null;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Performs the given action for every entry, in no particular order
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(EntryConsumer<? super V> action) {
+		for (int bucket : this.buckets) {
+			for (int link = bucket; link != 0; link = this.nextLinks[link - 1]) {
+				action.accept(this.keys[link - 1], (V) this.values[link - 1]);
+			}
+		}
+	}
+
+	private int findEntry(long key) {
+		for (int link = this.buckets[hash(key) & this.mask]; link != 0; link = this.nextLinks[link - 1]) {
+			if (this.keys[link - 1] == key) {
+				return link - 1;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Takes an entry off the free list, or the next one that has never been used, making the entries bigger if they're all in use
+	 *
+	 * @return The index of the entry
+	 */
+	private int newEntry() {
+		if (this.freeLink != 0) {
+			int entry = this.freeLink - 1;
+			this.freeLink = this.nextLinks[entry];
+			return entry;
+		}
+
+		if (this.usedEntries == this.keys.length) {
+			allocateEntries(this.keys.length <= Integer.MAX_VALUE / 2 ? this.keys.length * 2 : Integer.MAX_VALUE - 8);
+		}
+		return this.usedEntries++;
+	}
+
+	/**
+	 * Doubles the number of buckets and relinks every entry into its new bucket. The entries themselves stay where they are.
+	 */
+	private void resize() {
+		int[] oldBuckets = this.buckets;
+		if (oldBuckets.length == MAXIMUM_NUMBER_OF_BUCKETS) {
+			this.resizeThreshold = Integer.MAX_VALUE;
+			return;
+		}
+
+		allocateBuckets(oldBuckets.length * 2);
+		for (int bucket : oldBuckets) {
+			int link = bucket;
+			while (link != 0) {
+				int entry = link - 1;
+				int nextLink = this.nextLinks[entry];
+				int bucketIndex = hash(this.keys[entry]) & this.mask;
+
+				this.nextLinks[entry] = this.buckets[bucketIndex];
+				this.buckets[bucketIndex] = link;
+				link = nextLink;
+			}
+		}
+	}
+
+	private void allocateBuckets(int numberOfBuckets) {
+		this.buckets = new int[numberOfBuckets];
+		this.mask = numberOfBuckets - 1;
+		this.resizeThreshold = (int) (numberOfBuckets * LOAD_FACTOR);
+	}
+
+	private void allocateEntries(int numberOfEntries) {
+		this.keys = Arrays.copyOf(this.keys, numberOfEntries);
+		this.values = Arrays.copyOf(this.values, numberOfEntries);
+		this.nextLinks = Arrays.copyOf(this.nextLinks, numberOfEntries);
+	}
+
+	/**
+	 * Folds the key into an int the same way {@link Long#hashCode(long)} does, and spreads that
+	 */
+	private static int hash(long key) {
+		return Hashing.spread((int) (key ^ (key >>> 32)));
+	}
+
+	private static int numberOfBucketsFor(int initialNumberOfBuckets) {
+		int numberOfBuckets = Integer.highestOneBit(Math.max(initialNumberOfBuckets - 1, 1)) << 1;
+		return Math.min(numberOfBuckets, MAXIMUM_NUMBER_OF_BUCKETS);
+	}
+
+	/**
+	 * An action to perform on an entry, without boxing its key or its value
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer<V> {
+
+		void accept(long key, V value);
+	}
+
+}
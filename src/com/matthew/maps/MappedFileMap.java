@@ -0,0 +1,475 @@
+package com.matthew.maps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A read-only map that is a memory-mapped file. {@link #write(Map, Path, Serializer, Serializer)} writes any map to a file, and
+ * {@link #open(Path, Serializer, Serializer)} maps the file back in. Opening doesn't read the entries, so it takes the same few
+ * milliseconds however many entries there are, and the operating system pages the file in as it's used.
+ *
+ * The file is a header, then a hash index, then the records. The records are grouped by their bucket, and the index holds where the
+ * records of each bucket start, so a lookup reads one index entry and scans the records of one bucket. A record is its hash, the lengths
+ * of its key and value, and then the serialized key and value. Keys are compared by their serialized bytes, so only the value of the
+ * matching record is ever deserialized. Everything is little endian.
+ *
+ * The hash of a key is its {@code hashCode}, so the keys need a {@code hashCode} that stays the same from one run to the next, which
+ * {@code String} and the boxed primitives have but enums and objects without their own {@code hashCode} don't.
+ *
+ * The methods of {@link Map} that would change the map throw an {@link UnsupportedOperationException}. Lookups don't change anything, so
+ * the map can be read from any number of threads at once.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public final class MappedFileMap<K, V> implements Map<K, V>, AutoCloseable {
+
+	private static final int MAGIC = 0x4D4D4150;
+	private static final int VERSION = 1;
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private static final int MAGIC_OFFSET = 0;
+	private static final int VERSION_OFFSET = 4;
+	private static final int SIZE_OFFSET = 8;
+	private static final int NUMBER_OF_BUCKETS_OFFSET = 16;
+	private static final int MAXIMUM_RECORD_SIZE_OFFSET = 24;
+	private static final int HEADER_SIZE = 32;
+
+	// The index holds the offset of the records of each bucket, and one more for the end of the last bucket
+	private static final int INDEX_OFFSET = HEADER_SIZE;
+
+	private static final int HASH_OFFSET = 0;
+	private static final int KEY_LENGTH_OFFSET = 4;
+	private static final int VALUE_LENGTH_OFFSET = 8;
+	private static final int RECORD_HEADER_SIZE = 12;
+
+	// A buffer can't map more than 2 GiB, so the file is mapped in windows, each overlapping the next by the biggest record so that every
+	// record can be read from the window that it starts in
+	private static final int WINDOW_BITS = 30;
+	private static final long WINDOW_MASK = (1L << WINDOW_BITS) - 1;
+
+	private final Serializer<K> KEY_SERIALIZER;
+	private final Serializer<V> VALUE_SERIALIZER;
+
+	private ByteBuffer[] windows;
+	private final int size;
+	private final long numberOfBuckets;
+
+	private Set<K> keySet;
+	private Collection<V> valuesView;
+	private Set<Entry<K, V>> entrySet;
+
+	private MappedFileMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, ByteBuffer[] windows, int size, long numberOfBuckets) {
+		this.KEY_SERIALIZER = keySerializer;
+		this.VALUE_SERIALIZER = valueSerializer;
+		this.windows = windows;
+		this.size = size;
+		this.numberOfBuckets = numberOfBuckets;
+	}
+
+	/**
+	 * Maps the given file, which has to have been written by {@link #write(Map, Path, Serializer, Serializer)} with serializers that
+	 * read and write the same bytes as the given ones
+	 *
+	 * @param path The file
+	 * @param keySerializer The serializer for the keys
+	 * @param valueSerializer The serializer for the values
+	 * @return The map
+	 * @throws IOException if the file can't be mapped or isn't a map file
+	 */
+	public static <K, V> MappedFileMap<K, V> open(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+		Objects.requireNonNull(keySerializer);
+		Objects.requireNonNull(valueSerializer);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			if (fileSize < HEADER_SIZE) throw new IOException(path + " is not a map file.");
+
+			ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(MAGIC_OFFSET) != MAGIC) throw new IOException(path + " is not a map file.");
+			if (header.getInt(VERSION_OFFSET) != VERSION) throw new IOException(path + " has unsupported version " + header.getInt(VERSION_OFFSET) + ".");
+
+			ByteBuffer[] windows = map(channel, MapMode.READ_ONLY, fileSize, header.getInt(MAXIMUM_RECORD_SIZE_OFFSET));
+			return new MappedFileMap<>(keySerializer, valueSerializer, windows, (int) header.getLong(SIZE_OFFSET), header.getLong(NUMBER_OF_BUCKETS_OFFSET));
+		}
+	}
+
+	/**
+	 * Writes the given map to the given file, replacing whatever was there. The map must not be changed while it's being written, since
+	 * it's gone through twice, once to size the buckets and once to write them. The file is written to a temporary file next to it, which
+	 * is moved over it once it's all on disk, so a crash never leaves the old file half overwritten, and a map that has the old file open
+	 * carries on reading the old entries.
+	 *
+	 * @param map The map
+	 * @param path The file
+	 * @param keySerializer The serializer for the keys
+	 * @param valueSerializer The serializer for the values
+	 * @throws IOException if the file can't be written
+	 * @throws NullPointerException if the map has a null key or value
+	 * @throws IllegalArgumentException if an entry is serialized to more than 1 GiB
+	 */
+	public static <K, V> void write(Map<K, V> map, Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+		long numberOfBuckets = Integer.highestOneBit(Math.max(map.size(), 1));
+		long mask = numberOfBuckets - 1;
+
+		// First the number of bytes in each bucket, which then become where each bucket starts, and then where its next record goes
+		long[] bucketOffsets = new long[(int) numberOfBuckets];
+		int maximumRecordSize = Long.BYTES;
+		for (Entry<K, V> entry : map.entrySet()) {
+			long recordSize = RECORD_HEADER_SIZE + (long) keySerializer.sizeOf(entry.getKey()) + valueSerializer.sizeOf(Objects.requireNonNull(entry.getValue()));
+			if (recordSize > 1 << WINDOW_BITS) throw new IllegalArgumentException("An entry cannot be bigger than " + (1 << WINDOW_BITS) + " bytes.");
+
+			bucketOffsets[(int) (Hashing.spread(entry.getKey().hashCode()) & mask)] += recordSize;
+			maximumRecordSize = (int) Math.max(maximumRecordSize, recordSize);
+		}
+
+		long offset = INDEX_OFFSET + (numberOfBuckets + 1) * Long.BYTES;
+		for (int bucketIndex = 0; bucketIndex < numberOfBuckets; bucketIndex++) {
+			long bucketSize = bucketOffsets[bucketIndex];
+			bucketOffsets[bucketIndex] = offset;
+			offset += bucketSize;
+		}
+		long fileSize = offset;
+
+		Path temporary = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer[] windows = map(channel, MapMode.READ_WRITE, fileSize, maximumRecordSize);
+
+			for (int bucketIndex = 0; bucketIndex < numberOfBuckets; bucketIndex++) {
+				putLong(windows, INDEX_OFFSET + (long) bucketIndex * Long.BYTES, bucketOffsets[bucketIndex]);
+			}
+			putLong(windows, INDEX_OFFSET + numberOfBuckets * Long.BYTES, fileSize);
+
+			for (Entry<K, V> entry : map.entrySet()) {
+				int hash = Hashing.spread(entry.getKey().hashCode());
+				int bucketIndex = (int) (hash & mask);
+				long record = bucketOffsets[bucketIndex];
+
+				ByteBuffer window = window(windows, record);
+				int position = position(record);
+				int keyLength = keySerializer.sizeOf(entry.getKey());
+				int valueLength = valueSerializer.sizeOf(entry.getValue());
+				window.putInt(position + HASH_OFFSET, hash);
+				window.putInt(position + KEY_LENGTH_OFFSET, keyLength);
+				window.putInt(position + VALUE_LENGTH_OFFSET, valueLength);
+				keySerializer.write(entry.getKey(), window, position + RECORD_HEADER_SIZE);
+				valueSerializer.write(entry.getValue(), window, position + RECORD_HEADER_SIZE + keyLength);
+
+				bucketOffsets[bucketIndex] = record + RECORD_HEADER_SIZE + keyLength + valueLength;
+			}
+
+			// The magic number goes in last, so that a file that wasn't written all the way can't be opened
+			ByteBuffer header = windows[0];
+			header.putInt(VERSION_OFFSET, VERSION);
+			header.putLong(SIZE_OFFSET, map.size());
+			header.putLong(NUMBER_OF_BUCKETS_OFFSET, numberOfBuckets);
+			header.putInt(MAXIMUM_RECORD_SIZE_OFFSET, maximumRecordSize);
+			for (ByteBuffer window : windows) {
+				((MappedByteBuffer) window).force();
+			}
+			header.putInt(MAGIC_OFFSET, MAGIC);
+			((MappedByteBuffer) header).force();
+		}
+		Channels.replace(temporary, path);
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Unmaps the file, as far as that is possible. The map can't be used after it has been closed, and closing it again does nothing.
+	 * Before Java 14 a mapping can't be undone explicitly without going through {@code jdk.unsupported}, so closing drops the buffers and
+	 * the file is unmapped once the garbage collector has noticed that they're gone.
+	 */
+	@Override
+	public void close() {
+		this.windows = null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return findRecord(key) >= 0;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		for (Iterator<V> iterator = values().iterator(); iterator.hasNext();) {
+			if (Objects.equals(iterator.next(), value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (Objects.isNull(this.entrySet)) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	@Override
+	public V get(Object key) {
+		long record = findRecord(key);
+		return record < 0 ? null : readValue(record);
+	}
+
+	public boolean isClosed() {
+		return Objects.isNull(this.windows);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public Set<K> keySet() {
+		if (Objects.isNull(this.keySet)) {
+			this.keySet = new KeySet();
+		}
+		return this.keySet;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public V remove(Object key) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (Objects.isNull(this.valuesView)) {
+			this.valuesView = new Values();
+		}
+		return this.valuesView;
+	}
+
+	/**
+	 * Finds the record for the given key by scanning the records of its bucket. The hash and the length of the key are compared before
+	 * the bytes of the key.
+	 *
+	 * @return The offset of the record, or -1 if the key isn't in the map
+	 */
+	private long findRecord(Object key) {
+		ByteBuffer[] windows = checkOpen();
+
+		@SuppressWarnings("unchecked")
+		K typedKey = (K) Objects.requireNonNull(key);
+		int keyLength = KEY_SERIALIZER.sizeOf(typedKey);
+		ByteBuffer keyBytes = ByteBuffer.allocate(keyLength).order(ByteOrder.LITTLE_ENDIAN);
+		KEY_SERIALIZER.write(typedKey, keyBytes, 0);
+
+		int hash = Hashing.spread(key.hashCode());
+		long bucketIndex = hash & (this.numberOfBuckets - 1);
+		long end = getLong(windows, INDEX_OFFSET + (bucketIndex + 1) * Long.BYTES);
+		for (long record = getLong(windows, INDEX_OFFSET + bucketIndex * Long.BYTES); record < end;) {
+			ByteBuffer window = window(windows, record);
+			int position = position(record);
+			int recordKeyLength = window.getInt(position + KEY_LENGTH_OFFSET);
+			if (window.getInt(position + HASH_OFFSET) == hash && recordKeyLength == keyLength && keyMatches(window, position + RECORD_HEADER_SIZE, keyBytes)) {
+				return record;
+			}
+			record += RECORD_HEADER_SIZE + recordKeyLength + window.getInt(position + VALUE_LENGTH_OFFSET);
+		}
+
+		return -1;
+	}
+
+	private static boolean keyMatches(ByteBuffer window, int keyPosition, ByteBuffer keyBytes) {
+		int keyLength = keyBytes.capacity();
+		int i = 0;
+		for (; i + Long.BYTES <= keyLength; i += Long.BYTES) {
+			if (window.getLong(keyPosition + i) != keyBytes.getLong(i)) {
+				return false;
+			}
+		}
+		for (; i < keyLength; i++) {
+			if (window.get(keyPosition + i) != keyBytes.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private K readKey(long record) {
+		ByteBuffer window = window(checkOpen(), record);
+		int position = position(record);
+		return KEY_SERIALIZER.read(window, position + RECORD_HEADER_SIZE, window.getInt(position + KEY_LENGTH_OFFSET));
+	}
+
+	private V readValue(long record) {
+		ByteBuffer window = window(checkOpen(), record);
+		int position = position(record);
+		int keyLength = window.getInt(position + KEY_LENGTH_OFFSET);
+		return VALUE_SERIALIZER.read(window, position + RECORD_HEADER_SIZE + keyLength, window.getInt(position + VALUE_LENGTH_OFFSET));
+	}
+
+	private ByteBuffer[] checkOpen() {
+		ByteBuffer[] windows = this.windows;
+		if (Objects.isNull(windows)) throw new IllegalStateException("The map has been closed.");
+		return windows;
+	}
+
+	private static ByteBuffer[] map(FileChannel channel, MapMode mode, long fileSize, int maximumRecordSize) throws IOException {
+		ByteBuffer[] windows = new ByteBuffer[(int) ((fileSize + WINDOW_MASK) >>> WINDOW_BITS)];
+		for (int i = 0; i < windows.length; i++) {
+			long start = (long) i << WINDOW_BITS;
+			long length = Math.min((1L << WINDOW_BITS) + maximumRecordSize, fileSize - start);
+			windows[i] = channel.map(mode, start, length).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return windows;
+	}
+
+	private static ByteBuffer window(ByteBuffer[] windows, long offset) {
+		return windows[(int) (offset >>> WINDOW_BITS)];
+	}
+
+	private static int position(long offset) {
+		return (int) (offset & WINDOW_MASK);
+	}
+
+	private static long getLong(ByteBuffer[] windows, long offset) {
+		return window(windows, offset).getLong(position(offset));
+	}
+
+	private static void putLong(ByteBuffer[] windows, long offset, long value) {
+		window(windows, offset).putLong(position(offset), value);
+	}
+
+	/**
+	 * Walks the records from the first bucket to the last, which is the order they're in in the file
+	 */
+	private abstract class RecordIterator<T> implements Iterator<T> {
+
+		private long nextRecord;
+		private final long end;
+
+		RecordIterator() {
+			ByteBuffer[] windows = checkOpen();
+			this.nextRecord = getLong(windows, INDEX_OFFSET);
+			this.end = getLong(windows, INDEX_OFFSET + numberOfBuckets * Long.BYTES);
+		}
+
+		abstract T element(long record);
+
+		@Override
+		public boolean hasNext() {
+			return this.nextRecord < this.end;
+		}
+
+		@Override
+		public T next() {
+			if (this.nextRecord >= this.end) throw new NoSuchElementException();
+
+			long record = this.nextRecord;
+			ByteBuffer window = window(checkOpen(), record);
+			int position = position(record);
+			this.nextRecord += RECORD_HEADER_SIZE + window.getInt(position + KEY_LENGTH_OFFSET) + window.getInt(position + VALUE_LENGTH_OFFSET);
+			return element(record);
+		}
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new RecordIterator<K>() {
+				@Override
+				K element(long record) {
+					return readKey(record);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new RecordIterator<V>() {
+				@Override
+				V element(long record) {
+					return readValue(record);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new RecordIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(long record) {
+					return new AbstractMap.SimpleImmutableEntry<>(readKey(record), readValue(record));
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			long record = findRecord(entry.getKey());
+			return record >= 0 && Objects.equals(readValue(record), entry.getValue());
+		}
+	}
+
+}
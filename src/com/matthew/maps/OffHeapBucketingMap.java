@@ -0,0 +1,812 @@
+package com.matthew.maps;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A {@link BucketingMap} that keeps its entries outside of the heap, so that the garbage collector never has to look at them. Every entry is
+ * serialized into a record in direct memory, and the buckets are chains of those records, linked by their addresses. The heap only holds
+ * the map itself and a handful of buffers, however many entries there are, so a map with hundreds of millions of entries doesn't make the
+ * garbage collection pauses any longer.
+ *
+ * The records are written by the given {@link Serializer}s. The records of a map whose keys and values are both fixed width all have the
+ * same size, and the record of a removed key is reused straight away. Otherwise the lengths are stored in front of the keys and the values,
+ * and a record that is removed, or that has to move because its new value doesn't fit, is left behind as garbage until the map compacts,
+ * which it does when it grows, or when a key is added, removed or moved while more than half of its records are garbage. Moving a record
+ * counts as a change to the structure of the map, except when it's done through an entry of an iterator of the entry set, which doesn't
+ * compact the map either.
+ *
+ * Keys are compared by their serialized bytes rather than by {@code equals}. Null keys and values aren't allowed, and the map isn't safe
+ * to use from more than one thread.
+ *
+ * The memory is held until the map is closed, after which it can't be used anymore. Direct buffers can't be freed explicitly before Java 14
+ * without going through {@code jdk.unsupported}, so closing drops the buffers and their memory is given back once the garbage collector
+ * has noticed that they're gone.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class OffHeapBucketingMap<K, V> implements Map<K, V>, AutoCloseable {
+
+	private static final int DEFAULT_INITIAL_NUMBER_OF_BUCKETS = 32;
+	private static final double DEFAULT_LOAD_FACTOR = 0.75d;
+	private static final int MAXIMUM_NUMBER_OF_BUCKETS = 1 << 30;
+
+	// The buckets are split into pages of at most 1 GiB, since a buffer can't hold more than 2 GiB
+	private static final int BUCKET_PAGE_BITS = 27;
+	private static final int BUCKET_PAGE_MASK = (1 << BUCKET_PAGE_BITS) - 1;
+
+	// An address is the index of a chunk in the top bits and the offset into it in the bottom ones. The chunks start small and double.
+	private static final int CHUNK_BITS = 30;
+	private static final int CHUNK_OFFSET_MASK = (1 << CHUNK_BITS) - 1;
+	private static final int INITIAL_CHUNK_SIZE = 1 << 16;
+	private static final int MAXIMUM_CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	// A record is the address of the next record of the bucket, the hash, and then the key and the value, each with its length in front
+	// if it isn't fixed width. Records are aligned to 8 bytes so that they can be copied a long at a time.
+	private static final int NEXT_OFFSET = 0;
+	private static final int HASH_OFFSET = 8;
+	private static final int HEADER_SIZE = 12;
+	private static final int RECORD_ALIGNMENT = 8;
+
+	// Compacting a small map isn't worth it, however much of it is garbage
+	private static final long MINIMUM_GARBAGE_TO_COMPACT = 1 << 20;
+
+	private final Serializer<K> KEY_SERIALIZER;
+	private final Serializer<V> VALUE_SERIALIZER;
+	private final double LOAD_FACTOR;
+	private final int KEY_WIDTH;
+	private final int VALUE_WIDTH;
+
+	// The size of every record when the keys and values are both fixed width, or -1 when the records vary
+	private final int RECORD_SIZE;
+
+	private LongBuffer[] bucketPages;
+	private long numberOfBuckets;
+	private int resizeThreshold;
+
+	private ByteBuffer[] chunks = new ByteBuffer[0];
+	private int chunkPosition = 0;
+
+	// The records that are free to reuse, linked through their next address. Only used when the records are all the same size.
+	private long freeRecord = 0;
+
+	private long liveBytes = 0;
+	private long garbageBytes = 0;
+
+	private int size = 0;
+	private int modCount = 0;
+
+	// The key being looked up, serialized, so that it can be compared with the keys of the records byte for byte
+	private ByteBuffer keyBuffer = ByteBuffer.allocate(16).order(ByteOrder.nativeOrder());
+
+	private Set<K> keySet;
+	private Collection<V> valuesView;
+	private Set<Entry<K, V>> entrySet;
+
+	/**
+	 * Creates an empty {@code OffHeapBucketingMap} with the specified serializers, at least the specified initial number of buckets, and
+	 * the specified load factor
+	 *
+	 * @param keySerializer The serializer for the keys
+	 * @param valueSerializer The serializer for the values
+	 * @param initialNumberOfBuckets The initial number of buckets, which is rounded up to a power of two
+	 * @param loadFactor The load factor
+	 *
+	 * @throws IllegalArgumentException if the initial number of buckets is less than or equal to 0
+	 * or if the load factor is non-positive, greater than 1.0, or NaN
+	 */
+	public OffHeapBucketingMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, int initialNumberOfBuckets, double loadFactor) {
+		if (initialNumberOfBuckets <= 0) throw new IllegalArgumentException("initialNumberOfBuckets cannot be less than or equal to 0.");
+		if (loadFactor <= 0.0d || loadFactor > 1.0d || Double.isNaN(loadFactor)) throw new IllegalArgumentException("loadFactor must be a number and cannot be less than or equal to 0, and not greater than 1.");
+
+		this.KEY_SERIALIZER = Objects.requireNonNull(keySerializer);
+		this.VALUE_SERIALIZER = Objects.requireNonNull(valueSerializer);
+		this.LOAD_FACTOR = loadFactor;
+		this.KEY_WIDTH = keySerializer.fixedWidth();
+		this.VALUE_WIDTH = valueSerializer.fixedWidth();
+		this.RECORD_SIZE = KEY_WIDTH >= 0 && VALUE_WIDTH >= 0 ? recordSize(KEY_WIDTH, VALUE_WIDTH) : -1;
+		allocateBuckets(numberOfBucketsFor(initialNumberOfBuckets));
+	}
+
+	/**
+	 * Creates an empty {@code OffHeapBucketingMap} with the specified serializers, at least the specified initial number of buckets, and
+	 * the default load factor (0.75)
+	 *
+	 * @param keySerializer The serializer for the keys
+	 * @param valueSerializer The serializer for the values
+	 * @param initialNumberOfBuckets The initial number of buckets, which is rounded up to a power of two
+	 */
+	public OffHeapBucketingMap(Serializer<K> keySerializer, Serializer<V> valueSerializer, int initialNumberOfBuckets) {
+		this(keySerializer, valueSerializer, initialNumberOfBuckets, DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Creates an empty {@code OffHeapBucketingMap} with the specified serializers, the default initial number of buckets (32), and the
+	 * default load factor (0.75)
+	 *
+	 * @param keySerializer The serializer for the keys
+	 * @param valueSerializer The serializer for the values
+	 */
+	public OffHeapBucketingMap(Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+		this(keySerializer, valueSerializer, DEFAULT_INITIAL_NUMBER_OF_BUCKETS);
+	}
+
+	@Override
+	public void clear() {
+		checkOpen();
+		this.chunks = new ByteBuffer[0];
+		this.chunkPosition = 0;
+		this.freeRecord = 0;
+		this.liveBytes = 0;
+		this.garbageBytes = 0;
+		allocateBuckets(this.numberOfBuckets);
+		this.size = 0;
+		this.modCount++;
+	}
+
+	/**
+	 * Gives back the memory of the map. The map can't be used after it has been closed, and closing it again does nothing.
+	 */
+	@Override
+	public void close() {
+		this.bucketPages = null;
+		this.chunks = null;
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return findRecord(key) != 0;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		for (Iterator<V> iterator = values().iterator(); iterator.hasNext();) {
+			if (Objects.equals(iterator.next(), value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (Objects.isNull(this.entrySet)) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	@Override
+	public V get(Object key) {
+		long record = findRecord(key);
+		return record == 0 ? null : readValue(record);
+	}
+
+	public boolean isClosed() {
+		return Objects.isNull(this.chunks);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public Set<K> keySet() {
+		if (Objects.isNull(this.keySet)) {
+			this.keySet = new KeySet();
+		}
+		return this.keySet;
+	}
+
+	/**
+	 * Gets the number of bytes of direct memory the map holds, for the buckets and the records, including the records that are garbage
+	 */
+	public long offHeapSize() {
+		checkOpen();
+		long offHeapSize = this.numberOfBuckets * Long.BYTES;
+		for (ByteBuffer chunk : this.chunks) {
+			offHeapSize += chunk.capacity();
+		}
+		return offHeapSize;
+	}
+
+	/**
+	 * Puts the given value for the given key
+	 *
+	 * @return The previous value for the key, or null if the key wasn't in the map
+	 * @throws NullPointerException if the key or the value is null
+	 */
+	@Override
+	public V put(K key, V value) {
+		return putValue(key, value, true);
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			this.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	public V remove(Object key) {
+		return removeKey(key, true);
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (Objects.isNull(this.valuesView)) {
+			this.valuesView = new Values();
+		}
+		return this.valuesView;
+	}
+
+	/**
+	 * Puts the given value for the given key, and compacts the map afterwards if it's allowed to and enough of the map is garbage
+	 *
+	 * @return The previous value for the key, or null if the key wasn't in the map
+	 */
+	private V putValue(K key, V value, boolean compact) {
+		Objects.requireNonNull(value);
+		int keyLength = serializeKey(key);
+		int hash = Hashing.spread(key.hashCode());
+		int valueLength = VALUE_SERIALIZER.sizeOf(value);
+		long bucketIndex = hash & (this.numberOfBuckets - 1);
+
+		long previousRecord = 0;
+		for (long record = bucket(bucketIndex); record != 0; previousRecord = record, record = next(record)) {
+			if (!matches(record, hash, keyLength)) {
+				continue;
+			}
+
+			V previousValue = readValue(record);
+			int previousSize = recordSize(keyLength, valueLength(record));
+			int newSize = recordSize(keyLength, valueLength);
+			if (previousSize == newSize) {
+				writeValue(record, keyLength, value, valueLength);
+			} else {
+				long newRecord = writeRecord(hash, keyLength, value, valueLength, next(record));
+				link(bucketIndex, previousRecord, newRecord);
+				this.liveBytes += newSize - previousSize;
+				this.garbageBytes += previousSize;
+				this.modCount++;
+
+				if (compact && needsCompaction()) {
+					rebuild(this.numberOfBuckets);
+				}
+			}
+			return previousValue;
+		}
+
+		setBucket(bucketIndex, writeRecord(hash, keyLength, value, valueLength, bucket(bucketIndex)));
+		this.liveBytes += recordSize(keyLength, valueLength);
+		this.size++;
+		this.modCount++;
+
+		if (this.size > this.resizeThreshold) {
+			rebuild(this.numberOfBuckets * 2);
+		} else if (compact && needsCompaction()) {
+			rebuild(this.numberOfBuckets);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the given key, and compacts the map afterwards if it's allowed to and enough of the map is garbage
+	 *
+	 * @return The value the key had, or null if the key wasn't in the map
+	 */
+	private V removeKey(Object key, boolean compact) {
+		@SuppressWarnings("unchecked")
+		int keyLength = serializeKey((K) key);
+		int hash = Hashing.spread(key.hashCode());
+		long bucketIndex = hash & (this.numberOfBuckets - 1);
+
+		long previousRecord = 0;
+		for (long record = bucket(bucketIndex); record != 0; previousRecord = record, record = next(record)) {
+			if (!matches(record, hash, keyLength)) {
+				continue;
+			}
+
+			V value = readValue(record);
+			link(bucketIndex, previousRecord, next(record));
+			free(record, recordSize(keyLength, valueLength(record)));
+			this.size--;
+			this.modCount++;
+
+			if (compact && needsCompaction()) {
+				rebuild(this.numberOfBuckets);
+			}
+			return value;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Finds the record for the given key. Like the lookups of {@link BucketingMap}, the hash is compared first, so the keys are only
+	 * compared on a likely match.
+	 *
+	 * @return The address of the record, or 0 if the key isn't in the map
+	 */
+	private long findRecord(Object key) {
+		@SuppressWarnings("unchecked")
+		int keyLength = serializeKey((K) key);
+		int hash = Hashing.spread(key.hashCode());
+
+		for (long record = bucket(hash & (this.numberOfBuckets - 1)); record != 0; record = next(record)) {
+			if (matches(record, hash, keyLength)) {
+				return record;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Serializes the given key into the key buffer, making the buffer bigger if the key doesn't fit
+	 *
+	 * @return The length of the key
+	 */
+	private int serializeKey(K key) {
+		checkOpen();
+		int keyLength = KEY_SERIALIZER.sizeOf(Objects.requireNonNull(key));
+		if (keyLength > this.keyBuffer.capacity()) {
+			this.keyBuffer = ByteBuffer.allocate(Integer.highestOneBit(keyLength) << 1).order(ByteOrder.nativeOrder());
+		}
+		KEY_SERIALIZER.write(key, this.keyBuffer, 0);
+		return keyLength;
+	}
+
+	private boolean matches(long record, int hash, int keyLength) {
+		ByteBuffer chunk = chunk(record);
+		int offset = offset(record);
+		if (chunk.getInt(offset + HASH_OFFSET) != hash || keyLength(chunk, offset) != keyLength) {
+			return false;
+		}
+
+		int keyOffset = keyOffset(offset);
+		int i = 0;
+		for (; i + Long.BYTES <= keyLength; i += Long.BYTES) {
+			if (chunk.getLong(keyOffset + i) != this.keyBuffer.getLong(i)) {
+				return false;
+			}
+		}
+		for (; i < keyLength; i++) {
+			if (chunk.get(keyOffset + i) != this.keyBuffer.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes a new record for the key in the key buffer and the given value
+	 *
+	 * @return The address of the record
+	 */
+	private long writeRecord(int hash, int keyLength, V value, int valueLength, long next) {
+		long record = allocate(recordSize(keyLength, valueLength));
+		ByteBuffer chunk = chunk(record);
+		int offset = offset(record);
+
+		chunk.putLong(offset + NEXT_OFFSET, next);
+		chunk.putInt(offset + HASH_OFFSET, hash);
+		if (KEY_WIDTH < 0) {
+			chunk.putInt(offset + HEADER_SIZE, keyLength);
+		}
+
+		int keyOffset = keyOffset(offset);
+		for (int i = 0; i < keyLength; i++) {
+			chunk.put(keyOffset + i, this.keyBuffer.get(i));
+		}
+
+		writeValue(record, keyLength, value, valueLength);
+		return record;
+	}
+
+	private void writeValue(long record, int keyLength, V value, int valueLength) {
+		ByteBuffer chunk = chunk(record);
+		int valueLengthOffset = keyOffset(offset(record)) + keyLength;
+		if (VALUE_WIDTH < 0) {
+			chunk.putInt(valueLengthOffset, valueLength);
+			VALUE_SERIALIZER.write(value, chunk, valueLengthOffset + Integer.BYTES);
+		} else {
+			VALUE_SERIALIZER.write(value, chunk, valueLengthOffset);
+		}
+	}
+
+	private K readKey(long record) {
+		ByteBuffer chunk = chunk(record);
+		int offset = offset(record);
+		return KEY_SERIALIZER.read(chunk, keyOffset(offset), keyLength(chunk, offset));
+	}
+
+	private V readValue(long record) {
+		ByteBuffer chunk = chunk(record);
+		int valueLengthOffset = keyOffset(offset(record)) + keyLength(chunk, offset(record));
+		return VALUE_WIDTH < 0
+				? VALUE_SERIALIZER.read(chunk, valueLengthOffset + Integer.BYTES, chunk.getInt(valueLengthOffset))
+				: VALUE_SERIALIZER.read(chunk, valueLengthOffset, VALUE_WIDTH);
+	}
+
+	private int keyLength(ByteBuffer chunk, int offset) {
+		return KEY_WIDTH < 0 ? chunk.getInt(offset + HEADER_SIZE) : KEY_WIDTH;
+	}
+
+	private int keyOffset(int offset) {
+		return KEY_WIDTH < 0 ? offset + HEADER_SIZE + Integer.BYTES : offset + HEADER_SIZE;
+	}
+
+	private int valueLength(long record) {
+		if (VALUE_WIDTH >= 0) {
+			return VALUE_WIDTH;
+		}
+
+		ByteBuffer chunk = chunk(record);
+		int offset = offset(record);
+		return chunk.getInt(keyOffset(offset) + keyLength(chunk, offset));
+	}
+
+	private int recordSize(int keyLength, int valueLength) {
+		int recordSize = HEADER_SIZE + keyLength + valueLength;
+		if (KEY_WIDTH < 0) {
+			recordSize += Integer.BYTES;
+		}
+		if (VALUE_WIDTH < 0) {
+			recordSize += Integer.BYTES;
+		}
+		return (recordSize + RECORD_ALIGNMENT - 1) & -RECORD_ALIGNMENT;
+	}
+
+	private long next(long record) {
+		return chunk(record).getLong(offset(record) + NEXT_OFFSET);
+	}
+
+	/**
+	 * Points the given previous record, or the bucket if there isn't one, at the given record
+	 */
+	private void link(long bucketIndex, long previousRecord, long record) {
+		if (previousRecord == 0) {
+			setBucket(bucketIndex, record);
+		} else {
+			chunk(previousRecord).putLong(offset(previousRecord) + NEXT_OFFSET, record);
+		}
+	}
+
+	/**
+	 * Takes a record off the free list, or the next bytes of the last chunk, adding a chunk if it's full
+	 *
+	 * @return The address of the record
+	 */
+	private long allocate(int recordSize) {
+		if (this.freeRecord != 0) {
+			long record = this.freeRecord;
+			this.freeRecord = next(record);
+			this.garbageBytes -= recordSize;
+			return record;
+		}
+
+		if (this.chunks.length == 0 || this.chunkPosition + recordSize > this.chunks[this.chunks.length - 1].capacity()) {
+			addChunk(recordSize);
+		}
+
+		long record = ((long) (this.chunks.length - 1) << CHUNK_BITS) | this.chunkPosition;
+		this.chunkPosition += recordSize;
+		return record;
+	}
+
+	private void addChunk(int recordSize) {
+		// Address 0 is the end of a bucket, so the first record of the first chunk starts a little way in
+		int start = this.chunks.length == 0 ? RECORD_ALIGNMENT : 0;
+		if (start + recordSize > MAXIMUM_CHUNK_SIZE) throw new IllegalArgumentException("An entry cannot be bigger than " + (MAXIMUM_CHUNK_SIZE - start) + " bytes.");
+
+		int chunkSize = this.chunks.length == 0 ? INITIAL_CHUNK_SIZE : Math.min(this.chunks[this.chunks.length - 1].capacity() * 2, MAXIMUM_CHUNK_SIZE);
+		ByteBuffer[] newChunks = new ByteBuffer[this.chunks.length + 1];
+		System.arraycopy(this.chunks, 0, newChunks, 0, this.chunks.length);
+		newChunks[this.chunks.length] = ByteBuffer.allocateDirect(Math.max(chunkSize, start + recordSize)).order(ByteOrder.nativeOrder());
+		this.chunks = newChunks;
+		this.chunkPosition = start;
+	}
+
+	/**
+	 * Puts a record that is no longer in the map on the free list if the records are all the same size, or counts it as garbage otherwise
+	 */
+	private void free(long record, int recordSize) {
+		this.liveBytes -= recordSize;
+		this.garbageBytes += recordSize;
+		if (RECORD_SIZE >= 0) {
+			chunk(record).putLong(offset(record) + NEXT_OFFSET, this.freeRecord);
+			this.freeRecord = record;
+		}
+	}
+
+	private boolean needsCompaction() {
+		return RECORD_SIZE < 0 && this.garbageBytes > MINIMUM_GARBAGE_TO_COMPACT && this.garbageBytes > this.liveBytes;
+	}
+
+	/**
+	 * Copies every record into new chunks and links them into the given number of new buckets. The records end up next to each other, so
+	 * this both resizes and compacts the map.
+	 */
+	private void rebuild(long newNumberOfBuckets) {
+		if (newNumberOfBuckets > MAXIMUM_NUMBER_OF_BUCKETS) {
+			this.resizeThreshold = Integer.MAX_VALUE;
+			return;
+		}
+
+		LongBuffer[] oldBucketPages = this.bucketPages;
+		long oldNumberOfBuckets = this.numberOfBuckets;
+		ByteBuffer[] oldChunks = this.chunks;
+
+		allocateBuckets(newNumberOfBuckets);
+		this.chunks = new ByteBuffer[0];
+		this.chunkPosition = 0;
+		this.freeRecord = 0;
+		this.garbageBytes = 0;
+
+		for (long oldBucketIndex = 0; oldBucketIndex < oldNumberOfBuckets; oldBucketIndex++) {
+			long oldRecord = oldBucketPages[(int) (oldBucketIndex >>> BUCKET_PAGE_BITS)].get((int) (oldBucketIndex & BUCKET_PAGE_MASK));
+			while (oldRecord != 0) {
+				ByteBuffer oldChunk = oldChunks[(int) (oldRecord >>> CHUNK_BITS)];
+				int oldOffset = offset(oldRecord);
+				int keyLength = keyLength(oldChunk, oldOffset);
+				int valueLength = VALUE_WIDTH >= 0 ? VALUE_WIDTH : oldChunk.getInt(keyOffset(oldOffset) + keyLength);
+				int recordSize = recordSize(keyLength, valueLength);
+				int hash = oldChunk.getInt(oldOffset + HASH_OFFSET);
+				long nextOldRecord = oldChunk.getLong(oldOffset + NEXT_OFFSET);
+
+				long record = allocate(recordSize);
+				ByteBuffer chunk = chunk(record);
+				int offset = offset(record);
+				for (int i = 0; i < recordSize; i += Long.BYTES) {
+					chunk.putLong(offset + i, oldChunk.getLong(oldOffset + i));
+				}
+
+				long bucketIndex = hash & (newNumberOfBuckets - 1);
+				chunk.putLong(offset + NEXT_OFFSET, bucket(bucketIndex));
+				setBucket(bucketIndex, record);
+				oldRecord = nextOldRecord;
+			}
+		}
+
+		this.modCount++;
+	}
+
+	private void allocateBuckets(long newNumberOfBuckets) {
+		int bucketsPerPage = (int) Math.min(newNumberOfBuckets, 1 << BUCKET_PAGE_BITS);
+		LongBuffer[] newBucketPages = new LongBuffer[(int) (newNumberOfBuckets / bucketsPerPage)];
+		for (int i = 0; i < newBucketPages.length; i++) {
+			newBucketPages[i] = ByteBuffer.allocateDirect(bucketsPerPage * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+		}
+
+		this.bucketPages = newBucketPages;
+		this.numberOfBuckets = newNumberOfBuckets;
+		this.resizeThreshold = (int) Math.min(newNumberOfBuckets * LOAD_FACTOR, Integer.MAX_VALUE);
+	}
+
+	private long bucket(long bucketIndex) {
+		return this.bucketPages[(int) (bucketIndex >>> BUCKET_PAGE_BITS)].get((int) (bucketIndex & BUCKET_PAGE_MASK));
+	}
+
+	private void setBucket(long bucketIndex, long record) {
+		this.bucketPages[(int) (bucketIndex >>> BUCKET_PAGE_BITS)].put((int) (bucketIndex & BUCKET_PAGE_MASK), record);
+	}
+
+	private ByteBuffer chunk(long record) {
+		return this.chunks[(int) (record >>> CHUNK_BITS)];
+	}
+
+	private static int offset(long record) {
+		return (int) record & CHUNK_OFFSET_MASK;
+	}
+
+	private void checkOpen() {
+		if (isClosed()) throw new IllegalStateException("The map has been closed.");
+	}
+
+	private static long numberOfBucketsFor(int initialNumberOfBuckets) {
+		int numberOfBuckets = Integer.highestOneBit(Math.max(initialNumberOfBuckets - 1, 1)) << 1;
+		return Math.min(numberOfBuckets, MAXIMUM_NUMBER_OF_BUCKETS);
+	}
+
+	/**
+	 * Walks the buckets in order and each of them from its first record, deserializing every record it hands out. Like the iterators of
+	 * {@link BucketingMap}, it finds the next record ahead of time and fails fast if the map is changed underneath it.
+	 */
+	private abstract class RecordIterator<T> implements Iterator<T> {
+
+		private long bucketIndex = 0;
+		private long nextRecord = 0;
+		private long lastReturnedRecord = 0;
+		int expectedModCount = modCount;
+
+		RecordIterator() {
+			checkOpen();
+			advance(0);
+		}
+
+		private void advance(long record) {
+			long next = record == 0 ? 0 : OffHeapBucketingMap.this.next(record);
+			while (next == 0 && this.bucketIndex < numberOfBuckets) {
+				next = bucket(this.bucketIndex++);
+			}
+			this.nextRecord = next;
+		}
+
+		abstract T element(long record);
+
+		@Override
+		public boolean hasNext() {
+			return this.nextRecord != 0;
+		}
+
+		@Override
+		public T next() {
+			if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+			if (this.nextRecord == 0) throw new NoSuchElementException();
+
+			this.lastReturnedRecord = this.nextRecord;
+			advance(this.nextRecord);
+			return element(this.lastReturnedRecord);
+		}
+
+		@Override
+		public void remove() {
+			if (this.lastReturnedRecord == 0) throw new IllegalStateException();
+			if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+
+			// Compacting would move the next record, so it's left for a later removal
+			removeKey(readKey(this.lastReturnedRecord), false);
+			this.lastReturnedRecord = 0;
+			this.expectedModCount = modCount;
+		}
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new RecordIterator<K>() {
+				@Override
+				K element(long record) {
+					return readKey(record);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			int sizeBefore = size;
+			OffHeapBucketingMap.this.remove(key);
+			return size != sizeBefore;
+		}
+
+		@Override
+		public void clear() {
+			OffHeapBucketingMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new RecordIterator<V>() {
+				@Override
+				V element(long record) {
+					return readValue(record);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			OffHeapBucketingMap.this.clear();
+		}
+	}
+
+	/**
+	 * An entry handed out by the entry set's iterator, which holds the key and the value it saw and writes through the map. Setting a value
+	 * that doesn't fit into the record moves the record, but the record of an entry that has been handed out is behind the iterator, so the
+	 * iterator is told to carry on.
+	 */
+	private final class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient RecordIterator<?> iterator;
+
+		WriteThroughEntry(K key, V value, RecordIterator<?> iterator) {
+			super(key, value);
+			this.iterator = iterator;
+		}
+
+		@Override
+		public V setValue(V newValue) {
+			int modCountBefore = modCount;
+			if (Objects.nonNull(putValue(getKey(), newValue, false)) && this.iterator.expectedModCount == modCountBefore) {
+				this.iterator.expectedModCount = modCount;
+			}
+			return super.setValue(newValue);
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new RecordIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(long record) {
+					return new WriteThroughEntry(readKey(record), readValue(record), this);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			long record = findRecord(entry.getKey());
+			return record != 0 && Objects.equals(readValue(record), entry.getValue());
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			if (!contains(object)) return false;
+
+			OffHeapBucketingMap.this.remove(((Entry<?, ?>) object).getKey());
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			OffHeapBucketingMap.this.clear();
+		}
+	}
+
+}
@@ -0,0 +1,523 @@
+package com.matthew.maps;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An alternative to the {@link BucketingMap} that doesn't have buckets at all. Every entry lives directly in a slot of three parallel arrays
+ * (keys, values, and cached hashes) and collisions are resolved with linear probing, so there's no node per entry and a lookup walks
+ * neighbouring slots of the same arrays instead of chasing pointers. Removals use backward-shift deletion rather than tombstones,
+ * so the table never fills up with deleted slots.
+ *
+ * Like the other maps, this doesn't allow null keys, but it does allow null values.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class OpenAddressingMap<K, V> implements Map<K, V> {
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 32;
+	private static final double DEFAULT_LOAD_FACTOR = 0.75d;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private final double LOAD_FACTOR;
+
+	// An empty slot is one with a null key
+	private Object[] keys;
+	private Object[] values;
+	private int[] hashes;
+
+	private int mask;
+	private int resizeThreshold;
+	private int size = 0;
+	private int modificationCount = 0;
+
+	private Set<K> keySet;
+	private Collection<V> valuesView;
+	private Set<Entry<K, V>> entrySet;
+
+	/**
+	 * Creates an empty {@code OpenAddressingMap} with at least the specified initial capacity and the specified load factor
+	 *
+	 * @param initialCapacity The initial number of slots, which is rounded up to a power of two
+	 * @param loadFactor The load factor
+	 *
+	 * @throws IllegalArgumentException if the initial capacity is less than or equal to 0
+	 * or if the load factor is non-positive, greater than or equal to 1.0, or NaN
+	 */
+	public OpenAddressingMap(int initialCapacity, double loadFactor) {
+		if (initialCapacity <= 0) throw new IllegalArgumentException("initialCapacity cannot be less than or equal to 0.");
+		if (loadFactor <= 0.0d || loadFactor >= 1.0d || Double.isNaN(loadFactor)) throw new IllegalArgumentException("loadFactor must be a number and cannot be less than or equal to 0, and must be less than 1.");
+
+		this.LOAD_FACTOR = loadFactor;
+		allocate(tableSizeFor(initialCapacity));
+	}
+
+	/**
+	 * Creates an empty {@code OpenAddressingMap} with at least the specified initial capacity and the default load factor (0.75)
+	 *
+	 * @param initialCapacity The initial number of slots, which is rounded up to a power of two
+	 */
+	public OpenAddressingMap(int initialCapacity) {
+		this(initialCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Creates an empty {@code OpenAddressingMap} with the default initial capacity (32) and the default load factor (0.75)
+	 */
+	public OpenAddressingMap() {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.keys, null);
+		Arrays.fill(this.values, null);
+		this.size = 0;
+		this.modificationCount++;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return findSlot(key) >= 0;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		for (int i = 0; i < this.keys.length; i++) {
+			if (Objects.nonNull(this.keys[i]) && Objects.equals(this.values[i], value)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (Objects.isNull(this.entrySet)) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int slot = findSlot(key);
+		return slot < 0 ? null : (V) this.values[slot];
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public Set<K> keySet() {
+		if (Objects.isNull(this.keySet)) {
+			this.keySet = new KeySet();
+		}
+		return this.keySet;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(K key, V value) {
+		int hash = Hashing.spread(key.hashCode());
+		Object[] keys = this.keys;
+
+		for (int index = hash & this.mask; ; index = (index + 1) & this.mask) {
+			Object candidate = keys[index];
+
+			if (Objects.isNull(candidate)) {
+				keys[index] = key;
+				this.values[index] = value;
+				this.hashes[index] = hash;
+				this.size++;
+				this.modificationCount++;
+
+				if (this.size > this.resizeThreshold) {
+					resize();
+				}
+				return null;
+			}
+
+			if (this.hashes[index] == hash && (candidate == key || candidate.equals(key))) {
+				V previousValue = (V) this.values[index];
+				this.values[index] = value;
+				return previousValue;
+			}
+		}
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			this.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		int slot = findSlot(key);
+		if (slot < 0) {
+			return null;
+		}
+
+		V value = (V) this.values[slot];
+		removeSlot(slot);
+		return value;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (Objects.isNull(this.valuesView)) {
+			this.valuesView = new Values();
+		}
+		return this.valuesView;
+	}
+
+	/**
+	 * Finds the slot of the given key by probing from its ideal slot until either the key or an empty slot shows up
+	 *
+	 * @param key The key to find
+	 * @return The index of the slot, or -1 if the key isn't in the map
+	 */
+	private int findSlot(Object key) {
+		int hash = Hashing.spread(key.hashCode());
+		Object[] keys = this.keys;
+		int[] hashes = this.hashes;
+		int mask = this.mask;
+
+		for (int index = hash & mask; ; index = (index + 1) & mask) {
+			Object candidate = keys[index];
+
+			if (Objects.isNull(candidate)) {
+				return -1;
+			}
+			if (hashes[index] == hash && (candidate == key || candidate.equals(key))) {
+				return index;
+			}
+		}
+	}
+
+	/**
+	 * Empties the given slot, then walks the rest of its cluster and shifts back every entry that may be moved into the hole without
+	 * ending up in front of its own ideal slot. This leaves the table exactly as if the removed entry had never been inserted.
+	 *
+	 * @param slot The slot to remove
+	 */
+	private void removeSlot(int slot) {
+		Object[] keys = this.keys;
+		int mask = this.mask;
+
+		int hole = slot;
+		for (int index = (hole + 1) & mask; Objects.nonNull(keys[index]); index = (index + 1) & mask) {
+			int idealSlot = this.hashes[index] & mask;
+
+			// The entry can move into the hole if the hole lies between its ideal slot and where it currently is
+			if (((index - idealSlot) & mask) >= ((index - hole) & mask)) {
+				keys[hole] = keys[index];
+				this.values[hole] = this.values[index];
+				this.hashes[hole] = this.hashes[index];
+				hole = index;
+			}
+		}
+
+		keys[hole] = null;
+		this.values[hole] = null;
+		this.size--;
+		this.modificationCount++;
+	}
+
+	private void resize() {
+		if (this.keys.length == MAXIMUM_CAPACITY) {
+			throw new IllegalStateException("OpenAddressingMap cannot grow beyond " + MAXIMUM_CAPACITY + " slots.");
+		}
+
+		Object[] oldKeys = this.keys;
+		Object[] oldValues = this.values;
+		int[] oldHashes = this.hashes;
+
+		allocate(oldKeys.length * 2);
+
+		// Every key is already known to be unique, so there's no need to compare anything while reinserting
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (Objects.nonNull(oldKeys[i])) {
+				int index = oldHashes[i] & this.mask;
+				while (Objects.nonNull(this.keys[index])) {
+					index = (index + 1) & this.mask;
+				}
+
+				this.keys[index] = oldKeys[i];
+				this.values[index] = oldValues[i];
+				this.hashes[index] = oldHashes[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new Object[capacity];
+		this.values = new Object[capacity];
+		this.hashes = new int[capacity];
+		this.mask = capacity - 1;
+
+		// Always keep at least one slot empty, since probing relies on running into one
+		this.resizeThreshold = Math.min((int) (capacity * LOAD_FACTOR), capacity - 1);
+	}
+
+	private static int tableSizeFor(int capacity) {
+		int tableSize = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+		return Math.min(tableSize, MAXIMUM_CAPACITY);
+	}
+
+	/**
+	 * Walks the slots backwards, starting just below an empty slot and wrapping around. Going backwards means that a backward-shift
+	 * deletion only ever moves entries that were already visited into the removed slot, and starting at an empty slot means that no
+	 * cluster is split by the wrap around, so removing through the iterator never skips or repeats an entry.
+	 */
+	private abstract class SlotIterator<T> implements Iterator<T> {
+
+		private int cursor;
+		private int remainingSlots;
+		private int nextSlot = -1;
+		private int lastReturnedSlot = -1;
+		private int expectedModificationCount = modificationCount;
+
+		SlotIterator() {
+			int emptySlot = 0;
+			while (Objects.nonNull(keys[emptySlot])) {
+				emptySlot++;
+			}
+
+			this.cursor = emptySlot;
+			this.remainingSlots = keys.length - 1;
+			advance();
+		}
+
+		private void advance() {
+			while (this.remainingSlots > 0) {
+				this.cursor = (this.cursor - 1) & mask;
+				this.remainingSlots--;
+
+				if (Objects.nonNull(keys[this.cursor])) {
+					this.nextSlot = this.cursor;
+					return;
+				}
+			}
+
+			this.nextSlot = -1;
+		}
+
+		abstract T element(int slot);
+
+		@Override
+		public boolean hasNext() {
+			return this.nextSlot >= 0;
+		}
+
+		@Override
+		public T next() {
+			if (modificationCount != this.expectedModificationCount) throw new ConcurrentModificationException();
+			if (this.nextSlot < 0) throw new NoSuchElementException();
+
+			this.lastReturnedSlot = this.nextSlot;
+			advance();
+			return element(this.lastReturnedSlot);
+		}
+
+		@Override
+		public void remove() {
+			if (this.lastReturnedSlot < 0) throw new IllegalStateException();
+			if (modificationCount != this.expectedModificationCount) throw new ConcurrentModificationException();
+
+			removeSlot(this.lastReturnedSlot);
+			this.lastReturnedSlot = -1;
+			this.expectedModificationCount = modificationCount;
+		}
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new SlotIterator<K>() {
+				@Override
+				@SuppressWarnings("unchecked")
+				K element(int slot) {
+					return (K) keys[slot];
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			int slot = findSlot(key);
+			if (slot < 0) {
+				return false;
+			}
+
+			removeSlot(slot);
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			OpenAddressingMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new SlotIterator<V>() {
+				@Override
+				@SuppressWarnings("unchecked")
+				V element(int slot) {
+					return (V) values[slot];
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			OpenAddressingMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new SlotIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(int slot) {
+					return new SlotEntry(slot);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			int slot = findSlot(entry.getKey());
+			return slot >= 0 && Objects.equals(values[slot], entry.getValue());
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			if (!contains(object)) return false;
+
+			removeSlot(findSlot(((Entry<?, ?>) object).getKey()));
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			OpenAddressingMap.this.clear();
+		}
+	}
+
+	/**
+	 * An entry handed out by the entry set iterator. Setting its value writes through to the map for as long as the entry is still
+	 * in the same slot.
+	 */
+	private final class SlotEntry implements Entry<K, V> {
+
+		private final int slot;
+		private final K key;
+		private V value;
+
+		@SuppressWarnings("unchecked")
+		SlotEntry(int slot) {
+			this.slot = slot;
+			this.key = (K) keys[slot];
+			this.value = (V) values[slot];
+		}
+
+		@Override
+		public K getKey() {
+			return this.key;
+		}
+
+		@Override
+		public V getValue() {
+			return this.value;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V setValue(V newValue) {
+			if (keys[this.slot] != this.key) throw new IllegalStateException("The entry is no longer in the map.");
+
+			V previousValue = (V) values[this.slot];
+			values[this.slot] = newValue;
+			this.value = newValue;
+			return previousValue;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			return this.key.equals(entry.getKey()) && Objects.equals(this.value, entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.key.hashCode() ^ Objects.hashCode(this.value);
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.matthew.maps;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongBiFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bulk operations that run over every entry of a map in parallel, much like the ones of {@link java.util.concurrent.ConcurrentHashMap}.
+ * They split the map with the spliterator of its entry set into ForkJoin tasks on the common pool, so a map whose spliterator splits along
+ * its own structure (the bucket array of a {@link BucketingMap}, or the levels of a {@link RecursiveMap}) hands every task its own part of
+ * it, without going through a stream pipeline.
+ *
+ * Every operation takes a parallelism threshold: a part of the map is only split further while it has more than that many entries. So
+ * {@code Long.MAX_VALUE} runs the whole operation in the calling thread, and 1 splits the map as far as it goes. The map must not be
+ * changed while an operation is running.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public interface ParallelBulkMap<K, V> extends Map<K, V> {
+
+	/**
+	 * Performs the given action for every entry
+	 *
+	 * @param parallelismThreshold The number of entries above which a part of the map is split
+	 * @param action The action
+	 */
+	default void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+		new BulkTasks.ForEachTask<K, V>(entrySet().spliterator(), parallelismThreshold, action).invoke();
+	}
+
+	/**
+	 * Finds a non-null result of the given function on any entry. Once one is found, every task stops as soon as it notices, so the rest of
+	 * the map isn't looked at.
+	 *
+	 * @param parallelismThreshold The number of entries above which a part of the map is split
+	 * @param searchFunction The function, returning null for the entries that don't match
+	 * @return A non-null result of the function, or null if there is none. If there are several, any one of them may be returned.
+	 */
+	default <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+		AtomicReference<U> result = new AtomicReference<>();
+		new BulkTasks.SearchTask<K, V, U>(entrySet().spliterator(), parallelismThreshold, searchFunction, result).invoke();
+		return result.get();
+	}
+
+	/**
+	 * Reduces the result of the given transformer on every entry
+	 *
+	 * @param parallelismThreshold The number of entries above which a part of the map is split
+	 * @param transformer The transformer, returning null for the entries that should be left out
+	 * @param reducer The reducer, which has to be associative
+	 * @return The reduction, or null if there was nothing to reduce
+	 */
+	default <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		return new BulkTasks.ReduceTask<K, V, U>(entrySet().spliterator(), parallelismThreshold, transformer, reducer).invoke();
+	}
+
+	/**
+	 * Reduces every key
+	 *
+	 * @param parallelismThreshold The number of entries above which a part of the map is split
+	 * @param reducer The reducer, which has to be associative
+	 * @return The reduction, or null if the map is empty
+	 */
+	default K reduceKeys(long parallelismThreshold, BiFunction<? super K, ? super K, ? extends K> reducer) {
+		return reduce(parallelismThreshold, (key, value) -> key, reducer);
+	}
+
+	/**
+	 * Reduces every non-null value
+	 *
+	 * @param parallelismThreshold The number of entries above which a part of the map is split
+	 * @param reducer The reducer, which has to be associative
+	 * @return The reduction, or null if there are no non-null values
+	 */
+	default V reduceValues(long parallelismThreshold, BiFunction<? super V, ? super V, ? extends V> reducer) {
+		return reduce(parallelismThreshold, (key, value) -> value, reducer);
+	}
+
+	/**
+	 * Reduces the result of the given transformer on every entry, without boxing
+	 *
+	 * @param parallelismThreshold The number of entries above which a part of the map is split
+	 * @param transformer The transformer
+	 * @param basis The identity of the reducer
+	 * @param reducer The reducer, which has to be associative
+	 * @return The reduction
+	 */
+	default long reduceToLong(long parallelismThreshold, ToLongBiFunction<? super K, ? super V> transformer, long basis,
+			LongBinaryOperator reducer) {
+		return new BulkTasks.ReduceToLongTask<K, V>(entrySet().spliterator(), parallelismThreshold, transformer, basis, reducer).invoke();
+	}
+
+	/**
+	 * Reduces the result of the given transformer on every key, without boxing
+	 *
+	 * @see #reduceToLong(long, ToLongBiFunction, long, LongBinaryOperator)
+	 */
+	default long reduceKeysToLong(long parallelismThreshold, ToLongFunction<? super K> transformer, long basis, LongBinaryOperator reducer) {
+		return reduceToLong(parallelismThreshold, (key, value) -> transformer.applyAsLong(key), basis, reducer);
+	}
+
+	/**
+	 * Reduces the result of the given transformer on every value, without boxing
+	 *
+	 * @see #reduceToLong(long, ToLongBiFunction, long, LongBinaryOperator)
+	 */
+	default long reduceValuesToLong(long parallelismThreshold, ToLongFunction<? super V> transformer, long basis, LongBinaryOperator reducer) {
+		return reduceToLong(parallelismThreshold, (key, value) -> transformer.applyAsLong(value), basis, reducer);
+	}
+
+}
@@ -0,0 +1,740 @@
+package com.matthew.maps;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable version of the {@link RecursiveMap}. Instead of changing the map, {@link #with(Object, Object)} and {@link #without(Object)}
+ * return a new map, and the old one stays exactly as it was. Only the levels on the path down to the changed bucket are copied (at most 7
+ * of them, each no bigger than 32 slots), and every other level is shared between the old map and the new one, so an update costs time
+ * proportional to the depth of the trie rather than the size of the map. That makes it cheap to hand a map out to any number of readers
+ * and keep publishing new versions of it.
+ *
+ * For a batch of updates, {@link #toBuilder()} gives a {@link Builder} that changes the levels it has already copied in place, so a level
+ * is copied at most once per batch rather than once per update. {@link Builder#build()} turns it back into an immutable map.
+ *
+ * The methods of {@link Map} that would change the map throw an {@link UnsupportedOperationException}. Like the {@link RecursiveMap},
+ * this doesn't allow null keys, but it does allow null values.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public final class PersistentRecursiveMap<K, V> implements Map<K, V> {
+
+	private static final PersistentRecursiveMap<?, ?> EMPTY = new PersistentRecursiveMap<>(new Level(null, 0, new Object[0]), 0);
+
+	private final Level root;
+	private final int size;
+
+	private Set<K> keySet;
+	private Collection<V> valuesView;
+	private Set<Entry<K, V>> entrySet;
+
+	private PersistentRecursiveMap(Level root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Gets the empty map
+	 *
+	 * @return The empty map
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> PersistentRecursiveMap<K, V> empty() {
+		return (PersistentRecursiveMap<K, V>) EMPTY;
+	}
+
+	/**
+	 * Creates a new builder, starting from the empty map
+	 *
+	 * @return The new builder
+	 */
+	public static <K, V> Builder<K, V> builder() {
+		return PersistentRecursiveMap.<K, V> empty().toBuilder();
+	}
+
+	/**
+	 * Gets a map with the given value for the given key, and the same mappings as this map for every other key
+	 *
+	 * @param key The key
+	 * @param value The value
+	 * @return The new map, or this map if the key already has exactly this value
+	 */
+	public PersistentRecursiveMap<K, V> with(K key, V value) {
+		Change change = new Change();
+		Level root = put(this.root, null, new Node(Hashing.mix(key.hashCode()), key, value), 0, change);
+		return root == this.root ? this : new PersistentRecursiveMap<>(root, this.size + change.sizeDelta);
+	}
+
+	/**
+	 * Gets a map without the given key, and the same mappings as this map for every other key
+	 *
+	 * @param key The key
+	 * @return The new map, or this map if it doesn't have the key
+	 */
+	public PersistentRecursiveMap<K, V> without(Object key) {
+		Change change = new Change();
+		Level root = remove(this.root, null, Hashing.mix(key.hashCode()), key, 0, change);
+		return root == this.root ? this : new PersistentRecursiveMap<>(root, this.size + change.sizeDelta);
+	}
+
+	/**
+	 * Creates a builder that starts off with the mappings of this map. This map is not affected by anything done to the builder.
+	 *
+	 * @return The new builder
+	 */
+	public Builder<K, V> toBuilder() {
+		return new Builder<>(this.root, this.size);
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return Objects.nonNull(findNode(this.root, key));
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		for (Iterator<Node> iterator = new NodeIterator(this.root); iterator.hasNext();) {
+			if (Objects.equals(iterator.next().value, value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (Objects.isNull(this.entrySet)) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		Node node = findNode(this.root, key);
+		return Objects.isNull(node) ? null : (V) node.value;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public Set<K> keySet() {
+		if (Objects.isNull(this.keySet)) {
+			this.keySet = new KeySet();
+		}
+		return this.keySet;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public V remove(Object key) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (Objects.isNull(this.valuesView)) {
+			this.valuesView = new Values();
+		}
+		return this.valuesView;
+	}
+
+	private static Node findNode(Level root, Object key) {
+		int hash = Hashing.mix(key.hashCode());
+		Level level = root;
+
+		for (int depth = 0;; depth++) {
+			int bit = 1 << Hashing.levelIndex(hash, depth);
+			if ((level.bitmap & bit) == 0) {
+				return null;
+			}
+
+			Object slot = level.slots[level.slotIndex(bit)];
+			if (slot instanceof Level) {
+				level = (Level) slot;
+			} else if (slot instanceof Collision) {
+				Collision collision = (Collision) slot;
+				return collision.hash == hash ? collision.find(key) : null;
+			} else {
+				Node node = (Node) slot;
+				return node.hash == hash && node.key.equals(key) ? node : null;
+			}
+		}
+	}
+
+	/**
+	 * Puts the node into the given level or a level below it, copying every level on the way down unless the owner is allowed to change
+	 * it in place
+	 *
+	 * @param owner The builder that is putting the node, or null if every level has to be copied
+	 * @param change Where to record whether the size of the map changed
+	 * @return The level to use instead of the given level, which is the same level if nothing changed or if it was changed in place
+	 */
+	private static Level put(Level level, Object owner, Node node, int depth, Change change) {
+		int bit = 1 << Hashing.levelIndex(node.hash, depth);
+		int slotIndex = level.slotIndex(bit);
+		if ((level.bitmap & bit) == 0) {
+			change.sizeDelta = 1;
+			return level.inserted(owner, bit, slotIndex, node);
+		}
+
+		Object slot = level.slots[slotIndex];
+		Object newSlot;
+		if (slot instanceof Level) {
+			Level child = (Level) slot;
+			Level newChild = put(child, owner, node, depth + 1, change);
+			if (newChild == child) {
+				return level;
+			}
+			newSlot = newChild;
+		} else if (slot instanceof Collision) {
+			Collision collision = (Collision) slot;
+			if (collision.hash == node.hash) {
+				newSlot = collision.with(node, change);
+				if (newSlot == collision) {
+					return level;
+				}
+			} else {
+				change.sizeDelta = 1;
+				newSlot = remap(owner, collision, collision.hash, node, depth + 1);
+			}
+		} else {
+			Node existing = (Node) slot;
+			if (existing.hash == node.hash && existing.key.equals(node.key)) {
+				if (existing.value == node.value) {
+					return level;
+				}
+				newSlot = node;
+			} else if (existing.hash == node.hash) {
+				change.sizeDelta = 1;
+				newSlot = new Collision(node.hash, new Node[] { existing, node });
+			} else {
+				change.sizeDelta = 1;
+				newSlot = remap(owner, existing, existing.hash, node, depth + 1);
+			}
+		}
+
+		return level.updated(owner, slotIndex, newSlot);
+	}
+
+	/**
+	 * Removes the key from the given level or a level below it, copying every level on the way down unless the owner is allowed to change
+	 * it in place. A level below this one that is left with just one node (or just one set of colliding nodes) is pulled back up into
+	 * this level.
+	 *
+	 * @param owner The builder that is removing the key, or null if every level has to be copied
+	 * @param change Where to record whether the size of the map changed
+	 * @return The level to use instead of the given level, which is the same level if nothing changed or if it was changed in place
+	 */
+	private static Level remove(Level level, Object owner, int hash, Object key, int depth, Change change) {
+		int bit = 1 << Hashing.levelIndex(hash, depth);
+		if ((level.bitmap & bit) == 0) {
+			return level;
+		}
+
+		int slotIndex = level.slotIndex(bit);
+		Object slot = level.slots[slotIndex];
+		Object newSlot;
+		if (slot instanceof Level) {
+			Level child = (Level) slot;
+			Level newChild = remove(child, owner, hash, key, depth + 1, change);
+			if (change.sizeDelta == 0) {
+				return level;
+			}
+
+			if (newChild.slots.length == 1 && !(newChild.slots[0] instanceof Level)) {
+				newSlot = newChild.slots[0];
+			} else if (newChild == child) {
+				return level;
+			} else {
+				newSlot = newChild;
+			}
+		} else if (slot instanceof Collision) {
+			Collision collision = (Collision) slot;
+			if (collision.hash != hash) {
+				return level;
+			}
+
+			newSlot = collision.without(key, change);
+			if (newSlot == collision) {
+				return level;
+			}
+		} else {
+			Node node = (Node) slot;
+			if (node.hash != hash || !node.key.equals(key)) {
+				return level;
+			}
+
+			change.sizeDelta = -1;
+			return level.deleted(owner, bit, slotIndex);
+		}
+
+		return level.updated(owner, slotIndex, newSlot);
+	}
+
+	/**
+	 * Creates the level that the payload of a bucket and a new node with a different hashcode get remapped into. If they end up in the same
+	 * bucket of that level too, it keeps going deeper until they don't.
+	 */
+	private static Level remap(Object owner, Object first, int firstHash, Node second, int depth) {
+		int firstBit = 1 << Hashing.levelIndex(firstHash, depth);
+		int secondBit = 1 << Hashing.levelIndex(second.hash, depth);
+
+		if (firstBit == secondBit) {
+			return new Level(owner, firstBit, new Object[] { remap(owner, first, firstHash, second, depth + 1) });
+		}
+
+		return Integer.compareUnsigned(firstBit, secondBit) < 0
+				? new Level(owner, firstBit | secondBit, new Object[] { first, second })
+				: new Level(owner, firstBit | secondBit, new Object[] { second, first });
+	}
+
+	/**
+	 * A mutable version of a {@link PersistentRecursiveMap}, for making a batch of changes without copying a level for every one of
+	 * them. The first change to go through a level copies it, and after that the builder owns the copy and changes it in place. The
+	 * map the builder was created from never changes.
+	 *
+	 * A builder can't be used any more once {@link #build()} has been called, since the built map shares the levels the builder owns.
+	 * It isn't thread safe.
+	 *
+	 * @param <K> The type of the keys
+	 * @param <V> The type of the values
+	 */
+	public static final class Builder<K, V> {
+
+		// Only the levels that were created by this builder are owned by this object, so they're the only ones it may change in place
+		private Object owner = new Object();
+		private Level root;
+		private int size;
+
+		private Builder(Level root, int size) {
+			this.root = root;
+			this.size = size;
+		}
+
+		/**
+		 * Puts the given value for the given key
+		 *
+		 * @return This builder
+		 * @throws IllegalStateException if the builder has already been built
+		 */
+		public Builder<K, V> put(K key, V value) {
+			Change change = new Change();
+			this.root = PersistentRecursiveMap.put(this.root, owner(), new Node(Hashing.mix(key.hashCode()), key, value), 0, change);
+			this.size += change.sizeDelta;
+			return this;
+		}
+
+		/**
+		 * Puts every mapping of the given map
+		 *
+		 * @return This builder
+		 * @throws IllegalStateException if the builder has already been built
+		 */
+		public Builder<K, V> putAll(Map<? extends K, ? extends V> map) {
+			for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+				put(entry.getKey(), entry.getValue());
+			}
+			return this;
+		}
+
+		/**
+		 * Removes the given key
+		 *
+		 * @return This builder
+		 * @throws IllegalStateException if the builder has already been built
+		 */
+		public Builder<K, V> remove(Object key) {
+			Change change = new Change();
+			this.root = PersistentRecursiveMap.remove(this.root, owner(), Hashing.mix(key.hashCode()), key, 0, change);
+			this.size += change.sizeDelta;
+			return this;
+		}
+
+		@SuppressWarnings("unchecked")
+		public V get(Object key) {
+			owner();
+			Node node = findNode(this.root, key);
+			return Objects.isNull(node) ? null : (V) node.value;
+		}
+
+		public boolean containsKey(Object key) {
+			owner();
+			return Objects.nonNull(findNode(this.root, key));
+		}
+
+		public int size() {
+			owner();
+			return this.size;
+		}
+
+		/**
+		 * Turns the builder into an immutable map. The builder can't be used any more afterwards.
+		 *
+		 * @return The map
+		 * @throws IllegalStateException if the builder has already been built
+		 */
+		public PersistentRecursiveMap<K, V> build() {
+			owner();
+			this.owner = null;
+			return new PersistentRecursiveMap<>(this.root, this.size);
+		}
+
+		private Object owner() {
+			if (Objects.isNull(this.owner)) throw new IllegalStateException("The builder has already been built.");
+			return this.owner;
+		}
+	}
+
+	/**
+	 * Records how the size of the map changed while putting or removing
+	 */
+	private static final class Change {
+
+		int sizeDelta = 0;
+	}
+
+	/**
+	 * Walks every node of a trie. The trie never changes, so there's nothing to check for concurrent modification.
+	 */
+	private static final class NodeIterator implements Iterator<Node> {
+
+		private final Deque<Object> pendingSlots = new ArrayDeque<>();
+		private final Deque<Node> pendingNodes = new ArrayDeque<>();
+
+		NodeIterator(Level root) {
+			this.pendingSlots.push(root);
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (this.pendingNodes.isEmpty() && !this.pendingSlots.isEmpty()) {
+				Object slot = this.pendingSlots.pop();
+				if (slot instanceof Level) {
+					for (Object child : ((Level) slot).slots) {
+						this.pendingSlots.push(child);
+					}
+				} else if (slot instanceof Collision) {
+					this.pendingNodes.addAll(Arrays.asList(((Collision) slot).nodes));
+				} else {
+					this.pendingNodes.push((Node) slot);
+				}
+			}
+			return !this.pendingNodes.isEmpty();
+		}
+
+		@Override
+		public Node next() {
+			if (!hasNext()) throw new NoSuchElementException();
+
+			return this.pendingNodes.pop();
+		}
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			Iterator<Node> nodes = new NodeIterator(root);
+			return new Iterator<K>() {
+				@Override
+				public boolean hasNext() {
+					return nodes.hasNext();
+				}
+
+				@Override
+				@SuppressWarnings("unchecked")
+				public K next() {
+					return (K) nodes.next().key;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			Iterator<Node> nodes = new NodeIterator(root);
+			return new Iterator<V>() {
+				@Override
+				public boolean hasNext() {
+					return nodes.hasNext();
+				}
+
+				@Override
+				@SuppressWarnings("unchecked")
+				public V next() {
+					return (V) nodes.next().value;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return containsValue(value);
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			Iterator<Node> nodes = new NodeIterator(root);
+			return new Iterator<Entry<K, V>>() {
+				@Override
+				public boolean hasNext() {
+					return nodes.hasNext();
+				}
+
+				@Override
+				@SuppressWarnings("unchecked")
+				public Entry<K, V> next() {
+					return (Entry<K, V>) nodes.next();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			Node node = findNode(root, entry.getKey());
+			return Objects.nonNull(node) && Objects.equals(node.value, entry.getValue());
+		}
+	}
+
+	/**
+	 * A level of the trie, laid out the same way as a {@link RecursiveMap} level. Once a level is part of an immutable map it never
+	 * changes; only the builder that owns a level may change it, and only until the builder is built.
+	 */
+	static final class Level {
+
+		final Object owner;
+		int bitmap;
+		Object[] slots;
+
+		Level(Object owner, int bitmap, Object[] slots) {
+			this.owner = owner;
+			this.bitmap = bitmap;
+			this.slots = slots;
+		}
+
+		int slotIndex(int bit) {
+			return Integer.bitCount(this.bitmap & (bit - 1));
+		}
+
+		private boolean isOwnedBy(Object owner) {
+			return Objects.nonNull(owner) && this.owner == owner;
+		}
+
+		Level inserted(Object owner, int bit, int slotIndex, Object slot) {
+			Object[] slots = new Object[this.slots.length + 1];
+			System.arraycopy(this.slots, 0, slots, 0, slotIndex);
+			slots[slotIndex] = slot;
+			System.arraycopy(this.slots, slotIndex, slots, slotIndex + 1, this.slots.length - slotIndex);
+
+			if (isOwnedBy(owner)) {
+				this.bitmap |= bit;
+				this.slots = slots;
+				return this;
+			}
+			return new Level(owner, this.bitmap | bit, slots);
+		}
+
+		Level updated(Object owner, int slotIndex, Object slot) {
+			if (isOwnedBy(owner)) {
+				this.slots[slotIndex] = slot;
+				return this;
+			}
+
+			Object[] slots = this.slots.clone();
+			slots[slotIndex] = slot;
+			return new Level(owner, this.bitmap, slots);
+		}
+
+		Level deleted(Object owner, int bit, int slotIndex) {
+			Object[] slots = new Object[this.slots.length - 1];
+			System.arraycopy(this.slots, 0, slots, 0, slotIndex);
+			System.arraycopy(this.slots, slotIndex + 1, slots, slotIndex, slots.length - slotIndex);
+
+			if (isOwnedBy(owner)) {
+				this.bitmap ^= bit;
+				this.slots = slots;
+				return this;
+			}
+			return new Level(owner, this.bitmap ^ bit, slots);
+		}
+	}
+
+	/**
+	 * The nodes whose keys all have the same hash, which no number of levels could tell apart. These are always copied, since they should
+	 * be rare and small.
+	 */
+	static final class Collision {
+
+		final int hash;
+		final Node[] nodes;
+
+		Collision(int hash, Node[] nodes) {
+			this.hash = hash;
+			this.nodes = nodes;
+		}
+
+		Node find(Object key) {
+			for (Node node : this.nodes) {
+				if (node.key.equals(key)) {
+					return node;
+				}
+			}
+			return null;
+		}
+
+		Collision with(Node newNode, Change change) {
+			for (int i = 0; i < this.nodes.length; i++) {
+				if (this.nodes[i].key.equals(newNode.key)) {
+					if (this.nodes[i].value == newNode.value) {
+						return this;
+					}
+
+					Node[] nodes = this.nodes.clone();
+					nodes[i] = newNode;
+					return new Collision(this.hash, nodes);
+				}
+			}
+
+			change.sizeDelta = 1;
+			Node[] nodes = Arrays.copyOf(this.nodes, this.nodes.length + 1);
+			nodes[this.nodes.length] = newNode;
+			return new Collision(this.hash, nodes);
+		}
+
+		/**
+		 * @return The collision without the key, just the one node that is left if there is only one, or this if it doesn't have the key
+		 */
+		Object without(Object key, Change change) {
+			Node node = find(key);
+			if (Objects.isNull(node)) {
+				return this;
+			}
+
+			change.sizeDelta = -1;
+			Node[] nodes = new Node[this.nodes.length - 1];
+			int nodeIndex = 0;
+			for (Node other : this.nodes) {
+				if (other != node) {
+					nodes[nodeIndex++] = other;
+				}
+			}
+			return nodes.length == 1 ? nodes[0] : new Collision(this.hash, nodes);
+		}
+	}
+
+	/**
+	 * A key and its value, which never change once the node has been created
+	 */
+	static final class Node implements Map.Entry<Object, Object> {
+
+		// The mixed hashcode of the key
+		final int hash;
+		final Object key;
+		final Object value;
+
+		Node(int hash, Object key, Object value) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public Object getKey() {
+			return this.key;
+		}
+
+		@Override
+		public Object getValue() {
+			return this.value;
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			return this.key.equals(entry.getKey()) && Objects.equals(this.value, entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.key.hashCode() ^ Objects.hashCode(this.value);
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+
+}
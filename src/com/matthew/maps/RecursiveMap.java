@@ -1,121 +1,144 @@
 package com.matthew.maps;
 
-import java.util.Arrays;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * This is a curious variant of the Map where each "Bucket" is in one of three states: Empty, has one node, or contains another map.
  * Thus the term "RecursiveMap" because each bucket could possibly be another map itself. This gains the benefit of no comparisons in a bucket
  * like the BucketingMap, nor a collision method in a single node array implementation. So, one has essentially O(1) lookups for an element.
- * Each map has a depth which begins at 1, and the depth increases by 1 as a bucket changes to a map state. The depth is then used
- * to compute a new hashcode for each node in a deeper map (this is obviously necessary since two nodes only map to the same bucket index
- * if they had a hashcode % length that was the same, so this will *hopefully* change the bucket index). 
- * 
- * The big drawback of this is that two distinct nodes that have the SAME hashcode will cause a stackoverflow error because it will infinitely
- * remap the elements in a bucket because the elements are different by equality, but same by hashcode.
- * 
+ * Each map has a depth which begins at 1, and the depth increases by 1 as a bucket changes to a map state. The hashcode of a key is mixed
+ * once, and the depth then picks which 5 bits of that hash index the map at that depth (this is obviously necessary since two nodes only
+ * map to the same bucket index if those bits were the same, so the next 5 bits will *hopefully* be different). Two different hashes always
+ * differ somewhere in their 32 bits, so they are guaranteed to part ways within 7 levels.
+ *
+ * The nested maps are stored as a hash array mapped trie: every level has a 32 bit bitmap with a bit set for each of its 32 buckets that
+ * isn't empty, and a compact array with just the non-empty buckets, in order. The position of a bucket in that array is the number of bits
+ * set below its own bit, so a level that only holds two nodes only takes up an array of two, rather than 32 buckets.
+ *
+ * Two distinct keys that have the SAME hashcode can never be told apart by remapping them, so instead of going deeper they share a bucket
+ * with colliding nodes. Those nodes are kept sorted when the keys are {@link Comparable}, which makes finding one a binary search, and
+ * are searched one by one otherwise. Either way a pathological set of keys makes the map slower rather than overflowing the stack.
+ *
+ * The key set, values, and entry set are live views that walk the levels in place, so iterating over the map doesn't copy it. Their
+ * spliterators split along the levels: a range of buckets is split in half, and a single bucket that holds a level is split into that
+ * level's buckets, so every part of a parallel stream gets whole sub-tries of its own.
+ *
+ * The batched {@link #getAll(Collection, Object[])} and {@link #putAll(Object[], Object[])} mix the hash of every key of the batch first
+ * and then go through the keys in the order of their path down the trie, so keys that share the upper levels are looked up one after
+ * the other while those levels are still in the cache.
+ *
  * @author Matthew Meacham
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
  */
-public class RecursiveMap<K, V> implements Map<K, V> {
-	
-	private final int DEFAULT_NUMBER_OF_BUCKETS = 32;
-		
-	private Bucket<K, V>[] buckets;
+public class RecursiveMap<K, V> implements ParallelBulkMap<K, V>, BatchMap<K, V> {
+
+	/**
+	 * The bound of {@link #pathOf(int)}, which has 5 bits for each of the levels above the deepest one
+	 */
+	private static final int PATH_BOUND = 1 << (Hashing.BITS_PER_LEVEL * Hashing.MAXIMUM_LEVEL);
+
+	private Level root = new Level();
 	private int size = 0;
-	
-	private final int DEPTH;
-	
+
+	/**
+	 * The number of times a node was added or removed, so that the iterators can tell that the map changed underneath them
+	 */
+	private int modCount = 0;
+
+	private Set<K> keySet;
+	private Collection<V> valuesView;
+	private Set<Entry<K, V>> entrySet;
+
+	private BatchOrder batchOrder;
+
+	/**
+	 * The states a bucket of a level can be in. An empty bucket has its bit cleared in the bitmap and takes no space, a bucket with one node
+	 * holds that node directly, a bucket with remapped nodes holds the next level down, and a bucket with colliding nodes holds all the nodes
+	 * whose keys have one and the same hashcode.
+	 */
 	public enum BucketState {
-		EMPTY, ONE_NODE, REMAPPED_NODES
-	}
-	
-	private RecursiveMap(int depth) {
-		this.DEPTH = depth;
-		this.buckets = createBuckets(DEFAULT_NUMBER_OF_BUCKETS);
+		EMPTY, ONE_NODE, REMAPPED_NODES, COLLIDING_NODES
 	}
-	
+
 	public RecursiveMap() {
-		this(1);
 	}
-	
+
 	@Override
 	public void clear() {
-		this.buckets = createBuckets(this.buckets.length);
+		this.root = new Level();
 		this.size = 0;
+		this.modCount++;
 	}
 
 	@Override
 	public boolean containsKey(Object key) {
-		int hashIndex = hashKey(key) % this.buckets.length;
-		
-		Bucket<K, V> bucket = this.buckets[hashIndex];
-		
-		if (bucket.getBucketState() == BucketState.ONE_NODE) {
-			return bucket.getOneNodePayload().getKey().equals(key);
-		}
-		
-		if (bucket.getBucketState() == BucketState.REMAPPED_NODES) {
-			return bucket.getRemappedNodesPayload().containsKey(key);
-		}
-		
-		return false;
+		return Objects.nonNull(findNode(key));
 	}
 
 	@Override
 	public boolean containsValue(Object value) {
-		for (Bucket<K, V> bucket : this.buckets) {
-			if (bucket.getBucketState() == BucketState.ONE_NODE) {
-				if (bucket.getOneNodePayload().getValue().equals(value)) {
-					return true;
-				}
-			} else if (bucket.getBucketState() == BucketState.REMAPPED_NODES) {
-				if (bucket.getRemappedNodesPayload().containsValue(value)) {
-					return true;
-				}
+		for (Iterator<V> iterator = values().iterator(); iterator.hasNext();) {
+			if (Objects.equals(iterator.next(), value)) {
+				return true;
 			}
 		}
-		
 		return false;
 	}
 
 	@Override
 	public Set<Entry<K, V>> entrySet() {
-		return Arrays.stream(this.buckets)
-				.<Stream<Entry<K, V>>>map(bucket -> {
-					if (bucket.getBucketState() == BucketState.ONE_NODE) return Stream.of(bucket.getOneNodePayload());
-					if (bucket.getBucketState() == BucketState.REMAPPED_NODES) return bucket.getRemappedNodesPayload().entrySet().stream();
-					return Stream.empty();
-				})
-				.flatMap(Function.identity())
-				.collect(Collectors.toSet());
+		if (Objects.isNull(this.entrySet)) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
 	}
 
 	@Override
 	public V get(Object key) {
-		int hashIndex = hashKey(key) % this.buckets.length;
-		Bucket<K, V> bucket = this.buckets[hashIndex];
-		
-		if (bucket.getBucketState() == BucketState.ONE_NODE) {
-			if (bucket.getOneNodePayload().getKey().equals(key)) {
-				return bucket.getOneNodePayload().getValue();
-			} else {
-				return null;
-			}
+		Node<K, V> node = findNode(key);
+		return Objects.isNull(node) ? null : node.getValue();
+	}
+
+	@Override
+	public V[] getAll(Collection<? extends K> keys, V[] values) {
+		int length = keys.size();
+		if (length < BatchOrder.MINIMUM_LENGTH) {
+			return BatchMap.super.getAll(keys, values);
+		}
+		V[] result = BatchOrder.valuesFor(values, length);
+
+		BatchOrder batch = BatchOrder.forReads(length);
+		int i = 0;
+		for (K key : keys) {
+			int hash = Hashing.mix(key.hashCode());
+			batch.keys[i] = key;
+			batch.hashes[i] = hash;
+			batch.positions[i] = pathOf(hash);
+			i++;
 		}
-		
-		if (bucket.getBucketState() == BucketState.REMAPPED_NODES) {
-			return bucket.getRemappedNodesPayload().get(key);
+
+		batch.group(length, PATH_BOUND);
+		for (int j = 0; j < length; j++) {
+			int index = batch.order[j];
+			Object key = batch.keys[index];
+			batch.keys[index] = null;
+			Node<K, V> node = findNode(batch.hashes[index], key);
+			result[index] = Objects.isNull(node) ? null : node.getValue();
 		}
-		
-		return null;
+		return result;
 	}
 
 	@Override
@@ -125,44 +148,77 @@ public class RecursiveMap<K, V> implements Map<K, V> {
 
 	@Override
 	public Set<K> keySet() {
-		return Arrays.stream(this.buckets)
-				.<Stream<K>>map(bucket -> {
-					if (bucket.getBucketState() == BucketState.ONE_NODE) return Stream.of(bucket.getOneNodePayload().getKey());
-					if (bucket.getBucketState() == BucketState.REMAPPED_NODES) return bucket.getRemappedNodesPayload().keySet().stream();
-					return Stream.empty();
-				})
-				.flatMap(Function.identity())
-				.collect(Collectors.toSet());
+		if (Objects.isNull(this.keySet)) {
+			this.keySet = new KeySet();
+		}
+		return this.keySet;
 	}
 
 	@Override
 	public V put(K key, V value) {
-		int hashIndex = this.hashKey(key) % this.buckets.length;
-		Bucket<K, V> bucket = this.buckets[hashIndex];
-		
-		if (bucket.getBucketState() == BucketState.EMPTY) {
-			bucket.setBucketState(BucketState.ONE_NODE);
-			bucket.setOneNodePayload(new Node<K, V>(key, value));
-			this.size++;
-		} else if (bucket.getBucketState() == BucketState.ONE_NODE) {
-			Node<K, V> oneNodePayload = bucket.getOneNodePayload();
-			
-			if (oneNodePayload.getKey().equals(key)) {
+		return put(Hashing.mix(key.hashCode()), key, value);
+	}
+
+	/**
+	 * Does the work of {@link #put(Object, Object)} for a key whose mixed hash is already known
+	 */
+	@SuppressWarnings("unchecked")
+	private V put(int hash, K key, V value) {
+		Level level = this.root;
+
+		for (int depth = 1; ; depth++) {
+			int bit = bitFor(hash, depth);
+			BucketState bucketState = level.getBucketState(bit);
+
+			if (bucketState == BucketState.EMPTY) {
+				level.insert(bit, new Node<K, V>(hash, key, value));
+				this.size++;
+				this.modCount++;
+				return value;
+			}
+
+			int slotIndex = level.slotIndex(bit);
+			if (bucketState == BucketState.REMAPPED_NODES) {
+				level = (Level) level.slots[slotIndex];
+				continue;
+			}
+
+			if (bucketState == BucketState.COLLIDING_NODES) {
+				Collision<K, V> collidingNodesPayload = (Collision<K, V>) level.slots[slotIndex];
+
+				if (collidingNodesPayload.hash == hash) {
+					Node<K, V> node = collidingNodesPayload.find(key);
+					if (Objects.nonNull(node)) {
+						node.setValue(value);
+					} else {
+						collidingNodesPayload.insert(new Node<K, V>(hash, key, value));
+						this.size++;
+						this.modCount++;
+					}
+				} else {
+					level.slots[slotIndex] = remap(collidingNodesPayload, collidingNodesPayload.hash, new Node<K, V>(hash, key, value), depth + 1);
+					this.size++;
+					this.modCount++;
+				}
+
+				return value;
+			}
+
+			Node<K, V> oneNodePayload = (Node<K, V>) level.slots[slotIndex];
+			if (oneNodePayload.hash == hash && oneNodePayload.getKey().equals(key)) {
 				oneNodePayload.setValue(value);
+			} else if (oneNodePayload.hash == hash) {
+				level.slots[slotIndex] = new Collision<K, V>(oneNodePayload, new Node<K, V>(hash, key, value));
+				this.size++;
+				this.modCount++;
 			} else {
-				bucket.setBucketState(BucketState.REMAPPED_NODES);
-				bucket.setRemappedNodesPayload(new RecursiveMap<K, V>());
-				
-				bucket.getRemappedNodesPayload().put(oneNodePayload.getKey(), oneNodePayload.getValue());
-				bucket.getRemappedNodesPayload().put(key, value);
-
+				level.slots[slotIndex] = remap(oneNodePayload, oneNodePayload.hash, new Node<K, V>(hash, key, value), depth + 1);
 				this.size++;
+				this.modCount++;
 			}
-		} else if (bucket.getBucketState() == BucketState.REMAPPED_NODES) {
-			bucket.getRemappedNodesPayload().put(key, value);
+
+			return value;
 		}
-		
-		return value;
 	}
 
 	@Override
@@ -173,35 +229,39 @@ public class RecursiveMap<K, V> implements Map<K, V> {
 	}
 
 	@Override
-	public V remove(Object key) {
-		int hashIndex = this.hashKey(key) % this.buckets.length;
-		Bucket<K, V> bucket = this.buckets[hashIndex];
-		
-		if (bucket.getBucketState() == BucketState.ONE_NODE) {
-			Node<K, V> node = bucket.getOneNodePayload();
-			
-			if (node.getKey().equals(key)) {
-				bucket.setBucketState(BucketState.EMPTY);
-				this.size--;
-				return node.getValue();
-			}
+	public void putAll(K[] keys, V[] values) {
+		if (keys.length != values.length) throw new IllegalArgumentException("keys and values must be the same length.");
+		if (keys.length < BatchOrder.MINIMUM_LENGTH) {
+			BatchMap.super.putAll(keys, values);
+			return;
 		}
-		
-		if (bucket.getBucketState() == BucketState.REMAPPED_NODES) {
-			V removeResult = bucket.getRemappedNodesPayload().remove(key);
-			
-			// Change it to a one node if there is only one node
-			if (bucket.getRemappedNodesPayload().size() == 1) {
-				Node<K, V> node = (Node<K, V>) bucket.getRemappedNodesPayload().entrySet().stream().findAny().get();
-				
-				bucket.setBucketState(BucketState.ONE_NODE);
-				bucket.setOneNodePayload(node);
-			}
-			
-			return removeResult;
+
+		int length = keys.length;
+		BatchOrder batch = batchOrder(length);
+		for (int i = 0; i < length; i++) {
+			int hash = Hashing.mix(keys[i].hashCode());
+			batch.hashes[i] = hash;
+			batch.positions[i] = pathOf(hash);
+		}
+
+		// Keys that come up more than once are in the same group, in the order they were given, so the last value still wins
+		batch.group(length, PATH_BOUND);
+		for (int j = 0; j < length; j++) {
+			int index = batch.order[j];
+			put(batch.hashes[index], keys[index], values[index]);
+		}
+	}
+
+	@Override
+	public V remove(Object key) {
+		Node<K, V> node = remove(this.root, Hashing.mix(key.hashCode()), key, 1);
+		if (Objects.isNull(node)) {
+			return null;
 		}
-		
-		return null;
+
+		this.size--;
+		this.modCount++;
+		return node.getValue();
 	}
 
 	@Override
@@ -211,75 +271,653 @@ public class RecursiveMap<K, V> implements Map<K, V> {
 
 	@Override
 	public Collection<V> values() {
-		return Arrays.stream(this.buckets)
-				.<Stream<V>>map(bucket -> {
-					if (bucket.getBucketState() == BucketState.ONE_NODE) return Stream.of(bucket.getOneNodePayload().getValue());
-					if (bucket.getBucketState() == BucketState.REMAPPED_NODES) return bucket.getRemappedNodesPayload().values().stream();
-					return Stream.empty();
-				})
-				.flatMap(Function.identity())
-				.collect(Collectors.toSet());
-	}
-	
-	private int hashKey(Object key) {
-		return (int) (key.hashCode() * Math.PI * this.DEPTH);
-	}
-	
+		if (Objects.isNull(this.valuesView)) {
+			this.valuesView = new Values();
+		}
+		return this.valuesView;
+	}
+
+	private Node<K, V> findNode(Object key) {
+		return findNode(Hashing.mix(key.hashCode()), key);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Node<K, V> findNode(int hash, Object key) {
+		Level level = this.root;
+
+		for (int depth = 1; ; depth++) {
+			int bit = bitFor(hash, depth);
+			BucketState bucketState = level.getBucketState(bit);
+
+			if (bucketState == BucketState.EMPTY) {
+				return null;
+			}
+
+			Object slot = level.slots[level.slotIndex(bit)];
+			if (bucketState == BucketState.REMAPPED_NODES) {
+				level = (Level) slot;
+				continue;
+			}
+
+			if (bucketState == BucketState.COLLIDING_NODES) {
+				Collision<K, V> collidingNodesPayload = (Collision<K, V>) slot;
+				return collidingNodesPayload.hash == hash ? collidingNodesPayload.find(key) : null;
+			}
+
+			Node<K, V> node = (Node<K, V>) slot;
+			return node.hash == hash && node.getKey().equals(key) ? node : null;
+		}
+	}
+
+	/**
+	 * Creates the level that the payload of a bucket and a new node with a different hashcode get remapped into. If they end up in the same
+	 * bucket of that level too, it keeps going deeper until they don't.
+	 *
+	 * @param first The node or colliding nodes that were already in the bucket
+	 * @param firstHash The mixed hashcode of the keys of {@code first}
+	 * @param second The new node
+	 * @param depth The depth of the new level
+	 * @return The new level
+	 */
+	private Level remap(Object first, int firstHash, Node<K, V> second, int depth) {
+		int firstBit = bitFor(firstHash, depth);
+		int secondBit = bitFor(second.hash, depth);
+
+		if (firstBit == secondBit) {
+			return new Level(firstBit, new Object[] { remap(first, firstHash, second, depth + 1) });
+		}
+
+		// The slots are ordered by bit, so the lower bit goes first
+		return Integer.compareUnsigned(firstBit, secondBit) < 0
+				? new Level(firstBit | secondBit, new Object[] { first, second })
+				: new Level(firstBit | secondBit, new Object[] { second, first });
+	}
+
+	/**
+	 * Removes the node for the given key from the given level or any level below it. When that leaves a level below this one with just one
+	 * node (or just one set of colliding nodes), it is pulled back up into this level, so that such a level never lingers around.
+	 *
+	 * @return The removed node, or null if there was no node for the key
+	 */
 	@SuppressWarnings("unchecked")
-	private Bucket<K, V>[] createBuckets(int size) {
-		Bucket<K, V>[] newBuckets = (Bucket<K, V>[]) new Bucket[size];
-		for (int i = 0; i < size; i++) {
-			newBuckets[i] = new Bucket<K, V>();
-		}
-		return newBuckets;
-	}
-	
-	
-	
-	static class Bucket<K, V> {
-		
-		
-		private BucketState bucketState = BucketState.EMPTY;
-		
-		// TODO it would be great if we used the visitor pattern here or something so that I don't require to separate methods for the payload retrieval
-		
-		private Node<K, V> oneNodePayload;
-		
-		public Node<K, V> getOneNodePayload() {
-			if (bucketState != BucketState.ONE_NODE) return null;
-			return oneNodePayload;
-		}
-		
-		public void setOneNodePayload(Node<K, V> oneNodePayload) {
-			this.oneNodePayload = oneNodePayload;
-		}
-		
-		private RecursiveMap<K, V> remappedNodesPayload;
-		
-		public RecursiveMap<K, V> getRemappedNodesPayload() {
-			if (bucketState != BucketState.REMAPPED_NODES) return null;
-			return remappedNodesPayload;
-		}
-		
-		public void setRemappedNodesPayload(RecursiveMap<K, V> remappedNodesPayload) {
-			this.remappedNodesPayload = remappedNodesPayload;
-		}
-	
-		public BucketState getBucketState() {
-			return this.bucketState;
-		}
-		
-		public void setBucketState(BucketState bucketState) {
-			this.bucketState = bucketState;
-		}
-	}
-	
+	private Node<K, V> remove(Level level, int hash, Object key, int depth) {
+		int bit = bitFor(hash, depth);
+		BucketState bucketState = level.getBucketState(bit);
+
+		if (bucketState == BucketState.EMPTY) {
+			return null;
+		}
+
+		int slotIndex = level.slotIndex(bit);
+		if (bucketState == BucketState.ONE_NODE) {
+			Node<K, V> node = (Node<K, V>) level.slots[slotIndex];
+			if (node.hash != hash || !node.getKey().equals(key)) {
+				return null;
+			}
+
+			level.delete(bit, slotIndex);
+			return node;
+		}
+
+		if (bucketState == BucketState.COLLIDING_NODES) {
+			Collision<K, V> collidingNodesPayload = (Collision<K, V>) level.slots[slotIndex];
+			Node<K, V> node = collidingNodesPayload.hash == hash ? collidingNodesPayload.remove(key) : null;
+
+			// Change it to a one node if there is only one node
+			if (Objects.nonNull(node) && collidingNodesPayload.nodes.length == 1) {
+				level.slots[slotIndex] = collidingNodesPayload.nodes[0];
+			}
+
+			return node;
+		}
+
+		Level remappedNodesPayload = (Level) level.slots[slotIndex];
+		Node<K, V> node = remove(remappedNodesPayload, hash, key, depth + 1);
+
+		// Change it to a one node if there is only one node (or one set of colliding nodes, which can live at any depth)
+		if (Objects.nonNull(node) && remappedNodesPayload.slots.length == 1 && !(remappedNodesPayload.slots[0] instanceof Level)) {
+			level.slots[slotIndex] = remappedNodesPayload.slots[0];
+		}
+
+		return node;
+	}
+
+	/**
+	 * Walks the levels in place, depth first. It holds onto the slot arrays it is walking rather than the levels, and since a level gets a
+	 * new array whenever a bucket is added or removed, and a bucket on the path down to a node only ever changes when that node is removed,
+	 * removing the node that was just returned doesn't change anything the iterator has yet to see. Changing the map other than through the
+	 * iterator makes it throw a {@link ConcurrentModificationException}.
+	 */
+	private abstract class LevelIterator<T> implements Iterator<T> {
+
+		// One frame for each level, plus one for the colliding nodes at the bottom
+		private final Object[][] slotStack = new Object[Hashing.MAXIMUM_LEVEL + 2][];
+		private final int[] indexStack = new int[Hashing.MAXIMUM_LEVEL + 2];
+		private int stackSize = 0;
+		private Node<K, V> nextNode;
+		private Node<K, V> lastReturnedNode;
+		private int expectedModCount = modCount;
+
+		LevelIterator() {
+			push(root.slots);
+			advance();
+		}
+
+		private void push(Object[] slots) {
+			this.slotStack[this.stackSize] = slots;
+			this.indexStack[this.stackSize] = 0;
+			this.stackSize++;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void advance() {
+			while (this.stackSize > 0) {
+				int top = this.stackSize - 1;
+				Object[] slots = this.slotStack[top];
+				if (this.indexStack[top] == slots.length) {
+					this.slotStack[top] = null;
+					this.stackSize--;
+					continue;
+				}
+
+				Object slot = slots[this.indexStack[top]++];
+				if (slot instanceof Level) {
+					push(((Level) slot).slots);
+				} else if (slot instanceof Collision) {
+					push(((Collision<K, V>) slot).nodes);
+				} else {
+					this.nextNode = (Node<K, V>) slot;
+					return;
+				}
+			}
+			this.nextNode = null;
+		}
+
+		abstract T element(Node<K, V> node);
+
+		@Override
+		public boolean hasNext() {
+			return Objects.nonNull(this.nextNode);
+		}
+
+		@Override
+		public T next() {
+			if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+			if (Objects.isNull(this.nextNode)) throw new NoSuchElementException();
+
+			this.lastReturnedNode = this.nextNode;
+			advance();
+			return element(this.lastReturnedNode);
+		}
+
+		@Override
+		public void remove() {
+			if (Objects.isNull(this.lastReturnedNode)) throw new IllegalStateException();
+			if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+
+			RecursiveMap.this.remove(this.lastReturnedNode.key);
+			this.lastReturnedNode = null;
+			this.expectedModCount = modCount;
+		}
+	}
+
+	/**
+	 * Covers a range of the slots of one level, and everything below them. Splitting halves the range, or goes down into the level of a
+	 * range that is down to a single level. Only the spliterator for the whole map knows its exact size, the rest estimate theirs as half
+	 * of what was split. Once it has started walking, it doesn't split any more.
+	 */
+	private final class TrieSpliterator<T> implements Spliterator<T> {
+
+		private final Function<Node<K, V>, T> element;
+		private final int characteristics;
+		private final int expectedModCount;
+		private Object[] slots;
+		private int slotIndex;
+		private int fence;
+		private long estimatedSize;
+		private boolean sized;
+
+		// Only used by tryAdvance, for the levels below the slot it is in
+		private Object[][] slotStack;
+		private int[] indexStack;
+		private int stackSize = 0;
+
+		TrieSpliterator(Function<Node<K, V>, T> element, int characteristics) {
+			this.element = element;
+			this.characteristics = characteristics;
+			this.expectedModCount = modCount;
+			this.slots = root.slots;
+			this.slotIndex = 0;
+			this.fence = this.slots.length;
+			this.estimatedSize = size;
+			this.sized = true;
+		}
+
+		private TrieSpliterator(TrieSpliterator<T> parent, int fence) {
+			this.element = parent.element;
+			this.characteristics = parent.characteristics;
+			this.expectedModCount = parent.expectedModCount;
+			this.slots = parent.slots;
+			this.slotIndex = parent.slotIndex;
+			this.fence = fence;
+			this.estimatedSize = parent.estimatedSize;
+			this.sized = false;
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			if (this.stackSize > 0) {
+				return null;
+			}
+
+			while (this.fence - this.slotIndex == 1 && this.slots[this.slotIndex] instanceof Level) {
+				this.slots = ((Level) this.slots[this.slotIndex]).slots;
+				this.slotIndex = 0;
+				this.fence = this.slots.length;
+			}
+
+			int middle = (this.slotIndex + this.fence) >>> 1;
+			if (middle <= this.slotIndex) {
+				return null;
+			}
+
+			this.estimatedSize >>>= 1;
+			this.sized = false;
+			Spliterator<T> prefix = new TrieSpliterator<>(this, middle);
+			this.slotIndex = middle;
+			return prefix;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean tryAdvance(Consumer<? super T> action) {
+			Objects.requireNonNull(action);
+
+			if (Objects.isNull(this.slotStack)) {
+				this.slotStack = new Object[Hashing.MAXIMUM_LEVEL + 2][];
+				this.indexStack = new int[Hashing.MAXIMUM_LEVEL + 2];
+			}
+
+			for (;;) {
+				Object slot;
+				if (this.stackSize > 0) {
+					int top = this.stackSize - 1;
+					if (this.indexStack[top] == this.slotStack[top].length) {
+						this.slotStack[top] = null;
+						this.stackSize--;
+						continue;
+					}
+					slot = this.slotStack[top][this.indexStack[top]++];
+				} else if (this.slotIndex < this.fence) {
+					slot = this.slots[this.slotIndex++];
+				} else {
+					return false;
+				}
+
+				if (slot instanceof Level || slot instanceof Collision) {
+					this.slotStack[this.stackSize] = slot instanceof Level ? ((Level) slot).slots : ((Collision<K, V>) slot).nodes;
+					this.indexStack[this.stackSize] = 0;
+					this.stackSize++;
+					continue;
+				}
+
+				action.accept(this.element.apply((Node<K, V>) slot));
+				if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+				return true;
+			}
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			Objects.requireNonNull(action);
+
+			while (this.stackSize > 0) {
+				tryAdvance(action);
+			}
+			for (; this.slotIndex < this.fence; this.slotIndex++) {
+				forEachIn(this.slots[this.slotIndex], action);
+			}
+			if (modCount != this.expectedModCount) throw new ConcurrentModificationException();
+		}
+
+		@SuppressWarnings("unchecked")
+		private void forEachIn(Object slot, Consumer<? super T> action) {
+			if (slot instanceof Level) {
+				for (Object child : ((Level) slot).slots) {
+					forEachIn(child, action);
+				}
+			} else if (slot instanceof Collision) {
+				for (Node<K, V> node : ((Collision<K, V>) slot).nodes) {
+					action.accept(this.element.apply(node));
+				}
+			} else {
+				action.accept(this.element.apply((Node<K, V>) slot));
+			}
+		}
+
+		@Override
+		public long estimateSize() {
+			return this.estimatedSize;
+		}
+
+		@Override
+		public int characteristics() {
+			return this.sized ? this.characteristics | Spliterator.SIZED : this.characteristics;
+		}
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new LevelIterator<K>() {
+				@Override
+				K element(Node<K, V> node) {
+					return node.key;
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<K> spliterator() {
+			return new TrieSpliterator<>(node -> node.key, Spliterator.DISTINCT | Spliterator.NONNULL);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			int sizeBefore = size;
+			RecursiveMap.this.remove(key);
+			return size != sizeBefore;
+		}
+
+		@Override
+		public void clear() {
+			RecursiveMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new LevelIterator<V>() {
+				@Override
+				V element(Node<K, V> node) {
+					return node.value;
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<V> spliterator() {
+			return new TrieSpliterator<>(node -> node.value, 0);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			RecursiveMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new LevelIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(Node<K, V> node) {
+					return node;
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<Entry<K, V>> spliterator() {
+			return new TrieSpliterator<>(node -> node, Spliterator.DISTINCT | Spliterator.NONNULL);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			Node<K, V> node = findNode(entry.getKey());
+			return Objects.nonNull(node) && Objects.equals(node.value, entry.getValue());
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			if (!contains(object)) return false;
+
+			RecursiveMap.this.remove(((Entry<?, ?>) object).getKey());
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			RecursiveMap.this.clear();
+		}
+	}
+
+	private BatchOrder batchOrder(int length) {
+		if (Objects.isNull(this.batchOrder)) {
+			this.batchOrder = new BatchOrder();
+		}
+		this.batchOrder.ensureCapacity(length);
+		return this.batchOrder;
+	}
+
+	/**
+	 * Gets the path of a mixed hash down the trie as a number, with the index of the root level in the highest bits, then the index of
+	 * the level below it, and so on. Sorting by it sorts the keys the way the iterators walk them. It leaves out the last couple of bits
+	 * of the hash, which only matter in the very deepest levels.
+	 */
+	private static int pathOf(int hash) {
+		int path = 0;
+		for (int level = 0; level < Hashing.MAXIMUM_LEVEL; level++) {
+			path = (path << Hashing.BITS_PER_LEVEL) | Hashing.levelIndex(hash, level);
+		}
+		return path;
+	}
+
+	/**
+	 * Gets the bit of the bucket the given mixed hash falls into at the given depth, which is just a shift and a mask
+	 */
+	private static int bitFor(int hash, int depth) {
+		return 1 << Hashing.levelIndex(hash, depth - 1);
+	}
+
+	/**
+	 * A level of the map. It only holds the buckets that aren't empty, each either a {@link Node} or another {@code Level}, ordered by
+	 * their bit in the bitmap.
+	 */
+	static final class Level {
+
+		private int bitmap;
+		private Object[] slots;
+
+		Level() {
+			this(0, new Object[0]);
+		}
+
+		Level(int bitmap, Object[] slots) {
+			this.bitmap = bitmap;
+			this.slots = slots;
+		}
+
+		BucketState getBucketState(int bit) {
+			if ((this.bitmap & bit) == 0) return BucketState.EMPTY;
+
+			Object slot = this.slots[slotIndex(bit)];
+			if (slot instanceof Node) return BucketState.ONE_NODE;
+			return slot instanceof Level ? BucketState.REMAPPED_NODES : BucketState.COLLIDING_NODES;
+		}
+
+		int slotIndex(int bit) {
+			return Integer.bitCount(this.bitmap & (bit - 1));
+		}
+
+		void insert(int bit, Object slot) {
+			int slotIndex = slotIndex(bit);
+			Object[] newSlots = new Object[this.slots.length + 1];
+
+			System.arraycopy(this.slots, 0, newSlots, 0, slotIndex);
+			newSlots[slotIndex] = slot;
+			System.arraycopy(this.slots, slotIndex, newSlots, slotIndex + 1, this.slots.length - slotIndex);
+
+			this.slots = newSlots;
+			this.bitmap |= bit;
+		}
+
+		void delete(int bit, int slotIndex) {
+			Object[] newSlots = new Object[this.slots.length - 1];
+
+			System.arraycopy(this.slots, 0, newSlots, 0, slotIndex);
+			System.arraycopy(this.slots, slotIndex + 1, newSlots, slotIndex, newSlots.length - slotIndex);
+
+			this.slots = newSlots;
+			this.bitmap &= ~bit;
+		}
+	}
+
+	/**
+	 * The nodes of a bucket whose keys all have the same hashcode. As long as all the keys are {@link Comparable} and of the same class, the
+	 * nodes are kept sorted by key so that they can be binary searched. The first key that doesn't fit that mould turns the sorting off for good,
+	 * and from then on the nodes are searched one by one.
+	 */
+	static final class Collision<K, V> {
+
+		final int hash;
+		Node<K, V>[] nodes;
+		private boolean sorted;
+
+		@SuppressWarnings("unchecked")
+		Collision(Node<K, V> first, Node<K, V> second) {
+			this.hash = first.hash;
+			this.sorted = first.key instanceof Comparable && first.key.getClass() == second.key.getClass();
+
+			if (this.sorted && compare(first.key, second.key) > 0) {
+				this.nodes = (Node<K, V>[]) new Node<?, ?>[] { second, first };
+			} else {
+				this.nodes = (Node<K, V>[]) new Node<?, ?>[] { first, second };
+			}
+		}
+
+		Node<K, V> find(Object key) {
+			int nodeIndex = indexOf(key);
+			return nodeIndex < 0 ? null : this.nodes[nodeIndex];
+		}
+
+		/**
+		 * Inserts a node whose key isn't in here yet
+		 */
+		@SuppressWarnings("unchecked")
+		void insert(Node<K, V> node) {
+			if (this.sorted && node.key.getClass() != this.nodes[0].key.getClass()) {
+				this.sorted = false;
+			}
+
+			int insertIndex = this.sorted ? lowerBound(node.key) : this.nodes.length;
+
+			Node<K, V>[] newNodes = (Node<K, V>[]) new Node<?, ?>[this.nodes.length + 1];
+			System.arraycopy(this.nodes, 0, newNodes, 0, insertIndex);
+			newNodes[insertIndex] = node;
+			System.arraycopy(this.nodes, insertIndex, newNodes, insertIndex + 1, this.nodes.length - insertIndex);
+			this.nodes = newNodes;
+		}
+
+		@SuppressWarnings("unchecked")
+		Node<K, V> remove(Object key) {
+			int nodeIndex = indexOf(key);
+			if (nodeIndex < 0) {
+				return null;
+			}
+
+			Node<K, V> node = this.nodes[nodeIndex];
+			Node<K, V>[] newNodes = (Node<K, V>[]) new Node<?, ?>[this.nodes.length - 1];
+			System.arraycopy(this.nodes, 0, newNodes, 0, nodeIndex);
+			System.arraycopy(this.nodes, nodeIndex + 1, newNodes, nodeIndex, newNodes.length - nodeIndex);
+			this.nodes = newNodes;
+			return node;
+		}
+
+		private int indexOf(Object key) {
+			if (this.sorted && key.getClass() == this.nodes[0].key.getClass()) {
+				int nodeIndex = lowerBound(key);
+
+				// A key that compares differently from every node can't be in here. A key that compares the same as a node without being
+				// equal to it is possible though, and then the only option left is to look at every node.
+				if (nodeIndex == this.nodes.length || compare(this.nodes[nodeIndex].key, key) != 0) {
+					return -1;
+				}
+				if (this.nodes[nodeIndex].key.equals(key)) {
+					return nodeIndex;
+				}
+			}
+
+			for (int i = 0; i < this.nodes.length; i++) {
+				if (this.nodes[i].key.equals(key)) {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+
+		/**
+		 * Finds the index of the first node whose key isn't less than the given key
+		 */
+		private int lowerBound(Object key) {
+			int low = 0;
+			int high = this.nodes.length;
+
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (compare(this.nodes[middle].key, key) < 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+
+			return low;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static int compare(Object first, Object second) {
+			return ((Comparable<Object>) first).compareTo(second);
+		}
+	}
+
 	static class Node<K, V> implements Map.Entry<K, V> {
 
+		// The mixed hashcode of the key
+		final int hash;
 		final K key;
 		V value;
 
-		public Node(K key, V value) {
+		public Node(int hash, K key, V value) {
+			this.hash = hash;
 			this.key = key;
 			this.value = value;
 		}
@@ -299,6 +937,19 @@ public class RecursiveMap<K, V> implements Map<K, V> {
 			this.value = newValue;
 			return newValue;
 		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			return this.key.equals(entry.getKey()) && Objects.equals(this.value, entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.key.hashCode() ^ Objects.hashCode(this.value);
+		}
 	}
-	
+
 }
@@ -0,0 +1,148 @@
+package com.matthew.maps;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns keys or values into bytes and back, for the maps that keep their entries outside of the heap. A serializer is either fixed width,
+ * when every value takes the same number of bytes, or not, in which case the map stores the length of every value in front of it.
+ *
+ * Keys are compared by their bytes, so a serializer for keys has to write equal keys to the same bytes, and the {@code hashCode} of the keys
+ * has to agree with that.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <T> The type that is serialized
+ */
+public interface Serializer<T> {
+
+	/**
+	 * Gets the number of bytes that every value is serialized to
+	 *
+	 * @return The number of bytes, or -1 if it depends on the value
+	 */
+	int fixedWidth();
+
+	/**
+	 * Gets the number of bytes that the given value is serialized to
+	 */
+	int sizeOf(T value);
+
+	/**
+	 * Writes the given value into the buffer at the given offset, without moving the position of the buffer
+	 */
+	void write(T value, ByteBuffer buffer, int offset);
+
+	/**
+	 * Reads a value out of the buffer at the given offset, without moving the position of the buffer
+	 *
+	 * @param length The number of bytes the value was serialized to
+	 */
+	T read(ByteBuffer buffer, int offset, int length);
+
+	/**
+	 * A fixed width serializer for {@code Integer}s, 4 bytes each
+	 */
+	static Serializer<Integer> integers() {
+		return new Serializer<Integer>() {
+			@Override
+			public int fixedWidth() {
+				return Integer.BYTES;
+			}
+
+			@Override
+			public int sizeOf(Integer value) {
+				return Integer.BYTES;
+			}
+
+			@Override
+			public void write(Integer value, ByteBuffer buffer, int offset) {
+				buffer.putInt(offset, value);
+			}
+
+			@Override
+			public Integer read(ByteBuffer buffer, int offset, int length) {
+				return buffer.getInt(offset);
+			}
+		};
+	}
+
+	/**
+	 * A fixed width serializer for {@code Long}s, 8 bytes each
+	 */
+	static Serializer<Long> longs() {
+		return new Serializer<Long>() {
+			@Override
+			public int fixedWidth() {
+				return Long.BYTES;
+			}
+
+			@Override
+			public int sizeOf(Long value) {
+				return Long.BYTES;
+			}
+
+			@Override
+			public void write(Long value, ByteBuffer buffer, int offset) {
+				buffer.putLong(offset, value);
+			}
+
+			@Override
+			public Long read(ByteBuffer buffer, int offset, int length) {
+				return buffer.getLong(offset);
+			}
+		};
+	}
+
+	/**
+	 * A serializer for {@code String}s as UTF-8, which is not fixed width. An unpaired surrogate can't be written as UTF-8, so it is
+	 * written as a {@code '?'}, the same as {@link String#getBytes(java.nio.charset.Charset)} does, and is read back as one.
+	 */
+	static Serializer<String> strings() {
+		return new Serializer<String>() {
+			@Override
+			public int fixedWidth() {
+				return -1;
+			}
+
+			@Override
+			public int sizeOf(String value) {
+				int size = 0;
+				for (int i = 0; i < value.length(); i++) {
+					char character = value.charAt(i);
+					if (character < 0x80) {
+						size += 1;
+					} else if (character < 0x800) {
+						size += 2;
+					} else if (Character.isHighSurrogate(character) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+						size += 4;
+						i++;
+					} else if (Character.isSurrogate(character)) {
+						size += 1;
+					} else {
+						size += 3;
+					}
+				}
+				return size;
+			}
+
+			@Override
+			public void write(String value, ByteBuffer buffer, int offset) {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				for (int i = 0; i < bytes.length; i++) {
+					buffer.put(offset + i, bytes[i]);
+				}
+			}
+
+			@Override
+			public String read(ByteBuffer buffer, int offset, int length) {
+				byte[] bytes = new byte[length];
+				for (int i = 0; i < length; i++) {
+					bytes[i] = buffer.get(offset + i);
+				}
+				return new String(bytes, StandardCharsets.UTF_8);
+			}
+		};
+	}
+
+}
@@ -0,0 +1,598 @@
+package com.matthew.maps;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A "Swiss table" style map. Next to the keys and values there is an array of control bytes, one per slot, that says whether a slot is
+ * empty, deleted, or full, and for a full slot holds 7 bits of the hash of its key. The slots are split into groups of 8, and a lookup
+ * reads the 8 control bytes of a group as a single {@code long} and compares all of them against the hash at once with a few bitwise
+ * operations (SIMD within a register). Only the slots whose control byte matches are ever compared with {@code equals}, so most
+ * misses never touch the keys at all, which is what lets this map run at a much higher load factor than the others.
+ *
+ * Removed slots are marked as deleted rather than shifted, and those deleted slots are cleaned up whenever the table is rehashed.
+ *
+ * Like the other maps, this doesn't allow null keys, but it does allow null values.
+ *
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+public class SwissTableMap<K, V> implements Map<K, V> {
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 32;
+	private static final double DEFAULT_LOAD_FACTOR = 0.875d;
+	private static final double MAXIMUM_LOAD_FACTOR = 0.875d;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private static final int GROUP_WIDTH = Long.BYTES;
+	private static final byte EMPTY = (byte) 0x80;
+	private static final byte DELETED = (byte) 0xFE;
+
+	// Every byte of a long set to 0x01 and to 0x80 respectively
+	private static final long LEAST_SIGNIFICANT_BITS = 0x0101010101010101L;
+	private static final long MOST_SIGNIFICANT_BITS = 0x8080808080808080L;
+
+	private static final VarHandle GROUP = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private final double LOAD_FACTOR;
+
+	private byte[] controlBytes;
+	private Object[] keys;
+	private Object[] values;
+
+	private int groupMask;
+	private int size = 0;
+
+	/**
+	 * The number of empty slots that can still be filled before the table has to be rehashed. Filling a deleted slot doesn't count.
+	 */
+	private int growthLeft;
+	private int modificationCount = 0;
+
+	private Set<K> keySet;
+	private Collection<V> valuesView;
+	private Set<Entry<K, V>> entrySet;
+
+	/**
+	 * Creates an empty {@code SwissTableMap} with at least the specified initial capacity and the specified load factor
+	 *
+	 * @param initialCapacity The initial number of slots, which is rounded up to a power of two of at least 8
+	 * @param loadFactor The load factor
+	 *
+	 * @throws IllegalArgumentException if the initial capacity is less than or equal to 0
+	 * or if the load factor is non-positive, greater than 0.875, or NaN
+	 */
+	public SwissTableMap(int initialCapacity, double loadFactor) {
+		if (initialCapacity <= 0) throw new IllegalArgumentException("initialCapacity cannot be less than or equal to 0.");
+		if (loadFactor <= 0.0d || loadFactor > MAXIMUM_LOAD_FACTOR || Double.isNaN(loadFactor)) throw new IllegalArgumentException("loadFactor must be a number and cannot be less than or equal to 0, and not greater than 0.875.");
+
+		this.LOAD_FACTOR = loadFactor;
+		allocate(tableSizeFor(initialCapacity));
+	}
+
+	/**
+	 * Creates an empty {@code SwissTableMap} with at least the specified initial capacity and the default load factor (0.875)
+	 *
+	 * @param initialCapacity The initial number of slots, which is rounded up to a power of two of at least 8
+	 */
+	public SwissTableMap(int initialCapacity) {
+		this(initialCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	/**
+	 * Creates an empty {@code SwissTableMap} with the default initial capacity (32) and the default load factor (0.875)
+	 */
+	public SwissTableMap() {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	@Override
+	public void clear() {
+		allocate(this.controlBytes.length);
+		this.size = 0;
+		this.modificationCount++;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return findSlot(key) >= 0;
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		for (int i = 0; i < this.controlBytes.length; i++) {
+			if (isFull(this.controlBytes[i]) && Objects.equals(this.values[i], value)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (Objects.isNull(this.entrySet)) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		int slot = findSlot(key);
+		return slot < 0 ? null : (V) this.values[slot];
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public Set<K> keySet() {
+		if (Objects.isNull(this.keySet)) {
+			this.keySet = new KeySet();
+		}
+		return this.keySet;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(K key, V value) {
+		int hash = Hashing.spread(key.hashCode());
+		int slot = findSlot(key, hash);
+		if (slot >= 0) {
+			V previousValue = (V) this.values[slot];
+			this.values[slot] = value;
+			return previousValue;
+		}
+
+		slot = findInsertSlot(hash);
+		if (this.controlBytes[slot] == EMPTY && this.growthLeft == 0) {
+			rehash();
+			slot = findInsertSlot(hash);
+		}
+
+		if (this.controlBytes[slot] == EMPTY) {
+			this.growthLeft--;
+		}
+		this.controlBytes[slot] = fragment(hash);
+		this.keys[slot] = key;
+		this.values[slot] = value;
+		this.size++;
+		this.modificationCount++;
+		return null;
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> map) {
+		for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+			this.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		int slot = findSlot(key);
+		if (slot < 0) {
+			return null;
+		}
+
+		V value = (V) this.values[slot];
+		removeSlot(slot);
+		return value;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public Collection<V> values() {
+		if (Objects.isNull(this.valuesView)) {
+			this.valuesView = new Values();
+		}
+		return this.valuesView;
+	}
+
+	private int findSlot(Object key) {
+		return findSlot(key, Hashing.spread(key.hashCode()));
+	}
+
+	/**
+	 * Finds the slot of the given key. Each group along the probe sequence is checked for control bytes that match the 7 bit fragment
+	 * of the hash, and the probing stops at the first group that has an empty slot, since the key would have been put there otherwise.
+	 *
+	 * @param key The key to find
+	 * @param hash The spread hash of the key
+	 * @return The index of the slot, or -1 if the key isn't in the map
+	 */
+	private int findSlot(Object key, int hash) {
+		byte[] controlBytes = this.controlBytes;
+		Object[] keys = this.keys;
+		int groupMask = this.groupMask;
+
+		int group = probeStart(hash) & groupMask;
+		for (int step = 1; ; step++) {
+			int groupOffset = group * GROUP_WIDTH;
+			long controlGroup = (long) GROUP.get(controlBytes, groupOffset);
+
+			for (long matches = matchFragment(controlGroup, fragment(hash)); matches != 0; matches &= matches - 1) {
+				int slot = groupOffset + (Long.numberOfTrailingZeros(matches) >>> 3);
+				Object candidate = keys[slot];
+
+				if (candidate == key || key.equals(candidate)) {
+					return slot;
+				}
+			}
+
+			if (matchEmpty(controlGroup) != 0) {
+				return -1;
+			}
+
+			// Triangular probing, which visits every group exactly once when the number of groups is a power of two
+			group = (group + step) & groupMask;
+		}
+	}
+
+	/**
+	 * Finds the first slot along the probe sequence of the given hash that is either empty or deleted
+	 */
+	private int findInsertSlot(int hash) {
+		int group = probeStart(hash) & this.groupMask;
+		for (int step = 1; ; step++) {
+			int groupOffset = group * GROUP_WIDTH;
+			long matches = matchEmptyOrDeleted((long) GROUP.get(this.controlBytes, groupOffset));
+
+			if (matches != 0) {
+				return groupOffset + (Long.numberOfTrailingZeros(matches) >>> 3);
+			}
+
+			group = (group + step) & this.groupMask;
+		}
+	}
+
+	/**
+	 * A removed slot can only go back to being empty if its group still has an empty slot, because then no lookup ever had to probe
+	 * past this group. Otherwise it has to be marked as deleted so that lookups keep probing past it.
+	 */
+	private void removeSlot(int slot) {
+		int groupOffset = slot & -GROUP_WIDTH;
+		if (matchEmpty((long) GROUP.get(this.controlBytes, groupOffset)) != 0) {
+			this.controlBytes[slot] = EMPTY;
+			this.growthLeft++;
+		} else {
+			this.controlBytes[slot] = DELETED;
+		}
+
+		this.keys[slot] = null;
+		this.values[slot] = null;
+		this.size--;
+		this.modificationCount++;
+	}
+
+	/**
+	 * Rebuilds the table, which gets rid of all the deleted slots. The table only grows if it's actually getting full, otherwise
+	 * the deleted slots were what used up the growth, and rehashing into a table of the same size frees them up.
+	 */
+	private void rehash() {
+		int capacity = this.controlBytes.length;
+		int newCapacity = this.size >= maximumLoad(capacity) / 2 ? capacity * 2 : capacity;
+		if (newCapacity > MAXIMUM_CAPACITY) {
+			throw new IllegalStateException("SwissTableMap cannot grow beyond " + MAXIMUM_CAPACITY + " slots.");
+		}
+
+		byte[] oldControlBytes = this.controlBytes;
+		Object[] oldKeys = this.keys;
+		Object[] oldValues = this.values;
+
+		allocate(newCapacity);
+		for (int i = 0; i < oldControlBytes.length; i++) {
+			if (isFull(oldControlBytes[i])) {
+				int hash = Hashing.spread(oldKeys[i].hashCode());
+				int slot = findInsertSlot(hash);
+
+				this.controlBytes[slot] = fragment(hash);
+				this.keys[slot] = oldKeys[i];
+				this.values[slot] = oldValues[i];
+			}
+		}
+		this.growthLeft -= this.size;
+	}
+
+	private void allocate(int capacity) {
+		this.controlBytes = new byte[capacity];
+		Arrays.fill(this.controlBytes, EMPTY);
+		this.keys = new Object[capacity];
+		this.values = new Object[capacity];
+		this.groupMask = capacity / GROUP_WIDTH - 1;
+		this.growthLeft = maximumLoad(capacity);
+	}
+
+	private int maximumLoad(int capacity) {
+		// Always keep at least one slot empty, since probing relies on running into one
+		return Math.min((int) (capacity * LOAD_FACTOR), capacity - 1);
+	}
+
+	private static int tableSizeFor(int capacity) {
+		int tableSize = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+		return Math.min(Math.max(tableSize, GROUP_WIDTH), MAXIMUM_CAPACITY);
+	}
+
+	/**
+	 * The upper 25 bits of the hash pick the group the probing starts at
+	 */
+	private static int probeStart(int hash) {
+		return hash >>> 7;
+	}
+
+	/**
+	 * The lower 7 bits of the hash are what is stored in the control byte of a full slot
+	 */
+	private static byte fragment(int hash) {
+		return (byte) (hash & 0x7F);
+	}
+
+	private static boolean isFull(byte controlByte) {
+		return controlByte >= 0;
+	}
+
+	/**
+	 * Sets the high bit of every byte in the group that is equal to the given fragment. This can give a false positive for a byte
+	 * right above a real match, which is fine since every match gets its key compared anyway.
+	 */
+	private static long matchFragment(long controlGroup, byte fragment) {
+		long comparison = controlGroup ^ (LEAST_SIGNIFICANT_BITS * fragment);
+		return (comparison - LEAST_SIGNIFICANT_BITS) & ~comparison & MOST_SIGNIFICANT_BITS;
+	}
+
+	/**
+	 * Sets the high bit of every empty byte in the group. Empty (0x80) is the only control byte with the high bit set and bit 1 clear.
+	 */
+	private static long matchEmpty(long controlGroup) {
+		return controlGroup & ~(controlGroup << 6) & MOST_SIGNIFICANT_BITS;
+	}
+
+	/**
+	 * Sets the high bit of every empty or deleted byte in the group, which are exactly the bytes with the high bit set.
+	 */
+	private static long matchEmptyOrDeleted(long controlGroup) {
+		return controlGroup & MOST_SIGNIFICANT_BITS;
+	}
+
+	/**
+	 * Walks the slots in order. Removing a slot only ever marks it as empty or deleted and never moves another entry, so removing
+	 * through the iterator is always safe.
+	 */
+	private abstract class SlotIterator<T> implements Iterator<T> {
+
+		private int nextSlot = -1;
+		private int lastReturnedSlot = -1;
+		private int expectedModificationCount = modificationCount;
+
+		SlotIterator() {
+			advance();
+		}
+
+		private void advance() {
+			for (int slot = this.nextSlot + 1; slot < controlBytes.length; slot++) {
+				if (isFull(controlBytes[slot])) {
+					this.nextSlot = slot;
+					return;
+				}
+			}
+
+			this.nextSlot = controlBytes.length;
+		}
+
+		abstract T element(int slot);
+
+		@Override
+		public boolean hasNext() {
+			return this.nextSlot < controlBytes.length;
+		}
+
+		@Override
+		public T next() {
+			if (modificationCount != this.expectedModificationCount) throw new ConcurrentModificationException();
+			if (!hasNext()) throw new NoSuchElementException();
+
+			this.lastReturnedSlot = this.nextSlot;
+			advance();
+			return element(this.lastReturnedSlot);
+		}
+
+		@Override
+		public void remove() {
+			if (this.lastReturnedSlot < 0) throw new IllegalStateException();
+			if (modificationCount != this.expectedModificationCount) throw new ConcurrentModificationException();
+
+			removeSlot(this.lastReturnedSlot);
+			this.lastReturnedSlot = -1;
+			this.expectedModificationCount = modificationCount;
+		}
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new SlotIterator<K>() {
+				@Override
+				@SuppressWarnings("unchecked")
+				K element(int slot) {
+					return (K) keys[slot];
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return containsKey(key);
+		}
+
+		@Override
+		public boolean remove(Object key) {
+			int slot = findSlot(key);
+			if (slot < 0) {
+				return false;
+			}
+
+			removeSlot(slot);
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			SwissTableMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new SlotIterator<V>() {
+				@Override
+				@SuppressWarnings("unchecked")
+				V element(int slot) {
+					return (V) values[slot];
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			return containsValue(value);
+		}
+
+		@Override
+		public void clear() {
+			SwissTableMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new SlotIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(int slot) {
+					return new SlotEntry(slot);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			int slot = findSlot(entry.getKey());
+			return slot >= 0 && Objects.equals(values[slot], entry.getValue());
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			if (!contains(object)) return false;
+
+			removeSlot(findSlot(((Entry<?, ?>) object).getKey()));
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			SwissTableMap.this.clear();
+		}
+	}
+
+	/**
+	 * An entry handed out by the entry set iterator. Entries never move between slots until the table is rehashed, so setting its value
+	 * writes through to the map for as long as its key is still in the same slot.
+	 */
+	private final class SlotEntry implements Entry<K, V> {
+
+		private final int slot;
+		private final K key;
+		private V value;
+
+		@SuppressWarnings("unchecked")
+		SlotEntry(int slot) {
+			this.slot = slot;
+			this.key = (K) keys[slot];
+			this.value = (V) values[slot];
+		}
+
+		@Override
+		public K getKey() {
+			return this.key;
+		}
+
+		@Override
+		public V getValue() {
+			return this.value;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V setValue(V newValue) {
+			if (keys[this.slot] != this.key) throw new IllegalStateException("The entry is no longer in the map.");
+
+			V previousValue = (V) values[this.slot];
+			values[this.slot] = newValue;
+			this.value = newValue;
+			return previousValue;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Entry)) return false;
+
+			Entry<?, ?> entry = (Entry<?, ?>) object;
+			return this.key.equals(entry.getKey()) && Objects.equals(this.value, entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return this.key.hashCode() ^ Objects.hashCode(this.value);
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.matthew.maps;
+
+/**
+ * Weighs the entries of a {@link BoundedCache} that is bounded by weight instead of by the number of entries, such as by the number of
+ * bytes they take up. The weight of an entry is taken when it's put, and must not change while it's in the cache.
+ * 
+ * @author Matthew Meacham
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+	/**
+	 * @param key The key
+	 * @param value The value
+	 * @return The weight of the entry, which cannot be less than 0
+	 */
+	int weigh(K key, V value);
+
+}
@@ -0,0 +1,250 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.matthew.maps.AsyncLoadingCache;
+import com.matthew.maps.CacheLoader;
+
+class AsyncLoadingCacheTests {
+
+	@Test
+	void testConcurrentMissesLoadOnce() throws InterruptedException {
+		// arrange
+		Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		AtomicInteger loads = new AtomicInteger();
+		AsyncLoadingCache<Integer, String> cache = new AsyncLoadingCache<>(key -> "value" + loads.incrementAndGet(), 1, 0,
+				TimeUnit.MINUTES, tasks::add);
+		List<CompletableFuture<String>> futures = new ArrayList<>();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				CompletableFuture<String> future = cache.get(1);
+				synchronized (futures) {
+					futures.add(future);
+				}
+			}));
+		}
+
+		// act
+		threads.forEach(Thread::start);
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		int numberOfTasks = tasks.size();
+		tasks.forEach(Runnable::run);
+
+		// assert
+		assertEquals(1, numberOfTasks);
+		assertEquals(1, loads.get());
+		assertEquals(8, futures.size());
+		for (CompletableFuture<String> future : futures) {
+			assertSame(futures.get(0), future);
+		}
+		assertEquals("value1", futures.get(0).join());
+		assertEquals("value1", cache.get(1).join());
+	}
+
+	@Test
+	void testRefreshAheadAndExpiry() {
+		// arrange
+		Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		AtomicLong ticker = new AtomicLong();
+		AtomicInteger loads = new AtomicInteger();
+		AsyncLoadingCache<Integer, String> cache = new AsyncLoadingCache<>(key -> "value" + loads.incrementAndGet(), 10, 5,
+				TimeUnit.SECONDS, tasks::add, ticker::get);
+		cache.get(1);
+		runAll(tasks);
+
+		// act
+		ticker.addAndGet(TimeUnit.SECONDS.toNanos(6));
+		CompletableFuture<String> beforeRefresh = cache.get(1);
+		cache.get(1);
+		int refreshes = tasks.size();
+		runAll(tasks);
+		CompletableFuture<String> afterRefresh = cache.get(1);
+		ticker.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		CompletableFuture<String> afterExpiry = cache.get(1);
+
+		// assert
+		assertEquals("value1", beforeRefresh.getNow(null));
+		assertEquals(1, refreshes);
+		assertEquals("value2", afterRefresh.getNow(null));
+		assertFalse(afterExpiry.isDone());
+		runAll(tasks);
+		assertEquals("value3", afterExpiry.join());
+	}
+
+	@Test
+	void testExpiryDuringRefreshDoesNotLoadAgain() {
+		// arrange
+		Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		AtomicLong ticker = new AtomicLong();
+		AtomicInteger loads = new AtomicInteger();
+		AsyncLoadingCache<Integer, String> cache = new AsyncLoadingCache<>(key -> "value" + loads.incrementAndGet(), 10, 5,
+				TimeUnit.SECONDS, tasks::add, ticker::get);
+		cache.get(1);
+		runAll(tasks);
+		ticker.addAndGet(TimeUnit.SECONDS.toNanos(6));
+		cache.get(1);
+
+		// act
+		ticker.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		CompletableFuture<String> duringRefresh = cache.get(1);
+		int loadsStarted = tasks.size();
+		runAll(tasks);
+		CompletableFuture<String> afterRefresh = cache.get(1);
+
+		// assert
+		assertEquals(1, loadsStarted);
+		assertEquals("value1", duringRefresh.getNow(null));
+		assertEquals("value2", afterRefresh.getNow(null));
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void testFailedAndMissingLoadsAreNotKept() {
+		// arrange
+		Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		AtomicInteger loads = new AtomicInteger();
+		AsyncLoadingCache<Integer, String> cache = new AsyncLoadingCache<>(key -> {
+			if (loads.incrementAndGet() == 1) throw new IllegalStateException("The backend is down.");
+			return key == 2 ? null : "value" + key;
+		}, 1, 0, TimeUnit.MINUTES, tasks::add);
+
+		// act
+		CompletableFuture<String> failed = cache.get(1);
+		runAll(tasks);
+		int sizeAfterFailure = cache.size();
+		CompletableFuture<String> retried = cache.get(1);
+		CompletableFuture<String> missing = cache.get(2);
+		runAll(tasks);
+
+		// assert
+		assertTrue(failed.isCompletedExceptionally());
+		assertEquals(0, sizeAfterFailure);
+		assertEquals("value1", retried.join());
+		assertNull(missing.join());
+		assertNull(cache.getIfPresent(2));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void testGetAllLoadsMissesInOneBatch() throws InterruptedException, ExecutionException {
+		// arrange
+		Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+		List<Set<Integer>> batches = new ArrayList<>();
+		CacheLoader<Integer, String> loader = new CacheLoader<Integer, String>() {
+
+			@Override
+			public String load(Integer key) {
+				return "value" + key;
+			}
+
+			@Override
+			public Map<Integer, String> loadAll(Set<? extends Integer> keys) {
+				batches.add(new TreeSet<>(keys));
+				Map<Integer, String> values = new HashMap<>();
+				for (Integer key : keys) {
+					if (key != 4) {
+						values.put(key, "batched" + key);
+					}
+				}
+				return values;
+			}
+		};
+		AsyncLoadingCache<Integer, String> cache = new AsyncLoadingCache<>(loader, 1, 0, TimeUnit.MINUTES, tasks::add);
+		cache.put(1, "put1");
+		CompletableFuture<String> loading = cache.get(2);
+
+		// act
+		CompletableFuture<Map<Integer, String>> future = cache.getAll(Arrays.asList(3, 1, 2, 4, 3));
+		runAll(tasks);
+		Map<Integer, String> values = future.get();
+
+		// assert
+		assertEquals(Arrays.asList(new TreeSet<>(Arrays.asList(3, 4))), batches);
+		assertEquals("value2", loading.join());
+		assertEquals(Arrays.asList(3, 1, 2), new ArrayList<>(values.keySet()));
+		assertEquals("batched3", values.get(3));
+		assertEquals("put1", values.get(1));
+		assertEquals("value2", values.get(2));
+		assertEquals(3, cache.size());
+	}
+
+	@Test
+	void testInvalidateAndCleanUp() {
+		// arrange
+		AtomicLong ticker = new AtomicLong();
+		AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(key -> key, 10, 0, TimeUnit.SECONDS, Runnable::run,
+				ticker::get);
+		for (int i = 0; i < 100; i++) {
+			cache.get(i);
+		}
+
+		// act
+		cache.invalidate(5);
+		ticker.addAndGet(TimeUnit.SECONDS.toNanos(5));
+		for (int i = 0; i < 10; i++) {
+			cache.put(i, -i);
+		}
+		ticker.addAndGet(TimeUnit.SECONDS.toNanos(5));
+		cache.cleanUp();
+
+		// assert
+		assertEquals(10, cache.size());
+		assertEquals(-7, (int) cache.getIfPresent(7).join());
+		assertNull(cache.getIfPresent(50));
+	}
+
+	@Test
+	void testInvalidArguments() {
+		// arrange
+		CacheLoader<Integer, Integer> loader = key -> key;
+
+		// act
+
+		// assert
+		assertThrows(IllegalArgumentException.class, () -> new AsyncLoadingCache<>(loader, 0, 0, TimeUnit.SECONDS));
+		assertThrows(IllegalArgumentException.class, () -> new AsyncLoadingCache<>(loader, 1, -1, TimeUnit.SECONDS));
+		assertThrows(IllegalArgumentException.class, () -> new AsyncLoadingCache<>(loader, 1, 1, TimeUnit.SECONDS));
+		assertThrows(NullPointerException.class, () -> new AsyncLoadingCache<>(null, 1, 0, TimeUnit.SECONDS));
+		assertThrows(NullPointerException.class, () -> new AsyncLoadingCache<>(loader, 1, 0, TimeUnit.SECONDS).put(1, null));
+	}
+
+	private static void runAll(Queue<Runnable> tasks) {
+		for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+			task.run();
+		}
+	}
+
+}
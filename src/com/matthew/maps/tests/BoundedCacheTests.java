@@ -0,0 +1,221 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.matthew.maps.BoundedCache;
+import com.matthew.maps.BoundedCache.Policy;
+
+class BoundedCacheTests {
+
+	@ParameterizedTest
+	@EnumSource(Policy.class)
+	void testSizeIsBounded(Policy policy) {
+		// arrange
+		BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, policy);
+
+		// act
+		for (int i = 0; i < 1_000; i++) {
+			cache.put(i, i);
+		}
+
+		// assert
+		assertEquals(100, cache.size());
+		assertEquals(900, cache.evictionCount());
+		assertEquals(999, (int) cache.get(999));
+	}
+
+	@Test
+	void testLruEvictsLeastRecentlyUsed() {
+		// arrange
+		BoundedCache<Integer, String> cache = new BoundedCache<>(3, Policy.LRU);
+		cache.put(1, "one");
+		cache.put(2, "two");
+		cache.put(3, "three");
+
+		// act
+		cache.get(1);
+		cache.put(3, "three again");
+		cache.put(4, "four");
+
+		// assert
+		assertEquals(3, cache.size());
+		assertFalse(cache.containsKey(2));
+		assertEquals("one", cache.get(1));
+		assertEquals("three again", cache.get(3));
+		assertEquals("four", cache.get(4));
+	}
+
+	@ParameterizedTest
+	@EnumSource(Policy.class)
+	void testScanResistance(Policy policy) {
+		// arrange
+		BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, policy);
+		int scanKey = 1_000;
+
+		// act
+		for (int i = 0; i < 30_000; i++) {
+			for (int j = 0; j < 3; j++) {
+				cache.put(scanKey, scanKey);
+				scanKey++;
+			}
+
+			int hotKey = i % 50;
+			if (Objects.isNull(cache.get(hotKey))) {
+				cache.put(hotKey, hotKey);
+			}
+		}
+
+		// assert
+		if (policy == Policy.W_TINY_LFU) {
+			assertTrue(cache.hitRate() > 0.9d);
+		} else {
+			assertTrue(cache.hitRate() < 0.1d);
+		}
+		assertEquals(100, cache.size());
+	}
+
+	@Test
+	void testStatistics() {
+		// arrange
+		BoundedCache<Integer, Integer> cache = new BoundedCache<>(10);
+
+		// act
+		double emptyHitRate = cache.hitRate();
+		cache.put(1, 1);
+		cache.get(1);
+		cache.get(1);
+		cache.get(1);
+		cache.get(2);
+		cache.containsKey(3);
+
+		// assert
+		assertEquals(1.0d, emptyHitRate);
+		assertEquals(3, cache.hitCount());
+		assertEquals(1, cache.missCount());
+		assertEquals(0.75d, cache.hitRate());
+		assertEquals(0, cache.evictionCount());
+	}
+
+	@ParameterizedTest
+	@EnumSource(Policy.class)
+	void testRemovalThroughMapAndViews(Policy policy) {
+		// arrange
+		BoundedCache<Integer, Integer> cache = new BoundedCache<>(200, policy);
+		Random random = new Random(21);
+		for (int i = 0; i < 50_000; i++) {
+			int key = random.nextInt(1_000);
+			if (random.nextInt(5) == 0) {
+				cache.remove(key);
+			} else if (Objects.isNull(cache.get(key))) {
+				cache.put(key, key);
+			}
+		}
+
+		// act
+		for (Iterator<Integer> iterator = cache.keySet().iterator(); iterator.hasNext();) {
+			if (iterator.next() % 2 == 0) {
+				iterator.remove();
+			}
+		}
+		boolean onlyOddKeysLeft = cache.keySet().stream().allMatch(key -> key % 2 != 0);
+		for (int i = 0; i < 1_000; i++) {
+			cache.put(i, i);
+		}
+		cache.clear();
+		for (int i = 0; i < 300; i++) {
+			cache.put(i, i);
+		}
+
+		// assert
+		assertTrue(onlyOddKeysLeft);
+		assertEquals(200, cache.size());
+		assertEquals(299, (int) cache.get(299));
+		assertNull(cache.get(-1));
+	}
+
+	@ParameterizedTest
+	@EnumSource(Policy.class)
+	void testWeightIsBounded(Policy policy) {
+		// arrange
+		BoundedCache<Integer, String> cache = new BoundedCache<>(1_000, (key, value) -> value.length(), policy);
+		Random random = new Random(23);
+
+		for (int i = 0; i < 20_000; i++) {
+			// act
+			int key = random.nextInt(500);
+			if (random.nextInt(10) == 0) {
+				cache.remove(key);
+			} else if (random.nextBoolean() || Objects.isNull(cache.get(key))) {
+				cache.put(key, new String(new char[random.nextInt(1 << random.nextInt(8))]));
+			}
+
+			// assert
+			assertTrue(cache.weight() <= 1_000);
+			if (i % 1_000 == 0) {
+				assertEquals(cache.values().stream().mapToLong(String::length).sum(), cache.weight());
+			}
+		}
+		assertTrue(cache.evictionCount() > 0);
+	}
+
+	@Test
+	void testEntryHeavierThanMaximumIsNotKept() {
+		// arrange
+		BoundedCache<Integer, String> cache = new BoundedCache<>(10, (key, value) -> value.length());
+		cache.put(1, "abc");
+		cache.put(2, "def");
+
+		// act
+		cache.put(3, "too heavy to keep");
+		cache.put(1, "much too heavy to keep");
+
+		// assert
+		assertFalse(cache.containsKey(1));
+		assertFalse(cache.containsKey(3));
+		assertEquals("def", cache.get(2));
+		assertEquals(3, cache.weight());
+		assertEquals(2, cache.evictionCount());
+	}
+
+	@Test
+	void testNegativeWeight() {
+		// arrange
+		BoundedCache<Integer, Integer> cache = new BoundedCache<>(10, (key, value) -> value);
+		cache.put(1, 1);
+
+		// act
+
+		// assert
+		assertThrows(IllegalArgumentException.class, () -> cache.put(1, -1));
+		assertThrows(IllegalArgumentException.class, () -> cache.put(2, -1));
+		assertEquals(1, (int) cache.get(1));
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.weight());
+	}
+
+	@Test
+	void testInvalidArguments() {
+		// arrange
+
+		// act
+
+		// assert
+		assertThrows(IllegalArgumentException.class, () -> new BoundedCache<Integer, Integer>(0));
+		assertThrows(NullPointerException.class, () -> new BoundedCache<Integer, Integer>(10, (Policy) null));
+		assertThrows(IllegalArgumentException.class, () -> new BoundedCache<Integer, Integer>(0L, (key, value) -> 1));
+		assertThrows(NullPointerException.class, () -> new BoundedCache<Integer, Integer>(10L, null, Policy.LRU));
+	}
+
+}
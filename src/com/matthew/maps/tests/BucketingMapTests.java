@@ -2,19 +2,39 @@ package com.matthew.maps.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.matthew.maps.BucketingMap;
+import com.matthew.maps.Serializer;
 
 class BucketingMapTests {
 
+	@TempDir
+	Path directory;
+
 	@Test
 	void testClear() {
 		// arrange
@@ -193,5 +213,454 @@ class BucketingMapTests {
 		// assert
 		values.forEach(value -> assertTrue(value == 1 || value == 4));
 	}
+	
+	@Test
+	void testManyEntries() {
+		// arrange
+		Map<String, Integer> map = new BucketingMap<>();
+		int numberOfEntries = 10_000;
+		
+		// act
+		for (int i = 0; i < numberOfEntries; i++) {
+			map.put("key" + i, i);
+		}
+		
+		// assert
+		assertEquals(numberOfEntries, map.size());
+		for (int i = 0; i < numberOfEntries; i++) {
+			assertTrue(i == map.get("key" + i));
+		}
+		assertFalse(map.containsKey("key" + numberOfEntries));
+	}
+	
+	@Test
+	void testNegativeHashCodes() {
+		// arrange
+		Map<Integer, Integer> map = new BucketingMap<>();
+		
+		// act
+		map.put(-1, 1);
+		map.put(Integer.MIN_VALUE, 2);
+		
+		// assert
+		assertEquals(2, map.size());
+		assertTrue(1 == map.get(-1));
+		assertTrue(2 == map.get(Integer.MIN_VALUE));
+		assertTrue(1 == map.remove(-1));
+		assertEquals(1, map.size());
+	}
+	
+	@Test
+	void testPutAndRemoveWithSmallBuckets() {
+		// arrange
+		Map<Integer, Integer> map = new BucketingMap<>(1, 2, 1, 0.5d);
+		int numberOfEntries = 1_000;
+		
+		// act
+		for (int i = 0; i < numberOfEntries; i++) {
+			map.put(i, i);
+		}
+		for (int i = 0; i < numberOfEntries; i += 2) {
+			map.remove(i);
+		}
+		for (int i = 0; i < numberOfEntries; i += 2) {
+			map.put(i, -i);
+		}
+		
+		// assert
+		assertEquals(numberOfEntries, map.size());
+		for (int i = 0; i < numberOfEntries; i++) {
+			assertTrue((i % 2 == 0 ? -i : i) == map.get(i));
+		}
+	}
+	
+	@Test
+	void testInvalidLoadFactor() {
+		// arrange
+		
+		// act
+		
+		// assert
+		assertThrows(IllegalArgumentException.class, () -> new BucketingMap<>(32, 2, 5, 0.0d));
+		assertThrows(IllegalArgumentException.class, () -> new BucketingMap<>(32, 2, 5, 1.5d));
+		assertThrows(IllegalArgumentException.class, () -> new BucketingMap<>(32, 2, 5, Double.NaN));
+	}
+	
+	@Test
+	void testIncrementalResize() {
+		// arrange
+		BucketingMap<Integer, Integer> map = new BucketingMap<>(1, 2, 1, 0.75d, true);
+		int numberOfEntries = 10_000;
+		
+		// act
+		for (int i = 0; i < numberOfEntries; i++) {
+			map.put(i, i);
+			if (i % 3 == 0) {
+				map.remove(i / 2);
+			}
+		}
+		
+		// assert
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < numberOfEntries; i++) {
+			expected.put(i, i);
+			if (i % 3 == 0) {
+				expected.remove(i / 2);
+			}
+		}
+		
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected.entrySet().size(), map.entrySet().size());
+		for (int i = 0; i < numberOfEntries; i++) {
+			assertEquals(expected.get(i), map.get(i));
+		}
+	}
+
+	@Test
+	void testValuesKeepsDuplicates() {
+		// arrange
+		Map<Integer, Integer> map = new BucketingMap<>();
+		for (int i = 0; i < 100; i++) {
+			map.put(i, i % 10);
+		}
+
+		// act
+		Collection<Integer> values = map.values();
+
+		// assert
+		assertEquals(100, values.size());
+		int sum = 0;
+		for (int value : values) {
+			sum += value;
+		}
+		assertEquals(450, sum);
+	}
+
+	@Test
+	void testViewsAreLive() {
+		// arrange
+		Map<Integer, Integer> map = new BucketingMap<>();
+		Set<Integer> keySet = map.keySet();
+		Set<Entry<Integer, Integer>> entrySet = map.entrySet();
+
+		// act
+		map.put(1, 1);
+		map.put(2, 2);
+		keySet.remove(1);
+
+		// assert
+		assertEquals(1, keySet.size());
+		assertEquals(Map.of(2, 2).entrySet(), entrySet);
+		assertFalse(map.containsKey(1));
+		assertTrue(entrySet.contains(Map.entry(2, 2)));
+		assertFalse(entrySet.contains(Map.entry(2, 3)));
+	}
+
+	@Test
+	void testIteratorRemove() {
+		// arrange
+		Map<Integer, Integer> map = new BucketingMap<>();
+		int numberOfEntries = 10_000;
+		for (int i = 0; i < numberOfEntries; i++) {
+			map.put(i, i);
+		}
+
+		// act
+		int numberOfKeysSeen = 0;
+		for (Iterator<Integer> iterator = map.keySet().iterator(); iterator.hasNext();) {
+			if (iterator.next() % 2 == 0) {
+				iterator.remove();
+			}
+			numberOfKeysSeen++;
+		}
+
+		// assert
+		assertEquals(numberOfEntries, numberOfKeysSeen);
+		assertEquals(numberOfEntries / 2, map.size());
+		for (int i = 0; i < numberOfEntries; i++) {
+			assertEquals(i % 2 == 0 ? null : (Integer) i, map.get(i));
+		}
+	}
+
+	@Test
+	void testEntrySetValueWritesThrough() {
+		// arrange
+		Map<Integer, Integer> map = new BucketingMap<>();
+		map.put(1, 1);
+
+		// act
+		map.entrySet().iterator().next().setValue(5);
+
+		// assert
+		assertEquals(5, map.get(1));
+	}
+
+	@Test
+	void testIteratorFailsFast() {
+		// arrange
+		Map<Integer, Integer> map = new BucketingMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+		Iterator<Integer> iterator = map.keySet().iterator();
+		iterator.next();
+
+		// act
+		map.put(3, 3);
+
+		// assert
+		assertThrows(ConcurrentModificationException.class, () -> iterator.next());
+	}
+
+	@Test
+	void testIterateDuringIncrementalResize() {
+		// arrange
+		BucketingMap<Integer, Integer> map = new BucketingMap<>(1, 2, 1, 0.75d, true);
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+			expected.put(i, i);
+		}
+
+		// act
+		Set<Integer> keys = new HashSet<>();
+		for (Iterator<Integer> iterator = map.keySet().iterator(); iterator.hasNext();) {
+			int key = iterator.next();
+			keys.add(key);
+			if (key % 3 == 0) {
+				iterator.remove();
+				expected.remove(key);
+			}
+		}
+
+		// assert
+		assertEquals(1_000, keys.size());
+		assertEquals(expected.entrySet(), map.entrySet());
+	}
+
+	@Test
+	void testParallelStream() {
+		// arrange
+		Map<Integer, Integer> map = new BucketingMap<>();
+		long expectedSum = 0;
+		for (int i = 0; i < 100_000; i++) {
+			map.put(i, i);
+			expectedSum += i;
+		}
+
+		// act
+		long sum = map.entrySet().parallelStream().mapToLong(Entry::getValue).sum();
+		long numberOfKeys = map.keySet().parallelStream().distinct().count();
+
+		// assert
+		assertEquals(expectedSum, sum);
+		assertEquals(100_000, numberOfKeys);
+	}
+
+	@Test
+	void testSpliteratorSplitsCoverEverything() {
+		// arrange
+		Map<Integer, Integer> map = new BucketingMap<>();
+		for (int i = 0; i < 10_000; i++) {
+			map.put(i, i);
+		}
+		Spliterator<Integer> spliterator = map.keySet().spliterator();
+
+		// act
+		List<Spliterator<Integer>> parts = new ArrayList<>();
+		split(spliterator, parts, 6);
+		List<Integer> keys = new ArrayList<>();
+		for (Spliterator<Integer> part : parts) {
+			part.tryAdvance(keys::add);
+			part.forEachRemaining(keys::add);
+		}
+
+		// assert
+		assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+		assertTrue(parts.size() > 1);
+		assertEquals(10_000, keys.size());
+		assertEquals(10_000, new HashSet<>(keys).size());
+	}
+
+	@Test
+	void testSpliteratorIsSizedUntilSplit() {
+		// arrange
+		Map<Integer, Integer> map = new BucketingMap<>();
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+		}
+		Spliterator<Integer> spliterator = map.values().spliterator();
+
+		// act
+		long sizeBeforeSplit = spliterator.getExactSizeIfKnown();
+		spliterator.trySplit();
+
+		// assert
+		assertEquals(1_000, sizeBeforeSplit);
+		assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+	}
+
+	@Test
+	void testSnapshotAndRestore() throws IOException {
+		// arrange
+		BucketingMap<String, String> map = new BucketingMap<>(16, 2, 5, 0.75d, true);
+		for (int i = 0; i < 10_000; i++) {
+			map.put("key " + i, "value " + i);
+		}
+		char[] characters = new char[(1 << 23) + 1];
+		Arrays.fill(characters, 'x');
+		String largeValue = new String(characters);
+		map.put("large", largeValue);
+		Path path = this.directory.resolve("snapshot");
+
+		// act
+		map.snapshot(path, Serializer.strings(), Serializer.strings());
+		BucketingMap<String, String> restored = BucketingMap.restore(path, Serializer.strings(), Serializer.strings());
+
+		// assert
+		assertEquals(10_001, restored.size());
+		assertEquals(new HashMap<>(map), new HashMap<>(restored));
+		assertEquals(largeValue, restored.get("large"));
+		restored.put("key 10000", "value 10000");
+		restored.remove("key 0");
+		assertEquals(10_001, restored.size());
+		assertEquals("value 10000", restored.get("key 10000"));
+	}
+
+	@Test
+	void testFailedSnapshotLeavesTheOldOne() throws IOException {
+		// arrange
+		BucketingMap<Integer, Integer> map = new BucketingMap<>();
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+		}
+		Path path = this.directory.resolve("snapshot");
+		map.snapshot(path, Serializer.integers(), Serializer.integers());
+		BucketingMap<Integer, Integer> mapWithNull = new BucketingMap<>();
+		mapWithNull.put(1, 1);
+		mapWithNull.put(2, null);
+
+		// act
+		map.remove(0);
+		map.snapshot(path, Serializer.integers(), Serializer.integers());
+		assertThrows(NullPointerException.class, () -> mapWithNull.snapshot(path, Serializer.integers(), Serializer.integers()));
+		BucketingMap<Integer, Integer> restored = BucketingMap.restore(path, Serializer.integers(), Serializer.integers());
+
+		// assert
+		assertEquals(999, restored.size());
+		assertEquals(new HashMap<>(map), new HashMap<>(restored));
+	}
+
+	@Test
+	void testRestoreRejectsOtherFiles() throws IOException {
+		// arrange
+		Map<Integer, Integer> map = new BucketingMap<>();
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+		}
+		Path notASnapshot = this.directory.resolve("not-a-snapshot");
+		Files.write(notASnapshot, new byte[64]);
+		Path snapshot = this.directory.resolve("snapshot");
+		((BucketingMap<Integer, Integer>) map).snapshot(snapshot, Serializer.integers(), Serializer.integers());
+		Path truncated = this.directory.resolve("truncated");
+		Files.write(truncated, Arrays.copyOf(Files.readAllBytes(snapshot), 1_000));
+
+		// act
+
+		// assert
+		assertThrows(IOException.class, () -> BucketingMap.restore(notASnapshot, Serializer.integers(), Serializer.integers()));
+		assertThrows(IOException.class, () -> BucketingMap.restore(truncated, Serializer.integers(), Serializer.integers()));
+	}
+
+	@Test
+	void testBatchedGetAndPut() {
+		// arrange
+		BucketingMap<Integer, Integer> map = new BucketingMap<>(1, 2, 1, 0.75d, true);
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+			expected.put(i, i);
+		}
+		Random random = new Random(25);
+		Integer[] keys = new Integer[5_000];
+		Integer[] newValues = new Integer[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = random.nextInt(4_000) - 1_000;
+			newValues[i] = i;
+			expected.put(keys[i], i);
+		}
+		List<Integer> lookups = new ArrayList<>();
+		for (int i = 0; i < 3_000; i++) {
+			lookups.add(random.nextInt(6_000) - 2_000);
+		}
+		Integer[] smallArray = new Integer[10];
+		Integer[] bigArray = new Integer[lookups.size() + 1];
+		bigArray[lookups.size()] = -1;
+
+		// act
+		map.putAll(keys, newValues);
+		Integer[] grown = map.getAll(lookups, smallArray);
+		Integer[] reused = map.getAll(lookups, bigArray);
+
+		// assert
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected, new HashMap<>(map));
+		assertEquals(lookups.size(), grown.length);
+		assertSame(bigArray, reused);
+		assertEquals(-1, (int) reused[lookups.size()]);
+		for (int i = 0; i < lookups.size(); i++) {
+			assertEquals(expected.get(lookups.get(i)), grown[i]);
+			assertEquals(expected.get(lookups.get(i)), reused[i]);
+		}
+		assertThrows(IllegalArgumentException.class, () -> map.putAll(new Integer[1], new Integer[2]));
+	}
+
+	@Test
+	void testConcurrentBatchedGets() throws InterruptedException {
+		// arrange
+		BucketingMap<Integer, Integer> map = new BucketingMap<>();
+		for (int i = 0; i < 10_000; i++) {
+			map.put(i, i);
+		}
+		AtomicInteger wrongValues = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Random random = new Random(t);
+			threads.add(new Thread(() -> {
+				List<Integer> lookups = new ArrayList<>();
+				Integer[] values = new Integer[1_000];
+				for (int round = 0; round < 200; round++) {
+					lookups.clear();
+					for (int i = 0; i < values.length; i++) {
+						lookups.add(random.nextInt(10_000));
+					}
+					map.getAll(lookups, values);
+					for (int i = 0; i < values.length; i++) {
+						if (!lookups.get(i).equals(values[i])) {
+							wrongValues.incrementAndGet();
+						}
+					}
+				}
+			}));
+		}
+
+		// act
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		// assert
+		assertEquals(0, wrongValues.get());
+	}
+
+	private static <T> void split(Spliterator<T> spliterator, List<Spliterator<T>> parts, int depth) {
+		Spliterator<T> prefix = depth == 0 ? null : spliterator.trySplit();
+		if (prefix == null) {
+			parts.add(spliterator);
+			return;
+		}
+		split(prefix, parts, depth - 1);
+		split(spliterator, parts, depth - 1);
+	}
 
 }
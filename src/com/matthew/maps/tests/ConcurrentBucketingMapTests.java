@@ -0,0 +1,459 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.matthew.maps.ConcurrentBucketingMap;
+
+class ConcurrentBucketingMapTests {
+
+	@Test
+	void testClear() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+
+		// act
+		map.clear();
+
+		// assert
+		assertEquals(0, map.size());
+		assertFalse(map.containsKey(1));
+	}
+
+	@Test
+	void testContainsKey() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+
+		// act
+
+		// assert
+		assertTrue(map.containsKey(1));
+		assertTrue(map.containsKey(2));
+		assertFalse(map.containsKey(3));
+	}
+
+	@Test
+	void testContainsValue() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		map.put(1, 5);
+		map.put(2, 6);
+
+		// act
+
+		// assert
+		assertTrue(map.containsValue(5));
+		assertTrue(map.containsValue(6));
+		assertFalse(map.containsValue(3));
+	}
+
+	@Test
+	void testEntrySet() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+
+		// act
+		Set<Entry<Integer, Integer>> entrySet = map.entrySet();
+
+		// assert
+		assertEquals(2, entrySet.size());
+		entrySet.forEach(entry -> assertTrue(entry.getKey() == 1 || entry.getKey() == 2));
+		entrySet.forEach(entry -> assertTrue(entry.getValue() == 1 || entry.getValue() == 2));
+	}
+
+	@Test
+	void testGet() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		map.put(1, 1);
+		map.put(2, 4);
+
+		// act
+
+		// assert
+		assertTrue(1 == map.get(1));
+		assertTrue(4 == map.get(2));
+	}
+
+	@Test
+	void testIsEmpty() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		
+		// act
+		
+		// assert
+		assertTrue(map.isEmpty());
+		map.put(1, 1);		
+		assertFalse(map.isEmpty());
+	}
+
+	@Test
+	void testKeySet() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		map.put(1, 1);
+		map.put(2, 4);
+		
+		// act
+		Set<Integer> keySet = map.keySet();
+		
+		// assert
+		assertEquals(2, keySet.size());
+		keySet.forEach(key -> assertTrue(key == 1 || key == 2));
+	}
+
+	@Test
+	void testPut() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		map.put(1, 1);
+		
+		// act
+		map.put(2, 2);
+		map.put(1, 5);
+		
+		// assert
+		assertEquals(2, map.size());
+		assertTrue(5 == map.get(1));
+		assertTrue(2 == map.get(2));
+	}
+
+	@Test
+	void testPutAll() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+
+		// act
+		map.putAll(Map.of(1, 1, 2, 2, 3, 3, 4, 4));
+		
+		// assert
+		assertEquals(4, map.size());
+		assertTrue(1 == map.get(1));
+		assertTrue(2 == map.get(2));
+		assertTrue(3 == map.get(3));
+		assertTrue(4 == map.get(4));
+	}
+
+	@Test
+	void testRemove() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+		
+		// act
+		map.remove(1);
+		
+		// assert
+		assertEquals(1, map.size());
+		assertTrue(2 == map.get(2));
+		assertFalse(map.containsKey(1));
+		assertFalse(map.containsValue(1));
+	}
+
+	@Test
+	void testSize() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+		
+		// act
+		
+		// assert
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	void testValues() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		map.put(1, 1);
+		map.put(2, 4);
+		
+		// act
+		Collection<Integer> values = map.values();
+		
+		// assert
+		values.forEach(value -> assertTrue(value == 1 || value == 4));
+	}
+	
+	@Test
+	void testManyEntries() {
+		// arrange
+		Map<String, Integer> map = new ConcurrentBucketingMap<>();
+		int numberOfEntries = 10_000;
+		
+		// act
+		for (int i = 0; i < numberOfEntries; i++) {
+			map.put("key" + i, i);
+		}
+		
+		// assert
+		assertEquals(numberOfEntries, map.size());
+		for (int i = 0; i < numberOfEntries; i++) {
+			assertTrue(i == map.get("key" + i));
+		}
+		assertFalse(map.containsKey("key" + numberOfEntries));
+	}
+	
+	@Test
+	void testNegativeHashCodes() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		
+		// act
+		map.put(-1, 1);
+		map.put(Integer.MIN_VALUE, 2);
+		
+		// assert
+		assertEquals(2, map.size());
+		assertTrue(1 == map.get(-1));
+		assertTrue(2 == map.get(Integer.MIN_VALUE));
+		assertTrue(1 == map.remove(-1));
+		assertEquals(1, map.size());
+	}
+	
+	@Test
+	void testRandomPutsAndRemovesWhileResizing() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>(1, 0.75d, 1);
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+		
+		// act
+		for (int i = 0; i < 100_000; i++) {
+			int key = random.nextInt(10_000);
+			if (random.nextInt(3) > 0) {
+				assertEquals(expected.put(key, i), map.put(key, i));
+			} else {
+				assertEquals(expected.remove(key), map.remove(key));
+			}
+		}
+		
+		// assert
+		assertEquals(expected.size(), map.size());
+		for (int key = 0; key < 10_000; key++) {
+			assertEquals(expected.get(key), map.get(key));
+		}
+	}
+	
+	@Test
+	void testAtomicOperations() {
+		// arrange
+		ConcurrentMap<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		map.put(1, 1);
+		
+		// act
+		
+		// assert
+		assertEquals(1, (int) map.putIfAbsent(1, 5));
+		assertNull(map.putIfAbsent(2, 2));
+		assertFalse(map.replace(1, 5, 6));
+		assertTrue(map.replace(1, 1, 6));
+		assertEquals(6, (int) map.replace(1, 7));
+		assertNull(map.replace(3, 3));
+		assertFalse(map.remove(1, 6));
+		assertTrue(map.remove(1, 7));
+		assertEquals(1, map.size());
+	}
+	
+	@Test
+	void testComputeAndMerge() {
+		// arrange
+		ConcurrentMap<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		
+		// act
+		
+		// assert
+		assertEquals(1, (int) map.computeIfAbsent(1, key -> 1));
+		assertEquals(1, (int) map.computeIfAbsent(1, key -> 2));
+		assertNull(map.computeIfPresent(2, (key, value) -> value + 1));
+		assertEquals(2, (int) map.computeIfPresent(1, (key, value) -> value + 1));
+		assertEquals(3, (int) map.compute(1, (key, value) -> value + 1));
+		assertEquals(5, (int) map.merge(1, 2, Integer::sum));
+		assertEquals(2, (int) map.merge(2, 2, Integer::sum));
+		assertNull(map.merge(2, 2, (oldValue, value) -> null));
+		assertNull(map.compute(1, (key, value) -> null));
+		assertTrue(map.isEmpty());
+	}
+	
+	@Test
+	void testIteratorRemove() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>(1, 0.75d, 1);
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+		}
+		
+		// act
+		Set<Integer> seen = new HashSet<>();
+		Iterator<Integer> iterator = map.keySet().iterator();
+		while (iterator.hasNext()) {
+			int key = iterator.next();
+			assertTrue(seen.add(key));
+			if (key % 2 == 0) {
+				iterator.remove();
+			}
+		}
+		
+		// assert
+		assertEquals(1_000, seen.size());
+		assertEquals(500, map.size());
+		for (int i = 0; i < 1_000; i++) {
+			assertEquals(i % 2 != 0, map.containsKey(i));
+		}
+	}
+	
+	@Test
+	void testConcurrentPuts() throws InterruptedException {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>(1, 0.75d, 4);
+		int numberOfThreads = 8;
+		int entriesPerThread = 20_000;
+		
+		// act
+		runConcurrently(numberOfThreads, thread -> {
+			for (int i = 0; i < entriesPerThread; i++) {
+				int key = thread * entriesPerThread + i;
+				map.put(key, key);
+			}
+		});
+		
+		// assert
+		assertEquals(numberOfThreads * entriesPerThread, map.size());
+		for (int key = 0; key < numberOfThreads * entriesPerThread; key++) {
+			assertEquals(key, (int) map.get(key));
+		}
+	}
+	
+	@Test
+	void testConcurrentMerges() throws InterruptedException {
+		// arrange
+		ConcurrentMap<Integer, Integer> map = new ConcurrentBucketingMap<>(1, 0.75d, 4);
+		int numberOfThreads = 8;
+		int incrementsPerThread = 10_000;
+		int numberOfKeys = 100;
+		
+		// act
+		runConcurrently(numberOfThreads, thread -> {
+			for (int i = 0; i < incrementsPerThread; i++) {
+				map.merge(i % numberOfKeys, 1, Integer::sum);
+			}
+		});
+		
+		// assert
+		assertEquals(numberOfKeys, map.size());
+		for (int key = 0; key < numberOfKeys; key++) {
+			assertEquals(numberOfThreads * incrementsPerThread / numberOfKeys, (int) map.get(key));
+		}
+	}
+	
+	@Test
+	void testConcurrentComputeIfAbsentCallsFunctionOnce() throws InterruptedException {
+		// arrange
+		ConcurrentMap<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		AtomicInteger calls = new AtomicInteger();
+		int numberOfKeys = 1_000;
+		
+		// act
+		runConcurrently(8, thread -> {
+			for (int key = 0; key < numberOfKeys; key++) {
+				map.computeIfAbsent(key, k -> calls.incrementAndGet());
+			}
+		});
+		
+		// assert
+		assertEquals(numberOfKeys, calls.get());
+		assertEquals(numberOfKeys, map.size());
+	}
+	
+	@Test
+	void testNullValues() {
+		// arrange
+		Map<Integer, Integer> map = new ConcurrentBucketingMap<>();
+		
+		// act
+		
+		// assert
+		assertThrows(NullPointerException.class, () -> map.put(1, null));
+		assertThrows(NullPointerException.class, () -> map.put(null, 1));
+		assertTrue(map.isEmpty());
+	}
+	
+	@Test
+	void testInvalidArguments() {
+		// arrange
+		
+		// act
+		
+		// assert
+		assertThrows(IllegalArgumentException.class, () -> new ConcurrentBucketingMap<>(0));
+		assertThrows(IllegalArgumentException.class, () -> new ConcurrentBucketingMap<>(32, 0.0d));
+		assertThrows(IllegalArgumentException.class, () -> new ConcurrentBucketingMap<>(32, Double.NaN));
+		assertThrows(IllegalArgumentException.class, () -> new ConcurrentBucketingMap<>(32, 0.75d, 0));
+	}
+	
+	/**
+	 * Runs the given task on the given number of threads, all starting at the same time, and waits for them all to finish
+	 */
+	private static void runConcurrently(int numberOfThreads, ThreadTask task) throws InterruptedException {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		List<Throwable> failures = new ArrayList<>();
+		for (int i = 0; i < numberOfThreads; i++) {
+			int thread = i;
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+					task.run(thread);
+				} catch (Throwable throwable) {
+					synchronized (failures) {
+						failures.add(throwable);
+					}
+				}
+			}));
+		}
+		
+		threads.forEach(Thread::start);
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(failures.isEmpty(), failures.toString());
+	}
+	
+	@FunctionalInterface
+	private interface ThreadTask {
+		
+		void run(int thread) throws Exception;
+	}
+
+}
@@ -0,0 +1,206 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.ConcurrentBucketingMap;
+import com.matthew.maps.DurableMap;
+import com.matthew.maps.RecursiveMap;
+import com.matthew.maps.Serializer;
+
+class DurableMapTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testReopenReplaysLog() throws IOException {
+		// arrange
+		DurableMap<Integer, String> map = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.integers(), Serializer.strings());
+		map.put(1, "one");
+		map.put(2, "two");
+		map.put(3, "three");
+		map.remove(2);
+		map.put(1, "uno");
+		map.close();
+
+		// act
+		DurableMap<Integer, String> reopened = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.integers(), Serializer.strings());
+
+		// assert
+		assertEquals(2, reopened.size());
+		assertEquals("uno", reopened.get(1));
+		assertNull(reopened.get(2));
+		assertEquals("three", reopened.get(3));
+		reopened.close();
+	}
+
+	@Test
+	void testClearIsReplayed() throws IOException {
+		// arrange
+		DurableMap<Integer, Integer> map = DurableMap.open(new RecursiveMap<>(), this.directory, Serializer.integers(), Serializer.integers(), 0, 1L << 20);
+		map.put(1, 1);
+		map.clear();
+		map.put(2, 2);
+		map.close();
+
+		// act
+		DurableMap<Integer, Integer> reopened = DurableMap.open(new RecursiveMap<>(), this.directory, Serializer.integers(), Serializer.integers());
+
+		// assert
+		assertEquals(1, reopened.size());
+		assertFalse(reopened.containsKey(1));
+		assertEquals(2, (int) reopened.get(2));
+		reopened.close();
+	}
+
+	@Test
+	void testTornRecordIsCutOff() throws IOException {
+		// arrange
+		DurableMap<Integer, Integer> map = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.integers(), Serializer.integers());
+		map.put(1, 1);
+		map.put(2, 2);
+		map.close();
+		Path log = this.directory.resolve("log");
+		long logSize = Files.size(log);
+		Files.write(log, new byte[] { 21, 0, 0, 0, 7, 7, 7, 7, 1, 0 }, StandardOpenOption.APPEND);
+
+		// act
+		DurableMap<Integer, Integer> reopened = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.integers(), Serializer.integers());
+		reopened.put(3, 3);
+		reopened.close();
+		DurableMap<Integer, Integer> reopenedAgain = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.integers(), Serializer.integers());
+
+		// assert
+		assertEquals(3, reopenedAgain.size());
+		assertEquals(3, (int) reopenedAgain.get(3));
+		assertTrue(Files.size(log) > logSize);
+		reopenedAgain.close();
+	}
+
+	@Test
+	void testCompaction() throws IOException {
+		// arrange
+		DurableMap<Integer, String> map = DurableMap.open(new RecursiveMap<>(), this.directory, Serializer.integers(), Serializer.strings(), 10, 4_096);
+		Map<Integer, String> expected = new HashMap<>();
+		Random random = new Random(20);
+
+		// act
+		for (int i = 0; i < 20_000; i++) {
+			int key = random.nextInt(500);
+			if (random.nextInt(3) == 0) {
+				map.remove(key);
+				expected.remove(key);
+			} else {
+				map.put(key, "value " + i);
+				expected.put(key, "value " + i);
+			}
+		}
+		map.close();
+		DurableMap<Integer, String> reopened = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.integers(), Serializer.strings());
+
+		// assert
+		assertTrue(Files.exists(this.directory.resolve("snapshot")));
+		assertTrue(Files.size(this.directory.resolve("log")) <= 4_096);
+		assertEquals(expected, new HashMap<>(reopened));
+		reopened.close();
+	}
+
+	@Test
+	void testConcurrentChangesAreReplayedInOrder() throws IOException, InterruptedException {
+		// arrange
+		DurableMap<Integer, String> map = DurableMap.open(new ConcurrentBucketingMap<>(), this.directory, Serializer.integers(), Serializer.strings(), 10, 4_096);
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Random random = new Random(t);
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 20_000; i++) {
+					int key = random.nextInt(50);
+					if (random.nextInt(3) == 0) {
+						map.remove(key);
+					} else {
+						map.put(key, "value " + random.nextInt());
+					}
+				}
+			}));
+		}
+
+		// act
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Map<Integer, String> expected = new HashMap<>(map);
+		map.close();
+		DurableMap<Integer, String> reopened = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.integers(), Serializer.strings());
+
+		// assert
+		assertEquals(expected, new HashMap<>(reopened));
+		reopened.close();
+	}
+
+	@Test
+	void testSync() throws IOException {
+		// arrange
+		DurableMap<Integer, Integer> map = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.integers(), Serializer.integers(), 60_000, 1L << 20);
+		map.put(1, 1);
+
+		// act
+		long logSizeBeforeSync = Files.size(this.directory.resolve("log"));
+		map.sync();
+
+		// assert
+		assertEquals(0, logSizeBeforeSync);
+		assertTrue(Files.size(this.directory.resolve("log")) > 0);
+		map.close();
+	}
+
+	@Test
+	void testViewsAreUnmodifiable() throws IOException {
+		// arrange
+		DurableMap<Integer, Integer> map = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.integers(), Serializer.integers());
+		map.put(1, 1);
+
+		// act
+
+		// assert
+		assertThrows(UnsupportedOperationException.class, () -> map.keySet().remove(1));
+		assertThrows(UnsupportedOperationException.class, () -> map.values().clear());
+		assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue(2));
+		map.close();
+	}
+
+	@Test
+	void testInvalidArguments() throws IOException {
+		// arrange
+		Map<Integer, Integer> notEmpty = new BucketingMap<>();
+		notEmpty.put(1, 1);
+		DurableMap<Integer, Integer> closed = DurableMap.open(new BucketingMap<>(), this.directory, Serializer.integers(), Serializer.integers());
+		closed.close();
+
+		// act
+
+		// assert
+		assertThrows(IllegalArgumentException.class, () -> DurableMap.open(notEmpty, this.directory, Serializer.integers(), Serializer.integers()));
+		assertThrows(IllegalArgumentException.class, () -> DurableMap.open(new BucketingMap<Integer, Integer>(), this.directory, Serializer.integers(), Serializer.integers(), -1, 1));
+		assertThrows(IllegalStateException.class, () -> closed.put(1, 1));
+	}
+
+}
@@ -0,0 +1,174 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+import com.matthew.maps.ExpiringMap;
+
+class ExpiringMapTests {
+
+	@Test
+	void testLazyExpiry() {
+		// arrange
+		AtomicLong ticker = new AtomicLong();
+		ExpiringMap<Integer, String> map = new ExpiringMap<>(10, TimeUnit.SECONDS, 0, ticker::get);
+		map.put(1, "one");
+		map.put(2, "two", 1, TimeUnit.MINUTES);
+
+		// act
+		ticker.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+		// assert
+		assertNull(map.get(1));
+		assertFalse(map.containsKey(1));
+		assertEquals("two", map.get(2));
+		assertEquals(50, map.remainingTimeToLive(2, TimeUnit.SECONDS));
+		assertEquals(-1, map.remainingTimeToLive(1, TimeUnit.SECONDS));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	void testPutStartsTimeToLiveOver() {
+		// arrange
+		AtomicLong ticker = new AtomicLong();
+		ExpiringMap<Integer, String> map = new ExpiringMap<>(10, TimeUnit.SECONDS, 0, ticker::get);
+		map.put(1, "one");
+
+		// act
+		ticker.addAndGet(TimeUnit.SECONDS.toNanos(8));
+		map.put(1, "uno");
+		ticker.addAndGet(TimeUnit.SECONDS.toNanos(8));
+		int removed = map.purge();
+
+		// assert
+		assertEquals(0, removed);
+		assertEquals("uno", map.get(1));
+	}
+
+	@Test
+	void testPurgeMatchesExpiryTimes() {
+		// arrange
+		AtomicLong ticker = new AtomicLong(-TimeUnit.DAYS.toNanos(3));
+		ExpiringMap<Integer, Integer> map = new ExpiringMap<>(1, TimeUnit.SECONDS, 0, ticker::get);
+		Map<Integer, Long> expiryTimes = new HashMap<>();
+		Random random = new Random(22);
+
+		// act
+		for (int step = 0; step < 2_000; step++) {
+			for (int i = 0; i < 20; i++) {
+				int key = random.nextInt(10_000);
+				long timeToLive = 1 + (long) (Math.pow(random.nextDouble(), 6) * TimeUnit.DAYS.toNanos(30));
+				map.put(key, key, timeToLive, TimeUnit.NANOSECONDS);
+				expiryTimes.put(key, ticker.get() + timeToLive);
+			}
+			if (random.nextInt(10) == 0) {
+				int key = random.nextInt(10_000);
+				map.remove(key);
+				expiryTimes.remove(key);
+			}
+
+			ticker.addAndGet((long) (Math.pow(random.nextDouble(), 4) * TimeUnit.HOURS.toNanos(2)));
+			int expected = 0;
+			for (Iterator<Long> iterator = expiryTimes.values().iterator(); iterator.hasNext();) {
+				if (iterator.next() <= ticker.get()) {
+					iterator.remove();
+					expected++;
+				}
+			}
+
+			// assert
+			assertEquals(expected, map.purge());
+			assertEquals(expiryTimes.size(), map.size());
+		}
+		assertEquals(expiryTimes.keySet(), map.keySet());
+	}
+
+	@Test
+	void testRemoveAndClear() {
+		// arrange
+		AtomicLong ticker = new AtomicLong();
+		ExpiringMap<Integer, Integer> map = new ExpiringMap<>(1, TimeUnit.SECONDS, 0, ticker::get);
+		for (int i = 0; i < 100; i++) {
+			map.put(i, i);
+		}
+
+		// act
+		map.remove(5);
+		map.keySet().remove(6);
+		map.clear();
+		map.put(7, 7);
+		ticker.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		int removed = map.purge();
+
+		// assert
+		assertEquals(1, removed);
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	void testSweeper() throws InterruptedException {
+		// arrange
+		ExpiringMap<Integer, Integer> map = new ExpiringMap<>(20, TimeUnit.MILLISECONDS, 5);
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+		}
+
+		// act
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!map.isEmpty() && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		map.close();
+
+		// assert
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	void testForEachHoldsOffTheSweeper() {
+		// arrange
+		ExpiringMap<Integer, Integer> map = new ExpiringMap<>(200, TimeUnit.MILLISECONDS, 5);
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+		}
+		AtomicLong visited = new AtomicLong();
+
+		// act
+		map.forEach((key, value) -> {
+			if (visited.getAndIncrement() == 0) {
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(400));
+			}
+		});
+		map.close();
+
+		// assert
+		assertEquals(1_000, visited.get());
+	}
+
+	@Test
+	void testInvalidArguments() {
+		// arrange
+		ExpiringMap<Integer, Integer> map = new ExpiringMap<>(1, TimeUnit.SECONDS);
+
+		// act
+
+		// assert
+		assertThrows(IllegalArgumentException.class, () -> new ExpiringMap<Integer, Integer>(0, TimeUnit.SECONDS));
+		assertThrows(IllegalArgumentException.class, () -> new ExpiringMap<Integer, Integer>(1, TimeUnit.SECONDS, -1));
+		assertThrows(IllegalArgumentException.class, () -> map.put(1, 1, 0, TimeUnit.SECONDS));
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+import com.matthew.maps.Hashing;
+
+class HashingTests {
+
+	private static final int KEYS = 100_000;
+	private static final int BUCKETS = 1 << Hashing.BITS_PER_LEVEL;
+	// The chi-square value that 31 degrees of freedom only exceed 0.1% of the time
+	private static final double CHI_SQUARE_LIMIT = 61.1;
+
+	@Test
+	void testLevelIndexOfSequentialIntegers() {
+		assertUniformAtEveryLevel(i -> i);
+	}
+
+	@Test
+	void testLevelIndexOfStrings() {
+		assertUniformAtEveryLevel(i -> ("key-" + i).hashCode());
+	}
+
+	@Test
+	void testLevelIndexOfCompositeKeys() {
+		// Same shape of hashcode as a (tenant, id) key: 31 * tenant + id
+		assertUniformAtEveryLevel(i -> 31 * (i % 1024) + Long.hashCode(i));
+	}
+
+	@Test
+	void testLevelIndexWithinSameBucket() {
+		// arrange
+		// Only the keys that share the first bucket, since they are the ones that need the next level to tell them apart
+		int[] counts = new int[BUCKETS];
+		int keys = 0;
+		for (int i = 0; keys < KEYS; i++) {
+			int hash = Hashing.mix(i);
+			if (Hashing.levelIndex(hash, 0) == 0) {
+				counts[Hashing.levelIndex(hash, 1)]++;
+				keys++;
+			}
+		}
+
+		// act
+		double chiSquare = chiSquare(counts, keys);
+
+		// assert
+		assertTrue(chiSquare < CHI_SQUARE_LIMIT, "chi-square was " + chiSquare);
+	}
+
+	@Test
+	void testLevelIndexSeparatesDifferentHashes() {
+		// arrange
+		int first = Hashing.mix(0);
+		int second = first ^ Integer.MIN_VALUE;
+
+		// act
+		int level = 0;
+		while (Hashing.levelIndex(first, level) == Hashing.levelIndex(second, level)) {
+			level++;
+		}
+
+		// assert
+		assertEquals(Hashing.MAXIMUM_LEVEL, level);
+	}
+
+	@Test
+	void testMixOfNeighbouringHashCodes() {
+		// assert
+		assertNotEquals(Hashing.mix(1), Hashing.mix(2));
+	}
+
+	private static void assertUniformAtEveryLevel(IntUnaryOperator hashCodes) {
+		// Keys with the same hashcode always share a bucket no matter how the hashcode is mixed, so only the distinct ones count
+		Set<Integer> distinctHashCodes = new HashSet<>();
+		for (int i = 0; i < KEYS; i++) {
+			distinctHashCodes.add(hashCodes.applyAsInt(i));
+		}
+
+		for (int level = 0; level < Hashing.MAXIMUM_LEVEL; level++) {
+			// arrange
+			int[] counts = new int[BUCKETS];
+			for (int hashCode : distinctHashCodes) {
+				counts[Hashing.levelIndex(Hashing.mix(hashCode), level)]++;
+			}
+
+			// act
+			double chiSquare = chiSquare(counts, distinctHashCodes.size());
+
+			// assert
+			assertTrue(chiSquare < CHI_SQUARE_LIMIT, "chi-square at level " + level + " was " + chiSquare);
+		}
+	}
+
+	private static double chiSquare(int[] counts, int total) {
+		double expected = (double) total / counts.length;
+		double chiSquare = 0;
+		for (int count : counts) {
+			chiSquare += (count - expected) * (count - expected) / expected;
+		}
+		return chiSquare;
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.matthew.maps.IntIntBucketingMap;
+
+class IntIntBucketingMapTests {
+
+	@Test
+	void testPutAndGet() {
+		// arrange
+		IntIntBucketingMap map = new IntIntBucketingMap();
+
+		// act
+		int firstPrevious = map.put(1, 10);
+		int secondPrevious = map.put(1, 11);
+		map.put(-5, 50);
+
+		// assert
+		assertEquals(0, firstPrevious);
+		assertEquals(10, secondPrevious);
+		assertEquals(11, map.get(1));
+		assertEquals(50, map.get(-5));
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	void testNoEntryValue() {
+		// arrange
+		IntIntBucketingMap map = new IntIntBucketingMap(32, 0.75d, -1);
+		map.put(1, -1);
+
+		// act
+
+		// assert
+		assertEquals(-1, map.noEntryValue());
+		assertEquals(-1, map.get(2));
+		assertEquals(-1, map.remove(2));
+		assertEquals(7, map.getOrDefault(2, 7));
+		assertTrue(map.containsKey(1));
+		assertFalse(map.containsKey(2));
+	}
+
+	@Test
+	void testRemove() {
+		// arrange
+		IntIntBucketingMap map = new IntIntBucketingMap();
+		map.put(1, 10);
+		map.put(2, 20);
+
+		// act
+		int removed = map.remove(1);
+
+		// assert
+		assertEquals(10, removed);
+		assertEquals(1, map.size());
+		assertFalse(map.containsKey(1));
+		assertEquals(20, map.get(2));
+	}
+
+	@Test
+	void testClear() {
+		// arrange
+		IntIntBucketingMap map = new IntIntBucketingMap();
+		map.put(1, 1);
+		map.put(2, 2);
+
+		// act
+		map.clear();
+		map.put(3, 3);
+
+		// assert
+		assertEquals(1, map.size());
+		assertFalse(map.containsKey(1));
+		assertEquals(3, map.get(3));
+	}
+
+	@Test
+	void testForEach() {
+		// arrange
+		IntIntBucketingMap map = new IntIntBucketingMap();
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i * 2);
+		}
+		Map<Integer, Integer> seen = new HashMap<>();
+
+		// act
+		map.forEach((key, value) -> seen.put(key, value));
+
+		// assert
+		assertEquals(1_000, seen.size());
+		seen.forEach((key, value) -> assertEquals(key * 2, (int) value));
+	}
+
+	@Test
+	void testManyRandomOperations() {
+		// arrange
+		IntIntBucketingMap map = new IntIntBucketingMap(1);
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(16);
+
+		// act
+		for (int i = 0; i < 200_000; i++) {
+			int key = random.nextInt(20_000) * (random.nextBoolean() ? 1 : -65_536);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.getOrDefault(key, 0), map.remove(key));
+				expected.remove(key);
+			} else {
+				assertEquals(expected.getOrDefault(key, 0), map.put(key, i));
+				expected.put(key, i);
+			}
+		}
+
+		// assert
+		assertEquals(expected.size(), map.size());
+		expected.forEach((key, value) -> assertEquals((int) value, map.get(key)));
+	}
+
+	@Test
+	void testInvalidArguments() {
+		// arrange
+
+		// act
+
+		// assert
+		assertThrows(IllegalArgumentException.class, () -> new IntIntBucketingMap(0));
+		assertThrows(IllegalArgumentException.class, () -> new IntIntBucketingMap(32, Double.NaN));
+		assertThrows(IllegalArgumentException.class, () -> new IntIntBucketingMap(32, 1.5d));
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.matthew.maps.IntObjectRecursiveMap;
+
+class IntObjectRecursiveMapTests {
+
+	@Test
+	void testPutAndGet() {
+		// arrange
+		IntObjectRecursiveMap<String> map = new IntObjectRecursiveMap<>();
+
+		// act
+		String firstPrevious = map.put(1, "a");
+		String secondPrevious = map.put(1, "b");
+		map.put(Integer.MIN_VALUE, "c");
+
+		// assert
+		assertNull(firstPrevious);
+		assertEquals("a", secondPrevious);
+		assertEquals("b", map.get(1));
+		assertEquals("c", map.get(Integer.MIN_VALUE));
+		assertNull(map.get(2));
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	void testRemoveEverything() {
+		// arrange
+		IntObjectRecursiveMap<Integer> map = new IntObjectRecursiveMap<>();
+		for (int i = 0; i < 10_000; i++) {
+			map.put(i, i);
+		}
+
+		// act
+		for (int i = 0; i < 10_000; i++) {
+			assertEquals(i, (int) map.remove(i));
+		}
+
+		// assert
+		assertTrue(map.isEmpty());
+		assertFalse(map.containsKey(0));
+		assertNull(map.remove(0));
+	}
+
+	@Test
+	void testNullValues() {
+		// arrange
+		IntObjectRecursiveMap<String> map = new IntObjectRecursiveMap<>();
+
+		// act
+
+		// assert
+		assertThrows(NullPointerException.class, () -> map.put(1, null));
+	}
+
+	@Test
+	void testManyRandomOperations() {
+		// arrange
+		IntObjectRecursiveMap<Integer> map = new IntObjectRecursiveMap<>();
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(16);
+
+		// act
+		for (int i = 0; i < 200_000; i++) {
+			int key = random.nextInt(20_000) * (random.nextBoolean() ? 1 : -65_536);
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.put(key, i), map.put(key, i));
+			}
+		}
+
+		// assert
+		assertEquals(expected.size(), map.size());
+		Map<Integer, Integer> actual = new HashMap<>();
+		map.forEach(actual::put);
+		assertEquals(expected, actual);
+	}
+
+}
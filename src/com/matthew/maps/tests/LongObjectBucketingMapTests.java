@@ -0,0 +1,106 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.matthew.maps.LongObjectBucketingMap;
+
+class LongObjectBucketingMapTests {
+
+	@Test
+	void testPutAndGet() {
+		// arrange
+		LongObjectBucketingMap<String> map = new LongObjectBucketingMap<>();
+
+		// act
+		String firstPrevious = map.put(1L << 40, "a");
+		String secondPrevious = map.put(1L << 40, "b");
+		map.put(1L, "c");
+
+		// assert
+		assertNull(firstPrevious);
+		assertEquals("a", secondPrevious);
+		assertEquals("b", map.get(1L << 40));
+		assertEquals("c", map.get(1L));
+		assertNull(map.get(2L));
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	void testKeysWithTheSameLowBits() {
+		// arrange
+		LongObjectBucketingMap<Long> map = new LongObjectBucketingMap<>();
+
+		// act
+		for (long i = 0; i < 1_000; i++) {
+			map.put(i << 32, i);
+		}
+
+		// assert
+		assertEquals(1_000, map.size());
+		for (long i = 0; i < 1_000; i++) {
+			assertEquals(i, (long) map.get(i << 32));
+		}
+	}
+
+	@Test
+	void testRemove() {
+		// arrange
+		LongObjectBucketingMap<String> map = new LongObjectBucketingMap<>();
+		map.put(1L, "a");
+		map.put(2L, "b");
+
+		// act
+		String removed = map.remove(1L);
+
+		// assert
+		assertEquals("a", removed);
+		assertNull(map.remove(1L));
+		assertFalse(map.containsKey(1L));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	void testNullValues() {
+		// arrange
+		LongObjectBucketingMap<String> map = new LongObjectBucketingMap<>();
+
+		// act
+
+		// assert
+		assertThrows(NullPointerException.class, () -> map.put(1L, null));
+	}
+
+	@Test
+	void testManyRandomOperations() {
+		// arrange
+		LongObjectBucketingMap<Integer> map = new LongObjectBucketingMap<>(1);
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(16);
+
+		// act
+		for (int i = 0; i < 200_000; i++) {
+			long key = random.nextInt(20_000) * (random.nextBoolean() ? 1L : -(1L << 33));
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				assertEquals(expected.put(key, i), map.put(key, i));
+			}
+		}
+
+		// assert
+		assertEquals(expected.size(), map.size());
+		Map<Long, Integer> actual = new HashMap<>();
+		map.forEach(actual::put);
+		assertEquals(expected, actual);
+	}
+
+}
@@ -0,0 +1,168 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.MappedFileMap;
+import com.matthew.maps.RecursiveMap;
+import com.matthew.maps.Serializer;
+
+class MappedFileMapTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testWriteAndOpenBucketingMap() throws IOException {
+		// arrange
+		Map<Integer, String> source = new BucketingMap<>();
+		for (int i = 0; i < 10_000; i++) {
+			source.put(i, "value " + i);
+		}
+		Path path = this.directory.resolve("bucketing.map");
+
+		// act
+		MappedFileMap.write(source, path, Serializer.integers(), Serializer.strings());
+		MappedFileMap<Integer, String> map = MappedFileMap.open(path, Serializer.integers(), Serializer.strings());
+
+		// assert
+		assertEquals(10_000, map.size());
+		assertEquals("value 0", map.get(0));
+		assertEquals("value 9999", map.get(9_999));
+		assertNull(map.get(10_000));
+		assertTrue(map.containsKey(5_000));
+		assertFalse(map.containsKey(-1));
+		map.close();
+	}
+
+	@Test
+	void testWriteAndOpenRecursiveMap() throws IOException {
+		// arrange
+		Map<String, Long> source = new RecursiveMap<>();
+		for (long i = 0; i < 10_000; i++) {
+			source.put("key " + i, i * i);
+		}
+		Path path = this.directory.resolve("recursive.map");
+
+		// act
+		MappedFileMap.write(source, path, Serializer.strings(), Serializer.longs());
+		MappedFileMap<String, Long> map = MappedFileMap.open(path, Serializer.strings(), Serializer.longs());
+
+		// assert
+		assertEquals(10_000, map.size());
+		assertEquals(81L, (long) map.get("key 9"));
+		assertNull(map.get("key 10000"));
+		assertNull(map.get("key"));
+		map.close();
+	}
+
+	@Test
+	void testRewriteLeavesOpenMapReadable() throws IOException {
+		// arrange
+		Map<Integer, String> source = new HashMap<>();
+		for (int i = 0; i < 10_000; i++) {
+			source.put(i, "old " + i);
+		}
+		Path path = this.directory.resolve("rewritten.map");
+		MappedFileMap.write(source, path, Serializer.integers(), Serializer.strings());
+		MappedFileMap<Integer, String> oldMap = MappedFileMap.open(path, Serializer.integers(), Serializer.strings());
+		Map<Integer, String> newSource = new HashMap<>();
+		newSource.put(1, "new 1");
+
+		// act
+		MappedFileMap.write(newSource, path, Serializer.integers(), Serializer.strings());
+		MappedFileMap<Integer, String> newMap = MappedFileMap.open(path, Serializer.integers(), Serializer.strings());
+
+		// assert
+		assertEquals(10_000, oldMap.size());
+		assertEquals("old 9999", oldMap.get(9_999));
+		assertEquals(newSource, newMap);
+		assertFalse(Files.exists(this.directory.resolve("rewritten.map.tmp")));
+		oldMap.close();
+		newMap.close();
+	}
+
+	@Test
+	void testIterationMatchesSource() throws IOException {
+		// arrange
+		Map<Integer, Integer> source = new HashMap<>();
+		for (int i = 0; i < 1_000; i++) {
+			source.put(i * 31, i);
+		}
+		Path path = this.directory.resolve("iteration.map");
+		MappedFileMap.write(source, path, Serializer.integers(), Serializer.integers());
+		MappedFileMap<Integer, Integer> map = MappedFileMap.open(path, Serializer.integers(), Serializer.integers());
+
+		// act
+		Map<Integer, Integer> copy = new HashMap<>();
+		for (Entry<Integer, Integer> entry : map.entrySet()) {
+			copy.put(entry.getKey(), entry.getValue());
+		}
+
+		// assert
+		assertEquals(source, copy);
+		assertEquals(1_000, map.keySet().size());
+		assertTrue(map.containsValue(999));
+		map.close();
+	}
+
+	@Test
+	void testEmptyMap() throws IOException {
+		// arrange
+		Path path = this.directory.resolve("empty.map");
+
+		// act
+		MappedFileMap.write(new BucketingMap<Integer, Integer>(), path, Serializer.integers(), Serializer.integers());
+		MappedFileMap<Integer, Integer> map = MappedFileMap.open(path, Serializer.integers(), Serializer.integers());
+
+		// assert
+		assertTrue(map.isEmpty());
+		assertNull(map.get(1));
+		assertFalse(map.entrySet().iterator().hasNext());
+		map.close();
+	}
+
+	@Test
+	void testReadOnly() throws IOException {
+		// arrange
+		Path path = this.directory.resolve("read-only.map");
+		MappedFileMap.write(new BucketingMap<Integer, Integer>(), path, Serializer.integers(), Serializer.integers());
+		MappedFileMap<Integer, Integer> map = MappedFileMap.open(path, Serializer.integers(), Serializer.integers());
+
+		// act
+
+		// assert
+		assertThrows(UnsupportedOperationException.class, () -> map.put(1, 1));
+		assertThrows(UnsupportedOperationException.class, () -> map.remove(1));
+		assertThrows(UnsupportedOperationException.class, () -> map.clear());
+		map.close();
+		assertThrows(IllegalStateException.class, () -> map.get(1));
+	}
+
+	@Test
+	void testNotAMapFile() throws IOException {
+		// arrange
+		Path path = this.directory.resolve("not.map");
+		Files.write(path, new byte[64]);
+
+		// act
+
+		// assert
+		assertThrows(IOException.class, () -> MappedFileMap.open(path, Serializer.integers(), Serializer.integers()));
+	}
+
+}
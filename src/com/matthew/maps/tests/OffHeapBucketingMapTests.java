@@ -0,0 +1,313 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.matthew.maps.OffHeapBucketingMap;
+import com.matthew.maps.Serializer;
+
+class OffHeapBucketingMapTests {
+
+	@Test
+	void testPutAndGet() {
+		// arrange
+		OffHeapBucketingMap<Long, Long> map = new OffHeapBucketingMap<>(Serializer.longs(), Serializer.longs());
+
+		// act
+		Long firstPrevious = map.put(1L, 10L);
+		Long secondPrevious = map.put(1L, 11L);
+		map.put(-5L, 50L);
+
+		// assert
+		assertNull(firstPrevious);
+		assertEquals(10L, (long) secondPrevious);
+		assertEquals(11L, (long) map.get(1L));
+		assertEquals(50L, (long) map.get(-5L));
+		assertNull(map.get(2L));
+		assertEquals(2, map.size());
+		map.close();
+	}
+
+	@Test
+	void testMatchesHashMap() {
+		// arrange
+		OffHeapBucketingMap<Integer, String> map = new OffHeapBucketingMap<>(Serializer.integers(), Serializer.strings());
+		Map<Integer, String> expected = new HashMap<>();
+		Random random = new Random(17);
+
+		// act
+		for (int i = 0; i < 200_000; i++) {
+			int key = random.nextInt(20_000);
+			if (random.nextInt(4) == 0) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				String value = "value " + random.nextInt(1 << random.nextInt(20));
+				assertEquals(expected.put(key, value), map.put(key, value));
+			}
+		}
+
+		// assert
+		assertEquals(expected, map);
+		map.close();
+	}
+
+	@Test
+	void testStringKeys() {
+		// arrange
+		OffHeapBucketingMap<String, Integer> map = new OffHeapBucketingMap<>(Serializer.strings(), Serializer.integers());
+
+		// act
+		map.put("", 0);
+		map.put("ab", 1);
+		map.put("abcdefghijklmnop", 2);
+		map.put("\u00e9\u4e2d\ud83d\ude00", 3);
+
+		// assert
+		assertEquals(0, (int) map.get(""));
+		assertEquals(1, (int) map.get("ab"));
+		assertEquals(2, (int) map.get("abcdefghijklmnop"));
+		assertEquals(3, (int) map.get("\u00e9\u4e2d\ud83d\ude00"));
+		assertNull(map.get("abcdefghijklmno"));
+		map.close();
+	}
+
+	@Test
+	void testFixedWidthRecordsAreReused() {
+		// arrange
+		OffHeapBucketingMap<Long, Long> map = new OffHeapBucketingMap<>(Serializer.longs(), Serializer.longs(), 1 << 16);
+		for (long i = 0; i < 10_000; i++) {
+			map.put(i, i);
+		}
+		long offHeapSize = map.offHeapSize();
+
+		// act
+		for (long i = 0; i < 10_000; i++) {
+			map.remove(i);
+			map.put(i + 10_000, i);
+		}
+
+		// assert
+		assertEquals(offHeapSize, map.offHeapSize());
+		assertEquals(10_000, map.size());
+		assertEquals(5L, (long) map.get(10_005L));
+		map.close();
+	}
+
+	@Test
+	void testVariableWidthGarbageIsCompacted() {
+		// arrange
+		OffHeapBucketingMap<Integer, String> map = new OffHeapBucketingMap<>(Serializer.integers(), Serializer.strings(), 1 << 16);
+		for (int i = 0; i < 10_000; i++) {
+			map.put(i, "x");
+		}
+		long offHeapSize = map.offHeapSize();
+
+		// act
+		for (int round = 0; round < 50; round++) {
+			for (int i = 0; i < 10_000; i++) {
+				map.remove(i);
+				map.put(i, round % 2 == 0 ? "a longer value than before" : "x");
+			}
+		}
+
+		// assert
+		assertTrue(map.offHeapSize() < offHeapSize * 8);
+		assertEquals(10_000, map.size());
+		assertEquals("x", map.get(123));
+		map.close();
+	}
+
+	@Test
+	void testVariableWidthGarbageIsCompactedByUpdates() {
+		// arrange
+		OffHeapBucketingMap<Integer, String> map = new OffHeapBucketingMap<>(Serializer.integers(), Serializer.strings(), 1 << 16);
+		for (int i = 0; i < 10_000; i++) {
+			map.put(i, "x");
+		}
+		long offHeapSize = map.offHeapSize();
+
+		// act
+		for (int round = 0; round < 50; round++) {
+			for (int i = 0; i < 10_000; i++) {
+				map.put(i, round % 2 == 0 ? "a longer value than before" : "x");
+			}
+		}
+
+		// assert
+		assertTrue(map.offHeapSize() < offHeapSize * 8);
+		assertEquals(10_000, map.size());
+		assertEquals("x", map.get(123));
+		map.close();
+	}
+
+	@Test
+	void testRecordsBiggerThanAChunk() {
+		// arrange
+		OffHeapBucketingMap<Integer, String> map = new OffHeapBucketingMap<>(Serializer.integers(), Serializer.strings(), 16);
+		char[] characters = new char[1 << 16];
+		Arrays.fill(characters, 'x');
+		String largeValue = new String(characters);
+
+		// act
+		map.put(0, largeValue);
+		String afterFirstPut = map.get(0);
+		for (int i = 1; i < 50; i++) {
+			map.put(i, largeValue + i);
+		}
+
+		// assert
+		assertEquals(largeValue, afterFirstPut);
+		assertEquals(largeValue, map.get(0));
+		assertEquals(50, map.size());
+		for (int i = 1; i < 50; i++) {
+			assertEquals(largeValue + i, map.get(i));
+		}
+		map.close();
+	}
+
+	@Test
+	void testIteratorRemove() {
+		// arrange
+		OffHeapBucketingMap<Integer, Integer> map = new OffHeapBucketingMap<>(Serializer.integers(), Serializer.integers());
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+		}
+
+		// act
+		int visited = 0;
+		for (Iterator<Integer> iterator = map.keySet().iterator(); iterator.hasNext();) {
+			visited++;
+			if (iterator.next() % 2 == 0) {
+				iterator.remove();
+			}
+		}
+
+		// assert
+		assertEquals(1_000, visited);
+		assertEquals(500, map.size());
+		assertFalse(map.containsKey(2));
+		assertTrue(map.containsKey(3));
+		map.close();
+	}
+
+	@Test
+	void testEntrySetValueMovesRecord() {
+		// arrange
+		OffHeapBucketingMap<Integer, String> map = new OffHeapBucketingMap<>(Serializer.integers(), Serializer.strings());
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, "");
+		}
+
+		// act
+		int visited = 0;
+		for (Entry<Integer, String> entry : map.entrySet()) {
+			entry.setValue("value " + entry.getKey());
+			visited++;
+		}
+
+		// assert
+		assertEquals(1_000, visited);
+		assertEquals("value 999", map.get(999));
+		map.close();
+	}
+
+	@Test
+	void testClosedMapThrows() {
+		// arrange
+		OffHeapBucketingMap<Integer, Integer> map = new OffHeapBucketingMap<>(Serializer.integers(), Serializer.integers());
+		map.put(1, 1);
+
+		// act
+		map.close();
+		map.close();
+
+		// assert
+		assertTrue(map.isClosed());
+		assertEquals(0, map.size());
+		assertThrows(IllegalStateException.class, () -> map.get(1));
+		assertThrows(IllegalStateException.class, () -> map.put(2, 2));
+		assertThrows(IllegalStateException.class, () -> map.keySet().iterator());
+	}
+
+	@Test
+	void testNullsNotAllowed() {
+		// arrange
+		OffHeapBucketingMap<Integer, Integer> map = new OffHeapBucketingMap<>(Serializer.integers(), Serializer.integers());
+
+		// act
+
+		// assert
+		assertThrows(NullPointerException.class, () -> map.put(null, 1));
+		assertThrows(NullPointerException.class, () -> map.put(1, null));
+		map.close();
+	}
+
+	@Test
+	void testSerializersRoundTrip() {
+		// arrange
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		String string = "h\u00e9llo \u4e16\u754c \ud83d\ude00";
+
+		// act
+		Serializer.strings().write(string, buffer, 3);
+
+		// assert
+		assertEquals(string.getBytes(StandardCharsets.UTF_8).length, Serializer.strings().sizeOf(string));
+		assertEquals(string, Serializer.strings().read(buffer, 3, Serializer.strings().sizeOf(string)));
+		assertEquals(-1, Serializer.strings().fixedWidth());
+		assertEquals(Long.BYTES, Serializer.longs().fixedWidth());
+	}
+
+	@Test
+	void testUnpairedSurrogatesAreSizedAsWritten() {
+		// arrange
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		OffHeapBucketingMap<String, Integer> map = new OffHeapBucketingMap<>(Serializer.strings(), Serializer.integers());
+		String[] strings = { "a\ud800b", "\udc00", "\ud83d\ud83d\ude00", "\ude00\ud83d" };
+
+		// act
+		for (int i = 0; i < strings.length; i++) {
+			map.put(strings[i], i);
+		}
+		map.put("a?b", 10);
+
+		// assert
+		for (int i = 0; i < strings.length; i++) {
+			int size = Serializer.strings().sizeOf(strings[i]);
+			Serializer.strings().write(strings[i], buffer, 0);
+			assertEquals(strings[i].getBytes(StandardCharsets.UTF_8).length, size);
+			assertEquals(new String(strings[i].getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8),
+					Serializer.strings().read(buffer, 0, size));
+			assertEquals(i, (int) map.get(strings[i]));
+		}
+		assertEquals(10, (int) map.get("a?b"));
+		assertEquals(5, map.size());
+		map.close();
+	}
+
+	@Test
+	void testInvalidArguments() {
+		// arrange
+
+		// act
+
+		// assert
+		assertThrows(IllegalArgumentException.class, () -> new OffHeapBucketingMap<>(Serializer.integers(), Serializer.integers(), 0));
+		assertThrows(IllegalArgumentException.class, () -> new OffHeapBucketingMap<>(Serializer.integers(), Serializer.integers(), 32, 1.5d));
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.matthew.maps.BucketingMap;
+import com.matthew.maps.ParallelBulkMap;
+import com.matthew.maps.RecursiveMap;
+
+class ParallelBulkMapTests {
+
+	private static final int NUMBER_OF_ENTRIES = 100_000;
+
+	@ParameterizedTest
+	@ValueSource(strings = { "BucketingMap", "RecursiveMap" })
+	void testForEach(String implementation) {
+		// arrange
+		ParallelBulkMap<Integer, Integer> map = createMap(implementation);
+		LongAdder sum = new LongAdder();
+		Set<Integer> keys = ConcurrentHashMap.newKeySet();
+
+		// act
+		map.forEach(1, (key, value) -> {
+			sum.add(value);
+			keys.add(key);
+		});
+
+		// assert
+		assertEquals(sumOfValues(), sum.sum());
+		assertEquals(NUMBER_OF_ENTRIES, keys.size());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "BucketingMap", "RecursiveMap" })
+	void testForEachBelowThresholdRunsInTheCallingThread(String implementation) {
+		// arrange
+		ParallelBulkMap<Integer, Integer> map = createMap(implementation);
+		Set<Thread> threads = new HashSet<>();
+
+		// act
+		map.forEach(Long.MAX_VALUE, (key, value) -> threads.add(Thread.currentThread()));
+
+		// assert
+		assertEquals(Set.of(Thread.currentThread()), threads);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "BucketingMap", "RecursiveMap" })
+	void testSearch(String implementation) {
+		// arrange
+		ParallelBulkMap<Integer, Integer> map = createMap(implementation);
+
+		// act
+		Integer found = map.search(1, (key, value) -> key == 77_777 ? value : null);
+		Integer notFound = map.search(1, (key, value) -> key < 0 ? value : null);
+
+		// assert
+		assertEquals(77_777 * 2, found);
+		assertNull(notFound);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "BucketingMap", "RecursiveMap" })
+	void testSearchStopsEarly(String implementation) {
+		// arrange
+		ParallelBulkMap<Integer, Integer> map = createMap(implementation);
+		AtomicInteger numberOfEntriesSearched = new AtomicInteger();
+
+		// act
+		Integer found = map.search(Long.MAX_VALUE, (key, value) -> {
+			numberOfEntriesSearched.incrementAndGet();
+			return key;
+		});
+
+		// assert
+		assertTrue(found >= 0);
+		assertEquals(1, numberOfEntriesSearched.get());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "BucketingMap", "RecursiveMap" })
+	void testReduce(String implementation) {
+		// arrange
+		ParallelBulkMap<Integer, Integer> map = createMap(implementation);
+
+		// act
+		Integer maximumKey = map.reduceKeys(1, Math::max);
+		Integer maximumValue = map.reduceValues(1, Math::max);
+		Long sumOfEvenValues = map.reduce(1, (key, value) -> key % 2 == 0 ? (long) value : null, Long::sum);
+
+		// assert
+		assertEquals(NUMBER_OF_ENTRIES - 1, maximumKey);
+		assertEquals((NUMBER_OF_ENTRIES - 1) * 2, maximumValue);
+		assertEquals(sumOfValues() / 2 - NUMBER_OF_ENTRIES / 2, sumOfEvenValues);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "BucketingMap", "RecursiveMap" })
+	void testReduceToLong(String implementation) {
+		// arrange
+		ParallelBulkMap<Integer, Integer> map = createMap(implementation);
+
+		// act
+		long sum = map.reduceValuesToLong(1, value -> value, 0, Long::sum);
+		long count = map.reduceKeysToLong(1_000, key -> 1, 0, Long::sum);
+
+		// assert
+		assertEquals(sumOfValues(), sum);
+		assertEquals(NUMBER_OF_ENTRIES, count);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "BucketingMap", "RecursiveMap" })
+	void testReduceEmptyMap(String implementation) {
+		// arrange
+		ParallelBulkMap<Integer, Integer> map = createMap(implementation);
+		map.clear();
+
+		// act
+
+		// assert
+		assertNull(map.reduceKeys(1, Math::max));
+		assertEquals(42, map.reduceValuesToLong(1, value -> value, 42, Long::sum));
+	}
+
+	/**
+	 * Creates a map of the given implementation with every key from 0 up to the number of entries, each mapped to twice itself
+	 */
+	private static ParallelBulkMap<Integer, Integer> createMap(String implementation) {
+		ParallelBulkMap<Integer, Integer> map = implementation.equals("BucketingMap") ? new BucketingMap<>() : new RecursiveMap<>();
+		for (int i = 0; i < NUMBER_OF_ENTRIES; i++) {
+			map.put(i, i * 2);
+		}
+		return map;
+	}
+
+	private static long sumOfValues() {
+		return (long) NUMBER_OF_ENTRIES * (NUMBER_OF_ENTRIES - 1);
+	}
+
+}
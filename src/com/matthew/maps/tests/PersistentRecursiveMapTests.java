@@ -0,0 +1,255 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.matthew.maps.PersistentRecursiveMap;
+
+class PersistentRecursiveMapTests {
+
+	@Test
+	void testWith() {
+		// arrange
+		PersistentRecursiveMap<Integer, Integer> map = PersistentRecursiveMap.<Integer, Integer> empty().with(1, 1);
+
+		// act
+		PersistentRecursiveMap<Integer, Integer> newMap = map.with(2, 2).with(1, 3);
+
+		// assert
+		assertEquals(1, map.size());
+		assertEquals(1, map.get(1));
+		assertNull(map.get(2));
+		assertEquals(2, newMap.size());
+		assertEquals(3, newMap.get(1));
+		assertEquals(2, newMap.get(2));
+	}
+
+	@Test
+	void testWithSameValue() {
+		// arrange
+		Integer value = 1_000;
+		PersistentRecursiveMap<Integer, Integer> map = PersistentRecursiveMap.<Integer, Integer> empty().with(1, value);
+
+		// act
+		PersistentRecursiveMap<Integer, Integer> newMap = map.with(1, value);
+
+		// assert
+		assertSame(map, newMap);
+	}
+
+	@Test
+	void testWithout() {
+		// arrange
+		PersistentRecursiveMap<Integer, Integer> map = PersistentRecursiveMap.<Integer, Integer> empty().with(1, 1).with(2, 2);
+
+		// act
+		PersistentRecursiveMap<Integer, Integer> newMap = map.without(1);
+
+		// assert
+		assertEquals(2, map.size());
+		assertEquals(1, map.get(1));
+		assertEquals(1, newMap.size());
+		assertFalse(newMap.containsKey(1));
+		assertEquals(2, newMap.get(2));
+		assertSame(newMap, newMap.without(1));
+	}
+
+	@Test
+	void testContainsValue() {
+		// arrange
+		PersistentRecursiveMap<Integer, Integer> map = PersistentRecursiveMap.<Integer, Integer> empty().with(1, 5).with(2, null);
+
+		// act
+
+		// assert
+		assertTrue(map.containsValue(5));
+		assertTrue(map.containsValue(null));
+		assertFalse(map.containsValue(3));
+	}
+
+	@Test
+	void testViews() {
+		// arrange
+		PersistentRecursiveMap.Builder<Integer, Integer> builder = PersistentRecursiveMap.builder();
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 1_000; i++) {
+			builder.put(i, -i);
+			expected.put(i, -i);
+		}
+
+		// act
+		PersistentRecursiveMap<Integer, Integer> map = builder.build();
+
+		// assert
+		assertEquals(expected.keySet(), map.keySet());
+		assertEquals(expected.entrySet(), map.entrySet());
+		assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+		assertEquals(1_000, map.values().size());
+	}
+
+	@Test
+	void testMutatorsAreUnsupported() {
+		// arrange
+		PersistentRecursiveMap<Integer, Integer> map = PersistentRecursiveMap.<Integer, Integer> empty().with(1, 1);
+
+		// act
+
+		// assert
+		assertThrows(UnsupportedOperationException.class, () -> map.put(2, 2));
+		assertThrows(UnsupportedOperationException.class, () -> map.remove(1));
+		assertThrows(UnsupportedOperationException.class, () -> map.clear());
+		assertThrows(UnsupportedOperationException.class, () -> map.keySet().remove(1));
+		assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue(2));
+	}
+
+	@Test
+	void testOldVersionsAreUnchanged() {
+		// arrange
+		Random random = new Random(12);
+		List<PersistentRecursiveMap<Integer, Integer>> versions = new ArrayList<>();
+		List<Map<Integer, Integer>> expectedVersions = new ArrayList<>();
+		PersistentRecursiveMap<Integer, Integer> map = PersistentRecursiveMap.empty();
+		Map<Integer, Integer> expected = new HashMap<>();
+
+		// act
+		for (int i = 0; i < 20_000; i++) {
+			int key = random.nextInt(5_000);
+			if (random.nextInt(3) == 0) {
+				map = map.without(key);
+				expected.remove(key);
+			} else {
+				map = map.with(key, i);
+				expected.put(key, i);
+			}
+
+			if (i % 1_000 == 0) {
+				versions.add(map);
+				expectedVersions.add(new HashMap<>(expected));
+			}
+		}
+
+		// assert
+		for (int i = 0; i < versions.size(); i++) {
+			assertEquals(expectedVersions.get(i).size(), versions.get(i).size());
+			assertEquals(expectedVersions.get(i).entrySet(), versions.get(i).entrySet());
+		}
+	}
+
+	@Test
+	void testCollidingHashCodes() {
+		// arrange
+		PersistentRecursiveMap<CollidingKey, Integer> map = PersistentRecursiveMap.empty();
+		for (int i = 0; i < 10; i++) {
+			map = map.with(new CollidingKey(i), i);
+		}
+
+		// act
+		PersistentRecursiveMap<CollidingKey, Integer> newMap = map.without(new CollidingKey(3)).with(new CollidingKey(4), 40);
+		for (int i = 0; i < 10; i++) {
+			if (i != 1) {
+				newMap = newMap.without(new CollidingKey(i));
+			}
+		}
+
+		// assert
+		assertEquals(10, map.size());
+		assertEquals(4, map.get(new CollidingKey(4)));
+		assertEquals(1, newMap.size());
+		assertEquals(1, newMap.get(new CollidingKey(1)));
+	}
+
+	@Test
+	void testBuilderDoesNotChangeTheOriginalMap() {
+		// arrange
+		PersistentRecursiveMap<Integer, Integer> map = PersistentRecursiveMap.empty();
+		for (int i = 0; i < 1_000; i++) {
+			map = map.with(i, i);
+		}
+
+		// act
+		PersistentRecursiveMap.Builder<Integer, Integer> builder = map.toBuilder();
+		for (int i = 0; i < 1_000; i += 2) {
+			builder.remove(i);
+			builder.put(i + 1, -i);
+		}
+		PersistentRecursiveMap<Integer, Integer> newMap = builder.build();
+
+		// assert
+		assertEquals(1_000, map.size());
+		assertEquals(500, newMap.size());
+		for (int i = 0; i < 1_000; i++) {
+			assertEquals(i, map.get(i));
+			assertEquals(i % 2 == 0 ? null : (Integer) (1 - i), newMap.get(i));
+		}
+	}
+
+	@Test
+	void testBuilderCannotBeUsedAfterBuild() {
+		// arrange
+		PersistentRecursiveMap.Builder<Integer, Integer> builder = PersistentRecursiveMap.builder();
+		builder.put(1, 1);
+		PersistentRecursiveMap<Integer, Integer> map = builder.build();
+
+		// act
+
+		// assert
+		assertThrows(IllegalStateException.class, () -> builder.put(2, 2));
+		assertThrows(IllegalStateException.class, () -> builder.build());
+		assertEquals(1, map.size());
+		assertFalse(map.containsKey(2));
+	}
+
+	@Test
+	void testBuildersFromTheSameMapAreIndependent() {
+		// arrange
+		PersistentRecursiveMap<Integer, Integer> map = PersistentRecursiveMap.<Integer, Integer> builder()
+				.putAll(Map.of(1, 1, 2, 2, 3, 3))
+				.build();
+
+		// act
+		PersistentRecursiveMap<Integer, Integer> first = map.toBuilder().put(1, 10).remove(2).build();
+		PersistentRecursiveMap<Integer, Integer> second = map.toBuilder().put(1, 20).put(4, 4).build();
+
+		// assert
+		Set<Entry<Integer, Integer>> expectedFirst = Map.of(1, 10, 3, 3).entrySet();
+		Set<Entry<Integer, Integer>> expectedSecond = Map.of(1, 20, 2, 2, 3, 3, 4, 4).entrySet();
+		assertEquals(expectedFirst, first.entrySet());
+		assertEquals(expectedSecond, second.entrySet());
+		assertEquals(Map.of(1, 1, 2, 2, 3, 3).entrySet(), map.entrySet());
+	}
+
+	private static class CollidingKey {
+
+		final int id;
+
+		CollidingKey(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other != null && other.getClass() == this.getClass() && ((CollidingKey) other).id == this.id;
+		}
+
+		@Override
+		public int hashCode() {
+			return 42;
+		}
+	}
+
+}
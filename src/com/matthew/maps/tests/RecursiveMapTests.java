@@ -2,12 +2,23 @@ package com.matthew.maps.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
@@ -212,5 +223,425 @@ class RecursiveMapTests {
 		assertTrue(value2 == map.get(value2));
 		assertTrue(value3 == map.get(value3));
 	}
+	
+	@Test
+	void testManyEntries() {
+		// arrange
+		Map<String, Integer> map = new RecursiveMap<>();
+		int numberOfEntries = 10_000;
+		
+		// act
+		for (int i = 0; i < numberOfEntries; i++) {
+			map.put("key" + i, i);
+		}
+		
+		// assert
+		assertEquals(numberOfEntries, map.size());
+		for (int i = 0; i < numberOfEntries; i++) {
+			assertTrue(i == map.get("key" + i));
+		}
+		assertFalse(map.containsKey("key" + numberOfEntries));
+	}
+	
+	@Test
+	void testNegativeHashCodes() {
+		// arrange
+		Map<Integer, Integer> map = new RecursiveMap<>();
+		
+		// act
+		map.put(-1, 1);
+		map.put(Integer.MIN_VALUE, 2);
+		
+		// assert
+		assertEquals(2, map.size());
+		assertTrue(1 == map.get(-1));
+		assertTrue(2 == map.get(Integer.MIN_VALUE));
+		assertTrue(1 == map.remove(-1));
+		assertEquals(1, map.size());
+	}
+	
+	@Test
+	void testRemoveEverything() {
+		// arrange
+		Map<Integer, Integer> map = new RecursiveMap<>();
+		int numberOfEntries = 10_000;
+		for (int i = 0; i < numberOfEntries; i++) {
+			map.put(i, i);
+		}
+		
+		// act
+		for (int i = 0; i < numberOfEntries; i += 2) {
+			map.remove(i);
+		}
+		
+		// assert
+		assertEquals(numberOfEntries / 2, map.size());
+		assertEquals(numberOfEntries / 2, map.keySet().size());
+		for (int i = 0; i < numberOfEntries; i++) {
+			assertEquals(i % 2 != 0, map.containsKey(i));
+		}
+		
+		for (int i = 1; i < numberOfEntries; i += 2) {
+			map.remove(i);
+		}
+		assertTrue(map.isEmpty());
+		assertTrue(map.entrySet().isEmpty());
+	}
+	
+	@Test
+	void testCollidingComparableHashCodes() {
+		// arrange
+		Map<Object, Integer> map = new RecursiveMap<>();
+		int numberOfKeys = 5_000;
+		
+		// act
+		for (int i = 0; i < numberOfKeys; i++) {
+			map.put(new ComparableCollidingKey((i * 7919) % numberOfKeys), i);
+		}
+		for (int i = 0; i < numberOfKeys; i += 2) {
+			map.remove(new ComparableCollidingKey(i));
+		}
+		
+		// assert
+		assertEquals(numberOfKeys / 2, map.size());
+		for (int i = 0; i < numberOfKeys; i++) {
+			assertEquals(i % 2 != 0, map.containsKey(new ComparableCollidingKey(i)));
+		}
+	}
+	
+	@Test
+	void testCollidingHashCodes() {
+		// arrange
+		Map<Object, Integer> map = new RecursiveMap<>();
+		int numberOfKeys = 5_000;
+		
+		// act
+		for (int i = 0; i < numberOfKeys; i++) {
+			map.put(new CollidingKey(i), i);
+		}
+		map.put(42, 42); // an Integer is its own hashcode, so this one collides as well
+		map.put(43, 43);
+		for (int i = 0; i < numberOfKeys; i += 2) {
+			map.remove(new CollidingKey(i));
+		}
+		
+		// assert
+		assertEquals(numberOfKeys / 2 + 2, map.size());
+		assertTrue(42 == map.get(42));
+		assertTrue(43 == map.get(43));
+		for (int i = 0; i < numberOfKeys; i++) {
+			assertEquals(i % 2 == 0 ? null : i, map.get(new CollidingKey(i)));
+		}
+		
+		for (int i = 1; i < numberOfKeys; i += 2) {
+			map.remove(new CollidingKey(i));
+		}
+		map.remove(42);
+		assertEquals(1, map.size());
+		assertTrue(43 == map.get(43));
+	}
+	
+	@Test
+	void testValuesKeepsDuplicates() {
+		// arrange
+		Map<Integer, Integer> map = new RecursiveMap<>();
+		for (int i = 0; i < 100; i++) {
+			map.put(i, i % 10);
+		}
+
+		// act
+		Collection<Integer> values = map.values();
+
+		// assert
+		assertEquals(100, values.size());
+		int sum = 0;
+		for (int value : values) {
+			sum += value;
+		}
+		assertEquals(450, sum);
+	}
+
+	@Test
+	void testViewsAreLive() {
+		// arrange
+		Map<Integer, Integer> map = new RecursiveMap<>();
+		Set<Integer> keySet = map.keySet();
+		Set<Entry<Integer, Integer>> entrySet = map.entrySet();
+
+		// act
+		map.put(1, 1);
+		map.put(2, 2);
+		keySet.remove(1);
+
+		// assert
+		assertEquals(1, keySet.size());
+		assertEquals(Map.of(2, 2).entrySet(), entrySet);
+		assertFalse(map.containsKey(1));
+		assertTrue(entrySet.contains(Map.entry(2, 2)));
+		assertFalse(entrySet.contains(Map.entry(2, 3)));
+	}
+
+	@Test
+	void testIteratorRemove() {
+		// arrange
+		Map<Integer, Integer> map = new RecursiveMap<>();
+		int numberOfEntries = 10_000;
+		for (int i = 0; i < numberOfEntries; i++) {
+			map.put(i, i);
+		}
+
+		// act
+		int numberOfKeysSeen = 0;
+		for (Iterator<Integer> iterator = map.keySet().iterator(); iterator.hasNext();) {
+			if (iterator.next() % 2 == 0) {
+				iterator.remove();
+			}
+			numberOfKeysSeen++;
+		}
+
+		// assert
+		assertEquals(numberOfEntries, numberOfKeysSeen);
+		assertEquals(numberOfEntries / 2, map.size());
+		for (int i = 0; i < numberOfEntries; i++) {
+			assertEquals(i % 2 == 0 ? null : (Integer) i, map.get(i));
+		}
+	}
+
+	@Test
+	void testEntrySetValueWritesThrough() {
+		// arrange
+		Map<Integer, Integer> map = new RecursiveMap<>();
+		map.put(1, 1);
+
+		// act
+		map.entrySet().iterator().next().setValue(5);
+
+		// assert
+		assertEquals(5, map.get(1));
+	}
+
+	@Test
+	void testIteratorFailsFast() {
+		// arrange
+		Map<Integer, Integer> map = new RecursiveMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+		Iterator<Integer> iterator = map.keySet().iterator();
+		iterator.next();
+
+		// act
+		map.put(3, 3);
+
+		// assert
+		assertThrows(ConcurrentModificationException.class, () -> iterator.next());
+	}
+
+	@Test
+	void testIteratorRemoveCollidingHashCodes() {
+		// arrange
+		Map<Object, Integer> map = new RecursiveMap<>();
+		for (int i = 0; i < 100; i++) {
+			map.put(new CollidingKey(i), i);
+			map.put(i, i);
+		}
+
+		// act
+		int numberOfKeysSeen = 0;
+		for (Iterator<Integer> iterator = map.values().iterator(); iterator.hasNext();) {
+			iterator.next();
+			iterator.remove();
+			numberOfKeysSeen++;
+		}
+
+		// assert
+		assertEquals(200, numberOfKeysSeen);
+		assertTrue(map.isEmpty());
+		assertFalse(map.keySet().iterator().hasNext());
+	}
+
+	@Test
+	void testParallelStream() {
+		// arrange
+		Map<Integer, Integer> map = new RecursiveMap<>();
+		long expectedSum = 0;
+		for (int i = 0; i < 100_000; i++) {
+			map.put(i, i);
+			expectedSum += i;
+		}
+
+		// act
+		long sum = map.entrySet().parallelStream().mapToLong(Entry::getValue).sum();
+		long numberOfKeys = map.keySet().parallelStream().distinct().count();
+
+		// assert
+		assertEquals(expectedSum, sum);
+		assertEquals(100_000, numberOfKeys);
+	}
+
+	@Test
+	void testSpliteratorSplitsCoverEverything() {
+		// arrange
+		Map<Integer, Integer> map = new RecursiveMap<>();
+		for (int i = 0; i < 10_000; i++) {
+			map.put(i, i);
+		}
+		Spliterator<Integer> spliterator = map.keySet().spliterator();
+
+		// act
+		List<Spliterator<Integer>> parts = new ArrayList<>();
+		split(spliterator, parts, 6);
+		List<Integer> keys = new ArrayList<>();
+		for (Spliterator<Integer> part : parts) {
+			part.tryAdvance(keys::add);
+			part.forEachRemaining(keys::add);
+		}
+
+		// assert
+		assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+		assertTrue(parts.size() > 1);
+		assertEquals(10_000, keys.size());
+		assertEquals(10_000, new HashSet<>(keys).size());
+	}
+
+	@Test
+	void testSpliteratorIsSizedUntilSplit() {
+		// arrange
+		Map<Integer, Integer> map = new RecursiveMap<>();
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+		}
+		Spliterator<Integer> spliterator = map.values().spliterator();
+
+		// act
+		long sizeBeforeSplit = spliterator.getExactSizeIfKnown();
+		spliterator.trySplit();
+
+		// assert
+		assertEquals(1_000, sizeBeforeSplit);
+		assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+	}
+
+	@Test
+	void testBatchedGetAndPut() {
+		// arrange
+		RecursiveMap<Integer, Integer> map = new RecursiveMap<>();
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+			expected.put(i, i);
+		}
+		Random random = new Random(25);
+		Integer[] keys = new Integer[5_000];
+		Integer[] newValues = new Integer[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = random.nextInt(4_000) - 1_000;
+			newValues[i] = i;
+			expected.put(keys[i], i);
+		}
+		List<Integer> lookups = new ArrayList<>();
+		for (int i = 0; i < 3_000; i++) {
+			lookups.add(random.nextInt(6_000) - 2_000);
+		}
+		Integer[] smallArray = new Integer[10];
+		Integer[] bigArray = new Integer[lookups.size() + 1];
+		bigArray[lookups.size()] = -1;
+
+		// act
+		map.putAll(keys, newValues);
+		Integer[] grown = map.getAll(lookups, smallArray);
+		Integer[] reused = map.getAll(lookups, bigArray);
+
+		// assert
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected, new HashMap<>(map));
+		assertEquals(lookups.size(), grown.length);
+		assertSame(bigArray, reused);
+		assertEquals(-1, (int) reused[lookups.size()]);
+		for (int i = 0; i < lookups.size(); i++) {
+			assertEquals(expected.get(lookups.get(i)), grown[i]);
+			assertEquals(expected.get(lookups.get(i)), reused[i]);
+		}
+		assertThrows(IllegalArgumentException.class, () -> map.putAll(new Integer[1], new Integer[2]));
+	}
+
+	@Test
+	void testConcurrentBatchedGets() throws InterruptedException {
+		// arrange
+		RecursiveMap<Integer, Integer> map = new RecursiveMap<>();
+		for (int i = 0; i < 10_000; i++) {
+			map.put(i, i);
+		}
+		AtomicInteger wrongValues = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Random random = new Random(t);
+			threads.add(new Thread(() -> {
+				List<Integer> lookups = new ArrayList<>();
+				Integer[] values = new Integer[1_000];
+				for (int round = 0; round < 200; round++) {
+					lookups.clear();
+					for (int i = 0; i < values.length; i++) {
+						lookups.add(random.nextInt(10_000));
+					}
+					map.getAll(lookups, values);
+					for (int i = 0; i < values.length; i++) {
+						if (!lookups.get(i).equals(values[i])) {
+							wrongValues.incrementAndGet();
+						}
+					}
+				}
+			}));
+		}
+
+		// act
+		threads.forEach(Thread::start);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		// assert
+		assertEquals(0, wrongValues.get());
+	}
+
+	private static <T> void split(Spliterator<T> spliterator, List<Spliterator<T>> parts, int depth) {
+		Spliterator<T> prefix = depth == 0 ? null : spliterator.trySplit();
+		if (prefix == null) {
+			parts.add(spliterator);
+			return;
+		}
+		split(prefix, parts, depth - 1);
+		split(spliterator, parts, depth - 1);
+	}
+
+	private static class CollidingKey {
+		
+		final int id;
+		
+		CollidingKey(int id) {
+			this.id = id;
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			return other != null && other.getClass() == this.getClass() && ((CollidingKey) other).id == this.id;
+		}
+		
+		@Override
+		public int hashCode() {
+			return 42;
+		}
+	}
+	
+	private static final class ComparableCollidingKey extends CollidingKey implements Comparable<ComparableCollidingKey> {
+		
+		ComparableCollidingKey(int id) {
+			super(id);
+		}
+		
+		@Override
+		public int compareTo(ComparableCollidingKey other) {
+			return Integer.compare(this.id, other.id);
+		}
+	}
 
 }
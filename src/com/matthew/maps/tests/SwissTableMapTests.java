@@ -0,0 +1,356 @@
+package com.matthew.maps.tests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.matthew.maps.SwissTableMap;
+
+class SwissTableMapTests {
+
+	@Test
+	void testClear() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+
+		// act
+		map.clear();
+
+		// assert
+		assertEquals(0, map.size());
+		assertFalse(map.containsKey(1));
+	}
+
+	@Test
+	void testContainsKey() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+
+		// act
+
+		// assert
+		assertTrue(map.containsKey(1));
+		assertTrue(map.containsKey(2));
+		assertFalse(map.containsKey(3));
+	}
+
+	@Test
+	void testContainsValue() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		map.put(1, 5);
+		map.put(2, 6);
+
+		// act
+
+		// assert
+		assertTrue(map.containsValue(5));
+		assertTrue(map.containsValue(6));
+		assertFalse(map.containsValue(3));
+	}
+
+	@Test
+	void testEntrySet() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+
+		// act
+		Set<Entry<Integer, Integer>> entrySet = map.entrySet();
+
+		// assert
+		assertEquals(2, entrySet.size());
+		entrySet.forEach(entry -> assertTrue(entry.getKey() == 1 || entry.getKey() == 2));
+		entrySet.forEach(entry -> assertTrue(entry.getValue() == 1 || entry.getValue() == 2));
+	}
+
+	@Test
+	void testGet() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		map.put(1, 1);
+		map.put(2, 4);
+
+		// act
+
+		// assert
+		assertTrue(1 == map.get(1));
+		assertTrue(4 == map.get(2));
+	}
+
+	@Test
+	void testIsEmpty() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		
+		// act
+		
+		// assert
+		assertTrue(map.isEmpty());
+		map.put(1, 1);		
+		assertFalse(map.isEmpty());
+	}
+
+	@Test
+	void testKeySet() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		map.put(1, 1);
+		map.put(2, 4);
+		
+		// act
+		Set<Integer> keySet = map.keySet();
+		
+		// assert
+		assertEquals(2, keySet.size());
+		keySet.forEach(key -> assertTrue(key == 1 || key == 2));
+	}
+
+	@Test
+	void testPut() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		map.put(1, 1);
+		
+		// act
+		map.put(2, 2);
+		map.put(1, 5);
+		
+		// assert
+		assertEquals(2, map.size());
+		assertTrue(5 == map.get(1));
+		assertTrue(2 == map.get(2));
+	}
+
+	@Test
+	void testPutAll() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+
+		// act
+		map.putAll(Map.of(1, 1, 2, 2, 3, 3, 4, 4));
+		
+		// assert
+		assertEquals(4, map.size());
+		assertTrue(1 == map.get(1));
+		assertTrue(2 == map.get(2));
+		assertTrue(3 == map.get(3));
+		assertTrue(4 == map.get(4));
+	}
+
+	@Test
+	void testRemove() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+		
+		// act
+		map.remove(1);
+		
+		// assert
+		assertEquals(1, map.size());
+		assertTrue(2 == map.get(2));
+		assertFalse(map.containsKey(1));
+		assertFalse(map.containsValue(1));
+	}
+
+	@Test
+	void testSize() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		map.put(1, 1);
+		map.put(2, 2);
+		
+		// act
+		
+		// assert
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	void testValues() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		map.put(1, 1);
+		map.put(2, 4);
+		
+		// act
+		Collection<Integer> values = map.values();
+		
+		// assert
+		values.forEach(value -> assertTrue(value == 1 || value == 4));
+	}
+	
+	@Test
+	void testManyEntries() {
+		// arrange
+		Map<String, Integer> map = new SwissTableMap<>();
+		int numberOfEntries = 10_000;
+		
+		// act
+		for (int i = 0; i < numberOfEntries; i++) {
+			map.put("key" + i, i);
+		}
+		
+		// assert
+		assertEquals(numberOfEntries, map.size());
+		for (int i = 0; i < numberOfEntries; i++) {
+			assertTrue(i == map.get("key" + i));
+		}
+		assertFalse(map.containsKey("key" + numberOfEntries));
+	}
+	
+	@Test
+	void testNegativeHashCodes() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		
+		// act
+		map.put(-1, 1);
+		map.put(Integer.MIN_VALUE, 2);
+		
+		// assert
+		assertEquals(2, map.size());
+		assertTrue(1 == map.get(-1));
+		assertTrue(2 == map.get(Integer.MIN_VALUE));
+		assertTrue(1 == map.remove(-1));
+		assertEquals(1, map.size());
+	}
+	
+	@Test
+	void testRemoveAndReuseDeletedSlots() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>(2, 0.875d);
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+		
+		// act
+		for (int i = 0; i < 100_000; i++) {
+			int key = random.nextInt(1_000);
+			if (random.nextBoolean()) {
+				assertEquals(expected.put(key, i), map.put(key, i));
+			} else {
+				assertEquals(expected.remove(key), map.remove(key));
+			}
+		}
+		
+		// assert
+		assertEquals(expected.size(), map.size());
+		for (int key = 0; key < 1_000; key++) {
+			assertEquals(expected.get(key), map.get(key));
+		}
+	}
+	
+	@Test
+	void testIteratorRemove() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>(2, 0.875d);
+		for (int i = 0; i < 1_000; i++) {
+			map.put(i, i);
+		}
+		
+		// act
+		Set<Integer> seen = new HashSet<>();
+		Iterator<Integer> iterator = map.keySet().iterator();
+		while (iterator.hasNext()) {
+			int key = iterator.next();
+			assertTrue(seen.add(key));
+			if (key % 2 == 0) {
+				iterator.remove();
+			}
+		}
+		
+		// assert
+		assertEquals(1_000, seen.size());
+		assertEquals(500, map.size());
+		for (int i = 0; i < 1_000; i++) {
+			assertEquals(i % 2 != 0, map.containsKey(i));
+		}
+	}
+	
+	@Test
+	void testNullValues() {
+		// arrange
+		Map<Integer, Integer> map = new SwissTableMap<>();
+		
+		// act
+		map.put(1, null);
+		
+		// assert
+		assertEquals(1, map.size());
+		assertTrue(map.containsKey(1));
+		assertTrue(map.containsValue(null));
+		assertEquals(null, map.get(1));
+	}
+	
+	@Test
+	void testInvalidLoadFactor() {
+		// arrange
+		
+		// act
+		
+		// assert
+		assertThrows(IllegalArgumentException.class, () -> new SwissTableMap<>(32, 0.0d));
+		assertThrows(IllegalArgumentException.class, () -> new SwissTableMap<>(32, 0.9d));
+		assertThrows(IllegalArgumentException.class, () -> new SwissTableMap<>(32, Double.NaN));
+	}
+	
+	@Test
+	void testCollidingHashCodes() {
+		// arrange
+		Map<CollidingKey, Integer> map = new SwissTableMap<>();
+		int numberOfKeys = 1_000;
+		
+		// act
+		for (int i = 0; i < numberOfKeys; i++) {
+			map.put(new CollidingKey(i), i);
+		}
+		for (int i = 0; i < numberOfKeys; i += 2) {
+			map.remove(new CollidingKey(i));
+		}
+		
+		// assert
+		assertEquals(numberOfKeys / 2, map.size());
+		for (int i = 0; i < numberOfKeys; i++) {
+			assertEquals(i % 2 == 0 ? null : i, map.get(new CollidingKey(i)));
+		}
+	}
+	
+	private static final class CollidingKey {
+		
+		private final int id;
+		
+		CollidingKey(int id) {
+			this.id = id;
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof CollidingKey && ((CollidingKey) other).id == this.id;
+		}
+		
+		@Override
+		public int hashCode() {
+			return 42;
+		}
+	}
+
+}
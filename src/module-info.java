@@ -6,4 +6,5 @@ module com.matthew.datastructures {
 	exports com.matthew.maps;
 
 	requires org.junit.jupiter.api;
+	requires org.junit.jupiter.params;
 }
\ No newline at end of file